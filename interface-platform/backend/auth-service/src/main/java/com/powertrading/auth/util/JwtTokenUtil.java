@@ -5,7 +5,9 @@ import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -24,7 +26,7 @@ import java.util.UUID;
 @Component
 public class JwtTokenUtil {
 
-    @Value("${jwt.secret}")
+    @Value("${jwt.secret:}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
@@ -36,6 +38,17 @@ public class JwtTokenUtil {
     @Value("${jwt.issuer}")
     private String jwtIssuer;
 
+    /**
+     * 校验签名密钥已配置，未配置时启动失败并提示配置方式
+     */
+    @PostConstruct
+    public void validateSecret() {
+        if (!StringUtils.hasText(jwtSecret)) {
+            throw new IllegalStateException(
+                    "未配置jwt.secret：请通过环境变量JWT_SECRET提供至少32字节的签名密钥，网关需使用相同的密钥");
+        }
+    }
+
     /**
      * 生成访问Token
      */
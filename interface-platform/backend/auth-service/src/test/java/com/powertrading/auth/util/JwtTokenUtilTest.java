@@ -292,4 +292,18 @@ class JwtTokenUtilTest {
             );
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void testValidateSecretWithMissingSecret() {
+        ReflectionTestUtils.setField(jwtTokenUtil, "jwtSecret", "");
+
+        // 未配置签名密钥时启动失败，并提示通过JWT_SECRET配置
+        IllegalStateException exception = assertThrows(IllegalStateException.class, jwtTokenUtil::validateSecret);
+        assertTrue(exception.getMessage().contains("JWT_SECRET"));
+    }
+
+    @Test
+    void testValidateSecretWithConfiguredSecret() {
+        assertDoesNotThrow(jwtTokenUtil::validateSecret);
+    }
+}
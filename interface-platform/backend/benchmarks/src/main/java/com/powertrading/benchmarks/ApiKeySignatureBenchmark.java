@@ -0,0 +1,75 @@
+package com.powertrading.benchmarks;
+
+import com.powertrading.auth.dto.ApiKeyValidateRequest;
+import com.powertrading.auth.service.ApiKeyService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API Key签名校验基准测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ApiKeySignatureBenchmark {
+
+    private static final String SECRET_KEY = "k3Jf8sLq0VwZr1YtPb6NcXe2HdUa9GmO";
+
+    private ApiKeyService apiKeyService;
+
+    private Method validateSignature;
+
+    private Method calculateHmacSha256;
+
+    private ApiKeyValidateRequest request;
+
+    private String signString;
+
+    @Setup
+    public void setUp() throws Exception {
+        apiKeyService = new ApiKeyService();
+        validateSignature = BenchmarkSupport.method(ApiKeyService.class, "validateSignature",
+            ApiKeyValidateRequest.class, String.class);
+        calculateHmacSha256 = BenchmarkSupport.method(ApiKeyService.class, "calculateHmacSha256",
+            String.class, String.class);
+
+        request = new ApiKeyValidateRequest();
+        request.setAppId("app_1700000000000");
+        request.setApiKey("ak_9f86d081884c7d659a2feaa0c55ad015");
+        request.setTimestamp(1700000000000L);
+        request.setNonce("b1946ac92492d2347c6235b4d2611184");
+        request.setRequestMethod("POST");
+        request.setRequestPath("/api/v1/interfaces/spot-clearing/execute");
+
+        signString = request.getAppId() + request.getApiKey() + request.getTimestamp() + request.getNonce()
+            + request.getRequestMethod() + request.getRequestPath();
+        request.setSignature((String) BenchmarkSupport.invoke(calculateHmacSha256, apiKeyService, signString, SECRET_KEY));
+    }
+
+    @Benchmark
+    public Object validateSignature() throws Exception {
+        return BenchmarkSupport.invoke(validateSignature, apiKeyService, request, SECRET_KEY);
+    }
+
+    @Benchmark
+    public Object calculateHmacSha256() throws Exception {
+        return BenchmarkSupport.invoke(calculateHmacSha256, apiKeyService, signString, SECRET_KEY);
+    }
+}
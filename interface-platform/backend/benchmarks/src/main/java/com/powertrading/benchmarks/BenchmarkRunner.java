@@ -0,0 +1,44 @@
+package com.powertrading.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 基准测试入口
+ * 接受JMH标准命令行参数；未指定-rf/-rff时结果以JSON格式写入
+ * jmh-results/jmh-result-yyyyMMdd-HHmmss.json，便于不同版本间对比
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+public final class BenchmarkRunner {
+
+    private static final String RESULT_DIR = "jmh-results";
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+
+        if (!commandLine.getResultFormat().hasValue() && !commandLine.getResult().hasValue()) {
+            File dir = new File(RESULT_DIR);
+            if (!dir.exists() && !dir.mkdirs()) {
+                throw new IllegalStateException("无法创建结果目录: " + dir.getAbsolutePath());
+            }
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            options.resultFormat(ResultFormatType.JSON)
+                   .result(new File(dir, "jmh-result-" + timestamp + ".json").getPath());
+        }
+
+        new Runner(options.build()).run();
+    }
+}
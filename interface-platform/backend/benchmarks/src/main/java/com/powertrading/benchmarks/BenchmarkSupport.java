@@ -0,0 +1,59 @@
+package com.powertrading.benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * 基准测试辅助工具
+ * 被测的热点方法多为私有方法，通过反射在Setup阶段解析一次后重复调用
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 设置对象字段，替代Spring的@Value/@Autowired注入
+     */
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("设置字段失败: " + name, e);
+        }
+    }
+
+    /**
+     * 获取可访问的声明方法
+     */
+    static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            Method method = type.getDeclaredMethod(name, parameterTypes);
+            method.setAccessible(true);
+            return method;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("方法不存在: " + type.getSimpleName() + "." + name, e);
+        }
+    }
+
+    /**
+     * 调用方法并展开InvocationTargetException
+     */
+    static Object invoke(Method method, Object target, Object... args) throws Exception {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+}
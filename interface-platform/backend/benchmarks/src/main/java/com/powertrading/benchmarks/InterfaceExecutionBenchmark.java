@@ -0,0 +1,93 @@
+package com.powertrading.benchmarks;
+
+import com.powertrading.interfaces.entity.Interface;
+import com.powertrading.interfaces.entity.InterfaceParameter;
+import com.powertrading.interfaces.service.InterfaceExecutionPlan;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口执行SQL构建基准测试
+ * 覆盖执行计划的参数校验与绑定参数生成，以及执行计划编译本身的开销
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterfaceExecutionBenchmark {
+
+    private static final String SQL_TEMPLATE =
+        "SELECT unit_name, clearing_price, clearing_volume FROM spot_market_clearing " +
+        "WHERE data_time >= {startTime} AND data_time <= {endTime} " +
+        "AND unit_name = {unitName} AND capacity > {capacity} ORDER BY data_time DESC LIMIT 1000";
+
+    private Interface interfaceInfo;
+
+    private InterfaceExecutionPlan plan;
+
+    private Map<String, Object> requestParams;
+
+    private List<InterfaceParameter> parameters;
+
+    @Setup
+    public void setUp() {
+        interfaceInfo = new Interface();
+        interfaceInfo.setId("bench-interface");
+        interfaceInfo.setInterfaceName("现货出清结果查询");
+        interfaceInfo.setDataSourceId("1");
+        interfaceInfo.setSqlTemplate(SQL_TEMPLATE);
+
+        requestParams = new HashMap<>();
+        requestParams.put("startTime", "2024-01-01 00:00:00");
+        requestParams.put("endTime", "2024-01-31 23:59:59");
+        requestParams.put("unitName", "华能电厂1号机组");
+        requestParams.put("capacity", 300);
+
+        parameters = new ArrayList<>();
+        parameters.add(parameter("startTime", "datetime"));
+        parameters.add(parameter("endTime", "datetime"));
+        parameters.add(parameter("unitName", "string"));
+        parameters.add(parameter("capacity", "integer"));
+        parameters.get(2).setValidationRule("length:1-64,regex:^[\\u4e00-\\u9fa5A-Za-z0-9_-]+$");
+
+        plan = InterfaceExecutionPlan.compile(interfaceInfo, parameters);
+    }
+
+    @Benchmark
+    public Object validateAndBind() {
+        plan.validate(requestParams);
+        return plan.bind(requestParams);
+    }
+
+    @Benchmark
+    public InterfaceExecutionPlan compilePlan() {
+        return InterfaceExecutionPlan.compile(interfaceInfo, parameters);
+    }
+
+    private static InterfaceParameter parameter(String name, String type) {
+        InterfaceParameter parameter = new InterfaceParameter();
+        parameter.setParamName(name);
+        parameter.setParamType(type);
+        parameter.setRequired(true);
+        return parameter;
+    }
+}
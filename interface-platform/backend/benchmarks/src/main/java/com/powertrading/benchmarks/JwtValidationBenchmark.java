@@ -0,0 +1,53 @@
+package com.powertrading.benchmarks;
+
+import com.powertrading.auth.util.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT校验基准测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationBenchmark {
+
+    private JwtTokenUtil jwtTokenUtil;
+
+    private String accessToken;
+
+    @Setup
+    public void setUp() {
+        jwtTokenUtil = new JwtTokenUtil();
+        BenchmarkSupport.setField(jwtTokenUtil, "jwtSecret", "powerTradingInterfacePlatformJwtSecretKey2024");
+        BenchmarkSupport.setField(jwtTokenUtil, "jwtExpiration", 3600L);
+        BenchmarkSupport.setField(jwtTokenUtil, "jwtRefreshExpiration", 86400L);
+        BenchmarkSupport.setField(jwtTokenUtil, "jwtIssuer", "PowerTrading-Interface-Platform");
+
+        accessToken = jwtTokenUtil.generateAccessToken("10001", "trader01", "电力交易中心",
+            Arrays.asList("USER", "TRADER"), Arrays.asList("interface:read", "interface:execute"));
+    }
+
+    @Benchmark
+    public Claims validateToken() {
+        return jwtTokenUtil.validateToken(accessToken);
+    }
+}
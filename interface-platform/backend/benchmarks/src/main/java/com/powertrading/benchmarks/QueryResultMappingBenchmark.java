@@ -0,0 +1,105 @@
+package com.powertrading.benchmarks;
+
+import com.powertrading.datasource.engine.ColumnarQueryResult;
+import com.powertrading.datasource.engine.QueryExecutionEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询结果映射基准测试
+ * 以H2内存库替代业务数据库，对比按行Map映射与列式映射
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryResultMappingBenchmark {
+
+    private static final String SELECT_SQL =
+        "SELECT id, unit_name, clearing_price, clearing_volume, enabled, data_time FROM spot_market_clearing";
+
+    @Param({"100", "10000"})
+    private int rowCount;
+
+    private Connection connection;
+
+    private QueryExecutionEngine engine;
+
+    private Method buildQueryResult;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:benchmark_" + rowCount + ";DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS spot_market_clearing");
+            stmt.execute("CREATE TABLE spot_market_clearing (id BIGINT PRIMARY KEY, unit_name VARCHAR(64), " +
+                "clearing_price DOUBLE, clearing_volume INTEGER, enabled BOOLEAN, data_time TIMESTAMP)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO spot_market_clearing VALUES (?, ?, ?, ?, ?, ?)")) {
+            long baseTime = Timestamp.valueOf("2024-01-01 00:00:00").getTime();
+            for (int i = 0; i < rowCount; i++) {
+                insert.setLong(1, i);
+                insert.setString(2, "机组-" + (i % 64));
+                insert.setDouble(3, 300 + (i % 500) * 0.37);
+                insert.setInt(4, i % 1000);
+                insert.setBoolean(5, i % 3 != 0);
+                insert.setTimestamp(6, new Timestamp(baseTime + i * 900_000L));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+
+        engine = new QueryExecutionEngine();
+        buildQueryResult = BenchmarkSupport.method(QueryExecutionEngine.class, "buildQueryResult", ResultSet.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE spot_market_clearing");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public Object buildQueryResult() throws Exception {
+        try (PreparedStatement stmt = connection.prepareStatement(SELECT_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            return BenchmarkSupport.invoke(buildQueryResult, engine, rs);
+        }
+    }
+
+    @Benchmark
+    public ColumnarQueryResult readColumnar() throws Exception {
+        try (PreparedStatement stmt = connection.prepareStatement(SELECT_SQL);
+             ResultSet rs = stmt.executeQuery()) {
+            return ColumnarQueryResult.read(rs, 0);
+        }
+    }
+}
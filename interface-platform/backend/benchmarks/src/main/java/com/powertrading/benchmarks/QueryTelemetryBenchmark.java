@@ -0,0 +1,79 @@
+package com.powertrading.benchmarks;
+
+import com.powertrading.datasource.engine.BoundSql;
+import com.powertrading.datasource.engine.QueryTrace;
+import com.powertrading.datasource.monitor.DataSourceMonitorService;
+import com.powertrading.datasource.monitor.PerformanceAnalysisService;
+import com.powertrading.datasource.monitor.QueryTelemetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询遥测记录基准测试
+ * 只测量指标写入开销，监控汇总服务保持关闭；可配合 -prof gc 确认记录路径不分配对象
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryTelemetryBenchmark {
+
+    private QueryTelemetry telemetry;
+
+    private QueryTrace trace;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        DataSourceMonitorService monitorService = new DataSourceMonitorService();
+        BenchmarkSupport.setField(monitorService, "monitorEnabled", false);
+        PerformanceAnalysisService performanceService = new PerformanceAnalysisService();
+        BenchmarkSupport.setField(performanceService, "monitorEnabled", false);
+
+        telemetry = new QueryTelemetry();
+        BenchmarkSupport.setField(telemetry, "meterRegistry", new SimpleMeterRegistry());
+        BenchmarkSupport.setField(telemetry, "dataSourceMonitorService", monitorService);
+        BenchmarkSupport.setField(telemetry, "performanceAnalysisService", performanceService);
+        BenchmarkSupport.setField(telemetry, "telemetryEnabled", true);
+        BenchmarkSupport.setField(telemetry, "percentiles", new double[]{0.5, 0.95, 0.99});
+        BenchmarkSupport.setField(telemetry, "maxInterfaceMeters", 500);
+
+        trace = new QueryTrace(1L, new BoundSql("SELECT 1", Collections.emptyList()).forInterface("bench"));
+        BenchmarkSupport.invoke(BenchmarkSupport.method(QueryTrace.class, "begin"), trace);
+        BenchmarkSupport.invoke(BenchmarkSupport.method(QueryTrace.class, "connectionAcquired"), trace);
+        BenchmarkSupport.invoke(BenchmarkSupport.method(QueryTrace.class, "statementExecuted"), trace);
+        BenchmarkSupport.invoke(BenchmarkSupport.method(QueryTrace.class, "completed", int.class, long.class),
+            trace, 100, 4096L);
+        trace.finish();
+        telemetry.record(trace);
+    }
+
+    @Benchmark
+    public void record() {
+        telemetry.record(trace);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void recordContended() {
+        telemetry.record(trace);
+    }
+}
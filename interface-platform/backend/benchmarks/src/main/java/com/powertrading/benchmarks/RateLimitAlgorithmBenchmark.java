@@ -0,0 +1,170 @@
+package com.powertrading.benchmarks;
+
+import com.powertrading.gateway.ratelimit.RateLimitAlgorithm;
+import org.luaj.vm2.LuaValue;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网关限流算法基准测试
+ * 在内存中的Redis替身上执行网关的限流脚本，请求以两倍限额的速率到达：
+ * evaluate只测量单次脚本执行的开销；evaluateWithAccuracy额外以精确的滑动窗口为基准统计
+ * overLimit（放行时最近一个窗口内已放行limit个请求）和falseRejects（拒绝时最近一个窗口内未满limit），
+ * 两项以次数形式随结果输出；每组参数结束时打印限流key占用的元素数和数据字节数
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimitAlgorithmBenchmark {
+
+    private static final String KEY = "rate_limit:default:global";
+
+    private static final long WINDOW_MILLIS = TimeUnit.SECONDS.toMillis(60);
+
+    @Param({"SLIDING_LOG", "SLIDING_WINDOW", "GCRA", "TOKEN_BUCKET"})
+    private RateLimitAlgorithm algorithm;
+
+    /**
+     * 窗口内允许的请求数
+     */
+    @Param({"100", "10000"})
+    private int limit;
+
+    /**
+     * 到达模式：STEADY为均匀到达，BURSTY为每个窗口的前10%集中到达
+     */
+    @Param({"STEADY", "BURSTY"})
+    private String traffic;
+
+    private EmbeddedRedisStandIn redis;
+
+    private LuaValue script;
+
+    private String redisKey;
+
+    private String[] args;
+
+    private SplittableRandom random;
+
+    private long nowMicros;
+
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp(Accuracy accuracy) {
+        redis = new EmbeddedRedisStandIn();
+        script = redis.load(algorithm.getScriptText());
+        redisKey = algorithm.redisKey(KEY);
+        args = new String[]{String.valueOf(TimeUnit.MILLISECONDS.toSeconds(WINDOW_MILLIS)), String.valueOf(limit),
+            null, null, "0", "1", "0", "0"};
+        random = new SplittableRandom(42);
+        nowMicros = TimeUnit.MILLISECONDS.toMicros(1700000000000L);
+
+        // 先运行两个窗口，使各算法的状态和精度基准的放行记录进入稳态
+        long warmUntil = nowMicros + TimeUnit.MILLISECONDS.toMicros(2 * WINDOW_MILLIS);
+        while (nowMicros < warmUntil) {
+            evaluateWithAccuracy(accuracy);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%n%s limit=%d traffic=%s: elements=%d, payloadBytes=%d%n", algorithm, limit, traffic,
+            redis.elements(redisKey), redis.payloadBytes(redisKey));
+    }
+
+    @Benchmark
+    public long evaluate() {
+        advanceClock();
+        return execute();
+    }
+
+    @Benchmark
+    public long evaluateWithAccuracy(Accuracy accuracy) {
+        advanceClock();
+        long allowed = execute();
+        accuracy.record(TimeUnit.MICROSECONDS.toMillis(nowMicros), allowed == 1, limit);
+        return allowed;
+    }
+
+    private long execute() {
+        long nowMillis = TimeUnit.MICROSECONDS.toMillis(nowMicros);
+        redis.setTime(nowMillis);
+        args[2] = String.valueOf(nowMillis);
+        args[3] = "bench:" + (++sequence);
+        return redis.eval(script, redisKey, args)[0];
+    }
+
+    /**
+     * 按到达模式推进虚拟时钟，平均每个窗口到达2*limit个请求
+     */
+    private void advanceClock() {
+        long windowMicros = TimeUnit.MILLISECONDS.toMicros(WINDOW_MILLIS);
+        if ("BURSTY".equals(traffic)) {
+            long burstMicros = windowMicros / 10;
+            nowMicros += 1 + random.nextLong(2 * burstMicros / (2L * limit));
+            long offset = nowMicros % windowMicros;
+            if (offset >= burstMicros) {
+                nowMicros += windowMicros - offset;
+            }
+        } else {
+            nowMicros += 1 + random.nextLong(2 * windowMicros / (2L * limit));
+        }
+    }
+
+    /**
+     * 与精确滑动窗口比较的判定偏差
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Accuracy {
+
+        public long overLimit;
+
+        public long falseRejects;
+
+        private final ArrayDeque<Long> admitted = new ArrayDeque<>();
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            overLimit = 0;
+            falseRejects = 0;
+        }
+
+        void record(long nowMillis, boolean allowed, int limit) {
+            while (!admitted.isEmpty() && admitted.peekFirst() <= nowMillis - WINDOW_MILLIS) {
+                admitted.pollFirst();
+            }
+            if (allowed) {
+                if (admitted.size() >= limit) {
+                    overLimit++;
+                }
+                admitted.addLast(nowMillis);
+            } else if (admitted.size() < limit) {
+                falseRejects++;
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.powertrading.benchmarks;
+
+import com.powertrading.interfaces.dto.InterfaceGenerationRequest;
+import com.powertrading.interfaces.utils.SqlTemplateGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL模板生成基准测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlTemplateBenchmark {
+
+    private static final String[][] PARAMETER_SHAPES = {
+        {"startTime", "datetime"},
+        {"endTime", "datetime"},
+        {"unitName", "string"},
+        {"marketType", "string"},
+        {"capacity", "number"},
+        {"dataTime", "date"},
+        {"enabled", "boolean"},
+        {"areaCode", "integer"}
+    };
+
+    /**
+     * 参与WHERE条件的参数数量
+     */
+    @Param({"2", "8"})
+    private int parameterCount;
+
+    private SqlTemplateGenerator generator;
+
+    private List<InterfaceGenerationRequest.ParameterConfiguration> parameters;
+
+    @Setup
+    public void setUp() {
+        generator = new SqlTemplateGenerator();
+        parameters = new ArrayList<>(parameterCount);
+        for (int i = 0; i < parameterCount; i++) {
+            InterfaceGenerationRequest.ParameterConfiguration parameter =
+                new InterfaceGenerationRequest.ParameterConfiguration();
+            parameter.setParamName(PARAMETER_SHAPES[i][0]);
+            parameter.setParamType(PARAMETER_SHAPES[i][1]);
+            parameter.setRequired(true);
+            parameters.add(parameter);
+        }
+    }
+
+    @Benchmark
+    public String generateSqlTemplate() {
+        return generator.generateSqlTemplate("spot_market_clearing", parameters);
+    }
+
+    @Benchmark
+    public String generatePagedSqlTemplate() {
+        return generator.generatePagedSqlTemplate("spot_market_clearing", parameters);
+    }
+
+    @Benchmark
+    public String generateCountSqlTemplate() {
+        return generator.generateCountSqlTemplate("spot_market_clearing", parameters);
+    }
+}
@@ -0,0 +1,185 @@
+package com.powertrading.datasource.async;
+
+import com.powertrading.datasource.engine.ColumnarQueryResult;
+import com.powertrading.datasource.engine.QueryExecutionEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Future;
+
+/**
+ * 异步查询任务
+ * 状态只沿 PENDING → RUNNING → SUCCEEDED/FAILED/CANCELLED 单向迁移；
+ * 执行期间登记正在运行的语句，取消时对其调用{@link Statement#cancel()}
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+public class AsyncQueryJob implements QueryExecutionEngine.StatementListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncQueryJob.class);
+
+    public enum Status {
+        PENDING, RUNNING, SUCCEEDED, FAILED, CANCELLED;
+
+        public boolean isFinished() {
+            return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+        }
+    }
+
+    private final String jobId;
+
+    private final Long dataSourceId;
+
+    private final String sql;
+
+    /**
+     * 语句超时时间（秒），覆盖同步查询的超时设置
+     */
+    private final int timeoutSeconds;
+
+    private final long submittedAt = System.currentTimeMillis();
+
+    private volatile Status status = Status.PENDING;
+
+    private volatile long startedAt;
+
+    private volatile long finishedAt;
+
+    private volatile String errorMessage;
+
+    private volatile ColumnarQueryResult result;
+
+    private volatile Statement statement;
+
+    private volatile boolean cancelRequested;
+
+    private volatile Future<?> future;
+
+    AsyncQueryJob(String jobId, Long dataSourceId, String sql, int timeoutSeconds) {
+        this.jobId = jobId;
+        this.dataSourceId = dataSourceId;
+        this.sql = sql;
+        this.timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * 开始执行，任务已被取消时返回false
+     */
+    synchronized boolean start() {
+        if (status != Status.PENDING) {
+            return false;
+        }
+        status = Status.RUNNING;
+        startedAt = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * 执行成功，执行期间收到取消请求时丢弃结果
+     */
+    synchronized void complete(ColumnarQueryResult queryResult) {
+        if (status != Status.RUNNING) {
+            return;
+        }
+        if (cancelRequested) {
+            finish(Status.CANCELLED, "查询已取消");
+        } else {
+            result = queryResult;
+            finish(Status.SUCCEEDED, null);
+        }
+    }
+
+    /**
+     * 执行失败，由取消引起的失败记为已取消
+     */
+    synchronized void fail(String message) {
+        if (status != Status.RUNNING) {
+            return;
+        }
+        if (cancelRequested) {
+            finish(Status.CANCELLED, "查询已取消");
+        } else {
+            finish(Status.FAILED, message);
+        }
+    }
+
+    /**
+     * 取消任务
+     * 排队中的任务直接取消；执行中的任务取消正在运行的语句，状态在执行线程退出时更新
+     *
+     * @return 任务已结束时返回false
+     */
+    boolean cancel() {
+        Statement running;
+        synchronized (this) {
+            if (status == Status.PENDING) {
+                finish(Status.CANCELLED, "查询已取消");
+                Future<?> pending = future;
+                if (pending != null) {
+                    pending.cancel(false);
+                }
+                return true;
+            }
+            if (status != Status.RUNNING) {
+                return false;
+            }
+            cancelRequested = true;
+            running = statement;
+        }
+        if (running != null) {
+            try {
+                running.cancel();
+            } catch (SQLException e) {
+                logger.warn("取消异步查询语句失败: jobId={}, error={}", jobId, e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void beforeExecute(Statement stmt) throws SQLException {
+        synchronized (this) {
+            if (cancelRequested) {
+                throw new SQLException("查询已取消");
+            }
+            statement = stmt;
+        }
+        if (timeoutSeconds > 0) {
+            stmt.setQueryTimeout(timeoutSeconds);
+        }
+    }
+
+    @Override
+    public void afterExecute(Statement stmt) {
+        statement = null;
+    }
+
+    /**
+     * 结果是否已过保留期
+     */
+    boolean isExpired(long now, long resultTtl) {
+        return status.isFinished() && now - finishedAt > resultTtl;
+    }
+
+    private void finish(Status finalStatus, String message) {
+        status = finalStatus;
+        errorMessage = message;
+        finishedAt = System.currentTimeMillis();
+        statement = null;
+    }
+
+    void setFuture(Future<?> future) { this.future = future; }
+
+    public String getJobId() { return jobId; }
+    public Long getDataSourceId() { return dataSourceId; }
+    public String getSql() { return sql; }
+    public Status getStatus() { return status; }
+    public long getSubmittedAt() { return submittedAt; }
+    public long getStartedAt() { return startedAt; }
+    public long getFinishedAt() { return finishedAt; }
+    public String getErrorMessage() { return errorMessage; }
+    public ColumnarQueryResult getResult() { return result; }
+}
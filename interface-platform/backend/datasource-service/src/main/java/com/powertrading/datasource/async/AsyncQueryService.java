@@ -0,0 +1,328 @@
+package com.powertrading.datasource.async;
+
+import com.powertrading.datasource.engine.BoundSql;
+import com.powertrading.datasource.engine.ColumnarQueryResult;
+import com.powertrading.datasource.engine.QueryExecutionEngine;
+import com.powertrading.datasource.exception.DataSourceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 异步查询服务
+ * 耗时较长的分析查询在独立的有界线程池中执行，不占用公共线程池和同步查询线程；
+ * 任务登记在内存注册表中，客户端按任务ID查询状态、分页读取结果或取消执行，
+ * 结束的任务在保留期后连同结果一起清除
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@Service
+public class AsyncQueryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncQueryService.class);
+
+    @Autowired
+    private QueryExecutionEngine queryExecutionEngine;
+
+    @Value("${datasource.async-query.pool-size:4}")
+    private int poolSize;
+
+    @Value("${datasource.async-query.queue-capacity:50}")
+    private int queueCapacity;
+
+    /**
+     * 注册表中最多保留的任务数（含已结束未过期的任务）
+     */
+    @Value("${datasource.async-query.max-jobs:500}")
+    private int maxJobs;
+
+    @Value("${datasource.async-query.max-rows:100000}")
+    private int maxRows;
+
+    @Value("${datasource.async-query.timeout:600000}")
+    private long timeout;
+
+    /**
+     * 结束任务的结果保留时间（毫秒）
+     */
+    @Value("${datasource.async-query.result-ttl:600000}")
+    private long resultTtl;
+
+    @Value("${datasource.async-query.max-page-size:5000}")
+    private int maxPageSize;
+
+    private final Map<String, AsyncQueryJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity), r -> {
+                Thread thread = new Thread(r, "async-query-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        jobs.values().forEach(AsyncQueryJob::cancel);
+        executor.shutdownNow();
+    }
+
+    /**
+     * 提交异步查询
+     * SQL校验在提交时完成；线程池队列已满或任务数达到上限时拒绝提交
+     *
+     * @param dataSourceId 数据源ID
+     * @param boundSql 已绑定的SQL
+     * @return 任务信息
+     * @throws DataSourceException SQL校验失败
+     * @throws RejectedExecutionException 任务过多
+     */
+    public JobInfo submit(Long dataSourceId, BoundSql boundSql) throws DataSourceException {
+        queryExecutionEngine.validateQuery(boundSql);
+
+        if (jobs.size() >= maxJobs) {
+            evictExpiredJobs();
+            if (jobs.size() >= maxJobs) {
+                throw new RejectedExecutionException("异步查询任务数已达上限，请稍后重试");
+            }
+        }
+
+        AsyncQueryJob job = new AsyncQueryJob(UUID.randomUUID().toString().replace("-", ""),
+            dataSourceId, boundSql.getSql(), (int) TimeUnit.MILLISECONDS.toSeconds(timeout));
+        jobs.put(job.getJobId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job, boundSql)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            throw new RejectedExecutionException("异步查询队列已满，请稍后重试", e);
+        }
+
+        logger.info("异步查询已提交: jobId={}, dataSourceId={}, sql={}", job.getJobId(), dataSourceId, boundSql.getSql());
+        return toJobInfo(job);
+    }
+
+    /**
+     * 获取任务信息
+     *
+     * @param dataSourceId 数据源ID
+     * @param jobId 任务ID
+     * @return 任务信息
+     * @throws DataSourceException 任务不存在
+     */
+    public JobInfo getJob(Long dataSourceId, String jobId) throws DataSourceException {
+        return toJobInfo(findJob(dataSourceId, jobId));
+    }
+
+    /**
+     * 分页读取任务结果
+     *
+     * @param dataSourceId 数据源ID
+     * @param jobId 任务ID
+     * @param page 页码（从0开始）
+     * @param size 页大小
+     * @return 结果页
+     * @throws DataSourceException 任务不存在或未成功完成
+     */
+    public ResultPage getResultPage(Long dataSourceId, String jobId, int page, int size) throws DataSourceException {
+        AsyncQueryJob job = findJob(dataSourceId, jobId);
+        AsyncQueryJob.Status status = job.getStatus();
+        if (status == AsyncQueryJob.Status.FAILED || status == AsyncQueryJob.Status.CANCELLED) {
+            throw new DataSourceException("异步查询任务未成功完成: " + job.getErrorMessage());
+        }
+        if (status != AsyncQueryJob.Status.SUCCEEDED) {
+            throw new DataSourceException("异步查询任务尚未完成，当前状态: " + status);
+        }
+
+        ColumnarQueryResult result = job.getResult();
+        int pageSize = Math.max(1, Math.min(size, maxPageSize));
+        int pageIndex = Math.max(0, page);
+        long from = (long) pageIndex * pageSize;
+        int fromRow = (int) Math.min(from, result.getRowCount());
+
+        ResultPage resultPage = new ResultPage();
+        resultPage.setJobId(jobId);
+        resultPage.setColumns(result.getColumns());
+        resultPage.setRows(result.toRowMaps(fromRow, fromRow + pageSize));
+        resultPage.setPage(pageIndex);
+        resultPage.setSize(pageSize);
+        resultPage.setTotalRows(result.getRowCount());
+        resultPage.setTotalPages((result.getRowCount() + pageSize - 1) / pageSize);
+        resultPage.setExecutionTime(result.getExecutionTime());
+        return resultPage;
+    }
+
+    /**
+     * 取消任务并丢弃结果
+     *
+     * @param dataSourceId 数据源ID
+     * @param jobId 任务ID
+     * @return 取消后的任务信息
+     * @throws DataSourceException 任务不存在
+     */
+    public JobInfo cancel(Long dataSourceId, String jobId) throws DataSourceException {
+        AsyncQueryJob job = findJob(dataSourceId, jobId);
+        if (job.cancel()) {
+            logger.info("异步查询已取消: jobId={}, dataSourceId={}", jobId, dataSourceId);
+        }
+        // 执行中的任务在执行线程退出后才结束，保留记录以便查询最终状态
+        if (job.getStatus().isFinished()) {
+            jobs.remove(jobId, job);
+        }
+        return toJobInfo(job);
+    }
+
+    /**
+     * 清除超过保留期的任务
+     */
+    @Scheduled(fixedDelayString = "${datasource.async-query.evict-interval:60000}")
+    public void evictExpiredJobs() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.isExpired(now, resultTtl));
+    }
+
+    /**
+     * 当前登记的任务数
+     */
+    public int getJobCount() {
+        return jobs.size();
+    }
+
+    private void run(AsyncQueryJob job, BoundSql boundSql) {
+        if (!job.start()) {
+            return;
+        }
+        try {
+            ColumnarQueryResult result = queryExecutionEngine.executeColumnarQuery(
+                job.getDataSourceId(), boundSql, maxRows, job);
+            job.complete(result);
+        } catch (DataSourceException e) {
+            job.fail(e.getMessage());
+        } catch (RuntimeException e) {
+            logger.error("异步查询执行异常: jobId={}", job.getJobId(), e);
+            job.fail("系统异常: " + e.getMessage());
+        }
+        logger.info("异步查询结束: jobId={}, status={}", job.getJobId(), job.getStatus());
+    }
+
+    private AsyncQueryJob findJob(Long dataSourceId, String jobId) throws DataSourceException {
+        AsyncQueryJob job = jobs.get(jobId);
+        if (job == null || !job.getDataSourceId().equals(dataSourceId)) {
+            throw new DataSourceException("异步查询任务不存在或已过期: " + jobId);
+        }
+        return job;
+    }
+
+    private JobInfo toJobInfo(AsyncQueryJob job) {
+        JobInfo info = new JobInfo();
+        info.setJobId(job.getJobId());
+        info.setDataSourceId(job.getDataSourceId());
+        info.setStatus(job.getStatus().name());
+        info.setSubmitTime(toDateTime(job.getSubmittedAt()));
+        info.setStartTime(toDateTime(job.getStartedAt()));
+        info.setFinishTime(toDateTime(job.getFinishedAt()));
+        info.setErrorMessage(job.getErrorMessage());
+        ColumnarQueryResult result = job.getResult();
+        if (result != null) {
+            info.setRowCount(result.getRowCount());
+            info.setExecutionTime(result.getExecutionTime());
+        }
+        if (job.getFinishedAt() > 0) {
+            info.setExpireTime(toDateTime(job.getFinishedAt() + resultTtl));
+        }
+        return info;
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return millis > 0 ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()) : null;
+    }
+
+    // 内部类定义
+    public static class JobInfo {
+        private String jobId;
+        private Long dataSourceId;
+        private String status;
+        private LocalDateTime submitTime;
+        private LocalDateTime startTime;
+        private LocalDateTime finishTime;
+        private LocalDateTime expireTime;
+        private Integer rowCount;
+        private Long executionTime;
+        private String errorMessage;
+
+        // Getters and Setters
+        public String getJobId() { return jobId; }
+        public void setJobId(String jobId) { this.jobId = jobId; }
+        public Long getDataSourceId() { return dataSourceId; }
+        public void setDataSourceId(Long dataSourceId) { this.dataSourceId = dataSourceId; }
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+        public LocalDateTime getSubmitTime() { return submitTime; }
+        public void setSubmitTime(LocalDateTime submitTime) { this.submitTime = submitTime; }
+        public LocalDateTime getStartTime() { return startTime; }
+        public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
+        public LocalDateTime getFinishTime() { return finishTime; }
+        public void setFinishTime(LocalDateTime finishTime) { this.finishTime = finishTime; }
+        public LocalDateTime getExpireTime() { return expireTime; }
+        public void setExpireTime(LocalDateTime expireTime) { this.expireTime = expireTime; }
+        public Integer getRowCount() { return rowCount; }
+        public void setRowCount(Integer rowCount) { this.rowCount = rowCount; }
+        public Long getExecutionTime() { return executionTime; }
+        public void setExecutionTime(Long executionTime) { this.executionTime = executionTime; }
+        public String getErrorMessage() { return errorMessage; }
+        public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
+    }
+
+    public static class ResultPage {
+        private String jobId;
+        private List<QueryExecutionEngine.ColumnInfo> columns;
+        private List<Map<String, Object>> rows;
+        private int page;
+        private int size;
+        private int totalRows;
+        private int totalPages;
+        private long executionTime;
+
+        // Getters and Setters
+        public String getJobId() { return jobId; }
+        public void setJobId(String jobId) { this.jobId = jobId; }
+        public List<QueryExecutionEngine.ColumnInfo> getColumns() { return columns; }
+        public void setColumns(List<QueryExecutionEngine.ColumnInfo> columns) { this.columns = columns; }
+        public List<Map<String, Object>> getRows() { return rows; }
+        public void setRows(List<Map<String, Object>> rows) { this.rows = rows; }
+        public int getPage() { return page; }
+        public void setPage(int page) { this.page = page; }
+        public int getSize() { return size; }
+        public void setSize(int size) { this.size = size; }
+        public int getTotalRows() { return totalRows; }
+        public void setTotalRows(int totalRows) { this.totalRows = totalRows; }
+        public int getTotalPages() { return totalPages; }
+        public void setTotalPages(int totalPages) { this.totalPages = totalPages; }
+        public long getExecutionTime() { return executionTime; }
+        public void setExecutionTime(long executionTime) { this.executionTime = executionTime; }
+    }
+}
@@ -0,0 +1,117 @@
+package com.powertrading.datasource.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 查询缓存配置
+ * 对应application.yml中datasource.cache配置节
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@Component
+@ConfigurationProperties(prefix = "datasource.cache")
+public class QueryCacheProperties {
+
+    /**
+     * 本地缓存（L1）最长存活时间（秒），用于限制多实例间的数据陈旧时间
+     */
+    private long localTtl = 60;
+
+    /**
+     * 是否启用Redis二级缓存（L2）
+     */
+    private boolean redisEnabled = true;
+
+    /**
+     * Redis缓存代数在本地的缓存时间（毫秒），其他实例的失效在该时间内生效
+     */
+    private long generationTtl = 1000;
+
+    /**
+     * 等待同一查询的并发加载完成的最长时间（毫秒），应大于查询超时时间
+     */
+    private long loadWaitTimeout = 35000;
+
+    private QueryResultSettings queryResult = new QueryResultSettings();
+
+    private TierSettings tableMetadata = new TierSettings(7200, 500);
+
+    // Getters and Setters
+    public long getLocalTtl() { return localTtl; }
+    public void setLocalTtl(long localTtl) { this.localTtl = localTtl; }
+    public boolean isRedisEnabled() { return redisEnabled; }
+    public void setRedisEnabled(boolean redisEnabled) { this.redisEnabled = redisEnabled; }
+    public long getGenerationTtl() { return generationTtl; }
+    public void setGenerationTtl(long generationTtl) { this.generationTtl = generationTtl; }
+    public long getLoadWaitTimeout() { return loadWaitTimeout; }
+    public void setLoadWaitTimeout(long loadWaitTimeout) { this.loadWaitTimeout = loadWaitTimeout; }
+    public QueryResultSettings getQueryResult() { return queryResult; }
+    public void setQueryResult(QueryResultSettings queryResult) { this.queryResult = queryResult; }
+    public TierSettings getTableMetadata() { return tableMetadata; }
+    public void setTableMetadata(TierSettings tableMetadata) { this.tableMetadata = tableMetadata; }
+
+    /**
+     * 缓存分区配置
+     */
+    public static class TierSettings {
+        private boolean enabled = true;
+
+        /**
+         * 默认存活时间（秒）
+         */
+        private long ttl;
+
+        /**
+         * 本地缓存最大条目数
+         */
+        private long maxSize;
+
+        public TierSettings() {
+        }
+
+        public TierSettings(long ttl, long maxSize) {
+            this.ttl = ttl;
+            this.maxSize = maxSize;
+        }
+
+        // Getters and Setters
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+        public long getTtl() { return ttl; }
+        public void setTtl(long ttl) { this.ttl = ttl; }
+        public long getMaxSize() { return maxSize; }
+        public void setMaxSize(long maxSize) { this.maxSize = maxSize; }
+    }
+
+    /**
+     * 查询结果缓存配置
+     * 默认存活时间为0，即默认不缓存；需通过interface-ttl或请求的cacheTtl按接口开启
+     */
+    public static class QueryResultSettings extends TierSettings {
+
+        /**
+         * 超过该行数的结果不缓存
+         */
+        private int maxCachedRows = 5000;
+
+        /**
+         * 按接口ID配置的存活时间（秒），大于0时开启该接口的缓存
+         */
+        private Map<String, Long> interfaceTtl = new HashMap<>();
+
+        public QueryResultSettings() {
+            super(0, 1000);
+        }
+
+        // Getters and Setters
+        public int getMaxCachedRows() { return maxCachedRows; }
+        public void setMaxCachedRows(int maxCachedRows) { this.maxCachedRows = maxCachedRows; }
+        public Map<String, Long> getInterfaceTtl() { return interfaceTtl; }
+        public void setInterfaceTtl(Map<String, Long> interfaceTtl) { this.interfaceTtl = interfaceTtl; }
+    }
+}
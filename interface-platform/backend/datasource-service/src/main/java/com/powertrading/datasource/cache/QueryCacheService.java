@@ -0,0 +1,515 @@
+package com.powertrading.datasource.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.powertrading.datasource.config.DynamicConfigurationService;
+import com.powertrading.datasource.engine.BindParameter;
+import com.powertrading.datasource.engine.BoundSql;
+import com.powertrading.datasource.engine.QueryExecutionEngine;
+import com.powertrading.datasource.exception.DataSourceException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 查询缓存服务
+ * 两级缓存：进程内Caffeine（L1）+ Redis（L2）。
+ * 查询结果按数据源ID、规范化SQL和绑定参数生成键，同一键的并发加载只执行一次；
+ * 每个数据源维护缓存代数，数据源配置变更时递增代数使旧缓存整体失效；
+ * Redis中的共享代数在本地短时缓存，其他实例的失效最多延迟generation-ttl生效
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@Service
+public class QueryCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCacheService.class);
+
+    // Redis键前缀
+    private static final String QUERY_KEY_PREFIX = "datasource:cache:query:";
+    private static final String METADATA_KEY_PREFIX = "datasource:cache:metadata:";
+    private static final String GENERATION_KEY_PREFIX = "datasource:cache:generation:";
+
+    @Autowired
+    private QueryCacheProperties properties;
+
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    private Cache<String, CacheEntry> queryCache;
+    private Cache<String, CacheEntry> metadataCache;
+
+    // Redis共享缓存代数的本地副本，避免每次读写Redis缓存前额外查询一次代数
+    private Cache<Long, Long> remoteGenerations;
+
+    // 正在加载的查询，同一键只允许一个加载者
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // 数据源本地缓存代数
+    private final Map<Long, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    // 统计
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder sharedLoads = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        queryCache = buildLocalCache(properties.getQueryResult().getMaxSize());
+        metadataCache = buildLocalCache(properties.getTableMetadata().getMaxSize());
+        remoteGenerations = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getGenerationTtl(), TimeUnit.MILLISECONDS)
+                .build();
+        logger.info("查询缓存初始化完成: queryMaxSize={}, redisEnabled={}",
+                properties.getQueryResult().getMaxSize(), isRemoteEnabled());
+    }
+
+    /**
+     * 从缓存获取查询结果，未命中时加载并写入缓存
+     *
+     * @param dataSourceId 数据源ID
+     * @param interfaceId 接口ID，用于确定存活时间，可为空
+     * @param requestedTtl 请求指定的存活时间（秒），为空时使用接口或默认配置
+     * @param sql SQL语句
+     * @param parameters 绑定参数
+     * @param loader 加载器
+     * @return 查询结果
+     * @throws DataSourceException 加载异常
+     */
+    public <T> T getOrLoad(Long dataSourceId, String interfaceId, Integer requestedTtl, String sql,
+                           Map<String, Object> parameters, QueryLoader<T> loader) throws DataSourceException {
+
+        long ttl = resolveTtl(interfaceId, requestedTtl);
+        if (!properties.getQueryResult().isEnabled() || ttl <= 0) {
+            return loader.load();
+        }
+        return getOrLoad(dataSourceId, ttl, digest(normalizeSql(sql), parameters), loader);
+    }
+
+    /**
+     * 从缓存获取已绑定SQL的查询结果，未命中时加载并写入缓存
+     *
+     * @param dataSourceId 数据源ID
+     * @param interfaceId 接口ID，用于确定存活时间，可为空
+     * @param requestedTtl 请求指定的存活时间（秒），为空时使用接口或默认配置
+     * @param boundSql 已绑定的SQL
+     * @param loader 加载器
+     * @return 查询结果
+     * @throws DataSourceException 加载异常
+     */
+    public <T> T getOrLoad(Long dataSourceId, String interfaceId, Integer requestedTtl, BoundSql boundSql,
+                           QueryLoader<T> loader) throws DataSourceException {
+
+        long ttl = resolveTtl(interfaceId, requestedTtl);
+        if (!properties.getQueryResult().isEnabled() || ttl <= 0) {
+            return loader.load();
+        }
+        return getOrLoad(dataSourceId, ttl, digest(normalizeSql(boundSql.getSql()), boundSql.getParameters()), loader);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T getOrLoad(Long dataSourceId, long ttl, String digest, QueryLoader<T> loader)
+            throws DataSourceException {
+
+        long generation = localGeneration(dataSourceId).get();
+        String localKey = dataSourceId + ":" + generation + ":" + digest;
+
+        CacheEntry entry = queryCache.getIfPresent(localKey);
+        if (entry != null) {
+            localHits.increment();
+            return (T) entry.value;
+        }
+
+        CompletableFuture<Object> pending = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(localKey, pending);
+        if (existing != null) {
+            sharedLoads.increment();
+            return (T) await(existing);
+        }
+
+        try {
+            Object value = readRemote(QUERY_KEY_PREFIX, dataSourceId, digest);
+            if (value != null) {
+                remoteHits.increment();
+            } else {
+                misses.increment();
+                value = loader.load();
+                if (isCacheable(value)) {
+                    writeRemote(QUERY_KEY_PREFIX, dataSourceId, digest, value, ttl);
+                }
+            }
+            if (isCacheable(value) && localGeneration(dataSourceId).get() == generation) {
+                queryCache.put(localKey, new CacheEntry(value, localTtl(ttl)));
+            }
+            pending.complete(value);
+            return (T) value;
+        } catch (DataSourceException | RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(localKey, pending);
+        }
+    }
+
+    /**
+     * 获取缓存的表元数据
+     */
+    public QueryExecutionEngine.TableMetadata getCachedTableMetadata(Long dataSourceId, String tableName) {
+        if (!properties.getTableMetadata().isEnabled()) {
+            return null;
+        }
+        return (QueryExecutionEngine.TableMetadata) get(metadataCache, METADATA_KEY_PREFIX, dataSourceId, tableName);
+    }
+
+    /**
+     * 缓存表元数据
+     */
+    public void cacheTableMetadata(Long dataSourceId, String tableName, QueryExecutionEngine.TableMetadata metadata) {
+        if (!properties.getTableMetadata().isEnabled() || metadata == null) {
+            return;
+        }
+        put(metadataCache, METADATA_KEY_PREFIX, dataSourceId, tableName, metadata, properties.getTableMetadata().getTtl());
+    }
+
+    /**
+     * 使数据源的全部缓存失效
+     *
+     * @param dataSourceId 数据源ID
+     */
+    public void invalidateDataSource(Long dataSourceId) {
+        localGeneration(dataSourceId).incrementAndGet();
+        String prefix = dataSourceId + ":";
+        queryCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+        metadataCache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+
+        if (isRemoteEnabled()) {
+            try {
+                Long generation = redisTemplate.opsForValue().increment(GENERATION_KEY_PREFIX + dataSourceId);
+                if (generation != null) {
+                    remoteGenerations.put(dataSourceId, generation);
+                } else {
+                    remoteGenerations.invalidate(dataSourceId);
+                }
+            } catch (Exception e) {
+                remoteGenerations.invalidate(dataSourceId);
+                logger.warn("递增Redis缓存代数失败: dataSourceId={}, error={}", dataSourceId, e.getMessage());
+            }
+        }
+        logger.info("数据源缓存已失效: dataSourceId={}", dataSourceId);
+    }
+
+    /**
+     * 数据源配置变更时使缓存失效
+     */
+    @EventListener
+    public void onConfigurationChanged(DynamicConfigurationService.DataSourceConfigurationEvent event) {
+        if (event.getDataSource() != null && event.getDataSource().getId() != null) {
+            invalidateDataSource(event.getDataSource().getId());
+        }
+    }
+
+    /**
+     * 获取缓存统计
+     */
+    public CacheStatistics getStatistics() {
+        CacheStatistics statistics = new CacheStatistics();
+        statistics.setLocalHits(localHits.sum());
+        statistics.setRemoteHits(remoteHits.sum());
+        statistics.setMisses(misses.sum());
+        statistics.setSharedLoads(sharedLoads.sum());
+        statistics.setLocalSize(queryCache.estimatedSize());
+        statistics.setInFlight(inFlight.size());
+        return statistics;
+    }
+
+    /**
+     * 规范化SQL：折叠引号外的空白，去除结尾分号
+     */
+    static String normalizeSql(String sql) {
+        StringBuilder sb = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean pendingSpace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (quote != 0) {
+                sb.append(c);
+                if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                sb.append(' ');
+                pendingSpace = false;
+            }
+            if (c == '\'' || c == '"' || c == '`') {
+                quote = c;
+            }
+            sb.append(c);
+        }
+        int end = sb.length();
+        while (end > 0 && (sb.charAt(end - 1) == ';' || sb.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        sb.setLength(end);
+        return sb.toString();
+    }
+
+    /**
+     * 计算SQL与参数的摘要，参数按名称排序并带上类型，避免1与"1"冲突
+     */
+    static String digest(String normalizedSql, Map<String, Object> parameters) {
+        StringBuilder sb = new StringBuilder(normalizedSql);
+        if (parameters != null && !parameters.isEmpty()) {
+            for (Map.Entry<String, Object> entry : new TreeMap<>(parameters).entrySet()) {
+                sb.append('\u0000').append(entry.getKey()).append('=');
+                appendTypedValue(sb, entry.getValue());
+            }
+        }
+        return sha256(sb);
+    }
+
+    /**
+     * 计算SQL与位置绑定参数的摘要，参数按位置带上声明类型和值类型
+     */
+    static String digest(String normalizedSql, List<BindParameter> parameters) {
+        StringBuilder sb = new StringBuilder(normalizedSql);
+        for (int i = 0; i < parameters.size(); i++) {
+            BindParameter parameter = parameters.get(i);
+            sb.append('\u0000').append(i + 1).append('=');
+            if (parameter.getType() != null) {
+                sb.append(parameter.getType()).append('/');
+            }
+            appendTypedValue(sb, parameter.getValue());
+        }
+        return sha256(sb);
+    }
+
+    private static void appendTypedValue(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else {
+            sb.append(value.getClass().getSimpleName()).append(':').append(value);
+        }
+    }
+
+    private static String sha256(StringBuilder sb) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+
+    private long resolveTtl(String interfaceId, Integer requestedTtl) {
+        if (requestedTtl != null) {
+            return requestedTtl;
+        }
+        if (interfaceId != null) {
+            Long interfaceTtl = properties.getQueryResult().getInterfaceTtl().get(interfaceId);
+            if (interfaceTtl != null) {
+                return interfaceTtl;
+            }
+        }
+        return properties.getQueryResult().getTtl();
+    }
+
+    private boolean isCacheable(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (value instanceof QueryExecutionEngine.QueryResult) {
+            return ((QueryExecutionEngine.QueryResult) value).getRowCount() <= properties.getQueryResult().getMaxCachedRows();
+        }
+        return true;
+    }
+
+    private Object await(CompletableFuture<Object> future) throws DataSourceException {
+        try {
+            return future.get(properties.getLoadWaitTimeout(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new DataSourceException("等待查询结果超时");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataSourceException("等待查询结果被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DataSourceException) {
+                throw (DataSourceException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new DataSourceException("查询执行失败: " + cause.getMessage(), cause);
+        }
+    }
+
+    private Object get(Cache<String, CacheEntry> cache, String remotePrefix, Long dataSourceId, String name) {
+        String localKey = dataSourceId + ":" + localGeneration(dataSourceId).get() + ":" + name;
+        CacheEntry entry = cache.getIfPresent(localKey);
+        if (entry != null) {
+            localHits.increment();
+            return entry.value;
+        }
+        Object value = readRemote(remotePrefix, dataSourceId, name);
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        cache.put(localKey, new CacheEntry(value, localTtl(properties.getLocalTtl())));
+        return value;
+    }
+
+    private void put(Cache<String, CacheEntry> cache, String remotePrefix, Long dataSourceId, String name,
+                     Object value, long ttl) {
+        String localKey = dataSourceId + ":" + localGeneration(dataSourceId).get() + ":" + name;
+        cache.put(localKey, new CacheEntry(value, localTtl(ttl)));
+        writeRemote(remotePrefix, dataSourceId, name, value, ttl);
+    }
+
+    private Object readRemote(String prefix, Long dataSourceId, String name) {
+        if (!isRemoteEnabled()) {
+            return null;
+        }
+        try {
+            return redisTemplate.opsForValue().get(remoteKey(prefix, dataSourceId, name));
+        } catch (Exception e) {
+            logger.debug("读取Redis缓存失败: dataSourceId={}, error={}", dataSourceId, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRemote(String prefix, Long dataSourceId, String name, Object value, long ttl) {
+        if (!isRemoteEnabled()) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(remoteKey(prefix, dataSourceId, name), value, ttl, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            logger.debug("写入Redis缓存失败: dataSourceId={}, error={}", dataSourceId, e.getMessage());
+        }
+    }
+
+    /**
+     * Redis键包含共享的缓存代数，其他实例递增代数后旧键自然过期；
+     * 代数在本地缓存generation-ttl毫秒，过期后才重新读取Redis
+     */
+    private String remoteKey(String prefix, Long dataSourceId, String name) {
+        long generation = remoteGenerations.get(dataSourceId, this::readRemoteGeneration);
+        return prefix + dataSourceId + ":" + generation + ":" + name;
+    }
+
+    private Long readRemoteGeneration(Long dataSourceId) {
+        Object generation = redisTemplate.opsForValue().get(GENERATION_KEY_PREFIX + dataSourceId);
+        return generation instanceof Number ? ((Number) generation).longValue() : 0L;
+    }
+
+    private boolean isRemoteEnabled() {
+        return redisTemplate != null && properties.isRedisEnabled();
+    }
+
+    private AtomicLong localGeneration(Long dataSourceId) {
+        return generations.computeIfAbsent(dataSourceId, id -> new AtomicLong());
+    }
+
+    private long localTtl(long ttl) {
+        return Math.min(ttl, properties.getLocalTtl());
+    }
+
+    private static Cache<String, CacheEntry> buildLocalCache(long maxSize) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, CacheEntry>() {
+                    @Override
+                    public long expireAfterCreate(String key, CacheEntry entry, long currentTime) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, CacheEntry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, CacheEntry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * 查询加载器
+     */
+    @FunctionalInterface
+    public interface QueryLoader<T> {
+        T load() throws DataSourceException;
+    }
+
+    /**
+     * 本地缓存条目，携带各自的存活时间
+     */
+    private static final class CacheEntry {
+        private final Object value;
+        private final long ttlNanos;
+
+        CacheEntry(Object value, long ttlSeconds) {
+            this.value = value;
+            this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        }
+    }
+
+    /**
+     * 缓存统计
+     */
+    public static class CacheStatistics {
+        private long localHits;
+        private long remoteHits;
+        private long misses;
+        private long sharedLoads;
+        private long localSize;
+        private int inFlight;
+
+        // Getters and Setters
+        public long getLocalHits() { return localHits; }
+        public void setLocalHits(long localHits) { this.localHits = localHits; }
+        public long getRemoteHits() { return remoteHits; }
+        public void setRemoteHits(long remoteHits) { this.remoteHits = remoteHits; }
+        public long getMisses() { return misses; }
+        public void setMisses(long misses) { this.misses = misses; }
+        public long getSharedLoads() { return sharedLoads; }
+        public void setSharedLoads(long sharedLoads) { this.sharedLoads = sharedLoads; }
+        public long getLocalSize() { return localSize; }
+        public void setLocalSize(long localSize) { this.localSize = localSize; }
+        public int getInFlight() { return inFlight; }
+        public void setInFlight(int inFlight) { this.inFlight = inFlight; }
+    }
+}
@@ -92,6 +92,15 @@ public class DataSourceConfig {
      * 创建HikariCP数据源
      */
     public static HikariDataSource createHikariDataSource(com.powertrading.datasource.entity.DataSource dsConfig) {
+        return createHikariDataSource(dsConfig, "HikariPool-" + dsConfig.getName());
+    }
+
+    /**
+     * 创建指定连接池名称的HikariCP数据源
+     * 热切换时新旧连接池同时存在，需要使用不同的名称注册MBean
+     */
+    public static HikariDataSource createHikariDataSource(com.powertrading.datasource.entity.DataSource dsConfig,
+                                                         String poolName) {
         HikariConfig config = new HikariConfig();
         
         // 基本连接配置
@@ -101,7 +110,7 @@ public class DataSourceConfig {
         config.setDriverClassName(dsConfig.getDriverClass());
         
         // 连接池配置
-        config.setPoolName("HikariPool-" + dsConfig.getName());
+        config.setPoolName(poolName);
         config.setMinimumIdle(dsConfig.getMinPoolSize());
         config.setMaximumPoolSize(dsConfig.getMaxPoolSize());
         config.setConnectionTimeout(dsConfig.getConnectionTimeout());
@@ -6,25 +6,36 @@ import com.powertrading.datasource.entity.DataSource;
 import com.powertrading.datasource.exception.DataSourceException;
 import com.powertrading.datasource.manager.DataSourceManager;
 import com.powertrading.datasource.repository.DataSourceRepository;
+import com.powertrading.datasource.service.DataSourceService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
  * 动态配置管理服务
- * 提供数据源配置的动态添加、更新、热重载等功能
+ * 提供数据源配置的动态添加、更新、热重载等功能；
+ * 批量重载和批量配置按数据源并行重建连接池，并行度有上限，同一数据源的操作保持提交顺序；
+ * 批量入口不加入事务，工作线程中的每个操作各自提交，失败时由补偿操作撤销，而不是依赖事务回滚
  * 
  * @author PowerTrading Team
  * @version 1.0.0
@@ -41,6 +52,9 @@ public class DynamicConfigurationService {
     @Autowired
     private DataSourceManager dataSourceManager;
 
+    @Autowired
+    private DataSourceService dataSourceService;
+
     @Autowired
     private RedisTemplate<String, Object> redisTemplate;
 
@@ -56,11 +70,57 @@ public class DynamicConfigurationService {
     // 配置变更历史
     private final Map<Long, List<ConfigurationChange>> changeHistoryMap = new ConcurrentHashMap<>();
     
+    // 批量重载和批量配置串行执行，避免两次批量操作交错
+    private final ReentrantLock bulkLock = new ReentrantLock();
+
+    /**
+     * 批量重载和批量配置的并行度上限，即同时重建的连接池数
+     */
+    @Value("${datasource.pool.bulk.parallelism:8}")
+    private int bulkParallelism;
+
+    private ThreadPoolExecutor bulkExecutor;
+
+    /**
+     * 批量重载的协调线程，等待bulkExecutor中的重建任务，不能占用bulkExecutor自身的线程
+     */
+    private ThreadPoolExecutor reloadExecutor;
+    
     // Redis键前缀
     private static final String CONFIG_LOCK_PREFIX = "datasource:config:lock:";
     private static final String CONFIG_BACKUP_PREFIX = "datasource:config:backup:";
     private static final String CONFIG_VALIDATION_PREFIX = "datasource:config:validation:";
 
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        int parallelism = Math.max(1, bulkParallelism);
+        bulkExecutor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "datasource-bulk-config-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        bulkExecutor.allowCoreThreadTimeOut(true);
+        reloadExecutor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, "datasource-bulk-reload");
+                thread.setDaemon(true);
+                return thread;
+            });
+        reloadExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (reloadExecutor != null) {
+            reloadExecutor.shutdownNow();
+        }
+        if (bulkExecutor != null) {
+            bulkExecutor.shutdownNow();
+        }
+    }
+
     /**
      * 动态添加数据源配置
      * 
@@ -203,7 +263,7 @@ public class DynamicConfigurationService {
                 DataSource savedDataSource = dataSourceRepository.save(originalDataSource);
                 
                 if (hotReload) {
-                    // 7. 热重载连接池
+                    // 7. 热重载连接池（蓝绿切换：新连接池预热完成后才切换，失败时原连接池继续服务）
                     dataSourceManager.updateDataSource(savedDataSource);
                     
                     // 8. 测试新连接
@@ -243,62 +303,247 @@ public class DynamicConfigurationService {
 
     /**
      * 批量配置操作
+     * 部分操作失败时已成功的操作保留
      * 
      * @param operations 批量操作列表
      * @return 批量操作结果
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public BatchConfigurationResult batchConfigurationOperations(List<BatchOperation> operations) {
-        logger.info("开始批量配置操作: operationCount={}", operations.size());
+        return batchConfigurationOperations(operations, false);
+    }
+
+    /**
+     * 批量配置操作
+     * 按数据源分组：同一数据源的操作按提交顺序串行执行，前序操作失败时后续操作不再执行；
+     * 不同数据源的操作在有界线程池中并行执行，并行度受配置上限约束；
+     * 失败即回滚时删除操作推迟到其他操作全部成功后执行，任一操作失败则逆序撤销已成功的新增和更新，
+     * 已保存配置但热重载失败的更新也恢复原配置。
+     * 操作在工作线程中执行，不在调用方的事务内：每个操作的数据库写入各自提交，
+     * 回滚通过补偿操作完成；本方法也不开启事务，等待工作线程期间不占用数据库连接
+     * 
+     * @param operations 批量操作列表
+     * @param rollbackOnFailure 任一操作失败时是否回滚已成功的操作
+     * @return 批量操作结果，结果列表与操作列表一一对应
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BatchConfigurationResult batchConfigurationOperations(List<BatchOperation> operations, 
+                                                                 boolean rollbackOnFailure) {
+        logger.info("开始批量配置操作: operationCount={}, rollbackOnFailure={}", operations.size(), rollbackOnFailure);
         
         BatchConfigurationResult batchResult = new BatchConfigurationResult();
         batchResult.setStartTime(LocalDateTime.now());
         batchResult.setTotalOperations(operations.size());
         
-        List<ConfigurationResult> results = new ArrayList<>();
-        int successCount = 0;
+        ConfigurationResult[] results = new ConfigurationResult[operations.size()];
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        Map<String, List<Integer>> deferredDeletes = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BatchOperation operation = operations.get(i);
+            Map<String, List<Integer>> target = rollbackOnFailure 
+                && operation.getOperationType() == BatchOperation.OperationType.DELETE ? deferredDeletes : groups;
+            target.computeIfAbsent(orderingKey(operation), k -> new ArrayList<>()).add(i);
+        }
+        
+        bulkLock.lock();
+        try {
+            List<List<Compensation>> compensations = runOperationGroups(operations, groups, results, rollbackOnFailure);
+            
+            boolean failed = Arrays.stream(results).anyMatch(r -> r != null && !r.isSuccess());
+            if (rollbackOnFailure && failed) {
+                for (List<Integer> indexes : deferredDeletes.values()) {
+                    for (int index : indexes) {
+                        results[index] = skippedResult(operations.get(index), "批量操作已回滚，未执行");
+                    }
+                }
+                batchResult.setRollbackErrors(rollback(compensations));
+                batchResult.setRolledBack(true);
+            } else if (!deferredDeletes.isEmpty()) {
+                runOperationGroups(operations, deferredDeletes, results, false);
+            }
+        } finally {
+            bulkLock.unlock();
+        }
+        
+        List<ConfigurationResult> resultList = Arrays.asList(results);
+        int successCount = (int) resultList.stream().filter(ConfigurationResult::isSuccess).count();
         
-        for (BatchOperation operation : operations) {
+        batchResult.setResults(resultList);
+        batchResult.setSuccessCount(batchResult.isRolledBack() ? 0 : successCount);
+        batchResult.setFailureCount(operations.size() - batchResult.getSuccessCount());
+        batchResult.setEndTime(LocalDateTime.now());
+        
+        logger.info("批量配置操作完成: total={}, success={}, failure={}, rolledBack={}", 
+                   operations.size(), batchResult.getSuccessCount(), batchResult.getFailureCount(), 
+                   batchResult.isRolledBack());
+        
+        return batchResult;
+    }
+
+    /**
+     * 并行执行各数据源的操作组，等待全部完成
+     * 
+     * @return 各组已成功操作的补偿动作，按执行顺序排列
+     */
+    private List<List<Compensation>> runOperationGroups(List<BatchOperation> operations, 
+                                                        Map<String, List<Integer>> groups,
+                                                        ConfigurationResult[] results, 
+                                                        boolean recordCompensations) {
+        List<CompletableFuture<List<Compensation>>> futures = new ArrayList<>(groups.size());
+        for (List<Integer> indexes : groups.values()) {
+            futures.add(CompletableFuture.supplyAsync(
+                () -> runOperationGroup(operations, indexes, results, recordCompensations), bulkExecutor));
+        }
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    /**
+     * 按提交顺序执行同一数据源的操作
+     */
+    private List<Compensation> runOperationGroup(List<BatchOperation> operations, List<Integer> indexes,
+                                                 ConfigurationResult[] results, boolean recordCompensations) {
+        List<Compensation> compensations = new ArrayList<>();
+        boolean previousFailed = false;
+        
+        for (int index : indexes) {
+            BatchOperation operation = operations.get(index);
+            if (previousFailed) {
+                results[index] = skippedResult(operation, "同一数据源的前序操作失败，未执行");
+                continue;
+            }
+            
             try {
-                ConfigurationResult result = null;
+                // 更新前的配置快照，用于回滚
+                DataSource before = recordCompensations 
+                    && operation.getOperationType() == BatchOperation.OperationType.UPDATE
+                    ? dataSourceRepository.findById(operation.getDataSourceId()).map(this::copyOf).orElse(null)
+                    : null;
                 
-                switch (operation.getOperationType()) {
-                    case ADD:
-                        result = addDataSourceDynamically(operation.getDataSource(), false);
-                        break;
-                    case UPDATE:
-                        result = updateDataSourceDynamically(operation.getDataSourceId(), 
-                                                           operation.getDataSource(), operation.isHotReload());
-                        break;
-                    case DELETE:
-                        result = deleteDataSourceDynamically(operation.getDataSourceId());
-                        break;
-                }
+                ConfigurationResult result = executeOperation(operation);
+                results[index] = result;
                 
-                if (result != null) {
-                    results.add(result);
-                    if (result.isSuccess()) {
-                        successCount++;
+                if (!result.isSuccess()) {
+                    previousFailed = true;
+                    if (before != null) {
+                        // 配置可能已保存而热重载失败，此时连接池仍为原配置，回滚时只需恢复数据库中的原配置
+                        compensations.add(() -> updateDataSourceDynamically(operation.getDataSourceId(), before, false));
+                    }
+                } else if (recordCompensations) {
+                    Compensation compensation = compensationFor(operation, result, before);
+                    if (compensation != null) {
+                        compensations.add(compensation);
                     }
                 }
-                
             } catch (Exception e) {
-                logger.error("批量操作失败: operation={}", operation, e);
+                logger.error("批量操作失败: operationType={}, dataSourceId={}", 
+                            operation.getOperationType(), operation.getDataSourceId(), e);
                 ConfigurationResult errorResult = new ConfigurationResult();
+                errorResult.setOperation(String.valueOf(operation.getOperationType()));
+                errorResult.setDataSourceId(operation.getDataSourceId());
                 errorResult.setSuccess(false);
                 errorResult.setErrorMessage(e.getMessage());
-                results.add(errorResult);
+                results[index] = errorResult;
+                previousFailed = true;
             }
         }
         
-        batchResult.setResults(results);
-        batchResult.setSuccessCount(successCount);
-        batchResult.setFailureCount(operations.size() - successCount);
-        batchResult.setEndTime(LocalDateTime.now());
-        
-        logger.info("批量配置操作完成: total={}, success={}, failure={}", 
-                   operations.size(), successCount, operations.size() - successCount);
+        return compensations;
+    }
+
+    /**
+     * 执行单个批量操作
+     */
+    private ConfigurationResult executeOperation(BatchOperation operation) throws DataSourceException {
+        switch (operation.getOperationType()) {
+            case ADD:
+                return addDataSourceDynamically(operation.getDataSource(), false);
+            case UPDATE:
+                return updateDataSourceDynamically(operation.getDataSourceId(), 
+                                                   operation.getDataSource(), operation.isHotReload());
+            case DELETE:
+                return deleteDataSourceDynamically(operation.getDataSourceId());
+            default:
+                throw new DataSourceException("不支持的操作类型: " + operation.getOperationType());
+        }
+    }
+
+    /**
+     * 生成已成功操作的补偿动作：新增的撤销为删除，更新的撤销为恢复原配置
+     */
+    private Compensation compensationFor(BatchOperation operation, ConfigurationResult result, DataSource before) {
+        switch (operation.getOperationType()) {
+            case ADD:
+                Long addedId = result.getDataSourceId();
+                return () -> deleteDataSourceDynamically(addedId);
+            case UPDATE:
+                if (before == null) {
+                    return null;
+                }
+                return () -> updateDataSourceDynamically(operation.getDataSourceId(), before, operation.isHotReload());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 并行回滚各数据源的已成功操作，同一数据源内逆序执行
+     * 
+     * @return 回滚失败信息
+     */
+    private List<String> rollback(List<List<Compensation>> compensations) {
+        List<CompletableFuture<List<String>>> futures = new ArrayList<>(compensations.size());
+        for (List<Compensation> group : compensations) {
+            if (group.isEmpty()) {
+                continue;
+            }
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                List<String> errors = new ArrayList<>();
+                for (int i = group.size() - 1; i >= 0; i--) {
+                    try {
+                        ConfigurationResult result = group.get(i).undo();
+                        if (!result.isSuccess()) {
+                            errors.add("数据源 " + result.getDataSourceId() + ": " + result.getErrorMessage());
+                        }
+                    } catch (Exception e) {
+                        logger.error("批量操作回滚失败", e);
+                        errors.add(e.getMessage());
+                    }
+                }
+                return errors;
+            }, bulkExecutor));
+        }
         
-        return batchResult;
+        List<String> errors = new ArrayList<>();
+        futures.forEach(future -> errors.addAll(future.join()));
+        if (!errors.isEmpty()) {
+            logger.error("批量操作回滚未完全成功: errors={}", errors);
+        }
+        return errors;
+    }
+
+    /**
+     * 操作的顺序键：有数据源ID时按ID，新增操作按名称
+     */
+    private static String orderingKey(BatchOperation operation) {
+        if (operation.getDataSourceId() != null) {
+            return "id:" + operation.getDataSourceId();
+        }
+        return "name:" + (operation.getDataSource() != null ? operation.getDataSource().getName() : "");
+    }
+
+    private static ConfigurationResult skippedResult(BatchOperation operation, String reason) {
+        ConfigurationResult result = new ConfigurationResult();
+        result.setOperation(String.valueOf(operation.getOperationType()));
+        result.setDataSourceId(operation.getDataSourceId());
+        result.setSuccess(false);
+        result.setErrorMessage(reason);
+        return result;
+    }
+
+    private DataSource copyOf(DataSource source) {
+        DataSource copy = new DataSource();
+        updateDataSourceFields(copy, source);
+        return copy;
     }
 
     /**
@@ -333,8 +578,8 @@ public class DynamicConfigurationService {
                 // 3. 备份配置
                 backupConfiguration(id, dataSource);
                 
-                // 4. 从连接管理器移除
-                dataSourceManager.removeDataSource(id);
+                // 4. 从连接管理器移除并释放关联资源
+                dataSourceService.releaseDataSource(id);
                 
                 // 5. 从数据库删除
                 dataSourceRepository.deleteById(id);
@@ -366,51 +611,124 @@ public class DynamicConfigurationService {
 
     /**
      * 重新加载所有数据源配置
+     * 部分数据源重载失败时已成功的数据源保留新连接池
      * 
      * @return 重载结果
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CompletableFuture<ReloadResult> reloadAllDataSources() {
+        return reloadAllDataSources(false);
+    }
+
+    /**
+     * 重新加载所有数据源配置
+     * 各数据源的连接池在有界线程池中并行重建，每个数据源由连接管理器蓝绿切换，重建失败的数据源继续使用原连接池；
+     * 失败即回滚时，任一数据源失败则将已切换的数据源恢复为重载前的配置；
+     * 重载由专用协调线程执行，不占用公共ForkJoin线程池，每个数据源的变更各自提交，回滚同样通过补偿完成
+     * 
+     * @param rollbackOnFailure 任一数据源失败时是否回滚已成功的数据源
+     * @return 重载结果
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<ReloadResult> reloadAllDataSources(boolean rollbackOnFailure) {
         return CompletableFuture.supplyAsync(() -> {
-            logger.info("开始重新加载所有数据源配置");
+            logger.info("开始重新加载所有数据源配置: rollbackOnFailure={}", rollbackOnFailure);
             
             ReloadResult result = new ReloadResult();
             result.setStartTime(LocalDateTime.now());
             
+            bulkLock.lock();
             try {
                 List<DataSource> allDataSources = dataSourceRepository.findEnabledDataSources();
                 result.setTotalDataSources(allDataSources.size());
                 
-                int successCount = 0;
-                List<String> errors = new ArrayList<>();
-                
+                // 重载前生效的配置，未加载的数据源为null
+                Map<Long, DataSource> previousConfigs = new HashMap<>();
+                List<CompletableFuture<String>> futures = new ArrayList<>(allDataSources.size());
                 for (DataSource dataSource : allDataSources) {
-                    try {
-                        dataSourceManager.updateDataSource(dataSource);
-                        successCount++;
-                    } catch (Exception e) {
-                        logger.error("重载数据源失败: id={}, name={}", dataSource.getId(), dataSource.getName(), e);
-                        errors.add("数据源 " + dataSource.getName() + ": " + e.getMessage());
+                    previousConfigs.put(dataSource.getId(), dataSourceManager.getDataSourceConfig(dataSource.getId()));
+                    futures.add(CompletableFuture.supplyAsync(() -> reloadDataSource(dataSource), bulkExecutor));
+                }
+                
+                List<Long> reloadedIds = new ArrayList<>();
+                for (int i = 0; i < allDataSources.size(); i++) {
+                    String error = futures.get(i).join();
+                    if (error == null) {
+                        reloadedIds.add(allDataSources.get(i).getId());
+                    } else {
+                        result.getErrors().add(error);
+                        result.getFailedDataSourceIds().add(allDataSources.get(i).getId());
                     }
                 }
                 
+                if (rollbackOnFailure && !result.getErrors().isEmpty() && !reloadedIds.isEmpty()) {
+                    result.setRollbackErrors(restorePreviousConfigs(reloadedIds, previousConfigs));
+                    result.setRolledBack(true);
+                }
+                
+                int successCount = result.isRolledBack() ? 0 : reloadedIds.size();
                 result.setSuccessCount(successCount);
                 result.setFailureCount(allDataSources.size() - successCount);
-                result.setErrors(errors);
-                result.setSuccess(errors.isEmpty());
+                result.setSuccess(result.getErrors().isEmpty());
                 
-                logger.info("重新加载数据源配置完成: total={}, success={}, failure={}", 
-                           allDataSources.size(), successCount, allDataSources.size() - successCount);
+                logger.info("重新加载数据源配置完成: total={}, success={}, failure={}, rolledBack={}", 
+                           allDataSources.size(), successCount, allDataSources.size() - successCount, 
+                           result.isRolledBack());
                 
             } catch (Exception e) {
                 logger.error("重新加载数据源配置异常", e);
                 result.setSuccess(false);
                 result.getErrors().add("重载异常: " + e.getMessage());
             } finally {
+                bulkLock.unlock();
                 result.setEndTime(LocalDateTime.now());
             }
             
             return result;
-        });
+        }, reloadExecutor);
+    }
+
+    /**
+     * 重建单个数据源的连接池
+     * 
+     * @return 失败信息，成功时返回null
+     */
+    private String reloadDataSource(DataSource dataSource) {
+        try {
+            dataSourceManager.updateDataSource(dataSource);
+            return null;
+        } catch (Exception e) {
+            logger.error("重载数据源失败: id={}, name={}", dataSource.getId(), dataSource.getName(), e);
+            return "数据源 " + dataSource.getName() + ": " + e.getMessage();
+        }
+    }
+
+    /**
+     * 并行恢复重载前的连接池配置，重载前未加载的数据源直接移除
+     * 
+     * @return 恢复失败信息
+     */
+    private List<String> restorePreviousConfigs(List<Long> dataSourceIds, Map<Long, DataSource> previousConfigs) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(dataSourceIds.size());
+        for (Long dataSourceId : dataSourceIds) {
+            DataSource previous = previousConfigs.get(dataSourceId);
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                if (previous == null) {
+                    dataSourceService.releaseDataSource(dataSourceId);
+                    return null;
+                }
+                return reloadDataSource(previous);
+            }, bulkExecutor));
+        }
+        
+        List<String> errors = futures.stream()
+            .map(CompletableFuture::join)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        if (!errors.isEmpty()) {
+            logger.error("数据源重载回滚未完全成功: errors={}", errors);
+        }
+        return errors;
     }
 
     /**
@@ -665,6 +983,8 @@ public class DynamicConfigurationService {
         private int successCount;
         private int failureCount;
         private List<ConfigurationResult> results;
+        private boolean rolledBack;
+        private List<String> rollbackErrors = new ArrayList<>();
         private LocalDateTime startTime;
         private LocalDateTime endTime;
 
@@ -677,6 +997,10 @@ public class DynamicConfigurationService {
         public void setFailureCount(int failureCount) { this.failureCount = failureCount; }
         public List<ConfigurationResult> getResults() { return results; }
         public void setResults(List<ConfigurationResult> results) { this.results = results; }
+        public boolean isRolledBack() { return rolledBack; }
+        public void setRolledBack(boolean rolledBack) { this.rolledBack = rolledBack; }
+        public List<String> getRollbackErrors() { return rollbackErrors; }
+        public void setRollbackErrors(List<String> rollbackErrors) { this.rollbackErrors = rollbackErrors; }
         public LocalDateTime getStartTime() { return startTime; }
         public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
         public LocalDateTime getEndTime() { return endTime; }
@@ -689,6 +1013,9 @@ public class DynamicConfigurationService {
         private int successCount;
         private int failureCount;
         private List<String> errors = new ArrayList<>();
+        private List<Long> failedDataSourceIds = new ArrayList<>();
+        private boolean rolledBack;
+        private List<String> rollbackErrors = new ArrayList<>();
         private LocalDateTime startTime;
         private LocalDateTime endTime;
 
@@ -703,12 +1030,26 @@ public class DynamicConfigurationService {
         public void setFailureCount(int failureCount) { this.failureCount = failureCount; }
         public List<String> getErrors() { return errors; }
         public void setErrors(List<String> errors) { this.errors = errors; }
+        public List<Long> getFailedDataSourceIds() { return failedDataSourceIds; }
+        public void setFailedDataSourceIds(List<Long> failedDataSourceIds) { this.failedDataSourceIds = failedDataSourceIds; }
+        public boolean isRolledBack() { return rolledBack; }
+        public void setRolledBack(boolean rolledBack) { this.rolledBack = rolledBack; }
+        public List<String> getRollbackErrors() { return rollbackErrors; }
+        public void setRollbackErrors(List<String> rollbackErrors) { this.rollbackErrors = rollbackErrors; }
         public LocalDateTime getStartTime() { return startTime; }
         public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
         public LocalDateTime getEndTime() { return endTime; }
         public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
     }
 
+    /**
+     * 已成功操作的补偿动作
+     */
+    @FunctionalInterface
+    private interface Compensation {
+        ConfigurationResult undo() throws DataSourceException;
+    }
+
     public static class ConfigurationChange {
         private Long dataSourceId;
         private String operation;
@@ -15,6 +15,7 @@ import java.util.Properties;
 
 /**
  * HikariCP连接池优化配置
+ * 负载模式和网络环境决定连接池的初始配置，运行期的大小伸缩见{@link com.powertrading.datasource.manager.AdaptivePoolSizer}
  * 
  * @author PowerTrading Team
  * @version 1.0.0
@@ -387,6 +388,7 @@ public class HikariOptimizationConfig {
         private boolean useInitializationSql = true;
         private int defaultMinIdle = 2;
         private int defaultMaxPoolSize = 10;
+        private Adaptive adaptive = new Adaptive();
         
         // Getters and Setters
         public LoadPattern getLoadPattern() {
@@ -476,5 +478,130 @@ public class HikariOptimizationConfig {
         public void setDefaultMaxPoolSize(int defaultMaxPoolSize) {
             this.defaultMaxPoolSize = defaultMaxPoolSize;
         }
+        
+        public Adaptive getAdaptive() {
+            return adaptive;
+        }
+        
+        public void setAdaptive(Adaptive adaptive) {
+            this.adaptive = adaptive;
+        }
+    }
+
+    /**
+     * 连接池自适应调整配置
+     * 静态负载模式只决定连接池的初始大小，运行期由自适应调整按实时负载在上下限之间伸缩
+     */
+    public static class Adaptive {
+        
+        private boolean enabled = true;
+        // 连接池绝对下限
+        private int minPoolSize = 2;
+        // 连接池绝对上限
+        private int maxPoolSize = 50;
+        // 相对配置的最大连接数允许扩容的倍数
+        private double maxGrowthFactor = 2.0;
+        // 持续空闲的数据源收缩后保留的最小空闲连接数
+        private int idleMinimumIdle = 0;
+        // 活跃连接占比达到该值视为繁忙
+        private double highUtilization = 0.8;
+        // 活跃连接占比不超过该值视为空闲
+        private double lowUtilization = 0.3;
+        // 获取连接平均耗时（毫秒）达到该值视为繁忙
+        private long acquireLatencyThreshold = 50;
+        // 连续繁忙多少次采样后扩容
+        private int scaleUpSamples = 2;
+        // 连续空闲多少次采样后收缩
+        private int scaleDownSamples = 12;
+        // 两次调整之间的最小间隔（毫秒）
+        private long cooldown = 30000;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getMinPoolSize() {
+            return minPoolSize;
+        }
+        
+        public void setMinPoolSize(int minPoolSize) {
+            this.minPoolSize = minPoolSize;
+        }
+        
+        public int getMaxPoolSize() {
+            return maxPoolSize;
+        }
+        
+        public void setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+        
+        public double getMaxGrowthFactor() {
+            return maxGrowthFactor;
+        }
+        
+        public void setMaxGrowthFactor(double maxGrowthFactor) {
+            this.maxGrowthFactor = maxGrowthFactor;
+        }
+        
+        public int getIdleMinimumIdle() {
+            return idleMinimumIdle;
+        }
+        
+        public void setIdleMinimumIdle(int idleMinimumIdle) {
+            this.idleMinimumIdle = idleMinimumIdle;
+        }
+        
+        public double getHighUtilization() {
+            return highUtilization;
+        }
+        
+        public void setHighUtilization(double highUtilization) {
+            this.highUtilization = highUtilization;
+        }
+        
+        public double getLowUtilization() {
+            return lowUtilization;
+        }
+        
+        public void setLowUtilization(double lowUtilization) {
+            this.lowUtilization = lowUtilization;
+        }
+        
+        public long getAcquireLatencyThreshold() {
+            return acquireLatencyThreshold;
+        }
+        
+        public void setAcquireLatencyThreshold(long acquireLatencyThreshold) {
+            this.acquireLatencyThreshold = acquireLatencyThreshold;
+        }
+        
+        public int getScaleUpSamples() {
+            return scaleUpSamples;
+        }
+        
+        public void setScaleUpSamples(int scaleUpSamples) {
+            this.scaleUpSamples = scaleUpSamples;
+        }
+        
+        public int getScaleDownSamples() {
+            return scaleDownSamples;
+        }
+        
+        public void setScaleDownSamples(int scaleDownSamples) {
+            this.scaleDownSamples = scaleDownSamples;
+        }
+        
+        public long getCooldown() {
+            return cooldown;
+        }
+        
+        public void setCooldown(long cooldown) {
+            this.cooldown = cooldown;
+        }
     }
 }
\ No newline at end of file
@@ -1,9 +1,20 @@
 package com.powertrading.datasource.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.powertrading.datasource.async.AsyncQueryService;
+import com.powertrading.datasource.cache.QueryCacheService;
+import com.powertrading.datasource.engine.BindParameter;
+import com.powertrading.datasource.engine.BoundSql;
+import com.powertrading.datasource.engine.ColumnarQueryResult;
+import com.powertrading.datasource.engine.NdjsonResultWriter;
+import com.powertrading.datasource.engine.QueryBulkheads;
 import com.powertrading.datasource.engine.QueryExecutionEngine;
 import com.powertrading.datasource.entity.DataSource;
 import com.powertrading.datasource.exception.DataSourceException;
+import com.powertrading.datasource.exception.QueryRejectedException;
 import com.powertrading.datasource.manager.DataSourceManager;
+import com.powertrading.datasource.monitor.PerformanceAnalysisService;
 import com.powertrading.datasource.service.DataSourceService;
 // import io.swagger.annotations.Api;
 // import io.swagger.annotations.ApiOperation;
@@ -15,16 +26,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 数据源管理控制器
@@ -46,6 +62,21 @@ public class DataSourceController {
     @Autowired
     private QueryExecutionEngine queryExecutionEngine;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private QueryCacheService queryCacheService;
+
+    @Autowired
+    private AsyncQueryService asyncQueryService;
+
+    @Autowired
+    private PerformanceAnalysisService performanceAnalysisService;
+
+    @Autowired
+    private QueryBulkheads queryBulkheads;
+
     /**
      * 创建数据源
      */
@@ -276,9 +307,15 @@ public class DataSourceController {
             /* @ApiParam("查询请求") */ @Valid @RequestBody QueryRequest request) {
         
         try {
-            QueryExecutionEngine.QueryResult result = queryExecutionEngine.executeQuery(
-                id, request.getSql(), request.getParameters());
+            BoundSql boundSql = queryExecutionEngine.bind(
+                request.getSql(), request.getParameters(), request.getBindParameters())
+                .forInterface(request.getInterfaceId());
+            QueryExecutionEngine.QueryResult result = queryCacheService.getOrLoad(
+                id, request.getInterfaceId(), request.getCacheTtl(), boundSql,
+                () -> queryExecutionEngine.executeQuery(id, boundSql));
             return ResponseEntity.ok(ApiResponse.success(result, "查询执行成功"));
+        } catch (QueryRejectedException e) {
+            return rejected(id, e);
         } catch (DataSourceException e) {
             logger.error("执行查询失败: id={}, sql={}", id, request.getSql(), e);
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
@@ -289,28 +326,266 @@ public class DataSourceController {
     }
 
     /**
-     * 异步执行查询SQL
+     * 流式执行查询SQL
+     * 结果以列式结构保存，逐行直接写入响应流，响应结构与/query一致
      */
-    // @ApiOperation("异步执行查询SQL")
-    @PostMapping("/{id}/query-async")
-    public ResponseEntity<ApiResponse<String>> executeQueryAsync(
+    // @ApiOperation("流式执行查询SQL")
+    @PostMapping(value = "/{id}/query-stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> executeQueryStream(
             /* @ApiParam("数据源ID") */ @PathVariable Long id,
             /* @ApiParam("查询请求") */ @Valid @RequestBody QueryRequest request) {
         
         try {
-            CompletableFuture<QueryExecutionEngine.QueryResult> future = 
-                queryExecutionEngine.executeQueryAsync(id, request.getSql(), request.getParameters());
+            BoundSql boundSql = queryExecutionEngine.bind(
+                request.getSql(), request.getParameters(), request.getBindParameters())
+                .forInterface(request.getInterfaceId());
+            ColumnarQueryResult result = queryExecutionEngine.executeColumnarQuery(id, boundSql);
             
-            // 这里可以返回任务ID，客户端可以通过任务ID查询结果
-            String taskId = "task_" + System.currentTimeMillis();
+            StreamingResponseBody body = outputStream -> {
+                JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                try {
+                    result.writeApiResponse(generator, "查询执行成功");
+                } finally {
+                    generator.close();
+                }
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (QueryRejectedException e) {
+            return rejected(id, e);
+        } catch (DataSourceException e) {
+            logger.error("流式执行查询失败: id={}, sql={}", id, request.getSql(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("流式执行查询异常: id={}, sql={}", id, request.getSql(), e);
+            return ResponseEntity.internalServerError().body(ApiResponse.error("系统异常: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 以NDJSON流式执行查询SQL
+     * 连接在响应写出期间持有，每行读出后即写出，按配置的行数间隔刷新；
+     * 绑定、校验、隔离舱准入、获取连接和执行语句在发送响应头之前完成，失败时返回与/query相同的状态码，
+     * 只有读取结果中途失败时以错误行结束
+     */
+    // @ApiOperation("以NDJSON流式执行查询SQL")
+    @PostMapping("/{id}/query-ndjson")
+    public ResponseEntity<?> executeQueryNdjson(
+            /* @ApiParam("数据源ID") */ @PathVariable Long id,
+            /* @ApiParam("查询请求") */ @Valid @RequestBody QueryRequest request) {
+        
+        try {
+            BoundSql boundSql = queryExecutionEngine.bind(
+                request.getSql(), request.getParameters(), request.getBindParameters())
+                .forInterface(request.getInterfaceId());
+            queryExecutionEngine.validateQuery(boundSql);
+            // 在发送响应头之前完成隔离舱准入并执行语句，被拒绝或执行失败时仍能返回对应的状态码
+            QueryBulkheads.Permit permit = queryBulkheads.acquire(id);
+            QueryExecutionEngine.StreamingQuery query = queryExecutionEngine.openStream(id, boundSql, permit);
             
-            return ResponseEntity.ok(ApiResponse.success(taskId, "异步查询已提交"));
+            StreamingResponseBody body = outputStream -> {
+                JsonGenerator generator = NdjsonResultWriter.createGenerator(objectMapper, outputStream);
+                try {
+                    query.writeTo(generator);
+                } catch (DataSourceException e) {
+                    writeStreamError(generator, e.getMessage());
+                } finally {
+                    query.close();
+                    generator.close();
+                }
+            };
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+        } catch (QueryRejectedException e) {
+            return rejected(id, e);
+        } catch (DataSourceException e) {
+            logger.error("NDJSON流式查询失败: id={}, sql={}", id, request.getSql(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("NDJSON流式查询异常: id={}, sql={}", id, request.getSql(), e);
+            return ResponseEntity.internalServerError().body(ApiResponse.error("系统异常: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 查询被隔离舱拒绝时返回429，并通过Retry-After告知建议的重试时间
+     */
+    private <T> ResponseEntity<ApiResponse<T>> rejected(Long id, QueryRejectedException e) {
+        logger.warn("查询被拒绝: id={}, retryAfter={}ms", id, e.getRetryAfterMillis());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body(ApiResponse.error(e.getMessage()));
+    }
+
+    /**
+     * 写出流式查询错误行，客户端已断开时忽略
+     */
+    private void writeStreamError(JsonGenerator generator, String message) {
+        try {
+            NdjsonResultWriter.writeError(generator, message);
+        } catch (IOException e) {
+            logger.debug("流式查询错误行写出失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 清除数据源查询缓存
+     */
+    // @ApiOperation("清除数据源查询缓存")
+    @DeleteMapping("/{id}/cache")
+    public ResponseEntity<ApiResponse<Void>> evictQueryCache(
+            /* @ApiParam("数据源ID") */ @PathVariable Long id) {
+        
+        try {
+            queryCacheService.invalidateDataSource(id);
+            return ResponseEntity.ok(ApiResponse.success(null, "查询缓存已清除"));
+        } catch (Exception e) {
+            logger.error("清除查询缓存异常: id={}", id, e);
+            return ResponseEntity.internalServerError().body(ApiResponse.error("系统异常: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取查询缓存统计
+     */
+    // @ApiOperation("获取查询缓存统计")
+    @GetMapping("/cache/statistics")
+    public ResponseEntity<ApiResponse<QueryCacheService.CacheStatistics>> getQueryCacheStatistics() {
+        try {
+            return ResponseEntity.ok(ApiResponse.success(queryCacheService.getStatistics(), "获取查询缓存统计成功"));
+        } catch (Exception e) {
+            logger.error("获取查询缓存统计异常", e);
+            return ResponseEntity.internalServerError().body(ApiResponse.error("系统异常: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取按SQL指纹聚合的查询统计排行
+     * 常量不同的同一语句合并统计，不指定数据源时跨全部数据源排序
+     */
+    // @ApiOperation("获取SQL指纹查询统计排行")
+    @GetMapping("/query-statements")
+    public ResponseEntity<ApiResponse<List<PerformanceAnalysisService.QueryFingerprintStatistics>>> getTopQueries(
+            /* @ApiParam("数据源ID") */ @RequestParam(required = false) Long dataSourceId,
+            /* @ApiParam("排序方式") */ @RequestParam(defaultValue = "TOTAL_TIME") PerformanceAnalysisService.TopQueryOrder orderBy,
+            /* @ApiParam("返回条数") */ @RequestParam(defaultValue = "20") int limit) {
+        
+        try {
+            List<PerformanceAnalysisService.QueryFingerprintStatistics> statistics =
+                performanceAnalysisService.getTopQueries(dataSourceId, orderBy, Math.min(limit, 500));
+            return ResponseEntity.ok(ApiResponse.success(statistics, "获取查询统计排行成功"));
+        } catch (Exception e) {
+            logger.error("获取查询统计排行异常: dataSourceId={}", dataSourceId, e);
+            return ResponseEntity.internalServerError().body(ApiResponse.error("系统异常: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取各数据源查询隔离舱状态
+     * 包括当前并发上限、执行中和排队的查询数、累计拒绝次数
+     */
+    // @ApiOperation("获取查询隔离舱状态")
+    @GetMapping("/bulkheads")
+    public ResponseEntity<ApiResponse<Map<Long, QueryBulkheads.BulkheadStatus>>> getBulkheadStatus() {
+        try {
+            Map<Long, QueryBulkheads.BulkheadStatus> status = queryBulkheads.getAllStatus();
+            return ResponseEntity.ok(ApiResponse.success(status, "获取查询隔离舱状态成功"));
+        } catch (Exception e) {
+            logger.error("获取查询隔离舱状态异常", e);
+            return ResponseEntity.internalServerError().body(ApiResponse.error("系统异常: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 提交异步查询
+     * 查询在独立线程池中执行，通过返回的任务ID查询状态、分页获取结果或取消
+     */
+    // @ApiOperation("提交异步查询")
+    @PostMapping("/{id}/query-async")
+    public ResponseEntity<ApiResponse<AsyncQueryService.JobInfo>> executeQueryAsync(
+            /* @ApiParam("数据源ID") */ @PathVariable Long id,
+            /* @ApiParam("查询请求") */ @Valid @RequestBody QueryRequest request) {
+        
+        try {
+            BoundSql boundSql = queryExecutionEngine.bind(
+                request.getSql(), request.getParameters(), request.getBindParameters())
+                .forInterface(request.getInterfaceId());
+            AsyncQueryService.JobInfo job = asyncQueryService.submit(id, boundSql);
+            return ResponseEntity.ok(ApiResponse.success(job, "异步查询已提交"));
+        } catch (DataSourceException e) {
+            logger.error("提交异步查询失败: id={}, sql={}", id, request.getSql(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            logger.warn("异步查询被拒绝: id={}, error={}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             logger.error("提交异步查询异常: id={}, sql={}", id, request.getSql(), e);
             return ResponseEntity.internalServerError().body(ApiResponse.error("系统异常: " + e.getMessage()));
         }
     }
 
+    /**
+     * 获取异步查询任务状态
+     */
+    // @ApiOperation("获取异步查询任务状态")
+    @GetMapping("/{id}/query-jobs/{jobId}")
+    public ResponseEntity<ApiResponse<AsyncQueryService.JobInfo>> getQueryJob(
+            /* @ApiParam("数据源ID") */ @PathVariable Long id,
+            /* @ApiParam("任务ID") */ @PathVariable String jobId) {
+        
+        try {
+            AsyncQueryService.JobInfo job = asyncQueryService.getJob(id, jobId);
+            return ResponseEntity.ok(ApiResponse.success(job, "获取任务状态成功"));
+        } catch (DataSourceException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("获取异步查询任务异常: id={}, jobId={}", id, jobId, e);
+            return ResponseEntity.internalServerError().body(ApiResponse.error("系统异常: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 分页获取异步查询结果
+     */
+    // @ApiOperation("分页获取异步查询结果")
+    @GetMapping("/{id}/query-jobs/{jobId}/result")
+    public ResponseEntity<ApiResponse<AsyncQueryService.ResultPage>> getQueryJobResult(
+            /* @ApiParam("数据源ID") */ @PathVariable Long id,
+            /* @ApiParam("任务ID") */ @PathVariable String jobId,
+            /* @ApiParam("页码") */ @RequestParam(defaultValue = "0") int page,
+            /* @ApiParam("页大小") */ @RequestParam(defaultValue = "1000") int size) {
+        
+        try {
+            AsyncQueryService.ResultPage resultPage = asyncQueryService.getResultPage(id, jobId, page, size);
+            return ResponseEntity.ok(ApiResponse.success(resultPage, "获取查询结果成功"));
+        } catch (DataSourceException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("获取异步查询结果异常: id={}, jobId={}", id, jobId, e);
+            return ResponseEntity.internalServerError().body(ApiResponse.error("系统异常: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * 取消异步查询任务
+     * 执行中的查询通过Statement.cancel中止，已结束任务的结果立即释放
+     */
+    // @ApiOperation("取消异步查询任务")
+    @DeleteMapping("/{id}/query-jobs/{jobId}")
+    public ResponseEntity<ApiResponse<AsyncQueryService.JobInfo>> cancelQueryJob(
+            /* @ApiParam("数据源ID") */ @PathVariable Long id,
+            /* @ApiParam("任务ID") */ @PathVariable String jobId) {
+        
+        try {
+            AsyncQueryService.JobInfo job = asyncQueryService.cancel(id, jobId);
+            return ResponseEntity.ok(ApiResponse.success(job, "异步查询已取消"));
+        } catch (DataSourceException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            logger.error("取消异步查询任务异常: id={}, jobId={}", id, jobId, e);
+            return ResponseEntity.internalServerError().body(ApiResponse.error("系统异常: " + e.getMessage()));
+        }
+    }
+
     /**
      * 获取表结构信息
      */
@@ -362,6 +637,21 @@ public class DataSourceController {
         
         private Map<String, Object> parameters;
 
+        /**
+         * 按?占位符顺序排列的类型化绑定参数，提供时优先于parameters
+         */
+        private List<BindParameter> bindParameters;
+
+        /**
+         * 调用方接口ID，用于确定缓存存活时间
+         */
+        private String interfaceId;
+
+        /**
+         * 缓存存活时间（秒），大于0时缓存本次查询结果，0表示不使用缓存，为空时使用接口配置
+         */
+        private Integer cacheTtl;
+
         // Getters and Setters
         public String getSql() {
             return sql;
@@ -378,6 +668,30 @@ public class DataSourceController {
         public void setParameters(Map<String, Object> parameters) {
             this.parameters = parameters;
         }
+
+        public List<BindParameter> getBindParameters() {
+            return bindParameters;
+        }
+
+        public void setBindParameters(List<BindParameter> bindParameters) {
+            this.bindParameters = bindParameters;
+        }
+
+        public String getInterfaceId() {
+            return interfaceId;
+        }
+
+        public void setInterfaceId(String interfaceId) {
+            this.interfaceId = interfaceId;
+        }
+
+        public Integer getCacheTtl() {
+            return cacheTtl;
+        }
+
+        public void setCacheTtl(Integer cacheTtl) {
+            this.cacheTtl = cacheTtl;
+        }
     }
 
     /**
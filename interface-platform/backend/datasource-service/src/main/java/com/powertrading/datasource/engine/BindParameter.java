@@ -0,0 +1,162 @@
+package com.powertrading.datasource.engine;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * 类型化绑定参数
+ * 类型名称与接口参数类型一致（string、integer、long、double、decimal、boolean、date、datetime），
+ * 类型为空时按值的Java类型绑定。datetime接受yyyy-MM-dd HH:mm:ss以及查询结果经JSON序列化后的
+ * ISO-8601格式（T分隔、可带小数秒和时区偏移），带偏移的值按所表示的时刻绑定
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+public class BindParameter {
+
+    private static final DateTimeFormatter DATETIME_FORMATTER = new DateTimeFormatterBuilder()
+        .append(DateTimeFormatter.ISO_LOCAL_DATE)
+        .optionalStart().appendLiteral(' ').optionalEnd()
+        .optionalStart().appendLiteral('T').optionalEnd()
+        .append(DateTimeFormatter.ISO_LOCAL_TIME)
+        .optionalStart().appendOffsetId().optionalEnd()
+        .toFormatter();
+
+    private String type;
+
+    private Object value;
+
+    public BindParameter() {
+    }
+
+    public BindParameter(String type, Object value) {
+        this.type = type;
+        this.value = value;
+    }
+
+    /**
+     * 按类型将值绑定到PreparedStatement指定位置
+     *
+     * @param stmt PreparedStatement
+     * @param index 参数位置（从1开始）
+     * @throws SQLException 绑定异常
+     */
+    public void bind(PreparedStatement stmt, int index) throws SQLException {
+        Object jdbcValue = toJdbcValue();
+        if (jdbcValue == null) {
+            stmt.setNull(index, sqlType());
+        } else if (jdbcValue instanceof String) {
+            stmt.setString(index, (String) jdbcValue);
+        } else if (jdbcValue instanceof Integer) {
+            stmt.setInt(index, (Integer) jdbcValue);
+        } else if (jdbcValue instanceof Long) {
+            stmt.setLong(index, (Long) jdbcValue);
+        } else if (jdbcValue instanceof Double) {
+            stmt.setDouble(index, (Double) jdbcValue);
+        } else if (jdbcValue instanceof BigDecimal) {
+            stmt.setBigDecimal(index, (BigDecimal) jdbcValue);
+        } else if (jdbcValue instanceof Boolean) {
+            stmt.setBoolean(index, (Boolean) jdbcValue);
+        } else if (jdbcValue instanceof java.sql.Date) {
+            stmt.setDate(index, (java.sql.Date) jdbcValue);
+        } else if (jdbcValue instanceof Timestamp) {
+            stmt.setTimestamp(index, (Timestamp) jdbcValue);
+        } else if (jdbcValue instanceof java.util.Date) {
+            stmt.setTimestamp(index, new Timestamp(((java.util.Date) jdbcValue).getTime()));
+        } else {
+            stmt.setObject(index, jdbcValue);
+        }
+    }
+
+    /**
+     * 按声明类型转换为JDBC值
+     *
+     * @return JDBC值
+     * @throws IllegalArgumentException 值与类型不匹配
+     */
+    public Object toJdbcValue() {
+        if (value == null || type == null) {
+            return value;
+        }
+        String text = value.toString();
+        switch (type.toLowerCase()) {
+            case "string":
+                return text;
+            case "integer":
+            case "int":
+                return value instanceof Number ? ((Number) value).intValue() : Integer.valueOf(text.trim());
+            case "long":
+                return value instanceof Number ? ((Number) value).longValue() : Long.valueOf(text.trim());
+            case "double":
+                return value instanceof Number ? ((Number) value).doubleValue() : Double.valueOf(text.trim());
+            case "decimal":
+                return new BigDecimal(text.trim());
+            case "boolean":
+                return value instanceof Boolean ? value : Boolean.valueOf(text.trim());
+            case "date":
+                return java.sql.Date.valueOf(LocalDate.parse(text.trim()));
+            case "datetime":
+                return parseTimestamp(text.trim());
+            default:
+                return value;
+        }
+    }
+
+    private static Timestamp parseTimestamp(String text) {
+        TemporalAccessor parsed = DATETIME_FORMATTER.parseBest(text, OffsetDateTime::from, LocalDateTime::from);
+        if (parsed instanceof OffsetDateTime) {
+            return Timestamp.from(((OffsetDateTime) parsed).toInstant());
+        }
+        return Timestamp.valueOf((LocalDateTime) parsed);
+    }
+
+    /**
+     * 声明类型对应的JDBC类型，用于绑定NULL
+     */
+    int sqlType() {
+        if (type == null) {
+            return Types.NULL;
+        }
+        switch (type.toLowerCase()) {
+            case "string":
+                return Types.VARCHAR;
+            case "integer":
+            case "int":
+                return Types.INTEGER;
+            case "long":
+                return Types.BIGINT;
+            case "double":
+                return Types.DOUBLE;
+            case "decimal":
+                return Types.DECIMAL;
+            case "boolean":
+                return Types.BOOLEAN;
+            case "date":
+                return Types.DATE;
+            case "datetime":
+                return Types.TIMESTAMP;
+            default:
+                return Types.NULL;
+        }
+    }
+
+    // Getters and Setters
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+    public Object getValue() { return value; }
+    public void setValue(Object value) { this.value = value; }
+
+    @Override
+    public String toString() {
+        return type != null ? type + ":" + value : String.valueOf(value);
+    }
+}
@@ -0,0 +1,55 @@
+package com.powertrading.datasource.engine;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 已绑定的SQL
+ * 使用?占位符的SQL文本及按位置排列的类型化参数，相同SQL模板的不同参数值共享同一SQL文本，
+ * 使驱动和连接池的预编译语句缓存能够命中；可附带发起查询的接口ID，用于按接口统计执行指标
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+public final class BoundSql {
+
+    private final String sql;
+
+    private final List<BindParameter> parameters;
+
+    private final String interfaceId;
+
+    public BoundSql(String sql, List<BindParameter> parameters) {
+        this(sql, parameters, null);
+    }
+
+    private BoundSql(String sql, List<BindParameter> parameters, String interfaceId) {
+        this.sql = sql;
+        this.parameters = parameters != null ? Collections.unmodifiableList(parameters) : Collections.emptyList();
+        this.interfaceId = interfaceId;
+    }
+
+    /**
+     * 标记发起查询的接口
+     *
+     * @param interfaceId 接口ID，为空时返回自身
+     * @return 带接口ID的已绑定SQL
+     */
+    public BoundSql forInterface(String interfaceId) {
+        if (interfaceId == null || interfaceId.isEmpty()) {
+            return this;
+        }
+        return new BoundSql(sql, parameters, interfaceId);
+    }
+
+    public String getSql() { return sql; }
+
+    public List<BindParameter> getParameters() { return parameters; }
+
+    public String getInterfaceId() { return interfaceId; }
+
+    @Override
+    public String toString() {
+        return parameters.isEmpty() ? sql : sql + " " + parameters;
+    }
+}
@@ -0,0 +1,415 @@
+package com.powertrading.datasource.engine;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式查询结果
+ * 列元数据只解析一次，数据按列保存在类型化数组中，
+ * 通过行游标逐行读取或直接写入JSON输出流，避免为每一行创建Map
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+public class ColumnarQueryResult {
+
+    /**
+     * 初始行容量
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final List<QueryExecutionEngine.ColumnInfo> columns;
+
+    /**
+     * 预编码的JSON字段名，写出时不再重复转义
+     */
+    private final SerializableString[] fieldNames;
+
+    private final Column[] data;
+
+    private int rowCount;
+
+    private long executionTime;
+
+    private final LocalDateTime executeTime = LocalDateTime.now();
+
+    private ColumnarQueryResult(List<QueryExecutionEngine.ColumnInfo> columns, Column[] data) {
+        this.columns = Collections.unmodifiableList(columns);
+        this.data = data;
+        this.fieldNames = new SerializableString[columns.size()];
+        for (int i = 0; i < fieldNames.length; i++) {
+            fieldNames[i] = new SerializedString(columns.get(i).getName());
+        }
+    }
+
+    /**
+     * 从结果集读取列式数据
+     *
+     * @param rs 结果集
+     * @param maxRows 最大行数
+     * @return 列式查询结果
+     * @throws SQLException 读取异常
+     */
+    public static ColumnarQueryResult read(ResultSet rs, int maxRows) throws SQLException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        List<QueryExecutionEngine.ColumnInfo> columns = QueryExecutionEngine.resolveColumns(metaData);
+
+        int capacity = maxRows > 0 ? Math.min(INITIAL_CAPACITY, maxRows) : INITIAL_CAPACITY;
+        Column[] data = new Column[columns.size()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = createColumn(columns.get(i), metaData, i + 1, capacity);
+        }
+
+        ColumnarQueryResult result = new ColumnarQueryResult(columns, data);
+        int row = 0;
+        while ((maxRows <= 0 || row < maxRows) && rs.next()) {
+            for (int i = 0; i < data.length; i++) {
+                data[i].read(rs, i + 1, row);
+            }
+            row++;
+        }
+        result.rowCount = row;
+        return result;
+    }
+
+    /**
+     * 根据JDBC类型选择列存储
+     */
+    private static Column createColumn(QueryExecutionEngine.ColumnInfo column, ResultSetMetaData metaData,
+                                       int index, int capacity) throws SQLException {
+        switch (column.getJdbcType()) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return new LongColumn(capacity);
+            case Types.BIGINT:
+                // 无符号BIGINT可能超出long范围
+                return metaData.isSigned(index) ? new LongColumn(capacity) : new ObjectColumn(capacity);
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+                return new DoubleColumn(capacity);
+            case Types.BOOLEAN:
+                return new BooleanColumn();
+            default:
+                return new ObjectColumn(capacity);
+        }
+    }
+
+    /**
+     * 获取行游标
+     */
+    public RowCursor cursor() {
+        return new RowCursor();
+    }
+
+    /**
+     * 转换为按行Map表示，兼容原有QueryResult结构
+     */
+    public List<Map<String, Object>> toRowMaps() {
+        return toRowMaps(0, rowCount);
+    }
+
+    /**
+     * 将指定行区间转换为按行Map表示，用于分页读取
+     *
+     * @param fromRow 起始行（包含）
+     * @param toRow 结束行（不包含），超出行数时截断
+     * @return 行数据
+     */
+    public List<Map<String, Object>> toRowMaps(int fromRow, int toRow) {
+        int from = Math.max(0, fromRow);
+        int to = Math.min(rowCount, toRow);
+        List<Map<String, Object>> rows = new ArrayList<>(Math.max(0, to - from));
+        int mapCapacity = (int) (data.length / 0.75f) + 1;
+        for (int row = from; row < to; row++) {
+            Map<String, Object> map = new LinkedHashMap<>(mapCapacity);
+            for (int i = 0; i < data.length; i++) {
+                map.put(columns.get(i).getName(), data[i].get(row));
+            }
+            rows.add(map);
+        }
+        return rows;
+    }
+
+    /**
+     * 估算结果数据大小（字节），数值列按定长计算，对象列按值估算
+     */
+    public long estimateSize() {
+        long bytes = 0;
+        for (Column column : data) {
+            bytes += column.estimateSize(rowCount);
+        }
+        return bytes;
+    }
+
+    /**
+     * 以统一响应格式写出结果，结构与ApiResponse&lt;QueryResult&gt;一致
+     *
+     * @param gen JSON生成器
+     * @param message 响应消息
+     * @throws IOException 写出异常
+     */
+    public void writeApiResponse(JsonGenerator gen, String message) throws IOException {
+        gen.writeStartObject();
+        gen.writeBooleanField("success", true);
+        gen.writeStringField("message", message);
+        gen.writeFieldName("data");
+        writeJson(gen);
+        gen.writeEndObject();
+    }
+
+    /**
+     * 逐行写出结果，结构与QueryResult的JSON序列化一致
+     *
+     * @param gen JSON生成器
+     * @throws IOException 写出异常
+     */
+    public void writeJson(JsonGenerator gen) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName("columns");
+        gen.writeObject(columns);
+        gen.writeFieldName("rows");
+        gen.writeStartArray();
+        for (int row = 0; row < rowCount; row++) {
+            gen.writeStartObject();
+            for (int i = 0; i < data.length; i++) {
+                gen.writeFieldName(fieldNames[i]);
+                data[i].write(gen, row);
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndArray();
+        gen.writeNumberField("rowCount", rowCount);
+        gen.writeNumberField("executionTime", executionTime);
+        gen.writeFieldName("executeTime");
+        gen.writeObject(executeTime);
+        gen.writeEndObject();
+    }
+
+    public List<QueryExecutionEngine.ColumnInfo> getColumns() { return columns; }
+    public int getColumnCount() { return data.length; }
+    public int getRowCount() { return rowCount; }
+    public long getExecutionTime() { return executionTime; }
+    public void setExecutionTime(long executionTime) { this.executionTime = executionTime; }
+    public LocalDateTime getExecuteTime() { return executeTime; }
+
+    /**
+     * 行游标，列下标从0开始
+     */
+    public final class RowCursor {
+        private int row = -1;
+
+        public boolean next() {
+            if (row + 1 >= rowCount) {
+                return false;
+            }
+            row++;
+            return true;
+        }
+
+        public int getRow() { return row; }
+
+        public boolean isNull(int column) {
+            return data[column].isNull(row);
+        }
+
+        public Object getObject(int column) {
+            return data[column].get(row);
+        }
+
+        public long getLong(int column) {
+            Column col = data[column];
+            if (col instanceof LongColumn) {
+                return ((LongColumn) col).values[row];
+            }
+            Object value = col.get(row);
+            return value instanceof Number ? ((Number) value).longValue() : 0L;
+        }
+
+        public double getDouble(int column) {
+            Column col = data[column];
+            if (col instanceof DoubleColumn) {
+                return ((DoubleColumn) col).values[row];
+            }
+            Object value = col.get(row);
+            return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+        }
+    }
+
+    /**
+     * 列存储
+     */
+    private abstract static class Column {
+        protected final BitSet nulls = new BitSet();
+
+        abstract void read(ResultSet rs, int index, int row) throws SQLException;
+
+        abstract Object get(int row);
+
+        abstract void write(JsonGenerator gen, int row) throws IOException;
+
+        long estimateSize(int rows) {
+            return rows * 8L;
+        }
+
+        boolean isNull(int row) {
+            return nulls.get(row);
+        }
+    }
+
+    private static final class LongColumn extends Column {
+        private long[] values;
+
+        LongColumn(int capacity) {
+            this.values = new long[capacity];
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row << 1);
+            }
+            values[row] = rs.getLong(index);
+            if (rs.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        void write(JsonGenerator gen, int row) throws IOException {
+            if (nulls.get(row)) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(values[row]);
+            }
+        }
+    }
+
+    private static final class DoubleColumn extends Column {
+        private double[] values;
+
+        DoubleColumn(int capacity) {
+            this.values = new double[capacity];
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row << 1);
+            }
+            values[row] = rs.getDouble(index);
+            if (rs.wasNull()) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values[row];
+        }
+
+        @Override
+        void write(JsonGenerator gen, int row) throws IOException {
+            if (nulls.get(row)) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(values[row]);
+            }
+        }
+    }
+
+    private static final class BooleanColumn extends Column {
+        private final BitSet values = new BitSet();
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            boolean value = rs.getBoolean(index);
+            if (rs.wasNull()) {
+                nulls.set(row);
+            } else if (value) {
+                values.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return nulls.get(row) ? null : values.get(row);
+        }
+
+        @Override
+        void write(JsonGenerator gen, int row) throws IOException {
+            if (nulls.get(row)) {
+                gen.writeNull();
+            } else {
+                gen.writeBoolean(values.get(row));
+            }
+        }
+    }
+
+    private static final class ObjectColumn extends Column {
+        private Object[] values;
+
+        ObjectColumn(int capacity) {
+            this.values = new Object[capacity];
+        }
+
+        @Override
+        long estimateSize(int rows) {
+            long bytes = 0;
+            for (int row = 0; row < rows; row++) {
+                bytes += QueryTrace.estimateSize(values[row]);
+            }
+            return bytes;
+        }
+
+        @Override
+        void read(ResultSet rs, int index, int row) throws SQLException {
+            if (row == values.length) {
+                values = Arrays.copyOf(values, row << 1);
+            }
+            Object value = rs.getObject(index);
+            values[row] = value;
+            if (value == null) {
+                nulls.set(row);
+            }
+        }
+
+        @Override
+        Object get(int row) {
+            return values[row];
+        }
+
+        @Override
+        void write(JsonGenerator gen, int row) throws IOException {
+            Object value = values[row];
+            if (value == null) {
+                gen.writeNull();
+            } else if (value instanceof String) {
+                gen.writeString((String) value);
+            } else {
+                gen.writeObject(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.powertrading.datasource.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 解析后的SQL模板
+ * 将#{name}命名参数改写为?占位符并记录参数名顺序；字符串常量、引用标识符和注释中的内容保持原样
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+final class NamedSqlTemplate {
+
+    private final String sql;
+
+    /**
+     * 按占位符顺序排列的参数名，位置参数模板为空数组
+     */
+    private final String[] parameterNames;
+
+    /**
+     * 原SQL中?位置参数的数量
+     */
+    private final int positionalCount;
+
+    private NamedSqlTemplate(String sql, String[] parameterNames, int positionalCount) {
+        this.sql = sql;
+        this.parameterNames = parameterNames;
+        this.positionalCount = positionalCount;
+    }
+
+    /**
+     * 解析SQL模板
+     *
+     * @param template SQL模板
+     * @return 解析结果
+     * @throws IllegalArgumentException 命名参数未闭合或与位置参数混用
+     */
+    static NamedSqlTemplate parse(String template) {
+        StringBuilder sql = new StringBuilder(template.length());
+        List<String> names = new ArrayList<>();
+        int positional = 0;
+        int length = template.length();
+        int i = 0;
+        while (i < length) {
+            char c = template.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = skipQuoted(template, i, c);
+                sql.append(template, i, end);
+                i = end;
+            } else if (c == '-' && i + 1 < length && template.charAt(i + 1) == '-') {
+                int end = template.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                sql.append(template, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < length && template.charAt(i + 1) == '*') {
+                int end = template.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                sql.append(template, i, end);
+                i = end;
+            } else if (c == '#' && i + 1 < length && template.charAt(i + 1) == '{') {
+                int end = template.indexOf('}', i + 2);
+                if (end < 0) {
+                    throw new IllegalArgumentException("命名参数未闭合: " + template.substring(i));
+                }
+                String name = template.substring(i + 2, end).trim();
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("命名参数名称不能为空");
+                }
+                names.add(name);
+                sql.append('?');
+                i = end + 1;
+            } else {
+                if (c == '?') {
+                    positional++;
+                }
+                sql.append(c);
+                i++;
+            }
+        }
+        if (!names.isEmpty() && positional > 0) {
+            throw new IllegalArgumentException("SQL不能同时使用#{name}命名参数和?位置参数");
+        }
+        return new NamedSqlTemplate(sql.toString(), names.toArray(new String[0]), positional);
+    }
+
+    /**
+     * 跳过引号包围的内容，成对引号视为转义
+     *
+     * @return 结束引号之后的位置
+     */
+    private static int skipQuoted(String template, int start, char quote) {
+        int i = start + 1;
+        while (i < template.length()) {
+            if (template.charAt(i) == quote) {
+                if (i + 1 < template.length() && template.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return template.length();
+    }
+
+    String getSql() { return sql; }
+
+    String[] getParameterNames() { return parameterNames; }
+
+    int getPositionalCount() { return positionalCount; }
+
+    boolean isNamed() { return parameterNames.length > 0; }
+}
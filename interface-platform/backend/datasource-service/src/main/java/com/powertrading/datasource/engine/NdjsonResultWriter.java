@@ -0,0 +1,225 @@
+package com.powertrading.datasource.engine;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * NDJSON查询结果写出器
+ * 每行一个JSON值：首行为列元数据，随后每个数据行为一个按列顺序排列的数组，
+ * 末行为汇总信息；查询中途失败时以错误行结束。行从结果集读出后立即写出，不在内存中缓存结果
+ *
+ * <pre>
+ * {"type":"meta","columns":[...]}
+ * [1,"a",null]
+ * {"type":"end","rowCount":1,"executionTime":12}
+ * </pre>
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+public final class NdjsonResultWriter {
+
+    public static final String TYPE_META = "meta";
+    public static final String TYPE_END = "end";
+    public static final String TYPE_ERROR = "error";
+
+    private NdjsonResultWriter() {
+    }
+
+    /**
+     * 创建NDJSON生成器，根值之间不插入分隔符，由写出器自行换行
+     *
+     * @param objectMapper 对象映射器，用于序列化日期等非基本类型
+     * @param outputStream 输出流，关闭生成器时不会关闭
+     * @return JSON生成器
+     * @throws IOException 创建异常
+     */
+    public static JsonGenerator createGenerator(ObjectMapper objectMapper, OutputStream outputStream)
+            throws IOException {
+        JsonGenerator gen = objectMapper.getFactory().createGenerator(outputStream);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(null);
+        return gen;
+    }
+
+    /**
+     * 写出列元数据行及全部数据行
+     *
+     * @param rs 结果集
+     * @param gen JSON生成器
+     * @param maxRows 最大行数，0表示不限制
+     * @param flushRows 每写出多少行刷新一次输出流
+     * @return 写出的行数
+     * @throws SQLException 读取异常
+     * @throws IOException 写出异常
+     */
+    public static int writeRows(ResultSet rs, JsonGenerator gen, int maxRows, int flushRows)
+            throws SQLException, IOException {
+        return writeRows(rs, gen, maxRows, flushRows, null);
+    }
+
+    /**
+     * 写出列元数据行及全部数据行，并将每行的大小估算累加到执行轨迹
+     *
+     * @param rs 结果集
+     * @param gen JSON生成器
+     * @param maxRows 最大行数，0表示不限制
+     * @param flushRows 每写出多少行刷新一次输出流
+     * @param trace 执行轨迹，可为空
+     * @return 写出的行数
+     * @throws SQLException 读取异常
+     * @throws IOException 写出异常
+     */
+    static int writeRows(ResultSet rs, JsonGenerator gen, int maxRows, int flushRows, QueryTrace trace)
+            throws SQLException, IOException {
+        ResultSetMetaData metaData = rs.getMetaData();
+        List<QueryExecutionEngine.ColumnInfo> columns = QueryExecutionEngine.resolveColumns(metaData);
+
+        gen.writeStartObject();
+        gen.writeStringField("type", TYPE_META);
+        gen.writeFieldName("columns");
+        gen.writeObject(columns);
+        gen.writeEndObject();
+        endLine(gen);
+        // 先把元数据送出，客户端可在首行数据到达前准备好列结构
+        gen.flush();
+
+        ValueWriter[] writers = new ValueWriter[columns.size()];
+        for (int i = 0; i < writers.length; i++) {
+            writers[i] = createWriter(columns.get(i), metaData, i + 1);
+        }
+
+        int flushInterval = Math.max(1, flushRows);
+        int row = 0;
+        while ((maxRows <= 0 || row < maxRows) && rs.next()) {
+            gen.writeStartArray();
+            long rowBytes = 2;
+            for (int i = 0; i < writers.length; i++) {
+                rowBytes += writers[i].write(rs, i + 1, gen);
+            }
+            gen.writeEndArray();
+            if (trace != null) {
+                trace.addRow(rowBytes);
+            }
+            endLine(gen);
+            if (++row % flushInterval == 0) {
+                gen.flush();
+            }
+        }
+        gen.flush();
+        return row;
+    }
+
+    /**
+     * 写出汇总行
+     */
+    public static void writeEnd(JsonGenerator gen, int rowCount, long executionTime) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", TYPE_END);
+        gen.writeNumberField("rowCount", rowCount);
+        gen.writeNumberField("executionTime", executionTime);
+        gen.writeEndObject();
+        endLine(gen);
+        gen.flush();
+    }
+
+    /**
+     * 写出错误行，响应头已发送后的失败只能通过该行告知客户端
+     */
+    public static void writeError(JsonGenerator gen, String message) throws IOException {
+        gen.writeStartObject();
+        gen.writeStringField("type", TYPE_ERROR);
+        gen.writeStringField("message", message);
+        gen.writeEndObject();
+        endLine(gen);
+        gen.flush();
+    }
+
+    private static void endLine(JsonGenerator gen) throws IOException {
+        gen.writeRaw('\n');
+    }
+
+    /**
+     * 根据JDBC类型选择取值方式，与列式结果的列存储规则一致
+     */
+    private static ValueWriter createWriter(QueryExecutionEngine.ColumnInfo column, ResultSetMetaData metaData,
+                                            int index) throws SQLException {
+        switch (column.getJdbcType()) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return NdjsonResultWriter::writeLong;
+            case Types.BIGINT:
+                // 无符号BIGINT可能超出long范围
+                return metaData.isSigned(index) ? NdjsonResultWriter::writeLong : NdjsonResultWriter::writeObject;
+            case Types.FLOAT:
+            case Types.REAL:
+            case Types.DOUBLE:
+                return NdjsonResultWriter::writeDouble;
+            case Types.BOOLEAN:
+                return NdjsonResultWriter::writeBoolean;
+            default:
+                return NdjsonResultWriter::writeObject;
+        }
+    }
+
+    private static long writeLong(ResultSet rs, int index, JsonGenerator gen) throws SQLException, IOException {
+        long value = rs.getLong(index);
+        if (rs.wasNull()) {
+            gen.writeNull();
+            return 4;
+        }
+        gen.writeNumber(value);
+        return 8;
+    }
+
+    private static long writeDouble(ResultSet rs, int index, JsonGenerator gen) throws SQLException, IOException {
+        double value = rs.getDouble(index);
+        if (rs.wasNull()) {
+            gen.writeNull();
+            return 4;
+        }
+        gen.writeNumber(value);
+        return 8;
+    }
+
+    private static long writeBoolean(ResultSet rs, int index, JsonGenerator gen) throws SQLException, IOException {
+        boolean value = rs.getBoolean(index);
+        if (rs.wasNull()) {
+            gen.writeNull();
+            return 4;
+        }
+        gen.writeBoolean(value);
+        return 5;
+    }
+
+    private static long writeObject(ResultSet rs, int index, JsonGenerator gen) throws SQLException, IOException {
+        Object value = rs.getObject(index);
+        if (value == null) {
+            gen.writeNull();
+        } else if (value instanceof String) {
+            gen.writeString((String) value);
+        } else {
+            gen.writeObject(value);
+        }
+        return QueryTrace.estimateSize(value);
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter {
+        /**
+         * 写出一个值
+         *
+         * @return 估算的值大小（字节）
+         */
+        long write(ResultSet rs, int index, JsonGenerator gen) throws SQLException, IOException;
+    }
+}
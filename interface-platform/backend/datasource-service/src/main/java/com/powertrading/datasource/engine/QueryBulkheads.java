@@ -0,0 +1,463 @@
+package com.powertrading.datasource.engine;
+
+import com.powertrading.datasource.exception.QueryRejectedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 数据源查询隔离舱
+ * 每个数据源独立限制并发查询数，超出限制的查询进入有界等待队列，队列已满或等待超时时立即拒绝并给出建议重试时间，
+ * 一个变慢的数据库最多占用其并发上限数量的请求线程，不会拖垮其他数据源的查询；
+ * 并发上限按观测到的语句执行耗时自动调整：梯度算法比较短期与长期耗时，耗时上升时按比例收缩；
+ * AIMD算法在超时或耗时超过阈值时乘性收缩，正常时加性增长；
+ * 异步任务等后台查询使用独立的隔离舱，并发上限固定、排队时间长，既不挤占交互查询的并发，也不会因交互查询繁忙被立即拒绝
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@Component
+public class QueryBulkheads {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBulkheads.class);
+
+    /**
+     * 并发上限调整算法
+     */
+    public enum LimitAlgorithm {
+        /** 按短期/长期耗时梯度调整 */
+        GRADIENT,
+        /** 加性增长、乘性收缩 */
+        AIMD
+    }
+
+    @Value("${datasource.query.bulkhead.enabled:true}")
+    private boolean enabled;
+
+    @Value("${datasource.query.bulkhead.algorithm:GRADIENT}")
+    private LimitAlgorithm algorithm;
+
+    @Value("${datasource.query.bulkhead.initial-limit:10}")
+    private int initialLimit;
+
+    @Value("${datasource.query.bulkhead.min-limit:2}")
+    private int minLimit;
+
+    @Value("${datasource.query.bulkhead.max-limit:100}")
+    private int maxLimit;
+
+    /**
+     * 每个数据源的最大排队查询数
+     */
+    @Value("${datasource.query.bulkhead.max-queue:20}")
+    private int maxQueue;
+
+    /**
+     * 单个查询的最长排队时间（毫秒）
+     */
+    @Value("${datasource.query.bulkhead.max-wait:1000}")
+    private long maxWait;
+
+    /**
+     * AIMD算法：语句执行耗时超过该值（毫秒）视为过载
+     */
+    @Value("${datasource.query.bulkhead.aimd-latency-threshold:1000}")
+    private long aimdLatencyThreshold;
+
+    /**
+     * AIMD算法：过载时的收缩比例
+     */
+    @Value("${datasource.query.bulkhead.aimd-backoff-ratio:0.9}")
+    private double aimdBackoffRatio;
+
+    /**
+     * 后台查询每个数据源的并发上限
+     */
+    @Value("${datasource.query.bulkhead.background.limit:2}")
+    private int backgroundLimit;
+
+    /**
+     * 后台查询每个数据源的最大排队数
+     */
+    @Value("${datasource.query.bulkhead.background.max-queue:100}")
+    private int backgroundMaxQueue;
+
+    /**
+     * 后台查询的最长排队时间（毫秒）
+     */
+    @Value("${datasource.query.bulkhead.background.max-wait:600000}")
+    private long backgroundMaxWait;
+
+    private final ConcurrentMap<Long, Bulkhead> bulkheads = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Long, Bulkhead> backgroundBulkheads = new ConcurrentHashMap<>();
+
+    /**
+     * 申请查询许可，无空闲并发时在有界队列中等待
+     *
+     * @param dataSourceId 数据源ID
+     * @return 查询许可，查询结束后必须释放
+     * @throws QueryRejectedException 队列已满或等待超时
+     */
+    public Permit acquire(Long dataSourceId) throws QueryRejectedException {
+        if (!enabled) {
+            return Permit.NOOP;
+        }
+        Bulkhead bulkhead = bulkheads.get(dataSourceId);
+        if (bulkhead == null) {
+            bulkhead = bulkheads.computeIfAbsent(dataSourceId,
+                id -> new Bulkhead(id, createLimit(), maxQueue, maxWait));
+        }
+        return bulkhead.acquire();
+    }
+
+    /**
+     * 申请后台查询许可，与交互查询的隔离舱相互独立
+     * 并发上限固定，无空闲并发时排队等待，排队时间可覆盖异步任务的超时时间
+     *
+     * @param dataSourceId 数据源ID
+     * @return 查询许可，查询结束后必须释放
+     * @throws QueryRejectedException 后台队列已满或等待超时
+     */
+    public Permit acquireBackground(Long dataSourceId) throws QueryRejectedException {
+        if (!enabled) {
+            return Permit.NOOP;
+        }
+        Bulkhead bulkhead = backgroundBulkheads.get(dataSourceId);
+        if (bulkhead == null) {
+            bulkhead = backgroundBulkheads.computeIfAbsent(dataSourceId,
+                id -> new Bulkhead(id, new FixedLimit(Math.max(1, backgroundLimit)), backgroundMaxQueue, backgroundMaxWait));
+        }
+        return bulkhead.acquire();
+    }
+
+    /**
+     * 移除数据源的隔离舱，数据源删除时调用
+     *
+     * @param dataSourceId 数据源ID
+     */
+    public void removeDataSource(Long dataSourceId) {
+        bulkheads.remove(dataSourceId);
+        backgroundBulkheads.remove(dataSourceId);
+    }
+
+    /**
+     * 获取各数据源隔离舱的当前状态
+     *
+     * @return 数据源ID到状态的映射
+     */
+    public Map<Long, BulkheadStatus> getAllStatus() {
+        Map<Long, BulkheadStatus> status = new LinkedHashMap<>();
+        bulkheads.forEach((id, bulkhead) -> status.put(id, bulkhead.status()));
+        return status;
+    }
+
+    private ConcurrencyLimit createLimit() {
+        int initial = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        if (algorithm == LimitAlgorithm.AIMD) {
+            return new AimdLimit(initial, minLimit, maxLimit,
+                TimeUnit.MILLISECONDS.toNanos(aimdLatencyThreshold), aimdBackoffRatio);
+        }
+        return new GradientLimit(initial, minLimit, maxLimit);
+    }
+
+    /**
+     * 查询许可
+     */
+    public static class Permit {
+
+        static final Permit NOOP = new Permit(null);
+
+        private final Bulkhead bulkhead;
+
+        private boolean released;
+
+        Permit(Bulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+        }
+
+        /**
+         * 释放许可并提交一次耗时样本
+         *
+         * @param rttNanos 语句执行耗时（纳秒），负数表示没有有效样本（如SQL错误）
+         * @param dropped 是否因过载失败（获取连接超时、语句超时）
+         */
+        public void release(long rttNanos, boolean dropped) {
+            if (bulkhead == null || released) {
+                return;
+            }
+            released = true;
+            bulkhead.release(rttNanos, dropped);
+        }
+    }
+
+    /**
+     * 单个数据源的隔离舱
+     * 许可计数和并发上限由同一把锁保护，临界区只做计数和一次上限计算
+     */
+    private final class Bulkhead {
+        private final Long dataSourceId;
+        private final ConcurrencyLimit limit;
+        private final int maxQueue;
+        private final long maxWait;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition available = lock.newCondition();
+        private int inflight;
+        private int waiting;
+        private long rejected;
+        // 语句执行耗时的指数移动平均（纳秒），用于估算重试时间
+        private double averageRttNanos;
+
+        Bulkhead(Long dataSourceId, ConcurrencyLimit limit, int maxQueue, long maxWait) {
+            this.dataSourceId = dataSourceId;
+            this.limit = limit;
+            this.maxQueue = maxQueue;
+            this.maxWait = maxWait;
+        }
+
+        Permit acquire() throws QueryRejectedException {
+            lock.lock();
+            try {
+                if (inflight < limit.get()) {
+                    inflight++;
+                    return new Permit(this);
+                }
+                if (waiting >= maxQueue) {
+                    throw reject("数据源查询繁忙，等待队列已满");
+                }
+
+                waiting++;
+                try {
+                    long remaining = TimeUnit.MILLISECONDS.toNanos(maxWait);
+                    while (inflight >= limit.get()) {
+                        if (remaining <= 0) {
+                            throw reject("数据源查询繁忙，排队超时");
+                        }
+                        remaining = available.awaitNanos(remaining);
+                    }
+                    inflight++;
+                    return new Permit(this);
+                } finally {
+                    waiting--;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject("查询排队被中断");
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release(long rttNanos, boolean dropped) {
+            lock.lock();
+            try {
+                int before = limit.get();
+                if (rttNanos >= 0 || dropped) {
+                    limit.onSample(rttNanos, inflight, dropped);
+                }
+                if (rttNanos >= 0) {
+                    averageRttNanos = averageRttNanos == 0 ? rttNanos : averageRttNanos * 0.9 + rttNanos * 0.1;
+                }
+                inflight--;
+                int after = limit.get();
+                if (after != before) {
+                    logger.debug("数据源并发上限调整: dataSourceId={}, limit={}->{}", dataSourceId, before, after);
+                }
+                if (after > before) {
+                    available.signalAll();
+                } else {
+                    available.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 生成拒绝异常，调用方持有锁
+         * 建议重试时间按平均耗时估算排在前面的查询全部完成所需的时间
+         */
+        private QueryRejectedException reject(String reason) {
+            rejected++;
+            int currentLimit = Math.max(1, limit.get());
+            long averageMillis = averageRttNanos > 0
+                ? TimeUnit.NANOSECONDS.toMillis((long) averageRttNanos) : maxWait;
+            long retryAfter = Math.max(100, Math.min(30000, averageMillis * (waiting + 1) / currentLimit));
+            logger.warn("查询被拒绝: dataSourceId={}, reason={}, limit={}, inflight={}, waiting={}, retryAfter={}ms",
+                       dataSourceId, reason, currentLimit, inflight, waiting, retryAfter);
+            return new QueryRejectedException(reason + ": " + dataSourceId, dataSourceId, retryAfter);
+        }
+
+        BulkheadStatus status() {
+            lock.lock();
+            try {
+                return new BulkheadStatus(limit.get(), inflight, waiting, rejected,
+                    TimeUnit.NANOSECONDS.toMillis((long) averageRttNanos));
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 并发上限算法，调用方负责同步
+     */
+    interface ConcurrencyLimit {
+
+        int get();
+
+        /**
+         * 提交一次样本
+         *
+         * @param rttNanos 语句执行耗时（纳秒），过载失败时可能为负数
+         * @param inflight 样本对应查询结束前的并发数
+         * @param dropped 是否因过载失败
+         */
+        void onSample(long rttNanos, int inflight, boolean dropped);
+    }
+
+    /**
+     * 梯度并发上限
+     * 长期耗时为慢速指数移动平均，代表数据库无排队时的基线；短期耗时为快速移动平均；
+     * 梯度 = 容忍系数 × 长期耗时 / 短期耗时，限制在[0.5, 1]，新上限 = 上限 × 梯度 + √上限，再做平滑；
+     * 耗时不变时上限按√上限缓慢增长，耗时上升时按比例收缩；并发未用满一半时不增长
+     */
+    static final class GradientLimit implements ConcurrencyLimit {
+        private static final double TOLERANCE = 1.5;
+        private static final double SMOOTHING = 0.2;
+        private static final double LONG_WINDOW_ALPHA = 2.0 / (600 + 1);
+        private static final double SHORT_WINDOW_ALPHA = 2.0 / (10 + 1);
+
+        private final int minLimit;
+        private final int maxLimit;
+        private double limit;
+        private double longRtt;
+        private double shortRtt;
+
+        GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+            this.limit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+
+        @Override
+        public int get() {
+            return (int) limit;
+        }
+
+        @Override
+        public void onSample(long rttNanos, int inflight, boolean dropped) {
+            if (dropped) {
+                // 超时不代表真实耗时，按最大收缩处理
+                limit = Math.max(minLimit, limit * 0.5);
+                return;
+            }
+            if (longRtt == 0) {
+                longRtt = rttNanos;
+                shortRtt = rttNanos;
+                return;
+            }
+            shortRtt += (rttNanos - shortRtt) * SHORT_WINDOW_ALPHA;
+            longRtt += (rttNanos - longRtt) * LONG_WINDOW_ALPHA;
+            // 持续过载时基线被拉高，主动回落以便恢复后重新探测
+            if (longRtt / shortRtt > 2) {
+                longRtt *= 0.95;
+            }
+
+            if (inflight < limit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / Math.max(1, shortRtt)));
+            double newLimit = limit * gradient + Math.sqrt(limit);
+            limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+        }
+    }
+
+    /**
+     * 固定并发上限，用于后台查询
+     */
+    static final class FixedLimit implements ConcurrencyLimit {
+        private final int limit;
+
+        FixedLimit(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public int get() {
+            return limit;
+        }
+
+        @Override
+        public void onSample(long rttNanos, int inflight, boolean dropped) {
+        }
+    }
+
+    /**
+     * AIMD并发上限
+     * 超时或耗时超过阈值时按比例收缩，否则在并发用满一半以上时加1
+     */
+    static final class AimdLimit implements ConcurrencyLimit {
+        private final int minLimit;
+        private final int maxLimit;
+        private final long latencyThresholdNanos;
+        private final double backoffRatio;
+        private int limit;
+
+        AimdLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos, double backoffRatio) {
+            this.limit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.latencyThresholdNanos = latencyThresholdNanos;
+            this.backoffRatio = backoffRatio;
+        }
+
+        @Override
+        public int get() {
+            return limit;
+        }
+
+        @Override
+        public void onSample(long rttNanos, int inflight, boolean dropped) {
+            if (dropped || rttNanos > latencyThresholdNanos) {
+                limit = Math.max(minLimit, Math.min(limit - 1, (int) (limit * backoffRatio)));
+            } else if (inflight * 2 >= limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+    }
+
+    /**
+     * 隔离舱状态
+     */
+    public static class BulkheadStatus {
+        private final int limit;
+        private final int inflight;
+        private final int waiting;
+        private final long rejectedCount;
+        private final long averageLatencyMillis;
+
+        public BulkheadStatus(int limit, int inflight, int waiting, long rejectedCount, long averageLatencyMillis) {
+            this.limit = limit;
+            this.inflight = inflight;
+            this.waiting = waiting;
+            this.rejectedCount = rejectedCount;
+            this.averageLatencyMillis = averageLatencyMillis;
+        }
+
+        public int getLimit() { return limit; }
+        public int getInflight() { return inflight; }
+        public int getWaiting() { return waiting; }
+        public long getRejectedCount() { return rejectedCount; }
+        public long getAverageLatencyMillis() { return averageLatencyMillis; }
+    }
+}
@@ -1,7 +1,12 @@
 package com.powertrading.datasource.engine;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.powertrading.datasource.exception.DataSourceException;
+import com.powertrading.datasource.exception.QueryRejectedException;
 import com.powertrading.datasource.manager.DataSourceManager;
+import com.powertrading.datasource.monitor.QueryTelemetry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,16 +14,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Pattern;
 
 /**
  * SQL查询执行引擎
- * 支持动态SQL生成和安全的查询执行
+ * 支持动态SQL生成和安全的查询执行，参数统一以?占位符和类型化绑定参数传递；
+ * 查询和更新执行前经过数据源隔离舱准入，单个数据源的并发语句数受自适应上限约束；
+ * 异步任务的可取消查询使用独立的后台隔离舱
  * 
  * @author PowerTrading Team
  * @version 1.0.0
@@ -31,6 +38,12 @@ public class QueryExecutionEngine {
     @Autowired
     private DataSourceManager dataSourceManager;
 
+    @Autowired
+    private QueryTelemetry queryTelemetry;
+
+    @Autowired
+    private QueryBulkheads queryBulkheads;
+
     @Value("${datasource.query.timeout:30000}")
     private int queryTimeout;
 
@@ -40,16 +53,21 @@ public class QueryExecutionEngine {
     @Value("${datasource.query.fetch-size:1000}")
     private int fetchSize;
 
-    // SQL注入防护正则表达式
-    private static final Pattern SQL_INJECTION_PATTERN = Pattern.compile(
-        "(?i).*(union|select|insert|update|delete|drop|create|alter|exec|execute|script|javascript|vbscript).*"
-    );
+    @Value("${datasource.query.stream-max-rows:1000000}")
+    private int streamMaxRows;
 
-    // 危险关键字列表
-    private static final Set<String> DANGEROUS_KEYWORDS = Set.of(
-        "DROP", "DELETE", "INSERT", "UPDATE", "CREATE", "ALTER", "EXEC", "EXECUTE",
-        "TRUNCATE", "GRANT", "REVOKE", "COMMIT", "ROLLBACK", "SAVEPOINT"
-    );
+    @Value("${datasource.query.stream-flush-rows:500}")
+    private int streamFlushRows;
+
+    // 查询和更新语句的安全校验器，校验结论按SQL指纹缓存
+    private final SqlSafetyValidator queryValidator = new SqlSafetyValidator(SqlSafetyValidator.Mode.QUERY, 1000);
+
+    private final SqlSafetyValidator updateValidator = new SqlSafetyValidator(SqlSafetyValidator.Mode.UPDATE, 200);
+
+    // 已解析的SQL模板，按原始SQL文本缓存
+    private final Cache<String, NamedSqlTemplate> sqlTemplates = Caffeine.newBuilder()
+        .maximumSize(1000)
+        .build();
 
     /**
      * 执行查询SQL
@@ -62,39 +80,209 @@ public class QueryExecutionEngine {
      */
     public QueryResult executeQuery(Long dataSourceId, String sql, Map<String, Object> parameters) 
             throws DataSourceException {
+        return executeQuery(dataSourceId, bind(sql, parameters, null));
+    }
+
+    /**
+     * 执行已绑定参数的查询SQL
+     * 
+     * @param dataSourceId 数据源ID
+     * @param boundSql 已绑定的SQL
+     * @return 查询结果
+     * @throws DataSourceException 查询异常
+     */
+    public QueryResult executeQuery(Long dataSourceId, BoundSql boundSql) throws DataSourceException {
         
-        logger.info("开始执行查询: dataSourceId={}, sql={}", dataSourceId, sql);
+        logger.info("开始执行查询: dataSourceId={}, sql={}", dataSourceId, boundSql.getSql());
         
         long startTime = System.currentTimeMillis();
+        QueryTrace trace = new QueryTrace(dataSourceId, boundSql);
         
         try {
-            // 验证SQL安全性
-            validateSqlSecurity(sql);
+            QueryResult result = executeSelect(dataSourceId, boundSql, maxRows, null, trace,
+                queryBulkheads::acquire, this::buildQueryResult);
+            trace.completed(result.getRowCount(), QueryTrace.estimateSize(result.getRows()));
             
-            // 获取数据库连接
-            try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
-                // 处理动态SQL
-                String processedSql = processDynamicSql(sql, parameters);
-                
-                // 执行查询
-                QueryResult result = executeSelectQuery(connection, processedSql, parameters);
-                
-                long executionTime = System.currentTimeMillis() - startTime;
-                result.setExecutionTime(executionTime);
-                
-                logger.info("查询执行完成: dataSourceId={}, executionTime={}ms, rowCount={}", 
-                           dataSourceId, executionTime, result.getRowCount());
-                
-                return result;
-            }
+            long executionTime = System.currentTimeMillis() - startTime;
+            result.setExecutionTime(executionTime);
+            
+            logger.info("查询执行完成: dataSourceId={}, executionTime={}ms, rowCount={}", 
+                       dataSourceId, executionTime, result.getRowCount());
+            
+            return result;
+        } catch (DataSourceException e) {
+            throw e;
         } catch (Exception e) {
             long executionTime = System.currentTimeMillis() - startTime;
             logger.error("查询执行失败: dataSourceId={}, executionTime={}ms, error={}", 
                         dataSourceId, executionTime, e.getMessage(), e);
             throw new DataSourceException("查询执行失败: " + e.getMessage(), e);
+        } finally {
+            recordTrace(trace);
+        }
+    }
+
+    /**
+     * 执行查询SQL并返回列式结果
+     * 列元数据只解析一次，数据保存在类型化列数组中，适合大结果集直接流式写出
+     * 
+     * @param dataSourceId 数据源ID
+     * @param sql SQL语句
+     * @param parameters 参数
+     * @return 列式查询结果
+     * @throws DataSourceException 查询异常
+     */
+    public ColumnarQueryResult executeColumnarQuery(Long dataSourceId, String sql, Map<String, Object> parameters) 
+            throws DataSourceException {
+        return executeColumnarQuery(dataSourceId, bind(sql, parameters, null));
+    }
+
+    /**
+     * 执行已绑定参数的查询SQL并返回列式结果
+     * 
+     * @param dataSourceId 数据源ID
+     * @param boundSql 已绑定的SQL
+     * @return 列式查询结果
+     * @throws DataSourceException 查询异常
+     */
+    public ColumnarQueryResult executeColumnarQuery(Long dataSourceId, BoundSql boundSql) 
+            throws DataSourceException {
+        
+        logger.info("开始执行列式查询: dataSourceId={}, sql={}", dataSourceId, boundSql.getSql());
+        
+        long startTime = System.currentTimeMillis();
+        QueryTrace trace = new QueryTrace(dataSourceId, boundSql);
+        
+        try {
+            ColumnarQueryResult result = executeSelect(dataSourceId, boundSql, maxRows, null, trace,
+                queryBulkheads::acquire,
+                rs -> ColumnarQueryResult.read(rs, maxRows));
+            trace.completed(result.getRowCount(), result.estimateSize());
+            
+            long executionTime = System.currentTimeMillis() - startTime;
+            result.setExecutionTime(executionTime);
+            
+            logger.info("列式查询执行完成: dataSourceId={}, executionTime={}ms, rowCount={}", 
+                       dataSourceId, executionTime, result.getRowCount());
+            
+            return result;
+        } catch (DataSourceException e) {
+            throw e;
+        } catch (Exception e) {
+            long executionTime = System.currentTimeMillis() - startTime;
+            logger.error("列式查询执行失败: dataSourceId={}, executionTime={}ms, error={}", 
+                        dataSourceId, executionTime, e.getMessage(), e);
+            throw new DataSourceException("查询执行失败: " + e.getMessage(), e);
+        } finally {
+            recordTrace(trace);
+        }
+    }
+
+    /**
+     * 执行可取消的列式查询
+     * 语句执行前通过监听器登记，调用方可在其他线程对登记的语句调用{@link Statement#cancel()}；
+     * 供异步任务使用，经后台隔离舱准入，交互查询繁忙时排队等待而不是被拒绝
+     * 
+     * @param dataSourceId 数据源ID
+     * @param boundSql 已绑定的SQL
+     * @param rowLimit 最大行数
+     * @param listener 语句监听器
+     * @return 列式查询结果
+     * @throws DataSourceException 查询异常或已取消
+     */
+    public ColumnarQueryResult executeColumnarQuery(Long dataSourceId, BoundSql boundSql, int rowLimit,
+                                                    StatementListener listener) throws DataSourceException {
+        
+        logger.info("开始执行可取消查询: dataSourceId={}, sql={}", dataSourceId, boundSql.getSql());
+        
+        long startTime = System.currentTimeMillis();
+        QueryTrace trace = new QueryTrace(dataSourceId, boundSql);
+        
+        try {
+            ColumnarQueryResult result = executeSelect(dataSourceId, boundSql, rowLimit, listener, trace,
+                queryBulkheads::acquireBackground,
+                rs -> ColumnarQueryResult.read(rs, rowLimit));
+            trace.completed(result.getRowCount(), result.estimateSize());
+            
+            long executionTime = System.currentTimeMillis() - startTime;
+            result.setExecutionTime(executionTime);
+            
+            logger.info("可取消查询执行完成: dataSourceId={}, executionTime={}ms, rowCount={}", 
+                       dataSourceId, executionTime, result.getRowCount());
+            
+            return result;
+        } catch (DataSourceException e) {
+            throw e;
+        } catch (Exception e) {
+            long executionTime = System.currentTimeMillis() - startTime;
+            logger.error("可取消查询执行失败: dataSourceId={}, executionTime={}ms, error={}", 
+                        dataSourceId, executionTime, e.getMessage());
+            throw new DataSourceException("查询执行失败: " + e.getMessage(), e);
+        } finally {
+            recordTrace(trace);
+        }
+    }
+
+    /**
+     * 执行已绑定参数的查询SQL并以NDJSON逐行写出
+     * 查询期间持有连接，每行读出后立即写入生成器，内存占用与结果集大小无关；
+     * 生成器由调用方创建和关闭，写出失败（如客户端断开）时终止查询
+     * 
+     * @param dataSourceId 数据源ID
+     * @param boundSql 已绑定的SQL
+     * @param gen NDJSON生成器
+     * @return 写出的行数
+     * @throws DataSourceException 查询异常
+     */
+    public int streamQuery(Long dataSourceId, BoundSql boundSql, JsonGenerator gen) throws DataSourceException {
+        validateSqlSecurity(boundSql.getSql());
+        try (StreamingQuery query = openStream(dataSourceId, boundSql, queryBulkheads.acquire(dataSourceId))) {
+            return query.writeTo(gen);
         }
     }
 
+    /**
+     * 使用已申请的隔离舱许可打开流式查询
+     * 在调用线程中获取连接并执行语句，调用方在发送响应头之前打开，使连接失败、SQL错误等仍能以错误状态码返回；
+     * 打开失败时许可随即释放，成功时由返回的查询在关闭时释放
+     * 
+     * @param dataSourceId 数据源ID
+     * @param boundSql 已绑定的SQL
+     * @param permit 已申请的查询许可
+     * @return 已执行的流式查询，写出结果后必须关闭
+     * @throws DataSourceException 获取连接或执行语句失败
+     */
+    public StreamingQuery openStream(Long dataSourceId, BoundSql boundSql, QueryBulkheads.Permit permit)
+            throws DataSourceException {
+        
+        logger.info("开始执行流式查询: dataSourceId={}, sql={}", dataSourceId, boundSql.getSql());
+        
+        StreamingQuery query = new StreamingQuery(dataSourceId, permit, new QueryTrace(dataSourceId, boundSql));
+        try {
+            query.open(boundSql);
+            return query;
+        } catch (DataSourceException e) {
+            query.close();
+            throw e;
+        } catch (Exception e) {
+            query.close();
+            logger.error("流式查询执行失败: dataSourceId={}, executionTime={}ms, error={}", 
+                        dataSourceId, query.elapsedMillis(), e.getMessage(), e);
+            throw new DataSourceException("查询执行失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 校验查询SQL安全性
+     * 流式查询在发送响应头之前调用，使校验失败仍能以错误状态码返回
+     * 
+     * @param boundSql 已绑定的SQL
+     * @throws DataSourceException 校验失败
+     */
+    public void validateQuery(BoundSql boundSql) throws DataSourceException {
+        validateSqlSecurity(boundSql.getSql());
+    }
+
     /**
      * 异步执行查询SQL
      * 
@@ -134,13 +322,22 @@ public class QueryExecutionEngine {
             // 验证SQL安全性（更严格）
             validateUpdateSqlSecurity(sql);
             
+            // 绑定参数
+            BoundSql boundSql = bind(sql, parameters, null);
+            
+            // 与查询共用数据源隔离舱
+            QueryBulkheads.Permit permit = queryBulkheads.acquire(dataSourceId);
+            long rttNanos = -1;
+            boolean dropped = false;
+            boolean connectionAcquired = false;
+            long startNanos = System.nanoTime();
+            
             // 获取数据库连接
             try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
-                // 处理动态SQL
-                String processedSql = processDynamicSql(sql, parameters);
-                
+                connectionAcquired = true;
                 // 执行更新
-                int affectedRows = executeUpdateQuery(connection, processedSql, parameters);
+                int affectedRows = executeUpdateQuery(connection, boundSql);
+                rttNanos = System.nanoTime() - startNanos;
                 
                 long executionTime = System.currentTimeMillis() - startTime;
                 
@@ -148,7 +345,18 @@ public class QueryExecutionEngine {
                            dataSourceId, executionTime, affectedRows);
                 
                 return affectedRows;
+            } catch (SQLTimeoutException e) {
+                dropped = true;
+                throw e;
+            } catch (DataSourceException e) {
+                // 连接池获取连接超时说明数据源已过载
+                dropped = !connectionAcquired;
+                throw e;
+            } finally {
+                permit.release(rttNanos, dropped);
             }
+        } catch (QueryRejectedException e) {
+            throw e;
         } catch (Exception e) {
             long executionTime = System.currentTimeMillis() - startTime;
             logger.error("更新执行失败: dataSourceId={}, executionTime={}ms, error={}", 
@@ -222,23 +430,9 @@ public class QueryExecutionEngine {
             throw new DataSourceException("SQL语句不能为空");
         }
         
-        String upperSql = sql.toUpperCase().trim();
-        
-        // 检查是否为SELECT语句
-        if (!upperSql.startsWith("SELECT") && !upperSql.startsWith("WITH")) {
-            throw new DataSourceException("只允许执行SELECT查询语句");
-        }
-        
-        // 检查危险关键字
-        for (String keyword : DANGEROUS_KEYWORDS) {
-            if (upperSql.contains(keyword)) {
-                throw new DataSourceException("SQL语句包含危险关键字: " + keyword);
-            }
-        }
-        
-        // 检查SQL注入模式
-        if (SQL_INJECTION_PATTERN.matcher(sql).matches()) {
-            throw new DataSourceException("SQL语句可能存在注入风险");
+        SqlSafetyValidator.Verdict verdict = queryValidator.validate(sql);
+        if (!verdict.isSafe()) {
+            throw new DataSourceException(verdict.getMessage());
         }
     }
 
@@ -250,93 +444,189 @@ public class QueryExecutionEngine {
             throw new DataSourceException("SQL语句不能为空");
         }
         
-        String upperSql = sql.toUpperCase().trim();
-        
-        // 只允许特定的更新操作
-        if (!upperSql.startsWith("UPDATE") && !upperSql.startsWith("INSERT")) {
-            throw new DataSourceException("只允许执行UPDATE和INSERT语句");
+        SqlSafetyValidator.Verdict verdict = updateValidator.validate(sql);
+        if (!verdict.isSafe()) {
+            throw new DataSourceException(verdict.getMessage());
+        }
+    }
+
+    /**
+     * 绑定SQL参数
+     * #{name}命名参数改写为?占位符并按出现顺序从参数Map取值；?位置参数优先使用按顺序提供的类型化绑定参数，
+     * 未提供时按参数Map的迭代顺序取值（兼容按JSON字段顺序传参的调用方）
+     * 
+     * @param sql SQL语句
+     * @param parameters 命名参数
+     * @param bindParameters 按位置排列的类型化绑定参数
+     * @return 已绑定的SQL
+     * @throws DataSourceException 参数与SQL不匹配
+     */
+    public BoundSql bind(String sql, Map<String, Object> parameters, List<BindParameter> bindParameters) 
+            throws DataSourceException {
+        if (!StringUtils.hasText(sql)) {
+            throw new DataSourceException("SQL语句不能为空");
         }
         
-        // 检查是否包含WHERE子句（UPDATE必须有）
-        if (upperSql.startsWith("UPDATE") && !upperSql.contains("WHERE")) {
-            throw new DataSourceException("UPDATE语句必须包含WHERE条件");
+        NamedSqlTemplate template;
+        try {
+            template = sqlTemplates.get(sql, NamedSqlTemplate::parse);
+        } catch (IllegalArgumentException e) {
+            throw new DataSourceException("SQL参数解析失败: " + e.getMessage(), e);
         }
         
-        // 检查危险关键字
-        Set<String> strictDangerousKeywords = Set.of(
-            "DROP", "DELETE", "TRUNCATE", "CREATE", "ALTER", "EXEC", "EXECUTE"
-        );
+        List<BindParameter> bound = new ArrayList<>();
+        if (bindParameters != null && !bindParameters.isEmpty()) {
+            if (template.isNamed() || bindParameters.size() != template.getPositionalCount()) {
+                throw new DataSourceException("绑定参数数量不匹配: 需要" + template.getPositionalCount() 
+                    + "个?占位符参数，实际" + bindParameters.size() + "个");
+            }
+            bound.addAll(bindParameters);
+        } else if (template.isNamed()) {
+            for (String name : template.getParameterNames()) {
+                if (parameters == null || !parameters.containsKey(name)) {
+                    throw new DataSourceException("缺少SQL参数: " + name);
+                }
+                bound.add(new BindParameter(null, parameters.get(name)));
+            }
+        } else if (template.getPositionalCount() > 0) {
+            if (parameters == null || parameters.size() < template.getPositionalCount()) {
+                throw new DataSourceException("绑定参数数量不匹配: 需要" + template.getPositionalCount() 
+                    + "个?占位符参数，实际" + (parameters == null ? 0 : parameters.size()) + "个");
+            }
+            for (Object value : parameters.values()) {
+                if (bound.size() == template.getPositionalCount()) {
+                    break;
+                }
+                bound.add(new BindParameter(null, value));
+            }
+        }
         
-        for (String keyword : strictDangerousKeywords) {
-            if (upperSql.contains(keyword)) {
-                throw new DataSourceException("SQL语句包含禁止的关键字: " + keyword);
+        // 校验类型化参数，转换失败时在获取连接前返回
+        for (int i = 0; i < bound.size(); i++) {
+            try {
+                bound.get(i).toJdbcValue();
+            } catch (RuntimeException e) {
+                throw new DataSourceException("第" + (i + 1) + "个绑定参数类型错误: " + bound.get(i), e);
             }
         }
+        
+        return new BoundSql(template.getSql(), bound);
     }
 
     /**
-     * 处理动态SQL
+     * 校验并执行SELECT查询，由结果集处理器决定结果表示形式
+     * 获取连接、执行语句和读取结果的时间点写入执行轨迹
      */
-    private String processDynamicSql(String sql, Map<String, Object> parameters) {
-        if (parameters == null || parameters.isEmpty()) {
-            return sql;
-        }
-        
-        String processedSql = sql;
-        
-        // 处理命名参数 #{paramName}
-        for (Map.Entry<String, Object> entry : parameters.entrySet()) {
-            String placeholder = "#{" + entry.getKey() + "}";
-            if (processedSql.contains(placeholder)) {
-                Object value = entry.getValue();
-                String replacement = value != null ? value.toString() : "NULL";
+    private <T> T executeSelect(Long dataSourceId, BoundSql boundSql, int rowLimit,
+                                StatementListener listener, QueryTrace trace, PermitSource permitSource,
+                                ResultSetHandler<T> handler)
+            throws DataSourceException, SQLException, IOException {
+        // 验证SQL安全性
+        validateSqlSecurity(boundSql.getSql());
+        
+        // 数据源隔离舱准入，被拒绝的查询未开始执行，不计入执行轨迹
+        QueryBulkheads.Permit permit = permitSource.acquire(dataSourceId);
+        long rttNanos = -1;
+        boolean dropped = false;
+        
+        trace.begin();
+        long startNanos = System.nanoTime();
+        // 获取数据库连接
+        try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
+            trace.connectionAcquired();
+            
+            try (PreparedStatement stmt = connection.prepareStatement(boundSql.getSql())) {
+                // 设置查询参数
+                stmt.setQueryTimeout(queryTimeout / 1000); // 转换为秒
+                stmt.setMaxRows(rowLimit);
+                stmt.setFetchSize(fetchSize);
                 
-                // 如果是字符串，添加引号
-                if (value instanceof String) {
-                    replacement = "'" + replacement.replace("'", "''") + "'";
-                }
+                // 设置参数值
+                setParameters(stmt, boundSql.getParameters());
                 
-                processedSql = processedSql.replace(placeholder, replacement);
+                // 登记语句后执行，结果读取完毕前保持登记以便取消
+                if (listener != null) {
+                    listener.beforeExecute(stmt);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    trace.statementExecuted();
+                    // 隔离舱样本只包含获取连接和执行语句，不含结果读取和写出
+                    rttNanos = System.nanoTime() - startNanos;
+                    return handler.handle(rs);
+                } finally {
+                    if (listener != null) {
+                        listener.afterExecute(stmt);
+                    }
+                }
             }
+        } catch (SQLTimeoutException e) {
+            dropped = true;
+            throw e;
+        } catch (DataSourceException e) {
+            // 连接池获取连接超时说明数据源已过载
+            dropped = !trace.isConnectionAcquired();
+            throw e;
+        } finally {
+            permit.release(rttNanos, dropped);
         }
-        
-        return processedSql;
     }
 
     /**
-     * 执行SELECT查询
+     * 设置流式读取模式，返回是否关闭了连接的自动提交
+     * MySQL驱动默认一次读入全部结果：连接参数启用useCursorFetch时按fetchSize使用服务端游标，否则以Integer.MIN_VALUE逐行读取；
+     * PostgreSQL驱动只在关闭自动提交时按fetchSize使用游标；其他驱动按fetchSize分批读取
      */
-    private QueryResult executeSelectQuery(Connection connection, String sql, Map<String, Object> parameters) 
-            throws SQLException {
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-            // 设置查询参数
-            stmt.setQueryTimeout(queryTimeout / 1000); // 转换为秒
-            stmt.setMaxRows(maxRows);
-            stmt.setFetchSize(fetchSize);
-            
-            // 设置参数值
-            setParameters(stmt, sql, parameters);
-            
-            // 执行查询
-            try (ResultSet rs = stmt.executeQuery()) {
-                return buildQueryResult(rs);
-            }
+    private boolean configureStreaming(Connection connection, PreparedStatement stmt) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String productName = metaData.getDatabaseProductName();
+        if ("MySQL".equalsIgnoreCase(productName)) {
+            String url = metaData.getURL();
+            boolean cursorFetch = url != null && url.toLowerCase(Locale.ROOT).contains("usecursorfetch=true");
+            stmt.setFetchSize(cursorFetch ? fetchSize : Integer.MIN_VALUE);
+            return false;
+        }
+        stmt.setFetchSize(fetchSize);
+        if ("PostgreSQL".equalsIgnoreCase(productName) && connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 恢复流式查询关闭的自动提交，只读事务随之结束
+     */
+    private void restoreAutoCommit(Connection connection, Long dataSourceId) {
+        try {
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            logger.warn("恢复连接自动提交失败: dataSourceId={}, error={}", dataSourceId, e.getMessage());
+        }
+    }
+
+    /**
+     * 记录查询执行轨迹，遥测异常不影响查询结果
+     */
+    private void recordTrace(QueryTrace trace) {
+        trace.finish();
+        try {
+            queryTelemetry.record(trace);
+        } catch (RuntimeException e) {
+            logger.warn("记录查询遥测失败: dataSourceId={}, error={}", trace.getDataSourceId(), e.getMessage());
         }
     }
 
     /**
      * 执行UPDATE查询
      */
-    private int executeUpdateQuery(Connection connection, String sql, Map<String, Object> parameters) 
-            throws SQLException {
+    private int executeUpdateQuery(Connection connection, BoundSql boundSql) throws SQLException {
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement stmt = connection.prepareStatement(boundSql.getSql())) {
             // 设置查询参数
             stmt.setQueryTimeout(queryTimeout / 1000); // 转换为秒
             
             // 设置参数值
-            setParameters(stmt, sql, parameters);
+            setParameters(stmt, boundSql.getParameters());
             
             // 执行更新
             return stmt.executeUpdate();
@@ -344,43 +634,11 @@ public class QueryExecutionEngine {
     }
 
     /**
-     * 设置PreparedStatement参数
+     * 按位置设置PreparedStatement参数
      */
-    private void setParameters(PreparedStatement stmt, String sql, Map<String, Object> parameters) 
-            throws SQLException {
-        
-        if (parameters == null || parameters.isEmpty()) {
-            return;
-        }
-        
-        // 计算参数占位符数量
-        int paramCount = (int) sql.chars().filter(ch -> ch == '?').count();
-        
-        if (paramCount > 0 && parameters.size() >= paramCount) {
-            int index = 1;
-            for (Object value : parameters.values()) {
-                if (index > paramCount) break;
-                
-                if (value == null) {
-                    stmt.setNull(index, Types.NULL);
-                } else if (value instanceof String) {
-                    stmt.setString(index, (String) value);
-                } else if (value instanceof Integer) {
-                    stmt.setInt(index, (Integer) value);
-                } else if (value instanceof Long) {
-                    stmt.setLong(index, (Long) value);
-                } else if (value instanceof Double) {
-                    stmt.setDouble(index, (Double) value);
-                } else if (value instanceof Boolean) {
-                    stmt.setBoolean(index, (Boolean) value);
-                } else if (value instanceof java.util.Date) {
-                    stmt.setTimestamp(index, new Timestamp(((java.util.Date) value).getTime()));
-                } else {
-                    stmt.setObject(index, value);
-                }
-                
-                index++;
-            }
+    private void setParameters(PreparedStatement stmt, List<BindParameter> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            parameters.get(i).bind(stmt, i + 1);
         }
     }
 
@@ -390,30 +648,23 @@ public class QueryExecutionEngine {
     private QueryResult buildQueryResult(ResultSet rs) throws SQLException {
         QueryResult result = new QueryResult();
         
-        // 获取列信息
-        ResultSetMetaData metaData = rs.getMetaData();
-        int columnCount = metaData.getColumnCount();
+        // 获取列信息，列名只解析一次
+        List<ColumnInfo> columns = resolveColumns(rs.getMetaData());
+        result.setColumns(columns);
         
-        List<ColumnInfo> columns = new ArrayList<>();
-        for (int i = 1; i <= columnCount; i++) {
-            ColumnInfo column = new ColumnInfo();
-            column.setName(metaData.getColumnName(i));
-            column.setLabel(metaData.getColumnLabel(i));
-            column.setType(metaData.getColumnTypeName(i));
-            column.setJdbcType(metaData.getColumnType(i));
-            column.setNullable(metaData.isNullable(i) == ResultSetMetaData.columnNullable);
-            columns.add(column);
+        int columnCount = columns.size();
+        String[] columnNames = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columnNames[i] = columns.get(i).getName();
         }
-        result.setColumns(columns);
+        int mapCapacity = (int) (columnCount / 0.75f) + 1;
         
         // 获取数据行
         List<Map<String, Object>> rows = new ArrayList<>();
         while (rs.next()) {
-            Map<String, Object> row = new LinkedHashMap<>();
-            for (int i = 1; i <= columnCount; i++) {
-                String columnName = metaData.getColumnName(i);
-                Object value = rs.getObject(i);
-                row.put(columnName, value);
+            Map<String, Object> row = new LinkedHashMap<>(mapCapacity);
+            for (int i = 0; i < columnCount; i++) {
+                row.put(columnNames[i], rs.getObject(i + 1));
             }
             rows.add(row);
         }
@@ -423,6 +674,25 @@ public class QueryExecutionEngine {
         return result;
     }
 
+    /**
+     * 解析结果集列信息
+     */
+    static List<ColumnInfo> resolveColumns(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        
+        List<ColumnInfo> columns = new ArrayList<>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            ColumnInfo column = new ColumnInfo();
+            column.setName(metaData.getColumnName(i));
+            column.setLabel(metaData.getColumnLabel(i));
+            column.setType(metaData.getColumnTypeName(i));
+            column.setJdbcType(metaData.getColumnType(i));
+            column.setNullable(metaData.isNullable(i) == ResultSetMetaData.columnNullable);
+            columns.add(column);
+        }
+        return columns;
+    }
+
     /**
      * 获取列元数据
      */
@@ -481,6 +751,155 @@ public class QueryExecutionEngine {
         return indexes;
     }
 
+    /**
+     * 隔离舱许可来源
+     */
+    @FunctionalInterface
+    private interface PermitSource {
+        QueryBulkheads.Permit acquire(Long dataSourceId) throws QueryRejectedException;
+    }
+
+    /**
+     * 结果集处理器
+     */
+    @FunctionalInterface
+    private interface ResultSetHandler<T> {
+        T handle(ResultSet rs) throws SQLException, IOException;
+    }
+
+    /**
+     * 语句监听器
+     * 查询语句执行前登记、结果读取完毕后注销，登记期间可从其他线程取消语句；
+     * 登记时可调整语句超时等设置，抛出异常则不执行查询
+     */
+    public interface StatementListener {
+        void beforeExecute(Statement stmt) throws SQLException;
+
+        void afterExecute(Statement stmt);
+    }
+
+    /**
+     * 已执行的流式查询
+     * 持有连接、语句和结果集；流式读取时按驱动设置逐批取行，结果不在驱动中整体缓存。
+     * 关闭时恢复自动提交、归还连接和隔离舱许可并记录执行轨迹，重复关闭无影响
+     */
+    public final class StreamingQuery implements AutoCloseable {
+        private final Long dataSourceId;
+        private final QueryBulkheads.Permit permit;
+        private final QueryTrace trace;
+        private final long startTime = System.currentTimeMillis();
+        private Connection connection;
+        private PreparedStatement stmt;
+        private ResultSet rs;
+        private boolean autoCommitDisabled;
+        private long rttNanos = -1;
+        private boolean dropped;
+        private boolean closed;
+
+        private StreamingQuery(Long dataSourceId, QueryBulkheads.Permit permit, QueryTrace trace) {
+            this.dataSourceId = dataSourceId;
+            this.permit = permit;
+            this.trace = trace;
+        }
+
+        private void open(BoundSql boundSql) throws DataSourceException, SQLException {
+            // 验证SQL安全性
+            validateSqlSecurity(boundSql.getSql());
+            
+            trace.begin();
+            long startNanos = System.nanoTime();
+            try {
+                connection = dataSourceManager.getConnection(dataSourceId);
+                trace.connectionAcquired();
+                
+                stmt = connection.prepareStatement(boundSql.getSql());
+                stmt.setQueryTimeout(queryTimeout / 1000); // 转换为秒
+                stmt.setMaxRows(streamMaxRows);
+                autoCommitDisabled = configureStreaming(connection, stmt);
+                setParameters(stmt, boundSql.getParameters());
+                
+                rs = stmt.executeQuery();
+                trace.statementExecuted();
+                // 隔离舱样本只包含获取连接和执行语句，不含结果读取和写出
+                rttNanos = System.nanoTime() - startNanos;
+            } catch (SQLTimeoutException e) {
+                dropped = true;
+                throw e;
+            } catch (DataSourceException e) {
+                // 连接池获取连接超时说明数据源已过载
+                dropped = !trace.isConnectionAcquired();
+                throw e;
+            }
+        }
+
+        /**
+         * 以NDJSON写出列信息、全部数据行和汇总行
+         * 
+         * @param gen NDJSON生成器
+         * @return 写出的行数
+         * @throws DataSourceException 读取结果或写出失败（如客户端断开）
+         */
+        public int writeTo(JsonGenerator gen) throws DataSourceException {
+            try {
+                int rowCount = NdjsonResultWriter.writeRows(rs, gen, streamMaxRows, streamFlushRows, trace);
+                trace.completed(rowCount, trace.getResultBytes());
+                
+                long executionTime = elapsedMillis();
+                NdjsonResultWriter.writeEnd(gen, rowCount, executionTime);
+                
+                logger.info("流式查询执行完成: dataSourceId={}, executionTime={}ms, rowCount={}", 
+                           dataSourceId, executionTime, rowCount);
+                
+                return rowCount;
+            } catch (IOException e) {
+                logger.warn("流式查询输出中断: dataSourceId={}, executionTime={}ms, error={}", 
+                           dataSourceId, elapsedMillis(), e.getMessage());
+                throw new DataSourceException("流式查询输出中断: " + e.getMessage(), e);
+            } catch (SQLException e) {
+                dropped = e instanceof SQLTimeoutException;
+                logger.error("流式查询执行失败: dataSourceId={}, executionTime={}ms, error={}", 
+                            dataSourceId, elapsedMillis(), e.getMessage(), e);
+                throw new DataSourceException("查询执行失败: " + e.getMessage(), e);
+            }
+        }
+
+        private long elapsedMillis() {
+            return System.currentTimeMillis() - startTime;
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                closeQuietly(rs);
+                closeQuietly(stmt);
+                if (connection != null) {
+                    if (autoCommitDisabled) {
+                        restoreAutoCommit(connection, dataSourceId);
+                    }
+                    closeQuietly(connection);
+                }
+            } finally {
+                permit.release(rttNanos, dropped);
+                recordTrace(trace);
+            }
+        }
+
+        private void closeQuietly(AutoCloseable resource) {
+            if (resource == null) {
+                return;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                logger.warn("关闭流式查询资源失败: dataSourceId={}, error={}", dataSourceId, e.getMessage());
+            }
+        }
+    }
+
     // 内部类定义
     public static class QueryResult {
         private List<ColumnInfo> columns;
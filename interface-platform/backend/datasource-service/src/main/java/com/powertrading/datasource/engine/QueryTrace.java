@@ -0,0 +1,162 @@
+package com.powertrading.datasource.engine;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 单次查询的执行轨迹
+ * 按阶段记录获取连接、执行语句和读取结果的时间点（纳秒），以及返回行数和结果大小估算，
+ * 由执行线程独占写入，查询结束后交给遥测组件记录
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+public final class QueryTrace {
+
+    private final Long dataSourceId;
+
+    private final String interfaceId;
+
+    private final String sql;
+
+    private long startNanos;
+
+    private long acquiredNanos;
+
+    private long executedNanos;
+
+    private long finishedNanos;
+
+    private boolean started;
+
+    private boolean acquired;
+
+    private boolean executed;
+
+    private boolean success;
+
+    private int rowCount;
+
+    private long resultBytes;
+
+    public QueryTrace(Long dataSourceId, BoundSql boundSql) {
+        this.dataSourceId = dataSourceId;
+        this.interfaceId = boundSql.getInterfaceId();
+        this.sql = boundSql.getSql();
+    }
+
+    /**
+     * SQL校验通过、开始获取连接
+     */
+    void begin() {
+        startNanos = System.nanoTime();
+        started = true;
+    }
+
+    void connectionAcquired() {
+        acquiredNanos = System.nanoTime();
+        acquired = true;
+    }
+
+    void statementExecuted() {
+        executedNanos = System.nanoTime();
+        executed = true;
+    }
+
+    /**
+     * 查询成功完成
+     */
+    void completed(int rows, long bytes) {
+        finishedNanos = System.nanoTime();
+        rowCount = rows;
+        resultBytes = bytes;
+        success = true;
+    }
+
+    /**
+     * 累加结果行数与大小，流式写出时逐行调用
+     */
+    void addRow(long bytes) {
+        rowCount++;
+        resultBytes += bytes;
+    }
+
+    /**
+     * 结束轨迹，未成功完成的查询在此记为失败
+     */
+    public void finish() {
+        if (!success) {
+            finishedNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 估算单个值序列化后的字节数，只用于统计，不追求精确
+     */
+    public static long estimateSize(Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof CharSequence) {
+            return ((CharSequence) value).length() + 2;
+        }
+        if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        }
+        if (value instanceof Boolean) {
+            return 5;
+        }
+        if (value instanceof Number) {
+            return 8;
+        }
+        return 16;
+    }
+
+    /**
+     * 估算按行Map表示的结果大小
+     */
+    static long estimateSize(Collection<Map<String, Object>> rows) {
+        long bytes = 0;
+        for (Map<String, Object> row : rows) {
+            for (Object value : row.values()) {
+                bytes += estimateSize(value);
+            }
+        }
+        return bytes;
+    }
+
+    public Long getDataSourceId() { return dataSourceId; }
+    public String getInterfaceId() { return interfaceId; }
+    public String getSql() { return sql; }
+    public boolean isStarted() { return started; }
+    public boolean isConnectionAcquired() { return acquired; }
+    public boolean isExecuted() { return executed; }
+    public boolean isSuccess() { return success; }
+    public int getRowCount() { return rowCount; }
+    public long getResultBytes() { return resultBytes; }
+
+    /**
+     * 获取连接耗时，获取失败时为等待到失败的时间
+     */
+    public long getAcquireNanos() {
+        return (acquired ? acquiredNanos : finishedNanos) - startNanos;
+    }
+
+    /**
+     * 执行语句耗时（到首个结果集返回）
+     */
+    public long getExecuteNanos() {
+        return acquired ? (executed ? executedNanos : finishedNanos) - acquiredNanos : 0L;
+    }
+
+    /**
+     * 读取结果耗时
+     */
+    public long getFetchNanos() {
+        return executed ? finishedNanos - executedNanos : 0L;
+    }
+
+    public long getTotalNanos() {
+        return finishedNanos - startNanos;
+    }
+}
@@ -0,0 +1,211 @@
+package com.powertrading.datasource.engine;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * SQL指纹
+ * 将SQL规范化为与常量值无关的文本：去掉注释、统一空白和关键字大小写，
+ * 字符串、数值常量（含一元正负号）和参数占位符替换为?，只包含常量、NULL和常量元组的IN列表不论长度都折叠为IN (?...)；
+ * 同一条语句以不同常量、不同IN列表长度执行时得到相同的指纹，可作为统计和缓存的键
+ *
+ * <pre>
+ * SELECT * FROM t WHERE id IN (1, 2, 3) AND name = 'a'  -- 注释
+ * select * from t where id in (?...) and name = ?
+ * </pre>
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+public final class SqlFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // 其后的正负号是一元符号的关键字，如BETWEEN -5 AND -1、THEN -1
+    private static final Set<String> OPERAND_KEYWORDS = new HashSet<>(Arrays.asList(
+        "SELECT", "WHERE", "AND", "OR", "NOT", "BETWEEN", "CASE", "WHEN", "THEN", "ELSE", "IN", "LIKE",
+        "ON", "HAVING", "SET", "VALUES", "LIMIT", "OFFSET", "DISTINCT", "ALL", "ANY", "INTERVAL", "RETURN"));
+
+    private final String normalizedSql;
+
+    private final long hash;
+
+    private final String statementType;
+
+    private SqlFingerprint(String normalizedSql, long hash, String statementType) {
+        this.normalizedSql = normalizedSql;
+        this.hash = hash;
+        this.statementType = statementType;
+    }
+
+    /**
+     * 计算SQL指纹
+     *
+     * @param sql SQL语句
+     * @return 指纹
+     */
+    public static SqlFingerprint of(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        String statementType = null;
+        // 只包含常量的IN列表：列表在输出中的起始位置，-1表示不在列表中；列表内常量元组的括号深度
+        int listStart = -1;
+        int listDepth = 0;
+        boolean afterIn = false;
+        // 尚未输出的一元正负号，后随常量时与常量一起替换为?
+        char pendingSign = 0;
+        // 上一个记号之后是否可以出现一元正负号：语句开头、运算符、左括号和逗号之后
+        boolean operandExpected = true;
+
+        SqlTokenizer tokenizer = new SqlTokenizer(sql);
+        while (tokenizer.next()) {
+            SqlTokenizer.TokenType type = tokenizer.type();
+            if (type == SqlTokenizer.TokenType.COMMENT) {
+                continue;
+            }
+            if (statementType == null && type == SqlTokenizer.TokenType.WORD) {
+                statementType = tokenizer.text().toUpperCase(Locale.ROOT);
+            }
+
+            if (pendingSign != 0) {
+                if (!isConstant(type)) {
+                    append(out, String.valueOf(pendingSign));
+                }
+                pendingSign = 0;
+            } else if (operandExpected && (tokenizer.isSymbol('-') || tokenizer.isSymbol('+'))) {
+                pendingSign = tokenizer.firstChar();
+                continue;
+            }
+            if (type == SqlTokenizer.TokenType.WORD) {
+                operandExpected = OPERAND_KEYWORDS.contains(tokenizer.text().toUpperCase(Locale.ROOT));
+            } else {
+                operandExpected = type == SqlTokenizer.TokenType.SYMBOL && !tokenizer.isSymbol(')');
+            }
+
+            if (listStart >= 0) {
+                if (tokenizer.isSymbol(')') && listDepth == 0) {
+                    out.setLength(listStart);
+                    append(out, "?...");
+                    append(out, ")");
+                    listStart = -1;
+                    continue;
+                }
+                if (tokenizer.isSymbol('(')) {
+                    listDepth++;
+                } else if (tokenizer.isSymbol(')')) {
+                    listDepth--;
+                } else if (!isConstant(type) && !tokenizer.isSymbol(',') && !tokenizer.isWord("NULL")) {
+                    // 子查询或表达式列表，按普通语句处理
+                    listStart = -1;
+                }
+            }
+
+            if (afterIn && tokenizer.isSymbol('(')) {
+                append(out, "(");
+                listStart = out.length();
+                listDepth = 0;
+                afterIn = false;
+                continue;
+            }
+            afterIn = tokenizer.isWord("IN");
+
+            switch (type) {
+                case WORD:
+                    append(out, tokenizer.text().toLowerCase(Locale.ROOT));
+                    break;
+                case STRING:
+                case NUMBER:
+                case PARAMETER:
+                    append(out, "?");
+                    break;
+                default:
+                    append(out, tokenizer.text());
+                    break;
+            }
+        }
+        if (pendingSign != 0) {
+            append(out, String.valueOf(pendingSign));
+        }
+
+        int length = out.length();
+        while (length > 0 && (out.charAt(length - 1) == ';' || out.charAt(length - 1) == ' ')) {
+            length--;
+        }
+        out.setLength(length);
+        String normalized = out.toString();
+        return new SqlFingerprint(normalized, hash(normalized), statementType != null ? statementType : "OTHER");
+    }
+
+    private static boolean isConstant(SqlTokenizer.TokenType type) {
+        return type == SqlTokenizer.TokenType.STRING || type == SqlTokenizer.TokenType.NUMBER
+            || type == SqlTokenizer.TokenType.PARAMETER;
+    }
+
+    /**
+     * 追加记号，括号内侧、逗号和点号之前不加空格
+     */
+    private static void append(StringBuilder out, String token) {
+        if (out.length() > 0) {
+            char last = out.charAt(out.length() - 1);
+            char first = token.charAt(0);
+            if (last != '(' && last != '.' && first != ')' && first != ',' && first != '.') {
+                out.append(' ');
+            }
+        }
+        out.append(token);
+    }
+
+    private static long hash(String text) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * 规范化后的SQL文本
+     */
+    public String getNormalizedSql() { return normalizedSql; }
+
+    /**
+     * 语句类型，即首个关键字，如SELECT、INSERT、WITH
+     */
+    public String getStatementType() { return statementType; }
+
+    /**
+     * 指纹的64位哈希值
+     */
+    public long getHash() { return hash; }
+
+    /**
+     * 指纹ID，16位十六进制的哈希值
+     */
+    public String getId() {
+        return String.format("%016x", hash);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SqlFingerprint)) {
+            return false;
+        }
+        return normalizedSql.equals(((SqlFingerprint) o).normalizedSql);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+
+    @Override
+    public String toString() {
+        return normalizedSql;
+    }
+}
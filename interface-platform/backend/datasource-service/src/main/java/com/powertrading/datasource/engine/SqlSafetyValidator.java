@@ -0,0 +1,281 @@
+package com.powertrading.datasource.engine;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.util.Locale;
+
+/**
+ * SQL安全校验器
+ * 基于SqlTokenizer单遍扫描，只检查语句结构中的关键字：注释、字符串常量和引用标识符中的内容不参与判断，
+ * update_time、created_by这类包含关键字的标识符也不会误判；每条语句的首个关键字必须是允许的语句类型，
+ * 不允许多条语句，UPDATE语句在最外层必须有WHERE条件；
+ * 校验结果按SQL指纹缓存，同一语句以不同常量执行时不再重复判定。
+ * 在不同数据库中含义可能不同的写法不走缓存：含反斜杠或$的语句按MySQL和标准（PostgreSQL）两种词法规则分别校验，
+ * 两种规则下结论不一致即引号的含义取决于数据库，直接拒绝；MySQL可执行注释、#行注释和--后不跟空白的写法直接拒绝
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+public final class SqlSafetyValidator {
+
+    /**
+     * 校验模式
+     */
+    public enum Mode {
+        /** 只读查询 */
+        QUERY(new String[] {"SELECT", "WITH"},
+            new String[] {"DROP", "DELETE", "INSERT", "UPDATE", "CREATE", "ALTER", "EXEC", "EXECUTE", "TRUNCATE",
+                "GRANT", "REVOKE", "COMMIT", "ROLLBACK", "SAVEPOINT", "MERGE", "CALL", "INTO"},
+            "只允许执行SELECT查询语句", "SQL语句包含危险关键字: "),
+        /** 数据更新 */
+        UPDATE(new String[] {"UPDATE", "INSERT"},
+            new String[] {"DROP", "DELETE", "TRUNCATE", "CREATE", "ALTER", "EXEC", "EXECUTE"},
+            "只允许执行UPDATE和INSERT语句", "SQL语句包含禁止的关键字: ");
+
+        private final String[] statementTypes;
+        private final String[] forbiddenKeywords;
+        private final String statementTypeMessage;
+        private final String keywordMessage;
+
+        Mode(String[] statementTypes, String[] forbiddenKeywords, String statementTypeMessage, String keywordMessage) {
+            this.statementTypes = statementTypes;
+            this.forbiddenKeywords = forbiddenKeywords;
+            this.statementTypeMessage = statementTypeMessage;
+            this.keywordMessage = keywordMessage;
+        }
+    }
+
+    /**
+     * 校验结论分类
+     */
+    public enum Category {
+        /** 通过 */
+        SAFE,
+        /** 没有可执行的语句 */
+        EMPTY,
+        /** 语句类型不允许 */
+        STATEMENT_TYPE,
+        /** 包含多条语句 */
+        MULTIPLE_STATEMENTS,
+        /** 包含禁止的关键字 */
+        FORBIDDEN_KEYWORD,
+        /** UPDATE语句缺少WHERE条件 */
+        MISSING_WHERE,
+        /** 包含在不同数据库中含义不同的注释 */
+        AMBIGUOUS_COMMENT,
+        /** 包含在不同数据库中含义不同的引号 */
+        AMBIGUOUS_QUOTING
+    }
+
+    private final Mode mode;
+
+    private final Cache<SqlFingerprint, Verdict> verdicts;
+
+    /**
+     * @param mode 校验模式
+     * @param cacheSize 按指纹缓存的校验结论数量上限
+     */
+    public SqlSafetyValidator(Mode mode, int cacheSize) {
+        this.mode = mode;
+        this.verdicts = Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .build();
+    }
+
+    /**
+     * 校验SQL语句
+     *
+     * @param sql SQL语句
+     * @return 校验结论
+     */
+    public Verdict validate(String sql) {
+        if (!isPortable(sql)) {
+            Verdict mysql = classify(sql, mode, true);
+            Verdict standard = classify(sql, mode, false);
+            if (mysql.isSafe() != standard.isSafe()) {
+                return Verdict.reject(Category.AMBIGUOUS_QUOTING, mysql.getStatementType(),
+                    "SQL语句包含在不同数据库中含义不同的引号写法", null);
+            }
+            return mysql;
+        }
+        return verdicts.get(SqlFingerprint.of(sql), fingerprint -> classify(sql, mode, true));
+    }
+
+    /**
+     * 已缓存的校验结论数量
+     */
+    public long getCachedCount() {
+        return verdicts.estimatedSize();
+    }
+
+    /**
+     * 扫描一遍SQL判定校验结论
+     *
+     * @param sql SQL语句
+     * @param mode 校验模式
+     * @param backslashEscapes true按MySQL词法规则扫描，false按标准（PostgreSQL）词法规则扫描
+     * @return 校验结论
+     */
+    static Verdict classify(String sql, Mode mode, boolean backslashEscapes) {
+        SqlTokenizer tokenizer = new SqlTokenizer(sql, backslashEscapes);
+        String statementType = null;
+        boolean statementStart = true;
+        boolean whereRequired = false;
+        boolean whereFound = false;
+        int depth = 0;
+
+        while (tokenizer.next()) {
+            SqlTokenizer.TokenType type = tokenizer.type();
+            if (type == SqlTokenizer.TokenType.COMMENT) {
+                if (isAmbiguousComment(sql, tokenizer)) {
+                    return Verdict.reject(Category.AMBIGUOUS_COMMENT, statementType, "SQL语句包含不支持的注释写法", null);
+                }
+                continue;
+            }
+
+            if (statementStart) {
+                // 跳过空语句和语句开头的括号，如(SELECT ...) UNION (SELECT ...)
+                if (tokenizer.isSymbol(';')) {
+                    continue;
+                }
+                if (tokenizer.isSymbol('(')) {
+                    depth++;
+                    continue;
+                }
+                String leading = type == SqlTokenizer.TokenType.WORD ? tokenizer.text().toUpperCase(Locale.ROOT) : null;
+                if (!matchesAny(tokenizer, mode.statementTypes)) {
+                    return Verdict.reject(Category.STATEMENT_TYPE, statementType != null ? statementType : leading,
+                        mode.statementTypeMessage, null);
+                }
+                if (statementType != null) {
+                    return Verdict.reject(Category.MULTIPLE_STATEMENTS, statementType, "只允许执行单条SQL语句", null);
+                }
+                statementType = leading;
+                whereRequired = "UPDATE".equals(leading);
+                statementStart = false;
+                continue;
+            }
+
+            if (tokenizer.isSymbol(';')) {
+                statementStart = true;
+                depth = 0;
+            } else if (tokenizer.isSymbol('(')) {
+                depth++;
+            } else if (tokenizer.isSymbol(')')) {
+                depth--;
+            } else if (type == SqlTokenizer.TokenType.WORD) {
+                if (depth == 0 && tokenizer.isWord("WHERE")) {
+                    whereFound = true;
+                }
+                for (String keyword : mode.forbiddenKeywords) {
+                    if (tokenizer.isWord(keyword)) {
+                        return Verdict.reject(Category.FORBIDDEN_KEYWORD, statementType, mode.keywordMessage + keyword, keyword);
+                    }
+                }
+            }
+        }
+
+        if (statementType == null) {
+            return Verdict.reject(Category.EMPTY, null, mode.statementTypeMessage, null);
+        }
+        if (whereRequired && !whereFound) {
+            return Verdict.reject(Category.MISSING_WHERE, statementType, "UPDATE语句必须包含WHERE条件", null);
+        }
+        return Verdict.safe(statementType);
+    }
+
+    private static boolean matchesAny(SqlTokenizer tokenizer, String[] keywords) {
+        for (String keyword : keywords) {
+            if (tokenizer.isWord(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * MySQL的可执行注释会被执行；#在PostgreSQL中是运算符；--后不跟空白时MySQL不视为注释
+     */
+    private static boolean isAmbiguousComment(String sql, SqlTokenizer tokenizer) {
+        int start = tokenizer.start();
+        char first = sql.charAt(start);
+        if (first == '#') {
+            return true;
+        }
+        if (first == '/') {
+            return start + 2 < tokenizer.end() && sql.charAt(start + 2) == '!';
+        }
+        return start + 2 < tokenizer.end() && !Character.isWhitespace(sql.charAt(start + 2));
+    }
+
+    /**
+     * 记号划分是否与数据库方言无关：不含反斜杠和$（美元符号引用），不含#行注释、MySQL可执行注释和--后紧跟非空白的写法。
+     * 按字符保守判断，字符串常量中出现这些字符时同样视为方言相关，只是不走缓存
+     */
+    private static boolean isPortable(String sql) {
+        int length = sql.length();
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            char next = i + 1 < length ? sql.charAt(i + 1) : ' ';
+            if (c == '\\' || c == '$' || c == '#' && next != '{') {
+                return false;
+            }
+            if (c == '/' && next == '*' && i + 2 < length && sql.charAt(i + 2) == '!') {
+                return false;
+            }
+            if (c == '-' && next == '-' && i + 2 < length && !Character.isWhitespace(sql.charAt(i + 2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 校验结论
+     */
+    public static final class Verdict {
+
+        private final Category category;
+
+        private final String statementType;
+
+        private final String message;
+
+        private final String keyword;
+
+        private Verdict(Category category, String statementType, String message, String keyword) {
+            this.category = category;
+            this.statementType = statementType;
+            this.message = message;
+            this.keyword = keyword;
+        }
+
+        static Verdict safe(String statementType) {
+            return new Verdict(Category.SAFE, statementType, null, null);
+        }
+
+        static Verdict reject(Category category, String statementType, String message, String keyword) {
+            return new Verdict(category, statementType, message, keyword);
+        }
+
+        public boolean isSafe() { return category == Category.SAFE; }
+
+        public Category getCategory() { return category; }
+
+        /**
+         * 首条语句的类型，如SELECT、WITH、UPDATE
+         */
+        public String getStatementType() { return statementType; }
+
+        /**
+         * 拒绝原因，通过时为null
+         */
+        public String getMessage() { return message; }
+
+        /**
+         * 命中的禁止关键字
+         */
+        public String getKeyword() { return keyword; }
+    }
+}
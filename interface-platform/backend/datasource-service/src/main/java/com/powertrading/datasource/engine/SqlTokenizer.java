@@ -0,0 +1,267 @@
+package com.powertrading.datasource.engine;
+
+/**
+ * SQL词法扫描器
+ * 单遍顺序扫描，识别关键字/标识符、引用标识符、字符串常量、数值常量、参数占位符、注释和符号，
+ * 通过游标方式逐个返回记号的类型和位置，扫描过程不分配对象；
+ * 引号中两个连续引号视为转义。按MySQL规则扫描时，单引号和双引号中的反斜杠都是转义字符
+ * （双引号在MySQL中默认是字符串，ANSI_QUOTES模式下是标识符，两种情况的记号边界相同）；
+ * 按标准规则（PostgreSQL）扫描时反斜杠只在E'...'中是转义字符，$tag$...$tag$为美元符号引用的字符串
+ *
+ * <pre>
+ * SqlTokenizer tokenizer = new SqlTokenizer(sql);
+ * while (tokenizer.next()) {
+ *     if (tokenizer.isWord("SELECT")) { ... }
+ * }
+ * </pre>
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+public final class SqlTokenizer {
+
+    /**
+     * 记号类型
+     */
+    public enum TokenType {
+        /** 关键字或未加引号的标识符 */
+        WORD,
+        /** 双引号或反引号包围的标识符 */
+        QUOTED_IDENTIFIER,
+        /** 单引号、E'...'或$tag$...$tag$字符串常量 */
+        STRING,
+        /** 数值常量 */
+        NUMBER,
+        /** ?位置参数或#{name}命名参数 */
+        PARAMETER,
+        /** 行注释或块注释 */
+        COMMENT,
+        /** 其他单个字符 */
+        SYMBOL
+    }
+
+    private final String sql;
+
+    private final int length;
+
+    private final boolean backslashEscapes;
+
+    private int position;
+
+    private TokenType type;
+
+    private int start;
+
+    private int end;
+
+    private boolean unterminated;
+
+    public SqlTokenizer(String sql) {
+        this(sql, true);
+    }
+
+    /**
+     * @param sql SQL语句
+     * @param backslashEscapes true按MySQL规则扫描，引号中的反斜杠为转义字符；false按标准规则（PostgreSQL）扫描
+     */
+    public SqlTokenizer(String sql, boolean backslashEscapes) {
+        this.sql = sql;
+        this.length = sql.length();
+        this.backslashEscapes = backslashEscapes;
+    }
+
+    /**
+     * 前进到下一个记号，跳过空白
+     *
+     * @return 是否还有记号
+     */
+    public boolean next() {
+        int i = position;
+        while (i < length && Character.isWhitespace(sql.charAt(i))) {
+            i++;
+        }
+        if (i >= length) {
+            position = length;
+            type = null;
+            return false;
+        }
+
+        start = i;
+        unterminated = false;
+        char c = sql.charAt(i);
+        char next = i + 1 < length ? sql.charAt(i + 1) : 0;
+        if (c == '\'') {
+            type = TokenType.STRING;
+            end = skipQuoted(i, c, backslashEscapes);
+        } else if (c == '"' || c == '`') {
+            type = TokenType.QUOTED_IDENTIFIER;
+            end = skipQuoted(i, c, backslashEscapes && c == '"');
+        } else if (!backslashEscapes && (c == 'E' || c == 'e') && next == '\'') {
+            type = TokenType.STRING;
+            end = skipQuoted(i + 1, next, true);
+        } else if (!backslashEscapes && c == '$' && dollarTagEnd(i) > 0) {
+            type = TokenType.STRING;
+            end = skipDollarQuoted(i, dollarTagEnd(i));
+        } else if (c == '-' && next == '-' || c == '#' && next != '{') {
+            type = TokenType.COMMENT;
+            int lineEnd = sql.indexOf('\n', i);
+            end = lineEnd < 0 ? length : lineEnd;
+        } else if (c == '/' && next == '*') {
+            type = TokenType.COMMENT;
+            int commentEnd = sql.indexOf("*/", i + 2);
+            unterminated = commentEnd < 0;
+            end = unterminated ? length : commentEnd + 2;
+        } else if (c == '?') {
+            type = TokenType.PARAMETER;
+            end = i + 1;
+        } else if (c == '#') {
+            type = TokenType.PARAMETER;
+            int close = sql.indexOf('}', i + 2);
+            unterminated = close < 0;
+            end = unterminated ? length : close + 1;
+        } else if (isDigit(c) || c == '.' && isDigit(next)) {
+            type = TokenType.NUMBER;
+            end = skipNumber(i);
+        } else if (isWordStart(c)) {
+            type = TokenType.WORD;
+            int j = i + 1;
+            while (j < length && isWordPart(sql.charAt(j))) {
+                j++;
+            }
+            end = j;
+        } else {
+            type = TokenType.SYMBOL;
+            end = i + 1;
+        }
+        position = end;
+        return true;
+    }
+
+    public TokenType type() { return type; }
+
+    public int start() { return start; }
+
+    public int end() { return end; }
+
+    /**
+     * 当前记号是否为未闭合的字符串、引用标识符、块注释或命名参数
+     */
+    public boolean isUnterminated() { return unterminated; }
+
+    /**
+     * 当前记号的原始文本
+     */
+    public String text() {
+        return sql.substring(start, end);
+    }
+
+    /**
+     * 当前记号的首字符，用于判断符号
+     */
+    public char firstChar() {
+        return sql.charAt(start);
+    }
+
+    /**
+     * 当前记号是否为指定关键字（忽略大小写）
+     *
+     * @param keyword 大写关键字
+     * @return 是否匹配
+     */
+    public boolean isWord(String keyword) {
+        return type == TokenType.WORD && end - start == keyword.length()
+            && sql.regionMatches(true, start, keyword, 0, keyword.length());
+    }
+
+    /**
+     * 当前记号是否为指定符号
+     */
+    public boolean isSymbol(char symbol) {
+        return type == TokenType.SYMBOL && sql.charAt(start) == symbol;
+    }
+
+    private int skipQuoted(int from, char quote, boolean escapes) {
+        int i = from + 1;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (escapes && c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == quote) {
+                if (i + 1 < length && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        unterminated = true;
+        return length;
+    }
+
+    /**
+     * 从from处的$开始匹配$tag$开始标记，tag为空或不以数字开头的标识符
+     *
+     * @return 开始标记之后的位置，不是开始标记时返回-1
+     */
+    private int dollarTagEnd(int from) {
+        int i = from + 1;
+        if (i < length && isDigit(sql.charAt(i))) {
+            return -1;
+        }
+        while (i < length && (sql.charAt(i) == '_' || Character.isLetterOrDigit(sql.charAt(i)))) {
+            i++;
+        }
+        return i < length && sql.charAt(i) == '$' ? i + 1 : -1;
+    }
+
+    private int skipDollarQuoted(int from, int tagEnd) {
+        int close = sql.indexOf(sql.substring(from, tagEnd), tagEnd);
+        if (close < 0) {
+            unterminated = true;
+            return length;
+        }
+        return close + tagEnd - from;
+    }
+
+    private int skipNumber(int from) {
+        int i = from;
+        if (sql.charAt(i) == '0' && i + 1 < length && (sql.charAt(i + 1) == 'x' || sql.charAt(i + 1) == 'X')) {
+            i += 2;
+            while (i < length && Character.digit(sql.charAt(i), 16) >= 0) {
+                i++;
+            }
+            return i;
+        }
+        while (i < length && (isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+            i++;
+        }
+        if (i < length && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+            int j = i + 1;
+            if (j < length && (sql.charAt(j) == '+' || sql.charAt(j) == '-')) {
+                j++;
+            }
+            if (j < length && isDigit(sql.charAt(j))) {
+                i = j;
+                while (i < length && isDigit(sql.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+        return i;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWordStart(char c) {
+        return c == '_' || c == '@' || Character.isLetter(c);
+    }
+
+    private static boolean isWordPart(char c) {
+        return c == '_' || c == '$' || Character.isLetterOrDigit(c);
+    }
+}
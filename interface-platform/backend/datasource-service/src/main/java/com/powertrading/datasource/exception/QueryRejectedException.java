@@ -0,0 +1,36 @@
+package com.powertrading.datasource.exception;
+
+/**
+ * 查询准入拒绝异常
+ * 数据源的并发查询数和等待队列均已满，或排队超时，调用方应在建议的时间后重试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+public class QueryRejectedException extends DataSourceException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String ERROR_CODE = "QUERY_REJECTED";
+
+    /**
+     * 建议的重试等待时间（毫秒）
+     */
+    private final long retryAfterMillis;
+
+    public QueryRejectedException(String message, Long dataSourceId, long retryAfterMillis) {
+        super(ERROR_CODE, message, dataSourceId);
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * 建议的重试等待时间（秒，向上取整），用于Retry-After响应头
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+}
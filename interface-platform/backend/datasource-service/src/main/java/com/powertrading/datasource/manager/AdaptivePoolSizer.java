@@ -0,0 +1,217 @@
+package com.powertrading.datasource.manager;
+
+import com.powertrading.datasource.config.HikariOptimizationConfig;
+import com.powertrading.datasource.entity.DataSource;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接池自适应调整器
+ * 定期采样每个连接池的等待线程数、活跃连接数和获取连接平均耗时，通过HikariConfigMXBean在上下限之间
+ * 调整maximumPoolSize和minimumIdle：连续多次繁忙时扩容并保持已建立的连接，持续空闲时逐步收缩，
+ * 长时间没有活跃连接时释放空闲连接；扩容和收缩使用不同的连续采样次数，并在每次调整后冷却一段时间，
+ * 避免负载在阈值附近抖动时反复伸缩。连接池被替换后按新连接池重新开始采样
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@Component
+public class AdaptivePoolSizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+
+    @Autowired
+    private DataSourceManager dataSourceManager;
+
+    @Autowired
+    private HikariOptimizationConfig.OptimizationSettings optimizationSettings;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, SizingState> states = new ConcurrentHashMap<>();
+
+    /**
+     * 采样并调整所有连接池
+     */
+    @Scheduled(fixedDelayString = "${datasource.optimization.adaptive.interval:5000}")
+    public void adjustPoolSizes() {
+        if (!optimizationSettings.getAdaptive().isEnabled()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        Set<Long> dataSourceIds = dataSourceManager.getDataSourceIds();
+        for (Long dataSourceId : dataSourceIds) {
+            DataSourceManager.PoolHandle handle = dataSourceManager.getPoolHandle(dataSourceId);
+            if (handle == null || handle.getDataSource().isClosed()) {
+                continue;
+            }
+            HikariDataSource dataSource = handle.getDataSource();
+            HikariPoolMXBean poolMXBean = dataSource.getHikariPoolMXBean();
+            if (poolMXBean == null) {
+                continue;
+            }
+            try {
+                adjust(dataSourceId, handle.getVersion(), handle.getConfig(), poolMXBean,
+                    dataSource.getHikariConfigMXBean(), now);
+            } catch (Exception e) {
+                // 采样期间连接池被替换并关闭
+                logger.debug("连接池自适应调整失败: dataSourceId={}, error={}", dataSourceId, e.getMessage());
+            }
+        }
+        states.keySet().retainAll(dataSourceIds);
+    }
+
+    /**
+     * 采样单个连接池并按需调整
+     *
+     * @param dataSourceId 数据源ID
+     * @param version 连接池句柄版本
+     * @param config 数据源配置，提供配置的连接池大小
+     * @param pool 连接池运行状态
+     * @param poolConfig 连接池运行期配置
+     * @param now 当前时间（毫秒）
+     */
+    void adjust(Long dataSourceId, long version, DataSource config, HikariPoolMXBean pool,
+                HikariConfigMXBean poolConfig, long now) {
+        HikariOptimizationConfig.Adaptive settings = optimizationSettings.getAdaptive();
+        SizingState state = states.compute(dataSourceId,
+            (id, current) -> current != null && current.version == version ? current : new SizingState(version));
+
+        int maxPoolSize = poolConfig.getMaximumPoolSize();
+        int minimumIdle = poolConfig.getMinimumIdle();
+        int active = pool.getActiveConnections();
+        int awaiting = pool.getThreadsAwaitingConnection();
+        double utilization = maxPoolSize > 0 ? (double) active / maxPoolSize : 1.0;
+        double acquireMillis = acquireLatency(dataSourceId, state);
+
+        boolean busy = awaiting > 0 || utilization >= settings.getHighUtilization()
+            || acquireMillis >= settings.getAcquireLatencyThreshold();
+        boolean idle = awaiting == 0 && utilization <= settings.getLowUtilization()
+            && acquireMillis < settings.getAcquireLatencyThreshold() / 2.0;
+        state.record(busy, idle, active);
+
+        if (state.lastChangeAt >= 0 && now - state.lastChangeAt < settings.getCooldown()) {
+            return;
+        }
+
+        int configuredMax = config.getMaxPoolSize() != null ? config.getMaxPoolSize() : maxPoolSize;
+        int configuredMinIdle = config.getMinPoolSize() != null ? config.getMinPoolSize() : minimumIdle;
+        int lower = Math.min(settings.getMinPoolSize(), configuredMax);
+        int upper = Math.max(configuredMax,
+            Math.min(settings.getMaxPoolSize(), (int) Math.ceil(configuredMax * settings.getMaxGrowthFactor())));
+
+        if (state.busyStreak >= settings.getScaleUpSamples() && maxPoolSize < upper) {
+            // 扩容步长至少覆盖当前等待的线程
+            int step = Math.max(Math.max(1, awaiting), (int) Math.ceil(maxPoolSize * 0.25));
+            int newMax = Math.min(upper, maxPoolSize + step);
+            // 已建立的活跃连接在负载回落后作为空闲连接保留，下一轮突发无需重新建连
+            int newMinIdle = Math.min(newMax, Math.max(configuredMinIdle, active));
+            poolConfig.setMaximumPoolSize(newMax);
+            poolConfig.setMinimumIdle(newMinIdle);
+            state.changed(now);
+            logger.info("连接池扩容: dataSourceId={}, maximumPoolSize={}->{}, minimumIdle={}->{}, active={}, awaiting={}, acquireMillis={}",
+                       dataSourceId, maxPoolSize, newMax, minimumIdle, newMinIdle, active, awaiting,
+                       acquireMillis >= 0 ? String.format("%.1f", acquireMillis) : "n/a");
+        } else if (state.idleStreak >= settings.getScaleDownSamples()) {
+            // 收缩后仍为空闲期间的峰值保留一个余量
+            int newMax = Math.max(lower, Math.max(state.peakActive + 1, maxPoolSize - Math.max(1, maxPoolSize / 4)));
+            int newMinIdle = state.peakActive == 0
+                ? Math.min(newMax, settings.getIdleMinimumIdle())
+                : Math.min(newMax, Math.min(minimumIdle, Math.max(configuredMinIdle, state.peakActive)));
+            if (newMax == maxPoolSize && newMinIdle == minimumIdle) {
+                return;
+            }
+            // 先降低最小空闲连接数，保证任何时刻minimumIdle不超过maximumPoolSize
+            poolConfig.setMinimumIdle(newMinIdle);
+            poolConfig.setMaximumPoolSize(newMax);
+            state.changed(now);
+            logger.info("连接池收缩: dataSourceId={}, maximumPoolSize={}->{}, minimumIdle={}->{}, peakActive={}",
+                       dataSourceId, maxPoolSize, newMax, minimumIdle, newMinIdle, state.peakActive);
+        }
+    }
+
+    /**
+     * 计算上次采样以来获取连接的平均耗时
+     *
+     * @return 平均耗时（毫秒），没有新的获取记录时返回-1
+     */
+    private double acquireLatency(Long dataSourceId, SizingState state) {
+        if (meterRegistry == null) {
+            return -1;
+        }
+        Timer timer = meterRegistry.find("datasource.query.acquire").tag("dataSourceId", dataSourceId.toString()).timer();
+        if (timer == null) {
+            return -1;
+        }
+
+        long count = timer.count();
+        double totalMillis = timer.totalTime(TimeUnit.MILLISECONDS);
+        if (state.lastAcquireCount < 0) {
+            // 首次采样只建立基线，不使用累计平均值
+            state.lastAcquireCount = count;
+            state.lastAcquireMillis = totalMillis;
+            return -1;
+        }
+        long deltaCount = count - state.lastAcquireCount;
+        double deltaMillis = totalMillis - state.lastAcquireMillis;
+        state.lastAcquireCount = count;
+        state.lastAcquireMillis = totalMillis;
+        return deltaCount > 0 ? deltaMillis / deltaCount : -1;
+    }
+
+    /**
+     * 单个连接池的调整状态，只由调度线程访问
+     */
+    private static final class SizingState {
+        private final long version;
+        private int busyStreak;
+        private int idleStreak;
+        // 当前空闲期内的活跃连接峰值
+        private int peakActive;
+        private long lastChangeAt = -1;
+        private long lastAcquireCount = -1;
+        private double lastAcquireMillis;
+
+        SizingState(long version) {
+            this.version = version;
+        }
+
+        void record(boolean busy, boolean idle, int active) {
+            if (busy) {
+                busyStreak++;
+                idleStreak = 0;
+                peakActive = 0;
+            } else if (idle) {
+                idleStreak++;
+                busyStreak = 0;
+                peakActive = Math.max(peakActive, active);
+            } else {
+                busyStreak = 0;
+                idleStreak = 0;
+                peakActive = 0;
+            }
+        }
+
+        void changed(long now) {
+            lastChangeAt = now;
+            busyStreak = 0;
+            idleStreak = 0;
+            peakActive = 0;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.zaxxer.hikari.HikariDataSource;
 import com.zaxxer.hikari.HikariPoolMXBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PreDestroy;
@@ -17,9 +18,16 @@ import java.lang.management.ManagementFactory;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 多数据源连接管理器
@@ -34,21 +42,52 @@ public class DataSourceManager {
     private static final Logger logger = LoggerFactory.getLogger(DataSourceManager.class);
 
     /**
-     * 数据源连接池缓存
-     * Key: 数据源ID, Value: HikariDataSource
+     * 数据源连接池注册表
+     * Key: 数据源ID, Value: 不可变的连接池句柄（连接池 + 配置 + 版本号）
+     * 读路径只做一次无锁查找，变更时整体替换句柄
      */
-    private final Map<Long, HikariDataSource> dataSourceCache = new ConcurrentHashMap<>();
+    private final Map<Long, PoolHandle> registry = new ConcurrentHashMap<>();
 
     /**
-     * 数据源配置缓存
-     * Key: 数据源ID, Value: DataSource配置
+     * 数据源级别的变更锁，只串行化同一数据源的写操作；数据源移除时一并移除
      */
-    private final Map<Long, DataSource> configCache = new ConcurrentHashMap<>();
+    private final Map<Long, Object> configLocks = new ConcurrentHashMap<>();
 
     /**
-     * 读写锁，保证线程安全
+     * 句柄版本号生成器
      */
-    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    /**
+     * 旧连接池排空检查间隔（毫秒）
+     */
+    private static final long DRAIN_CHECK_INTERVAL_MS = 200L;
+
+    /**
+     * 新连接池预热超时时间（毫秒）
+     */
+    @Value("${datasource.pool.swap.warmup-timeout:10000}")
+    private long warmupTimeout;
+
+    /**
+     * 旧连接池排空超时时间（毫秒），超时后强制关闭
+     */
+    @Value("${datasource.pool.swap.drain-timeout:30000}")
+    private long drainTimeout;
+
+    /**
+     * 旧连接池排空调度器
+     */
+    private final ScheduledExecutorService drainExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "datasource-pool-drainer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 正在排空的旧连接池，关闭后移除；应用关闭时逐个关闭
+     */
+    private final Set<PoolHandle> retiring = ConcurrentHashMap.newKeySet();
 
     /**
      * MBean服务器，用于监控
@@ -63,30 +102,41 @@ public class DataSourceManager {
      * @throws DataSourceException 数据源异常
      */
     public Connection getConnection(Long dataSourceId) throws DataSourceException {
-        lock.readLock().lock();
+        PoolHandle handle = registry.get(dataSourceId);
+        if (handle == null) {
+            throw new DataSourceException("数据源不存在或未初始化: " + dataSourceId);
+        }
+        
         try {
-            HikariDataSource hikariDataSource = dataSourceCache.get(dataSourceId);
-            if (hikariDataSource == null) {
-                throw new DataSourceException("数据源不存在或未初始化: " + dataSourceId);
-            }
-
-            if (hikariDataSource.isClosed()) {
-                throw new DataSourceException("数据源连接池已关闭: " + dataSourceId);
-            }
-
-            Connection connection = hikariDataSource.getConnection();
-            logger.debug("获取数据源连接成功: dataSourceId={}, activeConnections={}", 
-                        dataSourceId, hikariDataSource.getHikariPoolMXBean().getActiveConnections());
-            
-            return connection;
+            return borrowConnection(dataSourceId, handle.getDataSource());
         } catch (SQLException e) {
+            // 读取句柄后连接池恰好被替换并关闭，改用最新版本的句柄重试一次
+            PoolHandle current = registry.get(dataSourceId);
+            if (handle.getDataSource().isClosed()) {
+                if (current == null || current == handle) {
+                    throw new DataSourceException("数据源连接池已关闭: " + dataSourceId);
+                }
+                try {
+                    return borrowConnection(dataSourceId, current.getDataSource());
+                } catch (SQLException retryFailure) {
+                    e = retryFailure;
+                }
+            }
             logger.error("获取数据源连接失败: dataSourceId={}", dataSourceId, e);
             throw new DataSourceException("获取数据源连接失败: " + e.getMessage(), e);
-        } finally {
-            lock.readLock().unlock();
         }
     }
 
+    /**
+     * 从连接池借出连接
+     */
+    private Connection borrowConnection(Long dataSourceId, HikariDataSource hikariDataSource) throws SQLException {
+        Connection connection = hikariDataSource.getConnection();
+        logger.debug("获取数据源连接成功: dataSourceId={}, activeConnections={}", 
+                    dataSourceId, hikariDataSource.getHikariPoolMXBean().getActiveConnections());
+        return connection;
+    }
+
     /**
      * 添加数据源
      * 
@@ -94,76 +144,183 @@ public class DataSourceManager {
      * @throws DataSourceException 数据源异常
      */
     public void addDataSource(DataSource dataSource) throws DataSourceException {
-        lock.writeLock().lock();
-        try {
-            validateDataSourceConfig(dataSource);
-            
-            // 创建HikariCP数据源
-            HikariDataSource hikariDataSource = DataSourceConfig.createHikariDataSource(dataSource);
-            
-            // 测试连接
-            testConnection(hikariDataSource);
-            
-            // 缓存数据源
-            dataSourceCache.put(dataSource.getId(), hikariDataSource);
-            configCache.put(dataSource.getId(), dataSource);
-            
-            logger.info("数据源添加成功: id={}, name={}, type={}", 
-                       dataSource.getId(), dataSource.getName(), dataSource.getType());
-        } catch (Exception e) {
-            logger.error("数据源添加失败: name={}", dataSource.getName(), e);
-            throw new DataSourceException("数据源添加失败: " + e.getMessage(), e);
-        } finally {
-            lock.writeLock().unlock();
-        }
+        validateDataSourceConfig(dataSource);
+        
+        withLock(dataSource.getId(), () -> {
+            try {
+                // 创建HikariCP数据源
+                HikariDataSource hikariDataSource = DataSourceConfig.createHikariDataSource(dataSource);
+                
+                // 测试连接
+                testConnection(hikariDataSource);
+                
+                // 注册句柄，若已存在旧连接池则排空后关闭
+                PoolHandle previous = registry.put(dataSource.getId(), 
+                    new PoolHandle(hikariDataSource, dataSource, versionSequence.incrementAndGet()));
+                if (previous != null) {
+                    retire(dataSource.getId(), previous);
+                }
+                
+                logger.info("数据源添加成功: id={}, name={}, type={}", 
+                           dataSource.getId(), dataSource.getName(), dataSource.getType());
+                return null;
+            } catch (Exception e) {
+                logger.error("数据源添加失败: name={}", dataSource.getName(), e);
+                throw new DataSourceException("数据源添加失败: " + e.getMessage(), e);
+            }
+        });
     }
 
     /**
      * 更新数据源
+     * 采用蓝绿切换：先创建并预热新连接池，原子替换句柄后再排空旧连接池，
+     * 切换期间进行中的查询继续使用旧连接池，新请求直接使用已预热的新连接池
      * 
      * @param dataSource 数据源配置
      * @throws DataSourceException 数据源异常
      */
     public void updateDataSource(DataSource dataSource) throws DataSourceException {
-        lock.writeLock().lock();
-        try {
-            validateDataSourceConfig(dataSource);
+        validateDataSourceConfig(dataSource);
+        
+        Long dataSourceId = dataSource.getId();
+        
+        // 只锁定被变更的数据源，其他数据源的读写不受影响
+        withLock(dataSourceId, () -> {
+            PoolHandle current = registry.get(dataSourceId);
+            if (current == null) {
+                addDataSource(dataSource);
+                return null;
+            }
             
-            // 关闭旧的数据源
-            removeDataSource(dataSource.getId());
+            HikariDataSource standby = null;
+            try {
+                long version = versionSequence.incrementAndGet();
+                
+                // 1. 创建新连接池
+                standby = DataSourceConfig.createHikariDataSource(dataSource, 
+                    "HikariPool-" + dataSource.getName() + "-v" + version);
+                
+                // 2. 预热到minimumIdle，失败时旧连接池保持服务
+                warmUp(dataSourceId, standby);
+                
+                // 3. 原子切换
+                registry.put(dataSourceId, new PoolHandle(standby, dataSource, version));
+                
+                // 4. 排空旧连接池
+                retire(dataSourceId, current);
+                
+                logger.info("数据源更新成功: id={}, name={}, version={}", 
+                           dataSourceId, dataSource.getName(), version);
+                return null;
+            } catch (Exception e) {
+                if (standby != null && !standby.isClosed()) {
+                    standby.close();
+                }
+                logger.error("数据源更新失败，继续使用原连接池: id={}", dataSourceId, e);
+                throw new DataSourceException("数据源更新失败: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * 预热连接池
+     * 同时借出minimumIdle个连接迫使连接池建立连接，归还后即为空闲连接；
+     * 预热期间借连接的等待时间不超过预热剩余时间，预热结束后恢复连接池的connectionTimeout
+     */
+    private void warmUp(Long dataSourceId, HikariDataSource standby) throws SQLException, DataSourceException {
+        int target = Math.max(1, standby.getMinimumIdle());
+        long deadline = System.currentTimeMillis() + warmupTimeout;
+        List<Connection> borrowed = new ArrayList<>(target);
+        long connectionTimeout = standby.getConnectionTimeout();
+        
+        try {
+            for (int i = 0; i < target; i++) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                // HikariCP要求connectionTimeout不小于250毫秒
+                standby.getHikariConfigMXBean().setConnectionTimeout(
+                    Math.max(250L, Math.min(connectionTimeout, remaining)));
+                borrowed.add(standby.getConnection());
+            }
             
-            // 添加新的数据源
-            addDataSource(dataSource);
+            if (borrowed.isEmpty() || !borrowed.get(0).isValid(5)) {
+                throw new DataSourceException("新连接池连接验证失败: " + dataSourceId);
+            }
             
-            logger.info("数据源更新成功: id={}, name={}", dataSource.getId(), dataSource.getName());
-        } catch (Exception e) {
-            logger.error("数据源更新失败: id={}", dataSource.getId(), e);
-            throw new DataSourceException("数据源更新失败: " + e.getMessage(), e);
+            logger.debug("新连接池预热完成: dataSourceId={}, warmed={}, target={}", 
+                        dataSourceId, borrowed.size(), target);
         } finally {
-            lock.writeLock().unlock();
+            standby.getHikariConfigMXBean().setConnectionTimeout(connectionTimeout);
+            for (Connection connection : borrowed) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.debug("归还预热连接失败: dataSourceId={}, error={}", dataSourceId, e.getMessage());
+                }
+            }
         }
     }
 
+    /**
+     * 退役旧连接池
+     * 空闲连接立即软驱逐，活跃连接在归还时关闭，所有连接归还或超时后关闭连接池
+     */
+    private void retire(Long dataSourceId, PoolHandle retired) {
+        retiring.add(retired);
+
+        // 阻止后台线程为旧连接池补充空闲连接
+        retired.getDataSource().getHikariConfigMXBean().setMinimumIdle(0);
+
+        HikariPoolMXBean poolMXBean = retired.getDataSource().getHikariPoolMXBean();
+        if (poolMXBean != null) {
+            poolMXBean.softEvictConnections();
+        }
+        
+        scheduleDrainCheck(dataSourceId, retired, System.currentTimeMillis() + drainTimeout);
+    }
+
+    /**
+     * 调度旧连接池排空检查
+     */
+    private void scheduleDrainCheck(Long dataSourceId, PoolHandle retired, long deadline) {
+        drainExecutor.schedule(() -> {
+            HikariPoolMXBean poolMXBean = retired.getDataSource().getHikariPoolMXBean();
+            int active = poolMXBean != null ? poolMXBean.getActiveConnections() : 0;
+            
+            if (active > 0 && System.currentTimeMillis() < deadline) {
+                scheduleDrainCheck(dataSourceId, retired, deadline);
+                return;
+            }
+            
+            if (active > 0) {
+                logger.warn("旧连接池排空超时，强制关闭: dataSourceId={}, version={}, activeConnections={}", 
+                           dataSourceId, retired.getVersion(), active);
+            }
+            
+            if (closeQuietly(dataSourceId, retired)) {
+                logger.info("旧连接池已关闭: dataSourceId={}, version={}", dataSourceId, retired.getVersion());
+            }
+            retiring.remove(retired);
+        }, DRAIN_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
     /**
      * 移除数据源
      * 
      * @param dataSourceId 数据源ID
      */
     public void removeDataSource(Long dataSourceId) {
-        lock.writeLock().lock();
-        try {
-            HikariDataSource hikariDataSource = dataSourceCache.remove(dataSourceId);
-            configCache.remove(dataSourceId);
-            
-            if (hikariDataSource != null && !hikariDataSource.isClosed()) {
-                hikariDataSource.close();
+        withLock(dataSourceId, () -> {
+            PoolHandle handle = registry.remove(dataSourceId);
+            // 持有锁时移除，等待同一把锁的线程进入后发现锁已失效会改用新锁
+            configLocks.remove(dataSourceId);
+            if (closeQuietly(dataSourceId, handle)) {
                 logger.info("数据源移除成功: dataSourceId={}", dataSourceId);
             }
-        } catch (Exception e) {
-            logger.error("数据源移除失败: dataSourceId={}", dataSourceId, e);
-        } finally {
-            lock.writeLock().unlock();
-        }
+            return null;
+        });
     }
 
     /**
@@ -173,17 +330,12 @@ public class DataSourceManager {
      * @return 连接测试结果
      */
     public boolean testConnection(Long dataSourceId) {
-        lock.readLock().lock();
-        try {
-            HikariDataSource hikariDataSource = dataSourceCache.get(dataSourceId);
-            if (hikariDataSource == null) {
-                return false;
-            }
-            
-            return testConnection(hikariDataSource);
-        } finally {
-            lock.readLock().unlock();
+        PoolHandle handle = registry.get(dataSourceId);
+        if (handle == null) {
+            return false;
         }
+        
+        return testConnection(handle.getDataSource());
     }
 
     /**
@@ -208,31 +360,33 @@ public class DataSourceManager {
      * @return 连接池信息
      */
     public DataSourcePoolInfo getPoolInfo(Long dataSourceId) {
-        lock.readLock().lock();
-        try {
-            HikariDataSource hikariDataSource = dataSourceCache.get(dataSourceId);
-            DataSource config = configCache.get(dataSourceId);
-            
-            if (hikariDataSource == null || config == null) {
-                return null;
-            }
-            
-            HikariPoolMXBean poolMXBean = hikariDataSource.getHikariPoolMXBean();
-            
-            return new DataSourcePoolInfo(
-                dataSourceId,
-                config.getName(),
-                config.getType(),
-                poolMXBean.getActiveConnections(),
-                poolMXBean.getIdleConnections(),
-                poolMXBean.getTotalConnections(),
-                poolMXBean.getThreadsAwaitingConnection(),
-                hikariDataSource.isClosed(),
-                LocalDateTime.now()
-            );
-        } finally {
-            lock.readLock().unlock();
+        PoolHandle handle = registry.get(dataSourceId);
+        if (handle == null) {
+            return null;
         }
+        
+        return buildPoolInfo(dataSourceId, handle);
+    }
+
+    /**
+     * 根据句柄构建连接池信息
+     */
+    private DataSourcePoolInfo buildPoolInfo(Long dataSourceId, PoolHandle handle) {
+        HikariDataSource hikariDataSource = handle.getDataSource();
+        DataSource config = handle.getConfig();
+        HikariPoolMXBean poolMXBean = hikariDataSource.getHikariPoolMXBean();
+        
+        return new DataSourcePoolInfo(
+            dataSourceId,
+            config.getName(),
+            config.getType(),
+            poolMXBean.getActiveConnections(),
+            poolMXBean.getIdleConnections(),
+            poolMXBean.getTotalConnections(),
+            poolMXBean.getThreadsAwaitingConnection(),
+            hikariDataSource.isClosed(),
+            LocalDateTime.now()
+        );
     }
 
     /**
@@ -241,21 +395,18 @@ public class DataSourceManager {
      * @return 连接池信息列表
      */
     public Map<Long, DataSourcePoolInfo> getAllPoolInfo() {
-        lock.readLock().lock();
-        try {
-            Map<Long, DataSourcePoolInfo> poolInfoMap = new ConcurrentHashMap<>();
-            
-            for (Long dataSourceId : dataSourceCache.keySet()) {
-                DataSourcePoolInfo poolInfo = getPoolInfo(dataSourceId);
-                if (poolInfo != null) {
-                    poolInfoMap.put(dataSourceId, poolInfo);
-                }
+        Map<Long, DataSourcePoolInfo> poolInfoMap = new ConcurrentHashMap<>();
+        
+        registry.forEach((dataSourceId, handle) -> {
+            try {
+                poolInfoMap.put(dataSourceId, buildPoolInfo(dataSourceId, handle));
+            } catch (Exception e) {
+                // 句柄在遍历期间被替换并关闭
+                logger.debug("获取连接池信息失败: dataSourceId={}, error={}", dataSourceId, e.getMessage());
             }
-            
-            return poolInfoMap;
-        } finally {
-            lock.readLock().unlock();
-        }
+        });
+        
+        return poolInfoMap;
     }
 
     /**
@@ -265,12 +416,16 @@ public class DataSourceManager {
      * @return 是否存在
      */
     public boolean exists(Long dataSourceId) {
-        lock.readLock().lock();
-        try {
-            return dataSourceCache.containsKey(dataSourceId);
-        } finally {
-            lock.readLock().unlock();
-        }
+        return registry.containsKey(dataSourceId);
+    }
+
+    /**
+     * 获取已注册的数据源ID
+     * 
+     * @return 数据源ID集合的只读视图
+     */
+    public Set<Long> getDataSourceIds() {
+        return Collections.unmodifiableSet(registry.keySet());
     }
 
     /**
@@ -280,11 +435,60 @@ public class DataSourceManager {
      * @return 数据源配置
      */
     public DataSource getDataSourceConfig(Long dataSourceId) {
-        lock.readLock().lock();
+        PoolHandle handle = registry.get(dataSourceId);
+        return handle != null ? handle.getConfig() : null;
+    }
+
+    /**
+     * 获取数据源连接池句柄
+     * 
+     * @param dataSourceId 数据源ID
+     * @return 连接池句柄，不存在时返回null
+     */
+    public PoolHandle getPoolHandle(Long dataSourceId) {
+        return registry.get(dataSourceId);
+    }
+
+    /**
+     * 持有数据源级别的变更锁执行操作
+     * 锁可能在等待期间随数据源移除，取得锁后确认其仍是当前的锁，否则改用新锁重试，
+     * 保证同一数据源的写操作始终由同一把锁串行化
+     */
+    private <T, E extends Exception> T withLock(Long dataSourceId, LockedAction<T, E> action) throws E {
+        while (true) {
+            Object lock = configLocks.computeIfAbsent(dataSourceId, id -> new Object());
+            synchronized (lock) {
+                if (configLocks.get(dataSourceId) == lock) {
+                    return action.run();
+                }
+            }
+        }
+    }
+
+    /**
+     * 持锁执行的操作
+     */
+    @FunctionalInterface
+    private interface LockedAction<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /**
+     * 关闭句柄对应的连接池
+     * 
+     * @return 是否执行了关闭
+     */
+    private boolean closeQuietly(Long dataSourceId, PoolHandle handle) {
+        if (handle == null || handle.getDataSource().isClosed()) {
+            return false;
+        }
+        
         try {
-            return configCache.get(dataSourceId);
-        } finally {
-            lock.readLock().unlock();
+            handle.getDataSource().close();
+            return true;
+        } catch (Exception e) {
+            logger.error("数据源连接池关闭失败: dataSourceId={}", dataSourceId, e);
+            return false;
         }
     }
 
@@ -334,29 +538,49 @@ public class DataSourceManager {
      */
     @PreDestroy
     public void destroy() {
-        lock.writeLock().lock();
-        try {
-            logger.info("开始关闭所有数据源连接池...");
-            
-            for (Map.Entry<Long, HikariDataSource> entry : dataSourceCache.entrySet()) {
-                try {
-                    HikariDataSource hikariDataSource = entry.getValue();
-                    if (!hikariDataSource.isClosed()) {
-                        hikariDataSource.close();
-                        logger.info("数据源连接池关闭成功: dataSourceId={}", entry.getKey());
-                    }
-                } catch (Exception e) {
-                    logger.error("数据源连接池关闭失败: dataSourceId={}", entry.getKey(), e);
-                }
+        logger.info("开始关闭所有数据源连接池...");
+        
+        // 先关闭正在排空的旧连接池，停止调度器后不会再有排空检查来关闭它们
+        for (PoolHandle retired : retiring) {
+            if (closeQuietly(retired.getConfig().getId(), retired)) {
+                logger.info("旧连接池已关闭: dataSourceId={}, version={}", retired.getConfig().getId(), retired.getVersion());
             }
-            
-            dataSourceCache.clear();
-            configCache.clear();
-            
-            logger.info("所有数据源连接池关闭完成");
-        } finally {
-            lock.writeLock().unlock();
         }
+        retiring.clear();
+        drainExecutor.shutdownNow();
+        
+        for (Long dataSourceId : registry.keySet()) {
+            withLock(dataSourceId, () -> {
+                PoolHandle handle = registry.remove(dataSourceId);
+                configLocks.remove(dataSourceId);
+                if (closeQuietly(dataSourceId, handle)) {
+                    logger.info("数据源连接池关闭成功: dataSourceId={}", dataSourceId);
+                }
+                return null;
+            });
+        }
+        
+        logger.info("所有数据源连接池关闭完成");
+    }
+
+    /**
+     * 数据源连接池句柄
+     * 不可变对象，配置变更时整体替换，读路径无需加锁
+     */
+    public static final class PoolHandle {
+        private final HikariDataSource dataSource;
+        private final DataSource config;
+        private final long version;
+
+        PoolHandle(HikariDataSource dataSource, DataSource config, long version) {
+            this.dataSource = dataSource;
+            this.config = config;
+            this.version = version;
+        }
+
+        public HikariDataSource getDataSource() { return dataSource; }
+        public DataSource getConfig() { return config; }
+        public long getVersion() { return version; }
     }
 
     /**
@@ -1,7 +1,5 @@
 package com.powertrading.datasource.metadata;
 
-import com.powertrading.datasource.cache.QueryCacheService;
-import com.powertrading.datasource.engine.QueryExecutionEngine;
 import com.powertrading.datasource.exception.DataSourceException;
 import com.powertrading.datasource.manager.DataSourceManager;
 import org.slf4j.Logger;
@@ -13,7 +11,7 @@ import org.springframework.util.StringUtils;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.regex.Pattern;
 
 /**
  * 数据库元数据服务
@@ -31,7 +29,7 @@ public class DatabaseMetadataService {
     private DataSourceManager dataSourceManager;
 
     @Autowired
-    private QueryCacheService queryCacheService;
+    private MetadataSnapshotService metadataSnapshotService;
 
     /**
      * 获取数据库基本信息
@@ -128,50 +126,23 @@ public class DatabaseMetadataService {
         
         logger.debug("获取表列表: dataSourceId={}, schema={}, pattern={}", dataSourceId, schemaName, tableNamePattern);
         
-        // 尝试从缓存获取
-        List<TableInfo> cachedTables = getCachedTableList(dataSourceId, schemaName, tableNamePattern);
-        if (cachedTables != null) {
-            return cachedTables;
-        }
-        
-        try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
-            DatabaseMetaData metaData = connection.getMetaData();
-            List<TableInfo> tables = new ArrayList<>();
-            
-            String[] types = tableTypes != null ? tableTypes : new String[]{"TABLE", "VIEW"};
-            String pattern = StringUtils.hasText(tableNamePattern) ? tableNamePattern : "%";
-            
-            try (ResultSet rs = metaData.getTables(null, schemaName, pattern, types)) {
-                while (rs.next()) {
-                    TableInfo table = new TableInfo();
-                    table.setDataSourceId(dataSourceId);
-                    table.setCatalogName(rs.getString("TABLE_CAT"));
-                    table.setSchemaName(rs.getString("TABLE_SCHEM"));
-                    table.setTableName(rs.getString("TABLE_NAME"));
-                    table.setTableType(rs.getString("TABLE_TYPE"));
-                    table.setRemarks(rs.getString("REMARKS"));
-                    
-                    // 获取表的行数（可选）
-                    try {
-                        table.setRowCount(getTableRowCount(connection, table.getSchemaName(), table.getTableName()));
-                    } catch (Exception e) {
-                        logger.debug("获取表行数失败: {}.{}", table.getSchemaName(), table.getTableName());
-                    }
-                    
-                    tables.add(table);
+        // 从元数据快照过滤，行数为统计信息中的估算值；未指定模式时包含全部模式
+        Set<String> types = new HashSet<>(Arrays.asList(tableTypes != null ? tableTypes : new String[]{"TABLE", "VIEW"}));
+        Pattern pattern = StringUtils.hasText(tableNamePattern) ? likePattern(tableNamePattern) : null;
+        
+        List<TableInfo> tables = new ArrayList<>();
+        for (MetadataSnapshotService.MetadataSnapshot snapshot : snapshots(dataSourceId, schemaName)) {
+            for (MetadataSnapshotService.TableEntry entry : snapshot.getTables()) {
+                TableInfo info = entry.getInfo();
+                if (types.contains(info.getTableType())
+                        && (pattern == null || pattern.matcher(info.getTableName()).matches())) {
+                    tables.add(copyTableInfo(info));
                 }
             }
-            
-            // 缓存结果
-            cacheTableList(dataSourceId, schemaName, tableNamePattern, tables);
-            
-            logger.debug("获取到表数量: {}", tables.size());
-            return tables;
-            
-        } catch (SQLException e) {
-            logger.error("获取表列表失败: dataSourceId={}", dataSourceId, e);
-            throw new DataSourceException("获取表列表失败: " + e.getMessage(), e);
         }
+        
+        logger.debug("获取到表数量: {}", tables.size());
+        return tables;
     }
 
     /**
@@ -188,53 +159,22 @@ public class DatabaseMetadataService {
         
         logger.debug("获取表详细信息: dataSourceId={}, schema={}, table={}", dataSourceId, schemaName, tableName);
         
-        // 尝试从缓存获取
-        QueryExecutionEngine.TableMetadata cachedMetadata = 
-            queryCacheService.getCachedTableMetadata(dataSourceId, tableName);
-        if (cachedMetadata != null) {
-            return convertToTableDetailInfo(cachedMetadata, dataSourceId, schemaName);
-        }
+        // 列、主键、索引和外键均取自元数据快照
+        MetadataSnapshotService.TableEntry entry = findTable(dataSourceId, schemaName, tableName);
+        MetadataSnapshotService.TableKeys keys = metadataSnapshotService.getKeys(dataSourceId, entry);
         
-        try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
-            DatabaseMetaData metaData = connection.getMetaData();
-            
-            TableDetailInfo tableDetail = new TableDetailInfo();
-            tableDetail.setDataSourceId(dataSourceId);
-            tableDetail.setSchemaName(schemaName);
-            tableDetail.setTableName(tableName);
-            
-            // 获取列信息
-            List<ColumnDetailInfo> columns = getColumnDetails(metaData, schemaName, tableName);
-            tableDetail.setColumns(columns);
-            
-            // 获取主键信息
-            List<String> primaryKeys = getPrimaryKeys(metaData, schemaName, tableName);
-            tableDetail.setPrimaryKeys(primaryKeys);
-            
-            // 获取外键信息
-            List<ForeignKeyInfo> foreignKeys = getForeignKeys(metaData, schemaName, tableName);
-            tableDetail.setForeignKeys(foreignKeys);
-            
-            // 获取索引信息
-            List<IndexDetailInfo> indexes = getIndexDetails(metaData, schemaName, tableName);
-            tableDetail.setIndexes(indexes);
-            
-            // 获取表统计信息
-            TableStatistics statistics = getTableStatistics(connection, schemaName, tableName);
-            tableDetail.setStatistics(statistics);
-            
-            tableDetail.setRetrieveTime(LocalDateTime.now());
-            
-            // 缓存结果
-            QueryExecutionEngine.TableMetadata metadata = convertToTableMetadata(tableDetail);
-            queryCacheService.cacheTableMetadata(dataSourceId, tableName, metadata);
-            
-            return tableDetail;
-            
-        } catch (SQLException e) {
-            logger.error("获取表详细信息失败: dataSourceId={}, table={}", dataSourceId, tableName, e);
-            throw new DataSourceException("获取表详细信息失败: " + e.getMessage(), e);
-        }
+        TableDetailInfo tableDetail = new TableDetailInfo();
+        tableDetail.setDataSourceId(dataSourceId);
+        tableDetail.setSchemaName(StringUtils.hasText(schemaName) ? schemaName : entry.getOwner());
+        tableDetail.setTableName(entry.getInfo().getTableName());
+        tableDetail.setColumns(new ArrayList<>(entry.getColumns()));
+        tableDetail.setPrimaryKeys(new ArrayList<>(keys.getPrimaryKeys()));
+        tableDetail.setForeignKeys(new ArrayList<>(keys.getForeignKeys()));
+        tableDetail.setIndexes(new ArrayList<>(keys.getIndexes()));
+        tableDetail.setStatistics(getTableStatistics(entry));
+        tableDetail.setRetrieveTime(LocalDateTime.now());
+        
+        return tableDetail;
     }
 
     /**
@@ -252,36 +192,14 @@ public class DatabaseMetadataService {
         
         logger.debug("获取列详细信息: dataSourceId={}, table={}, column={}", dataSourceId, tableName, columnName);
         
-        try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
-            DatabaseMetaData metaData = connection.getMetaData();
-            
-            try (ResultSet rs = metaData.getColumns(null, schemaName, tableName, columnName)) {
-                if (rs.next()) {
-                    ColumnDetailInfo column = new ColumnDetailInfo();
-                    column.setDataSourceId(dataSourceId);
-                    column.setSchemaName(schemaName);
-                    column.setTableName(tableName);
-                    column.setColumnName(rs.getString("COLUMN_NAME"));
-                    column.setDataType(rs.getString("TYPE_NAME"));
-                    column.setJdbcType(rs.getInt("DATA_TYPE"));
-                    column.setColumnSize(rs.getInt("COLUMN_SIZE"));
-                    column.setDecimalDigits(rs.getInt("DECIMAL_DIGITS"));
-                    column.setNullable(rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable);
-                    column.setDefaultValue(rs.getString("COLUMN_DEF"));
-                    column.setRemarks(rs.getString("REMARKS"));
-                    column.setOrdinalPosition(rs.getInt("ORDINAL_POSITION"));
-                    column.setAutoIncrement("YES".equals(rs.getString("IS_AUTOINCREMENT")));
-                    
-                    return column;
-                }
+        MetadataSnapshotService.TableEntry entry = findTable(dataSourceId, schemaName, tableName);
+        for (ColumnDetailInfo column : entry.getColumns()) {
+            if (column.getColumnName().equalsIgnoreCase(columnName)) {
+                return column;
             }
-            
-            throw new DataSourceException("列不存在: " + columnName);
-            
-        } catch (SQLException e) {
-            logger.error("获取列详细信息失败: dataSourceId={}, column={}", dataSourceId, columnName, e);
-            throw new DataSourceException("获取列详细信息失败: " + e.getMessage(), e);
         }
+        
+        throw new DataSourceException("列不存在: " + columnName);
     }
 
     /**
@@ -307,29 +225,23 @@ public class DatabaseMetadataService {
             return result;
         }
         
-        try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
-            DatabaseMetaData metaData = connection.getMetaData();
-            
-            // 搜索表名
-            if (searchScope == SearchScope.ALL || searchScope == SearchScope.TABLES_ONLY) {
-                List<TableInfo> matchedTables = searchTables(metaData, dataSourceId, keyword);
-                result.setMatchedTables(matchedTables);
-            }
-            
-            // 搜索列名
-            if (searchScope == SearchScope.ALL || searchScope == SearchScope.COLUMNS_ONLY) {
-                List<ColumnSearchResult> matchedColumns = searchColumns(metaData, dataSourceId, keyword);
-                result.setMatchedColumns(matchedColumns);
-            }
-            
-            result.setTotalMatches(result.getMatchedTables().size() + result.getMatchedColumns().size());
-            
-            return result;
-            
-        } catch (SQLException e) {
-            logger.error("搜索表和列失败: dataSourceId={}", dataSourceId, e);
-            throw new DataSourceException("搜索表和列失败: " + e.getMessage(), e);
+        // 在全部模式的快照中搜索
+        List<MetadataSnapshotService.MetadataSnapshot> snapshots = metadataSnapshotService.getSnapshots(dataSourceId);
+        String lowerKeyword = keyword.toLowerCase(Locale.ROOT);
+        
+        // 搜索表名
+        if (searchScope == SearchScope.ALL || searchScope == SearchScope.TABLES_ONLY) {
+            result.setMatchedTables(searchTables(snapshots, lowerKeyword));
         }
+        
+        // 搜索列名
+        if (searchScope == SearchScope.ALL || searchScope == SearchScope.COLUMNS_ONLY) {
+            result.setMatchedColumns(searchColumns(snapshots, dataSourceId, lowerKeyword));
+        }
+        
+        result.setTotalMatches(result.getMatchedTables().size() + result.getMatchedColumns().size());
+        
+        return result;
     }
 
     /**
@@ -428,250 +340,135 @@ public class DatabaseMetadataService {
     public DatabaseStatistics getDatabaseStatistics(Long dataSourceId) throws DataSourceException {
         logger.debug("获取数据库统计信息: dataSourceId={}", dataSourceId);
         
-        try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
-            DatabaseStatistics stats = new DatabaseStatistics();
-            stats.setDataSourceId(dataSourceId);
-            
-            // 获取表数量
-            DatabaseMetaData metaData = connection.getMetaData();
-            int tableCount = 0;
-            int viewCount = 0;
-            
-            try (ResultSet rs = metaData.getTables(null, null, "%", new String[]{"TABLE", "VIEW"})) {
-                while (rs.next()) {
-                    String tableType = rs.getString("TABLE_TYPE");
-                    if ("TABLE".equals(tableType)) {
-                        tableCount++;
-                    } else if ("VIEW".equals(tableType)) {
-                        viewCount++;
-                    }
+        DatabaseStatistics stats = new DatabaseStatistics();
+        stats.setDataSourceId(dataSourceId);
+        
+        // 表数量和数据库大小均取自全部模式的快照，统计时间取最早的快照时间
+        int tableCount = 0;
+        int viewCount = 0;
+        long databaseSize = 0;
+        LocalDateTime statisticsTime = null;
+        for (MetadataSnapshotService.MetadataSnapshot snapshot : metadataSnapshotService.getSnapshots(dataSourceId)) {
+            for (MetadataSnapshotService.TableEntry entry : snapshot.getTables()) {
+                String tableType = entry.getInfo().getTableType();
+                if ("TABLE".equals(tableType)) {
+                    tableCount++;
+                } else if ("VIEW".equals(tableType)) {
+                    viewCount++;
+                }
+                if (entry.getTableSize() != null) {
+                    databaseSize += entry.getTableSize();
                 }
             }
-            
-            stats.setTableCount(tableCount);
-            stats.setViewCount(viewCount);
-            
-            // 获取数据库大小（如果支持）
-            try {
-                long databaseSize = getDatabaseSize(connection);
-                stats.setDatabaseSize(databaseSize);
-            } catch (Exception e) {
-                logger.debug("获取数据库大小失败: {}", e.getMessage());
+            if (statisticsTime == null || snapshot.getSnapshotTime().isBefore(statisticsTime)) {
+                statisticsTime = snapshot.getSnapshotTime();
             }
-            
-            stats.setStatisticsTime(LocalDateTime.now());
-            
-            return stats;
-            
-        } catch (SQLException e) {
-            logger.error("获取数据库统计信息失败: dataSourceId={}", dataSourceId, e);
-            throw new DataSourceException("获取数据库统计信息失败: " + e.getMessage(), e);
         }
+        
+        stats.setTableCount(tableCount);
+        stats.setViewCount(viewCount);
+        stats.setDatabaseSize(databaseSize);
+        stats.setStatisticsTime(statisticsTime);
+        
+        return stats;
     }
 
     // 私有辅助方法
     
-    private List<ColumnDetailInfo> getColumnDetails(DatabaseMetaData metaData, String schemaName, String tableName) 
-            throws SQLException {
-        List<ColumnDetailInfo> columns = new ArrayList<>();
-        
-        try (ResultSet rs = metaData.getColumns(null, schemaName, tableName, null)) {
-            while (rs.next()) {
-                ColumnDetailInfo column = new ColumnDetailInfo();
-                column.setColumnName(rs.getString("COLUMN_NAME"));
-                column.setDataType(rs.getString("TYPE_NAME"));
-                column.setJdbcType(rs.getInt("DATA_TYPE"));
-                column.setColumnSize(rs.getInt("COLUMN_SIZE"));
-                column.setDecimalDigits(rs.getInt("DECIMAL_DIGITS"));
-                column.setNullable(rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable);
-                column.setDefaultValue(rs.getString("COLUMN_DEF"));
-                column.setRemarks(rs.getString("REMARKS"));
-                column.setOrdinalPosition(rs.getInt("ORDINAL_POSITION"));
-                column.setAutoIncrement("YES".equals(rs.getString("IS_AUTOINCREMENT")));
-                columns.add(column);
-            }
+    private List<MetadataSnapshotService.MetadataSnapshot> snapshots(Long dataSourceId, String schemaName)
+            throws DataSourceException {
+        if (StringUtils.hasText(schemaName)) {
+            return Collections.singletonList(metadataSnapshotService.getSnapshot(dataSourceId, schemaName));
         }
-        
-        return columns;
+        return metadataSnapshotService.getSnapshots(dataSourceId);
     }
 
-    private List<String> getPrimaryKeys(DatabaseMetaData metaData, String schemaName, String tableName) 
-            throws SQLException {
-        List<String> primaryKeys = new ArrayList<>();
-        
-        try (ResultSet rs = metaData.getPrimaryKeys(null, schemaName, tableName)) {
-            while (rs.next()) {
-                primaryKeys.add(rs.getString("COLUMN_NAME"));
-            }
+    private MetadataSnapshotService.TableEntry findTable(Long dataSourceId, String schemaName, String tableName)
+            throws DataSourceException {
+        MetadataSnapshotService.TableEntry entry = metadataSnapshotService.findTable(dataSourceId, schemaName, tableName);
+        if (entry == null) {
+            throw new DataSourceException("表不存在: " + tableName);
         }
-        
-        return primaryKeys;
+        return entry;
     }
 
-    private List<ForeignKeyInfo> getForeignKeys(DatabaseMetaData metaData, String schemaName, String tableName) 
-            throws SQLException {
-        List<ForeignKeyInfo> foreignKeys = new ArrayList<>();
-        
-        try (ResultSet rs = metaData.getImportedKeys(null, schemaName, tableName)) {
-            while (rs.next()) {
-                ForeignKeyInfo fk = new ForeignKeyInfo();
-                fk.setForeignKeyName(rs.getString("FK_NAME"));
-                fk.setColumnName(rs.getString("FKCOLUMN_NAME"));
-                fk.setReferencedTableName(rs.getString("PKTABLE_NAME"));
-                fk.setReferencedColumnName(rs.getString("PKCOLUMN_NAME"));
-                fk.setUpdateRule(rs.getInt("UPDATE_RULE"));
-                fk.setDeleteRule(rs.getInt("DELETE_RULE"));
-                foreignKeys.add(fk);
+    private TableStatistics getTableStatistics(MetadataSnapshotService.TableEntry entry) {
+        TableStatistics stats = new TableStatistics();
+        if (entry != null) {
+            // 行数为统计信息估算值，不执行COUNT(*)
+            if (entry.getRowEstimate() != null) {
+                stats.setRowCount(entry.getRowEstimate());
             }
-        }
-        
-        return foreignKeys;
-    }
-
-    private List<IndexDetailInfo> getIndexDetails(DatabaseMetaData metaData, String schemaName, String tableName) 
-            throws SQLException {
-        Map<String, IndexDetailInfo> indexMap = new HashMap<>();
-        
-        try (ResultSet rs = metaData.getIndexInfo(null, schemaName, tableName, false, false)) {
-            while (rs.next()) {
-                String indexName = rs.getString("INDEX_NAME");
-                if (indexName == null) continue;
-                
-                IndexDetailInfo index = indexMap.computeIfAbsent(indexName, k -> {
-                    IndexDetailInfo idx = new IndexDetailInfo();
-                    idx.setIndexName(indexName);
-                    try {
-                        idx.setUnique(!rs.getBoolean("NON_UNIQUE"));
-                    } catch (SQLException e) {
-                        idx.setUnique(false); // 默认值
-                    }
-                    idx.setColumnNames(new ArrayList<>());
-                    return idx;
-                });
-                
-                String columnName = rs.getString("COLUMN_NAME");
-                if (columnName != null) {
-                    index.getColumnNames().add(columnName);
-                }
+            if (entry.getTableSize() != null) {
+                stats.setTableSize(entry.getTableSize());
             }
         }
-        
-        return new ArrayList<>(indexMap.values());
-    }
-
-    private TableStatistics getTableStatistics(Connection connection, String schemaName, String tableName) {
-        TableStatistics stats = new TableStatistics();
-        
-        try {
-            // 获取行数
-            long rowCount = getTableRowCount(connection, schemaName, tableName);
-            stats.setRowCount(rowCount);
-            
-            // 获取表大小（如果支持）
-            long tableSize = getTableSize(connection, schemaName, tableName);
-            stats.setTableSize(tableSize);
-            
-        } catch (Exception e) {
-            logger.debug("获取表统计信息失败: {}.{}", schemaName, tableName);
-        }
-        
         stats.setLastUpdated(LocalDateTime.now());
         return stats;
     }
 
-    private long getTableRowCount(Connection connection, String schemaName, String tableName) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM ";
-        if (StringUtils.hasText(schemaName)) {
-            sql += schemaName + ".";
-        }
-        sql += tableName;
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            if (rs.next()) {
-                return rs.getLong(1);
+    private List<TableInfo> searchTables(List<MetadataSnapshotService.MetadataSnapshot> snapshots,
+                                         String lowerKeyword) {
+        List<TableInfo> matchedTables = new ArrayList<>();
+        for (MetadataSnapshotService.MetadataSnapshot snapshot : snapshots) {
+            for (MetadataSnapshotService.TableEntry entry : snapshot.getTables()) {
+                if (entry.getInfo().getTableName().toLowerCase(Locale.ROOT).contains(lowerKeyword)) {
+                    matchedTables.add(copyTableInfo(entry.getInfo()));
+                }
             }
         }
-        
-        return 0;
+        return matchedTables;
     }
 
-    private long getTableSize(Connection connection, String schemaName, String tableName) {
-        // 不同数据库的表大小查询方式不同，这里提供MySQL的示例
-        try {
-            String sql = "SELECT data_length + index_length as table_size " +
-                        "FROM information_schema.tables " +
-                        "WHERE table_schema = ? AND table_name = ?";
-            
-            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
-                stmt.setString(1, schemaName);
-                stmt.setString(2, tableName);
-                
-                try (ResultSet rs = stmt.executeQuery()) {
-                    if (rs.next()) {
-                        return rs.getLong("table_size");
+    private List<ColumnSearchResult> searchColumns(List<MetadataSnapshotService.MetadataSnapshot> snapshots,
+                                                   Long dataSourceId, String lowerKeyword) {
+        List<ColumnSearchResult> matchedColumns = new ArrayList<>();
+        for (MetadataSnapshotService.MetadataSnapshot snapshot : snapshots) {
+            for (MetadataSnapshotService.TableEntry entry : snapshot.getTables()) {
+                for (ColumnDetailInfo detail : entry.getColumns()) {
+                    if (detail.getColumnName().toLowerCase(Locale.ROOT).contains(lowerKeyword)) {
+                        ColumnSearchResult column = new ColumnSearchResult();
+                        column.setDataSourceId(dataSourceId);
+                        column.setSchemaName(entry.getOwner());
+                        column.setTableName(entry.getInfo().getTableName());
+                        column.setColumnName(detail.getColumnName());
+                        column.setDataType(detail.getDataType());
+                        column.setRemarks(detail.getRemarks());
+                        matchedColumns.add(column);
                     }
                 }
             }
-        } catch (Exception e) {
-            logger.debug("获取表大小失败: {}.{}", schemaName, tableName);
         }
-        
-        return 0;
-    }
-
-    private long getDatabaseSize(Connection connection) throws SQLException {
-        // MySQL示例
-        String sql = "SELECT SUM(data_length + index_length) as database_size " +
-                    "FROM information_schema.tables";
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql);
-             ResultSet rs = stmt.executeQuery()) {
-            if (rs.next()) {
-                return rs.getLong("database_size");
-            }
-        }
-        
-        return 0;
+        return matchedColumns;
     }
 
-    private List<TableInfo> searchTables(DatabaseMetaData metaData, Long dataSourceId, String keyword) 
-            throws SQLException {
-        List<TableInfo> matchedTables = new ArrayList<>();
-        
-        try (ResultSet rs = metaData.getTables(null, null, "%" + keyword + "%", new String[]{"TABLE", "VIEW"})) {
-            while (rs.next()) {
-                TableInfo table = new TableInfo();
-                table.setDataSourceId(dataSourceId);
-                table.setSchemaName(rs.getString("TABLE_SCHEM"));
-                table.setTableName(rs.getString("TABLE_NAME"));
-                table.setTableType(rs.getString("TABLE_TYPE"));
-                table.setRemarks(rs.getString("REMARKS"));
-                matchedTables.add(table);
-            }
-        }
-        
-        return matchedTables;
+    private static TableInfo copyTableInfo(TableInfo source) {
+        TableInfo table = new TableInfo();
+        table.setDataSourceId(source.getDataSourceId());
+        table.setCatalogName(source.getCatalogName());
+        table.setSchemaName(source.getSchemaName());
+        table.setTableName(source.getTableName());
+        table.setTableType(source.getTableType());
+        table.setRemarks(source.getRemarks());
+        table.setRowCount(source.getRowCount());
+        return table;
     }
 
-    private List<ColumnSearchResult> searchColumns(DatabaseMetaData metaData, Long dataSourceId, String keyword) 
-            throws SQLException {
-        List<ColumnSearchResult> matchedColumns = new ArrayList<>();
-        
-        try (ResultSet rs = metaData.getColumns(null, null, "%", "%" + keyword + "%")) {
-            while (rs.next()) {
-                ColumnSearchResult column = new ColumnSearchResult();
-                column.setDataSourceId(dataSourceId);
-                column.setSchemaName(rs.getString("TABLE_SCHEM"));
-                column.setTableName(rs.getString("TABLE_NAME"));
-                column.setColumnName(rs.getString("COLUMN_NAME"));
-                column.setDataType(rs.getString("TYPE_NAME"));
-                column.setRemarks(rs.getString("REMARKS"));
-                matchedColumns.add(column);
+    /**
+     * 将SQL LIKE模式转换为忽略大小写的正则
+     */
+    private static Pattern likePattern(String likePattern) {
+        StringBuilder regex = new StringBuilder();
+        for (char c : likePattern.toCharArray()) {
+            if (c == '%') {
+                regex.append(".*");
+            } else if (c == '_') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
             }
         }
-        
-        return matchedColumns;
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE);
     }
 
     private boolean needsSize(String dataType) {
@@ -680,69 +477,6 @@ public class DatabaseMetadataService {
                upperType.contains("NUMERIC") || upperType.contains("FLOAT");
     }
 
-    private List<TableInfo> getCachedTableList(Long dataSourceId, String schemaName, String tableNamePattern) {
-        // 实现缓存逻辑
-        return null;
-    }
-
-    private void cacheTableList(Long dataSourceId, String schemaName, String tableNamePattern, List<TableInfo> tables) {
-        // 实现缓存逻辑
-    }
-
-    private TableDetailInfo convertToTableDetailInfo(QueryExecutionEngine.TableMetadata metadata, 
-                                                   Long dataSourceId, String schemaName) {
-        TableDetailInfo detail = new TableDetailInfo();
-        detail.setDataSourceId(dataSourceId);
-        detail.setSchemaName(schemaName);
-        detail.setTableName(metadata.getTableName());
-        
-        // 转换列信息
-        List<ColumnDetailInfo> columns = metadata.getColumns().stream()
-            .map(this::convertToColumnDetailInfo)
-            .collect(Collectors.toList());
-        detail.setColumns(columns);
-        
-        detail.setPrimaryKeys(metadata.getPrimaryKeys());
-        detail.setRetrieveTime(LocalDateTime.now());
-        
-        return detail;
-    }
-
-    private ColumnDetailInfo convertToColumnDetailInfo(QueryExecutionEngine.ColumnMetadata metadata) {
-        ColumnDetailInfo detail = new ColumnDetailInfo();
-        detail.setColumnName(metadata.getColumnName());
-        detail.setDataType(metadata.getDataType());
-        detail.setColumnSize(metadata.getColumnSize());
-        detail.setNullable(metadata.isNullable());
-        detail.setDefaultValue(metadata.getDefaultValue());
-        detail.setAutoIncrement(metadata.isAutoIncrement());
-        return detail;
-    }
-
-    private QueryExecutionEngine.TableMetadata convertToTableMetadata(TableDetailInfo detail) {
-        QueryExecutionEngine.TableMetadata metadata = new QueryExecutionEngine.TableMetadata();
-        metadata.setTableName(detail.getTableName());
-        metadata.setPrimaryKeys(detail.getPrimaryKeys());
-        
-        List<QueryExecutionEngine.ColumnMetadata> columns = detail.getColumns().stream()
-            .map(this::convertToColumnMetadata)
-            .collect(Collectors.toList());
-        metadata.setColumns(columns);
-        
-        return metadata;
-    }
-
-    private QueryExecutionEngine.ColumnMetadata convertToColumnMetadata(ColumnDetailInfo detail) {
-        QueryExecutionEngine.ColumnMetadata metadata = new QueryExecutionEngine.ColumnMetadata();
-        metadata.setColumnName(detail.getColumnName());
-        metadata.setDataType(detail.getDataType());
-        metadata.setColumnSize(detail.getColumnSize());
-        metadata.setNullable(detail.isNullable());
-        metadata.setDefaultValue(detail.getDefaultValue());
-        metadata.setAutoIncrement(detail.isAutoIncrement());
-        return metadata;
-    }
-
     // 枚举和内部类定义
     public enum SearchScope {
         ALL, TABLES_ONLY, COLUMNS_ONLY
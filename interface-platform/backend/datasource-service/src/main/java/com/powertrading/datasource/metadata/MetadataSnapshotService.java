@@ -0,0 +1,741 @@
+package com.powertrading.datasource.metadata;
+
+import com.powertrading.datasource.config.DynamicConfigurationService;
+import com.powertrading.datasource.exception.DataSourceException;
+import com.powertrading.datasource.manager.DataSourceManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 元数据快照服务
+ * 按数据源和模式（MySQL为目录）在内存中维护表、列、主键、索引及行数估算的快照，
+ * 模式快照在首次访问时加载，行数取自information_schema.TABLES等统计视图而非COUNT(*)；
+ * 列信息随快照批量加载，主键、索引和外键在表首次被查看时加载并保存在快照中。
+ * 快照后台定期增量刷新，只有新增或结构变化的表才重新加载结构信息。结构变化按变更标记判断：
+ * MySQL为CREATE_TIME，Oracle为LAST_DDL_TIME，PostgreSQL为列定义的摘要；
+ * 标记不能反映所有结构变化（如MySQL的INSTANT加列）或数据库不提供标记时，由定期全量刷新兜底。
+ * 连接池被替换或数据源配置变更、删除时丢弃该数据源的全部快照
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@Service
+public class MetadataSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetadataSnapshotService.class);
+
+    private static final String[] TABLE_TYPES = {"TABLE", "VIEW"};
+
+    /**
+     * 增量刷新时逐表加载列信息的上限，超过时整体加载该模式的列信息
+     */
+    private static final int INCREMENTAL_COLUMN_LOAD_LIMIT = 32;
+
+    // 统计SQL以模式条件结尾，指定模式时绑定参数，否则使用连接当前的模式
+    private static final String MYSQL_STATISTICS_SQL =
+        "SELECT TABLE_SCHEMA, TABLE_NAME, TABLE_ROWS, COALESCE(DATA_LENGTH, 0) + COALESCE(INDEX_LENGTH, 0), CREATE_TIME " +
+        "FROM information_schema.TABLES " +
+        "WHERE TABLE_SCHEMA = ";
+
+    // PostgreSQL没有记录DDL时间的系统列，以列名、类型、类型修饰符和非空约束的摘要作为变更标记
+    private static final String POSTGRESQL_STATISTICS_SQL =
+        "SELECT n.nspname, c.relname, c.reltuples::bigint, pg_total_relation_size(c.oid), " +
+        "(SELECT md5(string_agg(a.attname || ':' || a.atttypid || ':' || a.atttypmod || ':' || a.attnotnull, ',' " +
+        "ORDER BY a.attnum)) FROM pg_attribute a WHERE a.attrelid = c.oid AND a.attnum > 0 AND NOT a.attisdropped) " +
+        "FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+        "WHERE c.relkind IN ('r', 'p', 'm') AND n.nspname = ";
+
+    private static final String ORACLE_STATISTICS_SQL =
+        "SELECT t.OWNER, t.TABLE_NAME, t.NUM_ROWS, NULL, TO_CHAR(o.LAST_DDL_TIME, 'YYYY-MM-DD HH24:MI:SS') " +
+        "FROM ALL_TABLES t JOIN ALL_OBJECTS o " +
+        "ON o.OWNER = t.OWNER AND o.OBJECT_NAME = t.TABLE_NAME AND o.OBJECT_TYPE = 'TABLE' " +
+        "WHERE t.OWNER = ";
+
+    @Autowired
+    private DataSourceManager dataSourceManager;
+
+    @Value("${datasource.metadata.snapshot.refresh-interval:300000}")
+    private long refreshInterval;
+
+    /**
+     * 每隔多少次增量刷新执行一次全量刷新
+     */
+    @Value("${datasource.metadata.snapshot.full-refresh-every:12}")
+    private int fullRefreshEvery;
+
+    private final Map<Long, DataSourceMetadata> holders = new ConcurrentHashMap<>();
+
+    private final ExecutorService refreshExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "metadata-snapshot-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 获取数据源默认模式（连接当前的模式或目录）的元数据快照
+     *
+     * @param dataSourceId 数据源ID
+     * @return 元数据快照
+     * @throws DataSourceException 数据源异常
+     */
+    public MetadataSnapshot getSnapshot(Long dataSourceId) throws DataSourceException {
+        return getSnapshot(dataSourceId, null);
+    }
+
+    /**
+     * 获取数据源指定模式的元数据快照
+     * 首次访问或连接池被替换后同步构建，快照过期时返回当前快照并在后台刷新
+     *
+     * @param dataSourceId 数据源ID
+     * @param schemaName 模式名（MySQL为库名），为空时使用默认模式
+     * @return 元数据快照
+     * @throws DataSourceException 数据源异常
+     */
+    public MetadataSnapshot getSnapshot(Long dataSourceId, String schemaName) throws DataSourceException {
+        return getSnapshot(dataSourceId, getMetadata(dataSourceId), schemaName);
+    }
+
+    /**
+     * 获取数据源全部模式的元数据快照，尚未加载的模式同步构建
+     *
+     * @param dataSourceId 数据源ID
+     * @return 元数据快照列表
+     * @throws DataSourceException 数据源异常
+     */
+    public List<MetadataSnapshot> getSnapshots(Long dataSourceId) throws DataSourceException {
+        DataSourceMetadata metadata = getMetadata(dataSourceId);
+        List<String> schemaNames = metadata.schemaNames;
+        if (schemaNames.isEmpty()) {
+            return Collections.singletonList(getSnapshot(dataSourceId, metadata, null));
+        }
+        List<MetadataSnapshot> snapshots = new ArrayList<>(schemaNames.size());
+        for (String schemaName : schemaNames) {
+            snapshots.add(getSnapshot(dataSourceId, metadata, schemaName));
+        }
+        return snapshots;
+    }
+
+    /**
+     * 查找表；未指定模式时先查默认模式，再按模式列表顺序查找第一个同名表
+     *
+     * @param dataSourceId 数据源ID
+     * @param schemaName 模式名，可为空
+     * @param tableName 表名
+     * @return 快照中的表，不存在时返回null
+     * @throws DataSourceException 数据源异常
+     */
+    public TableEntry findTable(Long dataSourceId, String schemaName, String tableName) throws DataSourceException {
+        if (StringUtils.hasText(schemaName)) {
+            return getSnapshot(dataSourceId, schemaName).findTable(tableName);
+        }
+        TableEntry table = getSnapshot(dataSourceId).findTable(tableName);
+        if (table != null) {
+            return table;
+        }
+        for (MetadataSnapshot snapshot : getSnapshots(dataSourceId)) {
+            table = snapshot.findTable(tableName);
+            if (table != null) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取表的主键、索引和外键，首次访问时加载并保存在快照中
+     *
+     * @param dataSourceId 数据源ID
+     * @param table 快照中的表
+     * @return 主键、索引和外键
+     * @throws DataSourceException 数据源异常
+     */
+    public TableKeys getKeys(Long dataSourceId, TableEntry table) throws DataSourceException {
+        TableKeys keys = table.keys;
+        if (keys != null) {
+            return keys;
+        }
+        DatabaseMetadataService.TableInfo info = table.info;
+        try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
+            keys = loadKeys(connection.getMetaData(), info.getCatalogName(), info.getSchemaName(), info.getTableName());
+            table.keys = keys;
+            return keys;
+        } catch (SQLException e) {
+            logger.error("加载表键信息失败: dataSourceId={}, table={}", dataSourceId, info.getTableName(), e);
+            throw new DataSourceException("加载表键信息失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 移除数据源的全部快照
+     *
+     * @param dataSourceId 数据源ID
+     */
+    public void evict(Long dataSourceId) {
+        if (holders.remove(dataSourceId) != null) {
+            logger.debug("元数据快照已失效: dataSourceId={}", dataSourceId);
+        }
+    }
+
+    /**
+     * 数据源配置变更或删除时丢弃快照
+     */
+    @EventListener
+    public void onConfigurationChanged(DynamicConfigurationService.DataSourceConfigurationEvent event) {
+        if (event.getDataSource() != null && event.getDataSource().getId() != null) {
+            evict(event.getDataSource().getId());
+        }
+    }
+
+    /**
+     * 定期刷新已加载的快照
+     */
+    @Scheduled(fixedDelayString = "${datasource.metadata.snapshot.refresh-interval:300000}")
+    public void refreshSnapshots() {
+        holders.forEach((dataSourceId, metadata) -> {
+            DataSourceManager.PoolHandle handle = dataSourceManager.getPoolHandle(dataSourceId);
+            if (handle == null || handle.getVersion() != metadata.poolVersion) {
+                holders.remove(dataSourceId, metadata);
+                return;
+            }
+            submit(dataSourceId, () -> refreshSchemaNames(dataSourceId, metadata));
+            metadata.snapshots.values().forEach(holder -> {
+                if (holder.snapshot != null) {
+                    scheduleRefresh(dataSourceId, metadata, holder);
+                }
+            });
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    private MetadataSnapshot getSnapshot(Long dataSourceId, DataSourceMetadata metadata, String schemaName)
+            throws DataSourceException {
+        String schema = metadata.resolveSchema(schemaName);
+        SnapshotHolder holder = metadata.snapshots.computeIfAbsent(schemaKey(schema), key -> new SnapshotHolder(schema));
+        MetadataSnapshot snapshot = holder.snapshot;
+        if (snapshot == null) {
+            synchronized (holder) {
+                snapshot = holder.snapshot;
+                if (snapshot == null) {
+                    snapshot = buildSnapshot(dataSourceId, metadata, schema, null);
+                    holder.snapshot = snapshot;
+                }
+            }
+        } else if (System.currentTimeMillis() - snapshot.refreshedAt > refreshInterval) {
+            scheduleRefresh(dataSourceId, metadata, holder);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 获取数据源的模式目录，连接池被替换时重新读取；
+     * JDBC调用在映射之外执行，并发读取时保留连接池版本较新的结果
+     */
+    private DataSourceMetadata getMetadata(Long dataSourceId) throws DataSourceException {
+        DataSourceManager.PoolHandle handle = dataSourceManager.getPoolHandle(dataSourceId);
+        if (handle == null) {
+            holders.remove(dataSourceId);
+            throw new DataSourceException("数据源不存在或未启用: " + dataSourceId);
+        }
+        DataSourceMetadata metadata = holders.get(dataSourceId);
+        if (metadata != null && metadata.poolVersion == handle.getVersion()) {
+            return metadata;
+        }
+        DataSourceMetadata loaded = loadMetadata(dataSourceId, handle.getVersion());
+        return holders.merge(dataSourceId, loaded,
+            (existing, candidate) -> existing.poolVersion >= candidate.poolVersion ? existing : candidate);
+    }
+
+    private DataSourceMetadata loadMetadata(Long dataSourceId, long poolVersion) throws DataSourceException {
+        try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            List<String> schemaNames = listSchemas(metaData);
+            boolean catalogAsSchema = schemaNames.isEmpty();
+            if (catalogAsSchema) {
+                schemaNames = listCatalogs(metaData);
+            }
+            String defaultSchema = catalogAsSchema ? emptyToNull(connection.getCatalog()) : currentSchema(connection);
+            return new DataSourceMetadata(poolVersion, metaData.getDatabaseProductName(), catalogAsSchema,
+                defaultSchema, schemaNames);
+        } catch (SQLException e) {
+            logger.error("读取数据源模式列表失败: dataSourceId={}", dataSourceId, e);
+            throw new DataSourceException("读取数据源模式列表失败: " + e.getMessage(), e);
+        }
+    }
+
+    private void refreshSchemaNames(Long dataSourceId, DataSourceMetadata metadata) {
+        try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            metadata.schemaNames = metadata.catalogAsSchema ? listCatalogs(metaData) : listSchemas(metaData);
+        } catch (Exception e) {
+            logger.warn("刷新数据源模式列表失败: dataSourceId={}, error={}", dataSourceId, e.getMessage());
+        }
+    }
+
+    private void scheduleRefresh(Long dataSourceId, DataSourceMetadata metadata, SnapshotHolder holder) {
+        if (!holder.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        boolean submitted = submit(dataSourceId, () -> {
+            try {
+                refresh(dataSourceId, metadata, holder);
+            } finally {
+                holder.refreshing.set(false);
+            }
+        });
+        if (!submitted) {
+            holder.refreshing.set(false);
+        }
+    }
+
+    private boolean submit(Long dataSourceId, Runnable task) {
+        try {
+            refreshExecutor.execute(task);
+            return true;
+        } catch (RuntimeException e) {
+            logger.warn("提交元数据快照刷新失败: dataSourceId={}, error={}", dataSourceId, e.getMessage());
+            return false;
+        }
+    }
+
+    private void refresh(Long dataSourceId, DataSourceMetadata metadata, SnapshotHolder holder) {
+        MetadataSnapshot current = holder.snapshot;
+        if (current == null || holders.get(dataSourceId) != metadata) {
+            return;
+        }
+        boolean full = holder.refreshCount.incrementAndGet() >= fullRefreshEvery;
+        try {
+            MetadataSnapshot refreshed = buildSnapshot(dataSourceId, metadata, holder.schemaName, full ? null : current);
+            synchronized (holder) {
+                if (holder.snapshot == current) {
+                    holder.snapshot = refreshed;
+                    if (full) {
+                        holder.refreshCount.set(0);
+                    }
+                }
+            }
+            logger.debug("元数据快照刷新完成: dataSourceId={}, schema={}, full={}, tables={}",
+                dataSourceId, holder.schemaName, full, refreshed.tables.size());
+        } catch (Exception e) {
+            logger.warn("元数据快照刷新失败，继续使用旧快照: dataSourceId={}, schema={}, error={}",
+                dataSourceId, holder.schemaName, e.getMessage());
+        }
+    }
+
+    /**
+     * 构建模式快照；previous不为空时为增量刷新，结构未变化的表沿用已加载的列、主键和索引
+     */
+    private MetadataSnapshot buildSnapshot(Long dataSourceId, DataSourceMetadata metadata, String schemaName,
+                                           MetadataSnapshot previous) throws DataSourceException {
+        long startTime = System.currentTimeMillis();
+        String catalog = metadata.catalogAsSchema ? schemaName : null;
+        String schema = metadata.catalogAsSchema ? null : schemaName;
+        try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Map<String, TableStatisticsEntry> statistics =
+                loadStatistics(connection, metadata.databaseProductName, schemaName);
+
+            Map<String, TableEntry> tables = new LinkedHashMap<>();
+            List<TableEntry> pending = new ArrayList<>();
+            try (ResultSet rs = metaData.getTables(catalog, schema, "%", TABLE_TYPES)) {
+                while (rs.next()) {
+                    DatabaseMetadataService.TableInfo info = new DatabaseMetadataService.TableInfo();
+                    info.setDataSourceId(dataSourceId);
+                    info.setCatalogName(rs.getString("TABLE_CAT"));
+                    info.setSchemaName(rs.getString("TABLE_SCHEM"));
+                    info.setTableName(rs.getString("TABLE_NAME"));
+                    info.setTableType(normalizeTableType(rs.getString("TABLE_TYPE")));
+                    info.setRemarks(rs.getString("REMARKS"));
+
+                    // 模式名按LIKE模式匹配，排除名称相似的其他模式
+                    String owner = info.getSchemaName() != null ? info.getSchemaName() : info.getCatalogName();
+                    if (schemaName != null && !schemaName.equalsIgnoreCase(owner)) {
+                        continue;
+                    }
+
+                    String key = tableKey(info.getCatalogName(), info.getSchemaName(), info.getTableName());
+                    TableStatisticsEntry stats = statistics.get(key);
+                    TableEntry entry = new TableEntry(key, owner, info);
+                    if (stats != null) {
+                        info.setRowCount(stats.rowEstimate);
+                        entry.tableSize = stats.tableSize;
+                        entry.changeMarker = stats.changeMarker;
+                    }
+                    TableEntry old = previous != null ? previous.tablesByKey.get(key) : null;
+                    if (old != null && Objects.equals(old.changeMarker, entry.changeMarker)) {
+                        entry.columns = old.columns;
+                        entry.keys = old.keys;
+                    } else {
+                        pending.add(entry);
+                    }
+                    tables.put(key, entry);
+                }
+            }
+
+            // 全量构建或变化较多时整体加载列信息，否则只加载变化的表
+            if (previous == null || pending.size() > INCREMENTAL_COLUMN_LOAD_LIMIT) {
+                Map<String, List<DatabaseMetadataService.ColumnDetailInfo>> columns =
+                    loadColumns(dataSourceId, metaData, catalog, schema, "%");
+                for (TableEntry entry : pending) {
+                    entry.columns = columns.getOrDefault(entry.key, Collections.emptyList());
+                }
+            } else {
+                for (TableEntry entry : pending) {
+                    DatabaseMetadataService.TableInfo info = entry.info;
+                    entry.columns = loadColumns(dataSourceId, metaData, info.getCatalogName(), info.getSchemaName(),
+                        info.getTableName()).getOrDefault(entry.key, Collections.emptyList());
+                }
+            }
+
+            MetadataSnapshot snapshot = new MetadataSnapshot(schemaName, metadata.databaseProductName, tables);
+            logger.info("元数据快照构建完成: dataSourceId={}, schema={}, incremental={}, tables={}, reloaded={}, 耗时={}ms",
+                dataSourceId, schemaName, previous != null, tables.size(), pending.size(),
+                System.currentTimeMillis() - startTime);
+            return snapshot;
+
+        } catch (SQLException e) {
+            logger.error("构建元数据快照失败: dataSourceId={}, schema={}", dataSourceId, schemaName, e);
+            throw new DataSourceException("构建元数据快照失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 从数据库统计视图读取行数估算，不支持的数据库返回空
+     */
+    private Map<String, TableStatisticsEntry> loadStatistics(Connection connection, String productName,
+                                                             String schemaName) {
+        String sql = statisticsSql(productName, schemaName != null);
+        if (sql == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, TableStatisticsEntry> statistics = new HashMap<>();
+        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            if (schemaName != null) {
+                stmt.setString(1, schemaName);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    TableStatisticsEntry entry = new TableStatisticsEntry();
+                    long rows = rs.getLong(3);
+                    entry.rowEstimate = rs.wasNull() || rows < 0 ? null : rows;
+                    long size = rs.getLong(4);
+                    entry.tableSize = rs.wasNull() ? null : size;
+                    entry.changeMarker = rs.getString(5);
+                    statistics.put(tableKey(null, rs.getString(1), rs.getString(2)), entry);
+                }
+            }
+        } catch (SQLException e) {
+            logger.debug("读取表统计信息失败: product={}, error={}", productName, e.getMessage());
+        }
+        return statistics;
+    }
+
+    private static List<String> listSchemas(DatabaseMetaData metaData) throws SQLException {
+        List<String> schemas = new ArrayList<>();
+        try (ResultSet rs = metaData.getSchemas()) {
+            while (rs.next()) {
+                schemas.add(rs.getString("TABLE_SCHEM"));
+            }
+        }
+        return schemas;
+    }
+
+    private static List<String> listCatalogs(DatabaseMetaData metaData) throws SQLException {
+        List<String> catalogs = new ArrayList<>();
+        try (ResultSet rs = metaData.getCatalogs()) {
+            while (rs.next()) {
+                catalogs.add(rs.getString("TABLE_CAT"));
+            }
+        }
+        return catalogs;
+    }
+
+    /**
+     * 连接当前的模式；不支持getSchema的旧驱动返回null
+     */
+    private static String currentSchema(Connection connection) {
+        try {
+            return emptyToNull(connection.getSchema());
+        } catch (SQLException | AbstractMethodError e) {
+            return null;
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * SQL标准的BASE TABLE（如H2 2.x）统一为JDBC的TABLE
+     */
+    private static String normalizeTableType(String tableType) {
+        return "BASE TABLE".equals(tableType) ? "TABLE" : tableType;
+    }
+
+    private static String statisticsSql(String productName, boolean bindSchema) {
+        String product = productName != null ? productName.toLowerCase(Locale.ROOT) : "";
+        if (product.contains("mysql") || product.contains("mariadb")) {
+            return MYSQL_STATISTICS_SQL + (bindSchema ? "?" : "DATABASE()");
+        }
+        if (product.contains("postgresql")) {
+            return POSTGRESQL_STATISTICS_SQL + (bindSchema ? "?" : "current_schema()");
+        }
+        if (product.contains("oracle")) {
+            return ORACLE_STATISTICS_SQL + (bindSchema ? "?" : "SYS_CONTEXT('USERENV', 'CURRENT_SCHEMA')");
+        }
+        return null;
+    }
+
+    private static Map<String, List<DatabaseMetadataService.ColumnDetailInfo>> loadColumns(Long dataSourceId,
+            DatabaseMetaData metaData, String catalog, String schemaName, String tableNamePattern) throws SQLException {
+        Map<String, List<DatabaseMetadataService.ColumnDetailInfo>> columns = new HashMap<>();
+        try (ResultSet rs = metaData.getColumns(catalog, schemaName, tableNamePattern, "%")) {
+            while (rs.next()) {
+                DatabaseMetadataService.ColumnDetailInfo column = new DatabaseMetadataService.ColumnDetailInfo();
+                column.setDataSourceId(dataSourceId);
+                column.setSchemaName(rs.getString("TABLE_SCHEM"));
+                column.setTableName(rs.getString("TABLE_NAME"));
+                column.setColumnName(rs.getString("COLUMN_NAME"));
+                column.setDataType(rs.getString("TYPE_NAME"));
+                column.setJdbcType(rs.getInt("DATA_TYPE"));
+                column.setColumnSize(rs.getInt("COLUMN_SIZE"));
+                column.setDecimalDigits(rs.getInt("DECIMAL_DIGITS"));
+                column.setNullable(rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable);
+                column.setDefaultValue(rs.getString("COLUMN_DEF"));
+                column.setRemarks(rs.getString("REMARKS"));
+                column.setOrdinalPosition(rs.getInt("ORDINAL_POSITION"));
+                column.setAutoIncrement("YES".equals(rs.getString("IS_AUTOINCREMENT")));
+                String key = tableKey(rs.getString("TABLE_CAT"), column.getSchemaName(), column.getTableName());
+                columns.computeIfAbsent(key, k -> new ArrayList<>()).add(column);
+            }
+        }
+        return columns;
+    }
+
+    private static TableKeys loadKeys(DatabaseMetaData metaData, String catalog, String schemaName, String tableName)
+            throws SQLException {
+        List<String> primaryKeys = new ArrayList<>();
+        try (ResultSet rs = metaData.getPrimaryKeys(catalog, schemaName, tableName)) {
+            while (rs.next()) {
+                primaryKeys.add(rs.getString("COLUMN_NAME"));
+            }
+        }
+
+        Map<String, DatabaseMetadataService.IndexDetailInfo> indexes = new LinkedHashMap<>();
+        // approximate=true：不要求驱动为索引信息重新计算统计
+        try (ResultSet rs = metaData.getIndexInfo(catalog, schemaName, tableName, false, true)) {
+            while (rs.next()) {
+                String indexName = rs.getString("INDEX_NAME");
+                if (indexName == null) {
+                    continue;
+                }
+                DatabaseMetadataService.IndexDetailInfo index = indexes.get(indexName);
+                if (index == null) {
+                    index = new DatabaseMetadataService.IndexDetailInfo();
+                    index.setIndexName(indexName);
+                    index.setUnique(!rs.getBoolean("NON_UNIQUE"));
+                    index.setColumnNames(new ArrayList<>());
+                    indexes.put(indexName, index);
+                }
+                String columnName = rs.getString("COLUMN_NAME");
+                if (columnName != null) {
+                    index.getColumnNames().add(columnName);
+                }
+            }
+        }
+        for (DatabaseMetadataService.IndexDetailInfo index : indexes.values()) {
+            index.setPrimaryKey(index.isUnique() && !primaryKeys.isEmpty()
+                && index.getColumnNames().equals(primaryKeys));
+        }
+
+        List<DatabaseMetadataService.ForeignKeyInfo> foreignKeys = new ArrayList<>();
+        try (ResultSet rs = metaData.getImportedKeys(catalog, schemaName, tableName)) {
+            while (rs.next()) {
+                DatabaseMetadataService.ForeignKeyInfo fk = new DatabaseMetadataService.ForeignKeyInfo();
+                fk.setForeignKeyName(rs.getString("FK_NAME"));
+                fk.setColumnName(rs.getString("FKCOLUMN_NAME"));
+                fk.setReferencedTableName(rs.getString("PKTABLE_NAME"));
+                fk.setReferencedColumnName(rs.getString("PKCOLUMN_NAME"));
+                fk.setUpdateRule(rs.getInt("UPDATE_RULE"));
+                fk.setDeleteRule(rs.getInt("DELETE_RULE"));
+                foreignKeys.add(fk);
+            }
+        }
+        return new TableKeys(primaryKeys, new ArrayList<>(indexes.values()), foreignKeys);
+    }
+
+    /**
+     * 表键：模式名（MySQL为目录名）加表名，忽略大小写
+     */
+    static String tableKey(String catalog, String schemaName, String tableName) {
+        String owner = schemaName != null ? schemaName : (catalog != null ? catalog : "");
+        return (owner + "." + tableName).toLowerCase(Locale.ROOT);
+    }
+
+    private static String schemaKey(String schemaName) {
+        return schemaName != null ? schemaName.toLowerCase(Locale.ROOT) : "";
+    }
+
+    /**
+     * 数据源的模式目录及已加载的模式快照，连接池被替换时整体丢弃
+     */
+    private static final class DataSourceMetadata {
+        private final long poolVersion;
+        private final String databaseProductName;
+        private final boolean catalogAsSchema;
+        private final String defaultSchema;
+        private volatile List<String> schemaNames;
+        private final Map<String, SnapshotHolder> snapshots = new ConcurrentHashMap<>();
+
+        DataSourceMetadata(long poolVersion, String databaseProductName, boolean catalogAsSchema,
+                           String defaultSchema, List<String> schemaNames) {
+            this.poolVersion = poolVersion;
+            this.databaseProductName = databaseProductName;
+            this.catalogAsSchema = catalogAsSchema;
+            this.defaultSchema = defaultSchema;
+            this.schemaNames = schemaNames;
+        }
+
+        /**
+         * 模式名按数据库中的写法规范化，为空时使用默认模式
+         */
+        String resolveSchema(String schemaName) {
+            if (!StringUtils.hasText(schemaName)) {
+                return defaultSchema;
+            }
+            for (String name : schemaNames) {
+                if (name != null && name.equalsIgnoreCase(schemaName)) {
+                    return name;
+                }
+            }
+            return schemaName;
+        }
+    }
+
+    private static final class SnapshotHolder {
+        private final String schemaName;
+        private volatile MetadataSnapshot snapshot;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private final AtomicInteger refreshCount = new AtomicInteger();
+
+        SnapshotHolder(String schemaName) {
+            this.schemaName = schemaName;
+        }
+    }
+
+    private static final class TableStatisticsEntry {
+        private Long rowEstimate;
+        private Long tableSize;
+        private String changeMarker;
+    }
+
+    /**
+     * 模式元数据快照，构建后不再修改表集合
+     */
+    public static final class MetadataSnapshot {
+        private final String schemaName;
+        private final String databaseProductName;
+        private final List<TableEntry> tables;
+        private final Map<String, TableEntry> tablesByKey;
+        private final Map<String, TableEntry> tablesByName = new HashMap<>();
+        private final long refreshedAt = System.currentTimeMillis();
+        private final LocalDateTime snapshotTime = LocalDateTime.now();
+
+        MetadataSnapshot(String schemaName, String databaseProductName, Map<String, TableEntry> tablesByKey) {
+            this.schemaName = schemaName;
+            this.databaseProductName = databaseProductName;
+            this.tablesByKey = tablesByKey;
+            this.tables = Collections.unmodifiableList(new ArrayList<>(tablesByKey.values()));
+            for (TableEntry table : tables) {
+                tablesByName.putIfAbsent(table.info.getTableName().toLowerCase(Locale.ROOT), table);
+            }
+        }
+
+        /**
+         * 按表名查找表，忽略大小写
+         */
+        public TableEntry findTable(String tableName) {
+            return tableName != null ? tablesByName.get(tableName.toLowerCase(Locale.ROOT)) : null;
+        }
+
+        public String getSchemaName() { return schemaName; }
+        public List<TableEntry> getTables() { return tables; }
+        public String getDatabaseProductName() { return databaseProductName; }
+        public LocalDateTime getSnapshotTime() { return snapshotTime; }
+    }
+
+    /**
+     * 快照中的表，列信息随快照加载，主键、索引和外键首次访问时加载
+     */
+    public static final class TableEntry {
+        private final String key;
+        private final String owner;
+        private final DatabaseMetadataService.TableInfo info;
+        private Long tableSize;
+        private String changeMarker;
+        private volatile List<DatabaseMetadataService.ColumnDetailInfo> columns = Collections.emptyList();
+        private volatile TableKeys keys;
+
+        TableEntry(String key, String owner, DatabaseMetadataService.TableInfo info) {
+            this.key = key;
+            this.owner = owner;
+            this.info = info;
+        }
+
+        public DatabaseMetadataService.TableInfo getInfo() { return info; }
+        public String getOwner() { return owner; }
+        public List<DatabaseMetadataService.ColumnDetailInfo> getColumns() { return columns; }
+        public Long getTableSize() { return tableSize; }
+        public Long getRowEstimate() { return info.getRowCount(); }
+    }
+
+    /**
+     * 表的主键、索引和外键
+     */
+    public static final class TableKeys {
+        private final List<String> primaryKeys;
+        private final List<DatabaseMetadataService.IndexDetailInfo> indexes;
+        private final List<DatabaseMetadataService.ForeignKeyInfo> foreignKeys;
+
+        TableKeys(List<String> primaryKeys, List<DatabaseMetadataService.IndexDetailInfo> indexes,
+                  List<DatabaseMetadataService.ForeignKeyInfo> foreignKeys) {
+            this.primaryKeys = Collections.unmodifiableList(primaryKeys);
+            this.indexes = Collections.unmodifiableList(indexes);
+            this.foreignKeys = Collections.unmodifiableList(foreignKeys);
+        }
+
+        public List<String> getPrimaryKeys() { return primaryKeys; }
+        public List<DatabaseMetadataService.IndexDetailInfo> getIndexes() { return indexes; }
+        public List<DatabaseMetadataService.ForeignKeyInfo> getForeignKeys() { return foreignKeys; }
+    }
+}
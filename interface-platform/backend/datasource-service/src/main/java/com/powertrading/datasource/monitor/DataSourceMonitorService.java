@@ -4,7 +4,6 @@ import com.powertrading.datasource.entity.DataSource;
 import com.powertrading.datasource.manager.DataSourceManager;
 import com.powertrading.datasource.repository.DataSourceRepository;
 import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
@@ -13,20 +12,37 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 数据源监控和健康检查服务
+ * 健康检查按数据源独立调度：首次检查时间在检查间隔内随机分布，每次检查后的下次时间带随机抖动，
+ * 连续失败的数据源按指数退避降低检查频率；检查在有界线程池中并行执行并受单次检查时限约束，
+ * 结果由调度线程汇总后分批在一个事务中写回数据库
  * 
  * @author PowerTrading Team
  * @version 1.0.0
@@ -42,9 +58,15 @@ public class DataSourceMonitorService {
     @Autowired
     private DataSourceManager dataSourceManager;
 
+    @Autowired
+    private DataSourcePoolMetrics dataSourcePoolMetrics;
+
     @Autowired(required = false)
     private MeterRegistry meterRegistry;
 
+    @Autowired(required = false)
+    private PlatformTransactionManager transactionManager;
+
     @Value("${datasource.monitor.enabled:true}")
     private boolean monitorEnabled;
 
@@ -54,8 +76,48 @@ public class DataSourceMonitorService {
     @Value("${datasource.monitor.slow-query-threshold:5000}")
     private long slowQueryThreshold;
 
+    /**
+     * 单次健康检查时限（毫秒），包括获取连接和连接校验
+     */
+    @Value("${datasource.monitor.connection-timeout:5000}")
+    private long healthCheckTimeout;
+
+    @Value("${datasource.monitor.health-check.parallelism:8}")
+    private int healthCheckParallelism;
+
+    /**
+     * 连续失败时的最大检查间隔（毫秒）
+     */
+    @Value("${datasource.monitor.health-check.max-backoff:600000}")
+    private long healthCheckMaxBackoff;
+
+    /**
+     * 下次检查时间的随机抖动比例
+     */
+    @Value("${datasource.monitor.health-check.jitter:0.1}")
+    private double healthCheckJitter;
+
+    /**
+     * 每个事务写回的检查结果数
+     */
+    @Value("${datasource.monitor.health-check.batch-size:50}")
+    private int healthCheckBatchSize;
+
     // 监控指标
     private final Map<Long, DataSourceMetrics> metricsMap = new ConcurrentHashMap<>();
+
+    // 健康检查调度状态
+    private final Map<Long, HealthCheckState> healthCheckStates = new ConcurrentHashMap<>();
+
+    // 已完成、待调度线程处理的检查结果
+    private final Queue<HealthCheckResult> completedChecks = new ConcurrentLinkedQueue<>();
+
+    private ThreadPoolExecutor healthCheckExecutor;
+
+    private TransactionTemplate transactionTemplate;
+
+    // 上次从数据库刷新检查目标的时间
+    private long lastTargetRefresh;
     
     // Micrometer指标
     private Counter connectionSuccessCounter;
@@ -71,6 +133,18 @@ public class DataSourceMonitorService {
         if (meterRegistry != null) {
             initMicrometerMetrics();
         }
+        if (transactionManager != null) {
+            transactionTemplate = new TransactionTemplate(transactionManager);
+        }
+        AtomicInteger threadIndex = new AtomicInteger();
+        int parallelism = Math.max(1, healthCheckParallelism);
+        healthCheckExecutor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(parallelism * 4), r -> {
+                Thread thread = new Thread(r, "datasource-health-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        healthCheckExecutor.allowCoreThreadTimeOut(true);
         logger.info("数据源监控服务初始化完成: enabled={}, healthCheckInterval={}ms, slowQueryThreshold={}ms",
                    monitorEnabled, healthCheckInterval, slowQueryThreshold);
     }
@@ -108,141 +182,202 @@ public class DataSourceMonitorService {
             .register(meterRegistry);
     }
 
+    @PreDestroy
+    public void destroy() {
+        if (healthCheckExecutor != null) {
+            healthCheckExecutor.shutdownNow();
+        }
+    }
+
     /**
-     * 定时健康检查
+     * 健康检查调度
+     * 每个调度周期处理已完成的检查结果、判定超时检查，并提交到期的检查
      */
-    @Scheduled(fixedDelayString = "${datasource.monitor.health-check-interval:60000}")
+    @Scheduled(fixedDelayString = "${datasource.monitor.health-check.tick-interval:1000}")
     public void performHealthCheck() {
         if (!monitorEnabled) {
             return;
         }
         
-        logger.debug("开始执行数据源健康检查");
-        
         try {
-            // 获取需要检查的数据源
-            LocalDateTime threshold = LocalDateTime.now().minusNanos(healthCheckInterval * 1_000_000L);
-            List<DataSource> dataSourcesToCheck = dataSourceRepository.findDataSourcesNeedHealthCheck(threshold);
-            
-            logger.debug("需要健康检查的数据源数量: {}", dataSourcesToCheck.size());
-            
-            for (DataSource dataSource : dataSourcesToCheck) {
-                performSingleHealthCheck(dataSource);
-            }
-            
-            // 更新监控指标
-            updateMonitoringMetrics();
-            
+            performHealthCheck(System.currentTimeMillis());
         } catch (Exception e) {
             logger.error("执行健康检查异常", e);
         }
     }
 
-    /**
-     * 执行单个数据源健康检查
-     */
-    private void performSingleHealthCheck(DataSource dataSource) {
-        Long dataSourceId = dataSource.getId();
-        String dataSourceName = dataSource.getName();
+    void performHealthCheck(long now) {
+        // 每个检查间隔从数据库刷新一次检查目标
+        if (lastTargetRefresh == 0 || now - lastTargetRefresh >= healthCheckInterval) {
+            lastTargetRefresh = now;
+            refreshHealthCheckTargets(now);
+            
+            // 为新增数据源注册连接池指标，已注册的指标直接读取连接池实时值
+            dataSourcePoolMetrics.bindAll();
+        }
         
-        logger.debug("执行数据源健康检查: id={}, name={}", dataSourceId, dataSourceName);
+        // 先处理已完成的检查，确定其下次检查时间
+        List<HealthCheckResult> results = new ArrayList<>();
+        HealthCheckResult result;
+        while ((result = completedChecks.poll()) != null) {
+            if (result.state.completeIfCurrent(result.generation)) {
+                applyHealthCheckResult(result, now);
+                results.add(result);
+            }
+        }
         
-        Timer.Sample connectionSample = connectionTimer != null ? Timer.start(meterRegistry) : null;
+        for (HealthCheckState state : healthCheckStates.values()) {
+            if (state.inFlight && now - state.startedAt > healthCheckTimeout) {
+                // 超时检查的结果作废，工作线程仍可能阻塞在获取连接上，由连接池超时释放
+                state.abandon();
+                HealthCheckResult timedOut = new HealthCheckResult(state, state.generation, false, "健康检查超时",
+                    now - state.startedAt, now);
+                applyHealthCheckResult(timedOut, now);
+                results.add(timedOut);
+            } else if (!state.inFlight && now >= state.nextCheckAt) {
+                submitHealthCheck(state, now);
+            }
+        }
         
+        if (!results.isEmpty()) {
+            writeHealthCheckResults(results);
+        }
+    }
+
+    /**
+     * 同步检查目标：新启用的数据源在一个检查间隔内随机安排首次检查，已禁用或删除的数据源移除
+     */
+    private void refreshHealthCheckTargets(long now) {
+        List<DataSource> enabledDataSources = dataSourceRepository.findEnabledDataSources();
+        Set<Long> enabledIds = new HashSet<>();
+        for (DataSource dataSource : enabledDataSources) {
+            enabledIds.add(dataSource.getId());
+            healthCheckStates.computeIfAbsent(dataSource.getId(), id -> new HealthCheckState(id,
+                now + ThreadLocalRandom.current().nextLong(Math.max(1, healthCheckInterval))));
+        }
+        healthCheckStates.keySet().retainAll(enabledIds);
+        logger.debug("健康检查目标数量: {}", enabledIds.size());
+    }
+
+    private void submitHealthCheck(HealthCheckState state, long now) {
+        long generation = state.start(now);
         try {
-            // 测试连接
-            boolean isHealthy = testDataSourceHealth(dataSourceId);
-            
-            // 更新健康状态
-            LocalDateTime now = LocalDateTime.now();
-            int healthStatus = isHealthy ? 1 : 2; // 1-健康, 2-异常
-            String errorMessage = isHealthy ? null : "健康检查失败";
-            
-            dataSourceRepository.updateHealthCheckInfo(dataSourceId, now, healthStatus, errorMessage);
-            
-            // 更新指标
-            DataSourceMetrics metrics = getOrCreateMetrics(dataSourceId);
-            if (isHealthy) {
-                metrics.incrementConnectionSuccess();
-                if (connectionSuccessCounter != null) {
-                    connectionSuccessCounter.increment();
-                }
-            } else {
-                metrics.incrementConnectionFailure();
-                if (connectionFailureCounter != null) {
-                    connectionFailureCounter.increment();
-                }
+            state.future = healthCheckExecutor.submit(() -> {
+                long start = System.currentTimeMillis();
+                String errorMessage = testDataSourceHealth(state.dataSourceId);
+                long end = System.currentTimeMillis();
+                completedChecks.add(new HealthCheckResult(state, generation, errorMessage == null, errorMessage,
+                    end - start, end));
+            });
+        } catch (RejectedExecutionException e) {
+            // 线程池已满，下个调度周期重试
+            state.abandon();
+            logger.debug("健康检查线程池已满，推迟检查: dataSourceId={}", state.dataSourceId);
+        }
+    }
+
+    /**
+     * 更新调度状态和指标：成功后按检查间隔安排下次检查，连续失败时间隔按2的幂增长直至上限
+     */
+    private void applyHealthCheckResult(HealthCheckResult result, long now) {
+        HealthCheckState state = result.state;
+        long delay;
+        if (result.healthy) {
+            state.consecutiveFailures = 0;
+            delay = healthCheckInterval;
+        } else {
+            state.consecutiveFailures++;
+            int shift = Math.min(state.consecutiveFailures - 1, 20);
+            delay = Math.min(healthCheckInterval << shift, Math.max(healthCheckInterval, healthCheckMaxBackoff));
+        }
+        if (healthCheckJitter > 0) {
+            long jitter = (long) (delay * healthCheckJitter);
+            delay += ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+        }
+        state.nextCheckAt = now + delay;
+        
+        DataSourceMetrics metrics = getOrCreateMetrics(state.dataSourceId);
+        if (result.healthy) {
+            metrics.incrementConnectionSuccess();
+            if (connectionSuccessCounter != null) {
+                connectionSuccessCounter.increment();
             }
-            
-            logger.debug("数据源健康检查完成: id={}, name={}, healthy={}", 
-                        dataSourceId, dataSourceName, isHealthy);
-            
-        } catch (Exception e) {
-            logger.error("数据源健康检查异常: id={}, name={}", dataSourceId, dataSourceName, e);
-            
-            // 更新为异常状态
-            dataSourceRepository.updateHealthCheckInfo(dataSourceId, LocalDateTime.now(), 2, e.getMessage());
-            
-            // 更新失败指标
-            DataSourceMetrics metrics = getOrCreateMetrics(dataSourceId);
+        } else {
             metrics.incrementConnectionFailure();
             if (connectionFailureCounter != null) {
                 connectionFailureCounter.increment();
             }
-        } finally {
-            if (connectionSample != null) {
-                connectionSample.stop(connectionTimer);
-            }
+            logger.warn("数据源健康检查失败: dataSourceId={}, consecutiveFailures={}, error={}",
+                       state.dataSourceId, state.consecutiveFailures, result.errorMessage);
+        }
+        if (connectionTimer != null) {
+            connectionTimer.record(result.elapsed, TimeUnit.MILLISECONDS);
         }
     }
 
     /**
-     * 测试数据源健康状态
+     * 分批写回检查结果，每批在一个事务中执行
      */
-    private boolean testDataSourceHealth(Long dataSourceId) {
-        try {
-            // 获取连接并执行简单查询
-            try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
-                if (connection == null || connection.isClosed()) {
-                    return false;
-                }
-                
-                // 执行简单的健康检查查询
-                String healthCheckSql = getHealthCheckSql(dataSourceId);
-                try (PreparedStatement stmt = connection.prepareStatement(healthCheckSql);
-                     ResultSet rs = stmt.executeQuery()) {
-                    return rs.next();
+    private void writeHealthCheckResults(List<HealthCheckResult> results) {
+        int batchSize = Math.max(1, healthCheckBatchSize);
+        for (int from = 0; from < results.size(); from += batchSize) {
+            List<HealthCheckResult> batch = results.subList(from, Math.min(from + batchSize, results.size()));
+            try {
+                if (transactionTemplate != null) {
+                    transactionTemplate.executeWithoutResult(status -> updateHealthCheckInfo(batch));
+                } else {
+                    updateHealthCheckInfo(batch);
                 }
+            } catch (Exception e) {
+                logger.error("写回健康检查结果异常: count={}", batch.size(), e);
             }
-        } catch (Exception e) {
-            logger.warn("数据源健康检查失败: dataSourceId={}, error={}", dataSourceId, e.getMessage());
-            return false;
+        }
+    }
+
+    private void updateHealthCheckInfo(List<HealthCheckResult> batch) {
+        for (HealthCheckResult result : batch) {
+            LocalDateTime checkAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(result.checkTime),
+                ZoneId.systemDefault());
+            int healthStatus = result.healthy ? 1 : 2; // 1-健康, 2-异常
+            dataSourceRepository.updateHealthCheckInfo(result.state.dataSourceId, checkAt, healthStatus,
+                result.errorMessage);
         }
     }
 
     /**
-     * 获取健康检查SQL
+     * 测试数据源健康状态，由JDBC驱动校验连接而不执行查询
+     *
+     * @return 失败原因，健康时返回null
      */
-    private String getHealthCheckSql(Long dataSourceId) {
-        // 根据数据源类型返回不同的健康检查SQL
-        DataSource dataSource = dataSourceManager.getDataSourceConfig(dataSourceId);
-        if (dataSource != null) {
-            String dbType = dataSource.getType().toLowerCase();
-            switch (dbType) {
-                case "mysql":
-                case "h2":
-                    return "SELECT 1";
-                case "postgresql":
-                    return "SELECT 1";
-                case "oracle":
-                    return "SELECT 1 FROM DUAL";
-                case "sqlserver":
-                    return "SELECT 1";
-                default:
-                    return "SELECT 1";
+    private String testDataSourceHealth(Long dataSourceId) {
+        int validTimeout = (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(healthCheckTimeout));
+        try (Connection connection = dataSourceManager.getConnection(dataSourceId)) {
+            if (connection == null || !connection.isValid(validTimeout)) {
+                return "健康检查失败";
             }
+            return null;
+        } catch (Exception e) {
+            return e.getMessage() != null ? e.getMessage() : "健康检查失败";
         }
-        return "SELECT 1";
+    }
+
+    /**
+     * 获取数据源下次健康检查时间
+     *
+     * @param dataSourceId 数据源ID
+     * @return 下次检查时间戳（毫秒），数据源不在检查目标中时返回null
+     */
+    public Long getNextHealthCheckTime(Long dataSourceId) {
+        HealthCheckState state = healthCheckStates.get(dataSourceId);
+        return state != null ? state.nextCheckAt : null;
+    }
+
+    /**
+     * 获取数据源连续健康检查失败次数
+     */
+    public int getConsecutiveHealthCheckFailures(Long dataSourceId) {
+        HealthCheckState state = healthCheckStates.get(dataSourceId);
+        return state != null ? state.consecutiveFailures : 0;
     }
 
     /**
@@ -358,53 +493,6 @@ public class DataSourceMonitorService {
         return report;
     }
 
-    /**
-     * 更新监控指标到Micrometer
-     */
-    private void updateMonitoringMetrics() {
-        if (meterRegistry == null) {
-            return;
-        }
-        
-        // 注册连接池指标
-        Map<Long, DataSourceManager.DataSourcePoolInfo> poolInfoMap = dataSourceManager.getAllPoolInfo();
-        
-        for (Map.Entry<Long, DataSourceManager.DataSourcePoolInfo> entry : poolInfoMap.entrySet()) {
-            Long dataSourceId = entry.getKey();
-            DataSourceManager.DataSourcePoolInfo poolInfo = entry.getValue();
-            
-            String dataSourceName = poolInfo.getName();
-            
-            // 活跃连接数
-            Gauge.builder("datasource.pool.active", poolInfo, DataSourceManager.DataSourcePoolInfo::getActiveConnections)
-                .description("活跃连接数")
-                .tag("datasource", dataSourceName)
-                .tag("id", dataSourceId.toString())
-                .register(meterRegistry);
-            
-            // 空闲连接数
-            Gauge.builder("datasource.pool.idle", poolInfo, DataSourceManager.DataSourcePoolInfo::getIdleConnections)
-                .description("空闲连接数")
-                .tag("datasource", dataSourceName)
-                .tag("id", dataSourceId.toString())
-                .register(meterRegistry);
-            
-            // 总连接数
-            Gauge.builder("datasource.pool.total", poolInfo, DataSourceManager.DataSourcePoolInfo::getTotalConnections)
-                .description("总连接数")
-                .tag("datasource", dataSourceName)
-                .tag("id", dataSourceId.toString())
-                .register(meterRegistry);
-            
-            // 等待连接的线程数
-            Gauge.builder("datasource.pool.waiting", poolInfo, DataSourceManager.DataSourcePoolInfo::getThreadsAwaitingConnection)
-                .description("等待连接的线程数")
-                .tag("datasource", dataSourceName)
-                .tag("id", dataSourceId.toString())
-                .register(meterRegistry);
-        }
-    }
-
     /**
      * 获取或创建监控指标
      */
@@ -533,4 +621,66 @@ public class DataSourceMonitorService {
         public LocalDateTime getCheckTime() { return checkTime; }
         public void setCheckTime(LocalDateTime checkTime) { this.checkTime = checkTime; }
     }
+
+    /**
+     * 单个数据源的健康检查调度状态
+     * 除nextCheckAt外只由调度线程读写；generation用于作废超时或被拒绝的检查的迟到结果
+     */
+    private static final class HealthCheckState {
+        private final Long dataSourceId;
+        private volatile long nextCheckAt;
+        private volatile int consecutiveFailures;
+        private boolean inFlight;
+        private long startedAt;
+        private long generation;
+        private Future<?> future;
+
+        HealthCheckState(Long dataSourceId, long nextCheckAt) {
+            this.dataSourceId = dataSourceId;
+            this.nextCheckAt = nextCheckAt;
+        }
+
+        long start(long now) {
+            inFlight = true;
+            startedAt = now;
+            future = null;
+            return ++generation;
+        }
+
+        boolean completeIfCurrent(long resultGeneration) {
+            if (!inFlight || resultGeneration != generation) {
+                return false;
+            }
+            inFlight = false;
+            future = null;
+            return true;
+        }
+
+        void abandon() {
+            if (future != null) {
+                future.cancel(true);
+                future = null;
+            }
+            inFlight = false;
+        }
+    }
+
+    private static final class HealthCheckResult {
+        private final HealthCheckState state;
+        private final long generation;
+        private final boolean healthy;
+        private final String errorMessage;
+        private final long elapsed;
+        private final long checkTime;
+
+        HealthCheckResult(HealthCheckState state, long generation, boolean healthy, String errorMessage,
+                          long elapsed, long checkTime) {
+            this.state = state;
+            this.generation = generation;
+            this.healthy = healthy;
+            this.errorMessage = errorMessage;
+            this.elapsed = elapsed;
+            this.checkTime = checkTime;
+        }
+    }
 }
\ No newline at end of file
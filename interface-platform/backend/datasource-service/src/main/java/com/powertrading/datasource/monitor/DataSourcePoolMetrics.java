@@ -0,0 +1,187 @@
+package com.powertrading.datasource.monitor;
+
+import com.powertrading.datasource.manager.DataSourceManager;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * 数据源连接池指标绑定器
+ * 每个数据源的连接池Gauge只注册一次，取值时按数据源ID查找当前连接池句柄并读取HikariPoolMXBean的实时值，
+ * 连接池在配置变更时被替换后指标自动跟随新连接池，无需重新注册；数据源删除时注销对应指标
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@Component
+public class DataSourcePoolMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSourcePoolMetrics.class);
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSourceManager dataSourceManager;
+
+    private final ConcurrentMap<Long, PoolBinding> bindings = new ConcurrentHashMap<>();
+
+    /**
+     * 与连接管理器中的数据源同步：为新数据源注册指标，注销已不存在的数据源的指标
+     * 已绑定且名称未变的数据源不做任何注册操作
+     */
+    public void bindAll() {
+        if (meterRegistry == null) {
+            return;
+        }
+
+        Set<Long> dataSourceIds = dataSourceManager.getDataSourceIds();
+        for (Long dataSourceId : dataSourceIds) {
+            DataSourceManager.PoolHandle handle = dataSourceManager.getPoolHandle(dataSourceId);
+            if (handle != null) {
+                bind(dataSourceId, handle.getConfig().getName());
+            }
+        }
+        bindings.keySet().removeIf(dataSourceId -> {
+            if (dataSourceIds.contains(dataSourceId)) {
+                return false;
+            }
+            unregister(bindings.get(dataSourceId));
+            return true;
+        });
+    }
+
+    /**
+     * 注册数据源的连接池指标
+     * 已注册时直接返回；数据源名称变更时以新的标签重新注册
+     *
+     * @param dataSourceId 数据源ID
+     * @param dataSourceName 数据源名称
+     */
+    public void bind(Long dataSourceId, String dataSourceName) {
+        if (meterRegistry == null) {
+            return;
+        }
+
+        PoolBinding existing = bindings.get(dataSourceId);
+        if (existing != null && existing.name.equals(dataSourceName)) {
+            return;
+        }
+
+        bindings.compute(dataSourceId, (id, current) -> {
+            if (current != null) {
+                if (current.name.equals(dataSourceName)) {
+                    return current;
+                }
+                unregister(current);
+            }
+            PoolBinding binding = new PoolBinding(id, dataSourceName);
+            register(binding);
+            logger.debug("连接池指标注册完成: dataSourceId={}, name={}", id, dataSourceName);
+            return binding;
+        });
+    }
+
+    /**
+     * 注销数据源的连接池指标
+     *
+     * @param dataSourceId 数据源ID
+     */
+    public void unbind(Long dataSourceId) {
+        PoolBinding binding = bindings.remove(dataSourceId);
+        if (binding != null) {
+            unregister(binding);
+            logger.debug("连接池指标已注销: dataSourceId={}", dataSourceId);
+        }
+    }
+
+    /**
+     * 已注册指标的数据源数量
+     */
+    public int getBoundCount() {
+        return bindings.size();
+    }
+
+    private void register(PoolBinding binding) {
+        binding.meters.add(gauge("datasource.pool.active", "活跃连接数", binding,
+            HikariPoolMXBean::getActiveConnections));
+        binding.meters.add(gauge("datasource.pool.idle", "空闲连接数", binding,
+            HikariPoolMXBean::getIdleConnections));
+        binding.meters.add(gauge("datasource.pool.total", "总连接数", binding,
+            HikariPoolMXBean::getTotalConnections));
+        binding.meters.add(gauge("datasource.pool.waiting", "等待连接的线程数", binding,
+            HikariPoolMXBean::getThreadsAwaitingConnection));
+        binding.meters.add(Gauge.builder("datasource.pool.max", binding, PoolBinding::maximumPoolSize)
+            .description("最大连接数")
+            .tag("datasource", binding.name)
+            .tag("id", binding.dataSourceId.toString())
+            .register(meterRegistry));
+    }
+
+    private Meter gauge(String name, String description, PoolBinding binding, ToIntFunction<HikariPoolMXBean> reader) {
+        // 绑定对象由本组件强引用，Gauge的弱引用在注销前不会失效
+        return Gauge.builder(name, binding, b -> b.read(reader))
+            .description(description)
+            .tag("datasource", binding.name)
+            .tag("id", binding.dataSourceId.toString())
+            .register(meterRegistry);
+    }
+
+    private void unregister(PoolBinding binding) {
+        for (Meter meter : binding.meters) {
+            meterRegistry.remove(meter);
+        }
+    }
+
+    /**
+     * 单个数据源的指标绑定
+     * 只保存数据源ID，每次取值时解析当前连接池，不持有连接池或快照对象
+     */
+    private final class PoolBinding {
+        private final Long dataSourceId;
+        private final String name;
+        private final List<Meter> meters = new ArrayList<>(5);
+
+        PoolBinding(Long dataSourceId, String name) {
+            this.dataSourceId = dataSourceId;
+            this.name = name;
+        }
+
+        double read(ToIntFunction<HikariPoolMXBean> reader) {
+            HikariDataSource dataSource = currentDataSource();
+            HikariPoolMXBean poolMXBean = dataSource != null ? dataSource.getHikariPoolMXBean() : null;
+            if (poolMXBean == null) {
+                return Double.NaN;
+            }
+            try {
+                return reader.applyAsInt(poolMXBean);
+            } catch (RuntimeException e) {
+                // 读取期间连接池被替换并关闭
+                return Double.NaN;
+            }
+        }
+
+        double maximumPoolSize() {
+            HikariDataSource dataSource = currentDataSource();
+            return dataSource != null ? dataSource.getMaximumPoolSize() : Double.NaN;
+        }
+
+        private HikariDataSource currentDataSource() {
+            DataSourceManager.PoolHandle handle = dataSourceManager.getPoolHandle(dataSourceId);
+            return handle != null ? handle.getDataSource() : null;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.powertrading.datasource.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无锁对数分桶延迟直方图
+ * 0到7毫秒各占一个桶，此后每个2的幂区间再等分为8个子桶，桶宽相对误差不超过12.5%，
+ * 覆盖到2^31毫秒，超出的值计入最后一个桶；记录只做一次原子自增，内存占用固定为232个计数。
+ * 每经过一个半衰期所有计数减半，百分位主要反映最近的执行，早期样本逐渐淡出
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final long MAX_VALUE = (1L << 31) - 1;
+
+    private static final int BUCKET_COUNT = index(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    private final long halfLifeMillis;
+
+    private final AtomicLong lastDecayMillis;
+
+    /**
+     * @param halfLifeMillis 计数减半的间隔（毫秒），不大于0时不衰减
+     */
+    LatencyHistogram(long halfLifeMillis) {
+        this(halfLifeMillis, System.currentTimeMillis());
+    }
+
+    LatencyHistogram(long halfLifeMillis, long nowMillis) {
+        this.halfLifeMillis = halfLifeMillis;
+        this.lastDecayMillis = new AtomicLong(nowMillis);
+    }
+
+    /**
+     * 记录一个延迟值
+     *
+     * @param millis 延迟（毫秒）
+     */
+    void record(long millis) {
+        record(millis, System.currentTimeMillis());
+    }
+
+    void record(long millis, long nowMillis) {
+        decay(nowMillis);
+        counts.incrementAndGet(index(Math.min(Math.max(millis, 0), MAX_VALUE)));
+    }
+
+    /**
+     * 估算百分位值，返回所在桶的上界
+     *
+     * @param percentile 百分位，取值0到1
+     * @return 延迟（毫秒），无数据时返回0
+     */
+    long percentile(double percentile) {
+        return percentile(percentile, System.currentTimeMillis());
+    }
+
+    long percentile(double percentile, long nowMillis) {
+        decay(nowMillis);
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percentile * total));
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= target) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * 按距上次衰减经过的半衰期数右移所有计数，只有推进衰减时间成功的线程执行；
+     * 每个桶单独原子更新，与并发记录之间不会丢失计数
+     */
+    private void decay(long nowMillis) {
+        if (halfLifeMillis <= 0) {
+            return;
+        }
+        long last = lastDecayMillis.get();
+        long halvings = (nowMillis - last) / halfLifeMillis;
+        if (halvings <= 0 || !lastDecayMillis.compareAndSet(last, last + halvings * halfLifeMillis)) {
+            return;
+        }
+        int shift = (int) Math.min(halvings, Long.SIZE - 1);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.getAndUpdate(i, count -> count >>> shift);
+        }
+    }
+
+    static int index(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -1,5 +1,8 @@
 package com.powertrading.datasource.monitor;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.powertrading.datasource.engine.SqlFingerprint;
 import com.powertrading.datasource.manager.DataSourceManager;
 import com.powertrading.datasource.repository.DataSourceRepository;
 import com.zaxxer.hikari.HikariPoolMXBean;
@@ -10,14 +13,23 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
  * 连接池监控和慢查询分析服务
+ * 连接池快照和慢查询记录保存在按数据源分配的定长环形缓冲区中，
+ * 连接池快照同时按分钟、小时、天汇总，长时间范围的分析读取汇总数据，每个数据源的内存占用固定；
+ * 查询按SQL指纹聚合执行次数、耗时、百分位和返回行数，可跨数据源按总耗时、平均耗时、P99或次数排序
  * 
  * @author PowerTrading Team
  * @version 1.0.0
@@ -39,18 +51,43 @@ public class PerformanceAnalysisService {
     @Value("${datasource.monitor.enabled:true}")
     private boolean monitorEnabled;
 
+    /**
+     * 每个数据源保留的SQL指纹数上限，超出时淘汰执行次数最少的指纹
+     */
+    @Value("${datasource.monitor.fingerprint.max-per-datasource:500}")
+    private int maxFingerprintsPerDataSource;
+
+    /**
+     * SQL指纹延迟直方图的半衰期（毫秒），百分位主要反映最近这段时间的执行
+     */
+    @Value("${datasource.monitor.fingerprint.histogram-half-life:300000}")
+    private long histogramHalfLife;
+
     // 连接池性能历史数据
-    private final Map<Long, List<ConnectionPoolSnapshot>> poolHistoryMap = new ConcurrentHashMap<>();
+    private final Map<Long, PoolHistory> poolHistoryMap = new ConcurrentHashMap<>();
     
     // 慢查询记录
-    private final Map<Long, List<SlowQueryRecord>> slowQueryMap = new ConcurrentHashMap<>();
+    private final Map<Long, TimeSeriesRingBuffer<SlowQueryRecord>> slowQueryMap = new ConcurrentHashMap<>();
     
     // 查询统计信息
     private final Map<Long, QueryStatistics> queryStatsMap = new ConcurrentHashMap<>();
     
+    // 按SQL指纹聚合的查询统计，数据源ID -> 指纹哈希 -> 聚合值
+    private final Map<Long, Map<Long, FingerprintAggregate>> fingerprintMap = new ConcurrentHashMap<>();
+    
+    // 已计算的SQL指纹，按原始SQL文本缓存
+    private final Cache<String, SqlFingerprint> sqlFingerprints = Caffeine.newBuilder()
+        .maximumSize(2000)
+        .build();
+    
     // 最大历史记录数
     private static final int MAX_HISTORY_SIZE = 1000;
     private static final int MAX_SLOW_QUERY_SIZE = 500;
+    
+    // 汇总数据保留的桶数：分钟汇总1天、小时汇总30天、天汇总1年
+    private static final int MINUTE_ROLLUP_SIZE = 1440;
+    private static final int HOUR_ROLLUP_SIZE = 720;
+    private static final int DAY_ROLLUP_SIZE = 365;
 
     /**
      * 定时收集连接池性能数据
@@ -63,6 +100,8 @@ public class PerformanceAnalysisService {
         
         try {
             Map<Long, DataSourceManager.DataSourcePoolInfo> poolInfoMap = dataSourceManager.getAllPoolInfo();
+            long now = System.currentTimeMillis();
+            LocalDateTime timestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault());
             
             for (Map.Entry<Long, DataSourceManager.DataSourcePoolInfo> entry : poolInfoMap.entrySet()) {
                 Long dataSourceId = entry.getKey();
@@ -76,11 +115,11 @@ public class PerformanceAnalysisService {
                     poolInfo.getIdleConnections(),
                     poolInfo.getTotalConnections(),
                     poolInfo.getThreadsAwaitingConnection(),
-                    LocalDateTime.now()
+                    timestamp
                 );
                 
                 // 添加到历史记录
-                addPoolSnapshot(dataSourceId, snapshot);
+                addPoolSnapshot(dataSourceId, snapshot, now);
             }
             
         } catch (Exception e) {
@@ -107,9 +146,13 @@ public class PerformanceAnalysisService {
             // 更新查询统计
             updateQueryStatistics(dataSourceId, executionTime, success, rowCount);
             
+            // 按指纹聚合
+            SqlFingerprint fingerprint = sqlFingerprints.get(sql, SqlFingerprint::of);
+            getFingerprintAggregate(dataSourceId, fingerprint).record(executionTime, success, rowCount);
+            
             // 记录慢查询
             if (executionTime > slowQueryThreshold) {
-                recordSlowQuery(dataSourceId, sql, executionTime, success, rowCount);
+                recordSlowQuery(dataSourceId, sql, fingerprint, executionTime, success, rowCount);
             }
             
         } catch (Exception e) {
@@ -125,37 +168,30 @@ public class PerformanceAnalysisService {
      * @return 性能分析报告
      */
     public ConnectionPoolAnalysisReport getConnectionPoolAnalysis(Long dataSourceId, int hours) {
-        List<ConnectionPoolSnapshot> snapshots = getPoolSnapshots(dataSourceId, hours);
+        PoolHistory history = poolHistoryMap.get(dataSourceId);
+        PoolWindowStats stats = history != null ? history.stats(hours) : new PoolWindowStats(null);
         
-        if (snapshots.isEmpty()) {
+        if (stats.samples == 0) {
             return new ConnectionPoolAnalysisReport(dataSourceId, "无数据");
         }
         
         ConnectionPoolAnalysisReport report = new ConnectionPoolAnalysisReport(dataSourceId, "正常");
         
         // 计算统计指标
-        OptionalDouble avgActive = snapshots.stream().mapToInt(ConnectionPoolSnapshot::getActiveConnections).average();
-        OptionalDouble avgIdle = snapshots.stream().mapToInt(ConnectionPoolSnapshot::getIdleConnections).average();
-        OptionalDouble avgTotal = snapshots.stream().mapToInt(ConnectionPoolSnapshot::getTotalConnections).average();
-        OptionalDouble avgWaiting = snapshots.stream().mapToInt(ConnectionPoolSnapshot::getThreadsAwaitingConnection).average();
-        
-        int maxActive = snapshots.stream().mapToInt(ConnectionPoolSnapshot::getActiveConnections).max().orElse(0);
-        int maxWaiting = snapshots.stream().mapToInt(ConnectionPoolSnapshot::getThreadsAwaitingConnection).max().orElse(0);
-        
-        report.setAverageActiveConnections(avgActive.orElse(0));
-        report.setAverageIdleConnections(avgIdle.orElse(0));
-        report.setAverageTotalConnections(avgTotal.orElse(0));
-        report.setAverageWaitingThreads(avgWaiting.orElse(0));
-        report.setMaxActiveConnections(maxActive);
-        report.setMaxWaitingThreads(maxWaiting);
+        report.setAverageActiveConnections(stats.average(stats.sumActive));
+        report.setAverageIdleConnections(stats.average(stats.sumIdle));
+        report.setAverageTotalConnections(stats.average(stats.sumTotal));
+        report.setAverageWaitingThreads(stats.average(stats.sumWaiting));
+        report.setMaxActiveConnections(stats.maxActive);
+        report.setMaxWaitingThreads(stats.maxWaiting);
         
         // 计算利用率
-        if (avgTotal.isPresent() && avgTotal.getAsDouble() > 0) {
-            report.setUtilizationRate(avgActive.getAsDouble() / avgTotal.getAsDouble());
+        if (stats.sumTotal > 0) {
+            report.setUtilizationRate((double) stats.sumActive / stats.sumTotal);
         }
         
         // 分析性能问题
-        List<String> issues = analyzeConnectionPoolIssues(snapshots);
+        List<String> issues = analyzeConnectionPoolIssues(stats);
         report.setPerformanceIssues(issues);
         
         // 设置状态
@@ -164,11 +200,28 @@ public class PerformanceAnalysisService {
         }
         
         report.setAnalysisTime(LocalDateTime.now());
-        report.setDataPoints(snapshots.size());
+        report.setDataPoints(stats.samples);
+        report.setResolution(stats.resolution != null ? stats.resolution.name() : "RAW");
         
         return report;
     }
 
+    /**
+     * 获取连接池汇总趋势
+     * 
+     * @param dataSourceId 数据源ID
+     * @param resolution 汇总粒度
+     * @param hours 时间范围（小时），小于等于0时返回保留的全部汇总数据
+     * @return 按时间排序的汇总数据，最后一项可能是尚未结束的当前时间桶
+     */
+    public List<PoolRollup> getConnectionPoolTrend(Long dataSourceId, RollupResolution resolution, int hours) {
+        PoolHistory history = poolHistoryMap.get(dataSourceId);
+        if (history == null) {
+            return Collections.emptyList();
+        }
+        return history.rollups.get(resolution).since(cutoffMillis(hours));
+    }
+
     /**
      * 获取慢查询分析报告
      * 
@@ -260,7 +313,7 @@ public class PerformanceAnalysisService {
         
         // 计算慢查询统计
         int totalSlowQueries = slowQueryMap.values().stream()
-            .mapToInt(List::size)
+            .mapToInt(TimeSeriesRingBuffer::size)
             .sum();
         overview.setTotalSlowQueries(totalSlowQueries);
         
@@ -280,34 +333,78 @@ public class PerformanceAnalysisService {
     }
 
     /**
-     * 添加连接池快照
+     * 获取按SQL指纹聚合的查询统计排行
+     * 
+     * @param dataSourceId 数据源ID，为空时统计全部数据源
+     * @param orderBy 排序方式
+     * @param limit 返回条数
+     * @return 按排序值降序排列的指纹统计
      */
-    private void addPoolSnapshot(Long dataSourceId, ConnectionPoolSnapshot snapshot) {
-        poolHistoryMap.computeIfAbsent(dataSourceId, k -> new ArrayList<>()).add(snapshot);
+    public List<QueryFingerprintStatistics> getTopQueries(Long dataSourceId, TopQueryOrder orderBy, int limit) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        Collection<Map<Long, FingerprintAggregate>> sources = dataSourceId != null
+            ? Collections.singletonList(fingerprintMap.getOrDefault(dataSourceId, Collections.emptyMap()))
+            : fingerprintMap.values();
         
-        // 限制历史记录大小
-        List<ConnectionPoolSnapshot> snapshots = poolHistoryMap.get(dataSourceId);
-        if (snapshots.size() > MAX_HISTORY_SIZE) {
-            snapshots.remove(0);
+        // 小顶堆只保留排序值最大的limit个指纹
+        PriorityQueue<RankedAggregate> top = new PriorityQueue<>(limit + 1,
+            Comparator.comparingDouble(RankedAggregate::getScore));
+        for (Map<Long, FingerprintAggregate> aggregates : sources) {
+            for (FingerprintAggregate aggregate : aggregates.values()) {
+                long calls = aggregate.calls.sum();
+                if (calls == 0) {
+                    continue;
+                }
+                top.offer(new RankedAggregate(aggregate, aggregate.score(orderBy, calls)));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
         }
+        
+        List<QueryFingerprintStatistics> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            result.add(top.poll().aggregate.toStatistics());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * 移除数据源的性能历史和统计数据，数据源删除时调用
+     * 
+     * @param dataSourceId 数据源ID
+     */
+    public void removeDataSource(Long dataSourceId) {
+        poolHistoryMap.remove(dataSourceId);
+        slowQueryMap.remove(dataSourceId);
+        queryStatsMap.remove(dataSourceId);
+        fingerprintMap.remove(dataSourceId);
+    }
+
+    /**
+     * 添加连接池快照
+     */
+    void addPoolSnapshot(Long dataSourceId, ConnectionPoolSnapshot snapshot, long timestamp) {
+        poolHistoryMap.computeIfAbsent(dataSourceId, k -> new PoolHistory()).record(snapshot, timestamp);
     }
 
     /**
      * 记录慢查询
      */
-    private void recordSlowQuery(Long dataSourceId, String sql, long executionTime, 
+    private void recordSlowQuery(Long dataSourceId, String sql, SqlFingerprint fingerprint, long executionTime, 
                                boolean success, int rowCount) {
+        long now = System.currentTimeMillis();
         SlowQueryRecord record = new SlowQueryRecord(
-            dataSourceId, sql, executionTime, success, rowCount, LocalDateTime.now()
+            dataSourceId, sql, executionTime, success, rowCount,
+            LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()),
+            fingerprint.getId(), fingerprint.getNormalizedSql()
         );
         
-        slowQueryMap.computeIfAbsent(dataSourceId, k -> new ArrayList<>()).add(record);
-        
-        // 限制慢查询记录大小
-        List<SlowQueryRecord> slowQueries = slowQueryMap.get(dataSourceId);
-        if (slowQueries.size() > MAX_SLOW_QUERY_SIZE) {
-            slowQueries.remove(0);
-        }
+        slowQueryMap.computeIfAbsent(dataSourceId, k -> new TimeSeriesRingBuffer<>(MAX_SLOW_QUERY_SIZE))
+            .add(now, record);
         
         logger.warn("记录慢查询: dataSourceId={}, executionTime={}ms, sql={}", 
                    dataSourceId, executionTime, sql.length() > 100 ? sql.substring(0, 100) + "..." : sql);
@@ -329,81 +426,86 @@ public class PerformanceAnalysisService {
         stats.getTotalExecutionTime().addAndGet(executionTime);
         stats.getTotalRowsReturned().addAndGet(rowCount);
         
-        // 更新最大执行时间
-        long currentMax = stats.getMaxExecutionTime().get();
-        if (executionTime > currentMax) {
-            stats.getMaxExecutionTime().set(executionTime);
-        }
-        
-        // 更新最小执行时间
-        long currentMin = stats.getMinExecutionTime().get();
-        if (currentMin == 0 || executionTime < currentMin) {
-            stats.getMinExecutionTime().set(executionTime);
-        }
+        // 更新最大、最小执行时间，0表示尚无记录
+        stats.getMaxExecutionTime().accumulateAndGet(executionTime, Math::max);
+        stats.getMinExecutionTime().accumulateAndGet(executionTime,
+            (current, value) -> current == 0 || value < current ? value : current);
         
         stats.setLastUpdateTime(LocalDateTime.now());
     }
 
     /**
-     * 获取连接池快照
+     * 获取指纹聚合值，指纹数达到上限时先淘汰执行次数最少的5%
      */
-    private List<ConnectionPoolSnapshot> getPoolSnapshots(Long dataSourceId, int hours) {
-        List<ConnectionPoolSnapshot> snapshots = poolHistoryMap.getOrDefault(dataSourceId, Collections.emptyList());
-        
-        if (hours <= 0) {
-            return new ArrayList<>(snapshots);
+    private FingerprintAggregate getFingerprintAggregate(Long dataSourceId, SqlFingerprint fingerprint) {
+        Map<Long, FingerprintAggregate> aggregates = fingerprintMap.computeIfAbsent(dataSourceId,
+            k -> new ConcurrentHashMap<>());
+        FingerprintAggregate aggregate = aggregates.get(fingerprint.getHash());
+        if (aggregate != null) {
+            return aggregate;
+        }
+        if (aggregates.size() >= maxFingerprintsPerDataSource) {
+            evictFingerprints(dataSourceId, aggregates);
+        }
+        return aggregates.computeIfAbsent(fingerprint.getHash(),
+            hash -> new FingerprintAggregate(dataSourceId, fingerprint, histogramHalfLife));
+    }
+
+    private void evictFingerprints(Long dataSourceId, Map<Long, FingerprintAggregate> aggregates) {
+        synchronized (aggregates) {
+            int excess = aggregates.size() - maxFingerprintsPerDataSource + 1;
+            if (excess <= 0) {
+                return;
+            }
+            int evictCount = Math.max(excess, maxFingerprintsPerDataSource / 20);
+            List<Map.Entry<Long, Long>> callCounts = new ArrayList<>(aggregates.size());
+            aggregates.forEach((hash, aggregate) -> callCounts.add(Map.entry(hash, aggregate.calls.sum())));
+            callCounts.sort(Map.Entry.comparingByValue());
+            for (int i = 0; i < evictCount && i < callCounts.size(); i++) {
+                aggregates.remove(callCounts.get(i).getKey());
+            }
+            logger.debug("SQL指纹数达到上限，已淘汰{}个执行次数最少的指纹: dataSourceId={}", evictCount, dataSourceId);
         }
-        
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(hours);
-        return snapshots.stream()
-            .filter(snapshot -> snapshot.getTimestamp().isAfter(cutoff))
-            .collect(Collectors.toList());
     }
 
     /**
      * 获取慢查询记录
      */
     private List<SlowQueryRecord> getSlowQueries(Long dataSourceId, int hours) {
-        List<SlowQueryRecord> slowQueries = slowQueryMap.getOrDefault(dataSourceId, Collections.emptyList());
-        
-        if (hours <= 0) {
-            return new ArrayList<>(slowQueries);
-        }
-        
-        LocalDateTime cutoff = LocalDateTime.now().minusHours(hours);
-        return slowQueries.stream()
-            .filter(record -> record.getExecuteTime().isAfter(cutoff))
-            .collect(Collectors.toList());
+        TimeSeriesRingBuffer<SlowQueryRecord> slowQueries = slowQueryMap.get(dataSourceId);
+        return slowQueries != null ? slowQueries.since(cutoffMillis(hours)) : Collections.emptyList();
+    }
+
+    /**
+     * 计算时间范围的起点，小于等于0表示不限制
+     */
+    private static long cutoffMillis(int hours) {
+        return hours > 0 ? System.currentTimeMillis() - TimeUnit.HOURS.toMillis(hours) : Long.MIN_VALUE;
     }
 
     /**
      * 分析连接池问题
      */
-    private List<String> analyzeConnectionPoolIssues(List<ConnectionPoolSnapshot> snapshots) {
+    private List<String> analyzeConnectionPoolIssues(PoolWindowStats stats) {
         List<String> issues = new ArrayList<>();
         
         // 检查连接池利用率过高
-        double avgUtilization = snapshots.stream()
-            .mapToDouble(s -> s.getTotalConnections() > 0 ? 
-                (double) s.getActiveConnections() / s.getTotalConnections() : 0)
-            .average().orElse(0);
+        double avgUtilization = stats.sumUtilization / stats.samples;
         
         if (avgUtilization > 0.8) {
             issues.add("连接池利用率过高 (" + String.format("%.1f%%", avgUtilization * 100) + ")，建议增加最大连接数");
         }
         
         // 检查等待线程过多
-        double avgWaiting = snapshots.stream()
-            .mapToInt(ConnectionPoolSnapshot::getThreadsAwaitingConnection)
-            .average().orElse(0);
+        double avgWaiting = stats.average(stats.sumWaiting);
         
         if (avgWaiting > 5) {
             issues.add("平均等待连接的线程数过多 (" + String.format("%.1f", avgWaiting) + ")，可能存在连接泄漏或连接池配置不当");
         }
         
         // 检查连接数波动
-        int maxActive = snapshots.stream().mapToInt(ConnectionPoolSnapshot::getActiveConnections).max().orElse(0);
-        int minActive = snapshots.stream().mapToInt(ConnectionPoolSnapshot::getActiveConnections).min().orElse(0);
+        int maxActive = stats.maxActive;
+        int minActive = stats.minActive;
         
         if (maxActive - minActive > 10) {
             issues.add("活跃连接数波动较大 (" + minActive + "-" + maxActive + ")，建议检查应用负载模式");
@@ -413,27 +515,13 @@ public class PerformanceAnalysisService {
     }
 
     /**
-     * 分析查询模式
+     * 分析查询模式，按SQL指纹统计慢查询次数
      */
     private Map<String, Long> analyzeQueryPatterns(List<SlowQueryRecord> slowQueries) {
         Map<String, Long> patterns = new HashMap<>();
         
         for (SlowQueryRecord record : slowQueries) {
-            String sql = record.getSql().toUpperCase().trim();
-            
-            // 提取查询类型
-            String queryType = "OTHER";
-            if (sql.startsWith("SELECT")) {
-                queryType = "SELECT";
-            } else if (sql.startsWith("INSERT")) {
-                queryType = "INSERT";
-            } else if (sql.startsWith("UPDATE")) {
-                queryType = "UPDATE";
-            } else if (sql.startsWith("DELETE")) {
-                queryType = "DELETE";
-            }
-            
-            patterns.merge(queryType, 1L, Long::sum);
+            patterns.merge(record.getNormalizedSql(), 1L, Long::sum);
         }
         
         return patterns;
@@ -454,12 +542,9 @@ public class PerformanceAnalysisService {
             suggestions.add("平均执行时间超过10秒，建议检查SQL语句是否存在全表扫描");
         }
         
-        // 检查是否有重复的慢查询
+        // 检查是否有重复的慢查询，常量不同的同一语句视为重复
         Map<String, Long> sqlCounts = slowQueries.stream()
-            .collect(Collectors.groupingBy(
-                record -> record.getSql().substring(0, Math.min(record.getSql().length(), 100)),
-                Collectors.counting()
-            ));
+            .collect(Collectors.groupingBy(SlowQueryRecord::getFingerprintId, Collectors.counting()));
         
         long maxCount = sqlCounts.values().stream().mapToLong(Long::longValue).max().orElse(0);
         if (maxCount > 5) {
@@ -514,6 +599,75 @@ public class PerformanceAnalysisService {
         public LocalDateTime getTimestamp() { return timestamp; }
     }
 
+    /**
+     * 连接池汇总粒度
+     */
+    public enum RollupResolution {
+        MINUTE(ChronoUnit.MINUTES, MINUTE_ROLLUP_SIZE),
+        HOUR(ChronoUnit.HOURS, HOUR_ROLLUP_SIZE),
+        DAY(ChronoUnit.DAYS, DAY_ROLLUP_SIZE);
+
+        private final ChronoUnit unit;
+        private final int retention;
+
+        RollupResolution(ChronoUnit unit, int retention) {
+            this.unit = unit;
+            this.retention = retention;
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) { return time.truncatedTo(unit); }
+        public int getRetention() { return retention; }
+    }
+
+    /**
+     * 连接池汇总数据，一个时间桶内全部快照的平均值和极值
+     */
+    public static class PoolRollup {
+        private final RollupResolution resolution;
+        private final LocalDateTime bucketStart;
+        private final int sampleCount;
+        private final long sumActive;
+        private final long sumIdle;
+        private final long sumTotal;
+        private final long sumWaiting;
+        private final double sumUtilization;
+        private final int maxActiveConnections;
+        private final int minActiveConnections;
+        private final int maxWaitingThreads;
+        // 桶内最后一个快照的时间戳（毫秒），用于按时间范围筛选
+        private final long lastTimestamp;
+
+        private PoolRollup(RollupResolution resolution, LocalDateTime bucketStart, PoolWindowStats stats,
+                           long lastTimestamp) {
+            this.resolution = resolution;
+            this.bucketStart = bucketStart;
+            this.sampleCount = stats.samples;
+            this.sumActive = stats.sumActive;
+            this.sumIdle = stats.sumIdle;
+            this.sumTotal = stats.sumTotal;
+            this.sumWaiting = stats.sumWaiting;
+            this.sumUtilization = stats.sumUtilization;
+            this.maxActiveConnections = stats.maxActive;
+            this.minActiveConnections = stats.minActive;
+            this.maxWaitingThreads = stats.maxWaiting;
+            this.lastTimestamp = lastTimestamp;
+        }
+
+        public double getAverageActiveConnections() { return (double) sumActive / sampleCount; }
+        public double getAverageIdleConnections() { return (double) sumIdle / sampleCount; }
+        public double getAverageTotalConnections() { return (double) sumTotal / sampleCount; }
+        public double getAverageWaitingThreads() { return (double) sumWaiting / sampleCount; }
+        public double getAverageUtilization() { return sumUtilization / sampleCount; }
+
+        // Getters
+        public RollupResolution getResolution() { return resolution; }
+        public LocalDateTime getBucketStart() { return bucketStart; }
+        public int getSampleCount() { return sampleCount; }
+        public int getMaxActiveConnections() { return maxActiveConnections; }
+        public int getMinActiveConnections() { return minActiveConnections; }
+        public int getMaxWaitingThreads() { return maxWaitingThreads; }
+    }
+
     public static class SlowQueryRecord {
         private final Long dataSourceId;
         private final String sql;
@@ -521,15 +675,20 @@ public class PerformanceAnalysisService {
         private final boolean success;
         private final int rowCount;
         private final LocalDateTime executeTime;
+        private final String fingerprintId;
+        private final String normalizedSql;
 
         public SlowQueryRecord(Long dataSourceId, String sql, long executionTime, 
-                             boolean success, int rowCount, LocalDateTime executeTime) {
+                             boolean success, int rowCount, LocalDateTime executeTime,
+                             String fingerprintId, String normalizedSql) {
             this.dataSourceId = dataSourceId;
             this.sql = sql;
             this.executionTime = executionTime;
             this.success = success;
             this.rowCount = rowCount;
             this.executeTime = executeTime;
+            this.fingerprintId = fingerprintId;
+            this.normalizedSql = normalizedSql;
         }
 
         // Getters
@@ -539,6 +698,8 @@ public class PerformanceAnalysisService {
         public boolean isSuccess() { return success; }
         public int getRowCount() { return rowCount; }
         public LocalDateTime getExecuteTime() { return executeTime; }
+        public String getFingerprintId() { return fingerprintId; }
+        public String getNormalizedSql() { return normalizedSql; }
     }
 
     public static class QueryStatistics {
@@ -579,6 +740,66 @@ public class PerformanceAnalysisService {
         public void setLastUpdateTime(LocalDateTime lastUpdateTime) { this.lastUpdateTime = lastUpdateTime; }
     }
 
+    /**
+     * SQL指纹统计排序方式
+     */
+    public enum TopQueryOrder {
+        TOTAL_TIME, MEAN_TIME, P99_TIME, CALLS
+    }
+
+    /**
+     * 单个SQL指纹的查询统计
+     */
+    public static class QueryFingerprintStatistics {
+        private Long dataSourceId;
+        private String fingerprintId;
+        private String statementType;
+        private String normalizedSql;
+        private long calls;
+        private long failedCalls;
+        private long totalExecutionTime;
+        private double averageExecutionTime;
+        private long minExecutionTime;
+        private long maxExecutionTime;
+        private long p50ExecutionTime;
+        private long p95ExecutionTime;
+        private long p99ExecutionTime;
+        private long totalRows;
+        private LocalDateTime lastExecuteTime;
+
+        // Getters and Setters
+        public Long getDataSourceId() { return dataSourceId; }
+        public void setDataSourceId(Long dataSourceId) { this.dataSourceId = dataSourceId; }
+        public String getFingerprintId() { return fingerprintId; }
+        public void setFingerprintId(String fingerprintId) { this.fingerprintId = fingerprintId; }
+        public String getStatementType() { return statementType; }
+        public void setStatementType(String statementType) { this.statementType = statementType; }
+        public String getNormalizedSql() { return normalizedSql; }
+        public void setNormalizedSql(String normalizedSql) { this.normalizedSql = normalizedSql; }
+        public long getCalls() { return calls; }
+        public void setCalls(long calls) { this.calls = calls; }
+        public long getFailedCalls() { return failedCalls; }
+        public void setFailedCalls(long failedCalls) { this.failedCalls = failedCalls; }
+        public long getTotalExecutionTime() { return totalExecutionTime; }
+        public void setTotalExecutionTime(long totalExecutionTime) { this.totalExecutionTime = totalExecutionTime; }
+        public double getAverageExecutionTime() { return averageExecutionTime; }
+        public void setAverageExecutionTime(double averageExecutionTime) { this.averageExecutionTime = averageExecutionTime; }
+        public long getMinExecutionTime() { return minExecutionTime; }
+        public void setMinExecutionTime(long minExecutionTime) { this.minExecutionTime = minExecutionTime; }
+        public long getMaxExecutionTime() { return maxExecutionTime; }
+        public void setMaxExecutionTime(long maxExecutionTime) { this.maxExecutionTime = maxExecutionTime; }
+        public long getP50ExecutionTime() { return p50ExecutionTime; }
+        public void setP50ExecutionTime(long p50ExecutionTime) { this.p50ExecutionTime = p50ExecutionTime; }
+        public long getP95ExecutionTime() { return p95ExecutionTime; }
+        public void setP95ExecutionTime(long p95ExecutionTime) { this.p95ExecutionTime = p95ExecutionTime; }
+        public long getP99ExecutionTime() { return p99ExecutionTime; }
+        public void setP99ExecutionTime(long p99ExecutionTime) { this.p99ExecutionTime = p99ExecutionTime; }
+        public long getTotalRows() { return totalRows; }
+        public void setTotalRows(long totalRows) { this.totalRows = totalRows; }
+        public LocalDateTime getLastExecuteTime() { return lastExecuteTime; }
+        public void setLastExecuteTime(LocalDateTime lastExecuteTime) { this.lastExecuteTime = lastExecuteTime; }
+    }
+
     public static class ConnectionPoolAnalysisReport {
         private Long dataSourceId;
         private String status;
@@ -592,6 +813,7 @@ public class PerformanceAnalysisService {
         private List<String> performanceIssues;
         private LocalDateTime analysisTime;
         private int dataPoints;
+        private String resolution;
 
         public ConnectionPoolAnalysisReport(Long dataSourceId, String status) {
             this.dataSourceId = dataSourceId;
@@ -624,6 +846,8 @@ public class PerformanceAnalysisService {
         public void setAnalysisTime(LocalDateTime analysisTime) { this.analysisTime = analysisTime; }
         public int getDataPoints() { return dataPoints; }
         public void setDataPoints(int dataPoints) { this.dataPoints = dataPoints; }
+        public String getResolution() { return resolution; }
+        public void setResolution(String resolution) { this.resolution = resolution; }
     }
 
     public static class SlowQueryAnalysisReport {
@@ -689,4 +913,226 @@ public class PerformanceAnalysisService {
         public double getSuccessRate() { return successRate; }
         public void setSuccessRate(double successRate) { this.successRate = successRate; }
     }
+
+    /**
+     * 单个数据源的连接池历史：原始快照及各粒度汇总
+     * 只由定时采集线程写入，读取不加锁
+     */
+    private static final class PoolHistory {
+        private final TimeSeriesRingBuffer<ConnectionPoolSnapshot> snapshots =
+            new TimeSeriesRingBuffer<>(MAX_HISTORY_SIZE);
+        private final Map<RollupResolution, RollupSeries> rollups = new EnumMap<>(RollupResolution.class);
+
+        PoolHistory() {
+            for (RollupResolution resolution : RollupResolution.values()) {
+                rollups.put(resolution, new RollupSeries(resolution));
+            }
+        }
+
+        void record(ConnectionPoolSnapshot snapshot, long timestamp) {
+            snapshots.add(timestamp, snapshot);
+            for (RollupSeries series : rollups.values()) {
+                series.add(snapshot, timestamp);
+            }
+        }
+
+        /**
+         * 统计时间范围内的连接池数据，原始快照已不完整时改用仍能覆盖该范围的最细粒度汇总
+         */
+        PoolWindowStats stats(int hours) {
+            long cutoff = cutoffMillis(hours);
+            if (hours <= 0 || snapshots.covers(cutoff)) {
+                PoolWindowStats stats = new PoolWindowStats(null);
+                snapshots.since(cutoff).forEach(stats::add);
+                return stats;
+            }
+            RollupSeries selected = rollups.get(RollupResolution.DAY);
+            for (RollupSeries series : rollups.values()) {
+                if (series.completed.covers(cutoff)) {
+                    selected = series;
+                    break;
+                }
+            }
+            PoolWindowStats stats = new PoolWindowStats(selected.resolution);
+            selected.since(cutoff).forEach(stats::add);
+            return stats;
+        }
+    }
+
+    /**
+     * 单一粒度的汇总序列：已结束的时间桶进入环形缓冲区，当前时间桶每次采样后发布一份不可变副本
+     */
+    private static final class RollupSeries {
+        private final RollupResolution resolution;
+        private final TimeSeriesRingBuffer<PoolRollup> completed;
+        private LocalDateTime bucketStart;
+        private PoolWindowStats bucket;
+        private volatile PoolRollup current;
+
+        RollupSeries(RollupResolution resolution) {
+            this.resolution = resolution;
+            this.completed = new TimeSeriesRingBuffer<>(resolution.getRetention());
+        }
+
+        synchronized void add(ConnectionPoolSnapshot snapshot, long timestamp) {
+            LocalDateTime start = resolution.truncate(snapshot.getTimestamp());
+            if (bucket != null && !start.equals(bucketStart)) {
+                completed.add(current.lastTimestamp, current);
+                bucket = null;
+            }
+            if (bucket == null) {
+                bucketStart = start;
+                bucket = new PoolWindowStats(resolution);
+            }
+            bucket.add(snapshot);
+            current = new PoolRollup(resolution, bucketStart, bucket, timestamp);
+        }
+
+        List<PoolRollup> since(long fromTimestamp) {
+            // 先读当前桶：若读取期间该桶已结束并进入缓冲区，按桶起点去重
+            PoolRollup latest = current;
+            List<PoolRollup> result = completed.since(fromTimestamp);
+            if (latest != null && latest.lastTimestamp >= fromTimestamp
+                    && (result.isEmpty() || !result.get(result.size() - 1).getBucketStart().equals(latest.getBucketStart()))) {
+                result.add(latest);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 一段时间内的连接池累计值，既用于生成分析报告，也用于累计当前汇总桶
+     */
+    private static final class PoolWindowStats {
+        private final RollupResolution resolution;
+        private int samples;
+        private long sumActive;
+        private long sumIdle;
+        private long sumTotal;
+        private long sumWaiting;
+        private double sumUtilization;
+        private int maxActive;
+        private int minActive = Integer.MAX_VALUE;
+        private int maxWaiting;
+
+        PoolWindowStats(RollupResolution resolution) {
+            this.resolution = resolution;
+        }
+
+        void add(ConnectionPoolSnapshot snapshot) {
+            samples++;
+            sumActive += snapshot.getActiveConnections();
+            sumIdle += snapshot.getIdleConnections();
+            sumTotal += snapshot.getTotalConnections();
+            sumWaiting += snapshot.getThreadsAwaitingConnection();
+            if (snapshot.getTotalConnections() > 0) {
+                sumUtilization += (double) snapshot.getActiveConnections() / snapshot.getTotalConnections();
+            }
+            maxActive = Math.max(maxActive, snapshot.getActiveConnections());
+            minActive = Math.min(minActive, snapshot.getActiveConnections());
+            maxWaiting = Math.max(maxWaiting, snapshot.getThreadsAwaitingConnection());
+        }
+
+        void add(PoolRollup rollup) {
+            samples += rollup.sampleCount;
+            sumActive += rollup.sumActive;
+            sumIdle += rollup.sumIdle;
+            sumTotal += rollup.sumTotal;
+            sumWaiting += rollup.sumWaiting;
+            sumUtilization += rollup.sumUtilization;
+            maxActive = Math.max(maxActive, rollup.maxActiveConnections);
+            minActive = Math.min(minActive, rollup.minActiveConnections);
+            maxWaiting = Math.max(maxWaiting, rollup.maxWaitingThreads);
+        }
+
+        double average(long sum) {
+            return samples > 0 ? (double) sum / samples : 0.0;
+        }
+    }
+
+    /**
+     * 单个SQL指纹的累计值，全部由原子累加器维护，记录路径不加锁
+     */
+    private static final class FingerprintAggregate {
+        private final Long dataSourceId;
+        private final SqlFingerprint fingerprint;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder failedCalls = new LongAdder();
+        private final LongAdder totalTime = new LongAdder();
+        private final LongAdder totalRows = new LongAdder();
+        private final LongAccumulator minTime = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxTime = new LongAccumulator(Math::max, 0L);
+        private final LatencyHistogram histogram;
+        private volatile long lastExecuteMillis;
+
+        FingerprintAggregate(Long dataSourceId, SqlFingerprint fingerprint, long histogramHalfLife) {
+            this.dataSourceId = dataSourceId;
+            this.fingerprint = fingerprint;
+            this.histogram = new LatencyHistogram(histogramHalfLife);
+        }
+
+        void record(long executionTime, boolean success, int rowCount) {
+            calls.increment();
+            if (!success) {
+                failedCalls.increment();
+            }
+            totalTime.add(executionTime);
+            totalRows.add(rowCount);
+            minTime.accumulate(executionTime);
+            maxTime.accumulate(executionTime);
+            histogram.record(executionTime);
+            lastExecuteMillis = System.currentTimeMillis();
+        }
+
+        double score(TopQueryOrder orderBy, long callCount) {
+            switch (orderBy) {
+                case MEAN_TIME:
+                    return (double) totalTime.sum() / callCount;
+                case P99_TIME:
+                    return Math.min(histogram.percentile(0.99), maxTime.get());
+                case CALLS:
+                    return callCount;
+                case TOTAL_TIME:
+                default:
+                    return totalTime.sum();
+            }
+        }
+
+        QueryFingerprintStatistics toStatistics() {
+            long callCount = calls.sum();
+            long total = totalTime.sum();
+            long max = maxTime.get();
+            QueryFingerprintStatistics statistics = new QueryFingerprintStatistics();
+            statistics.setDataSourceId(dataSourceId);
+            statistics.setFingerprintId(fingerprint.getId());
+            statistics.setStatementType(fingerprint.getStatementType());
+            statistics.setNormalizedSql(fingerprint.getNormalizedSql());
+            statistics.setCalls(callCount);
+            statistics.setFailedCalls(failedCalls.sum());
+            statistics.setTotalExecutionTime(total);
+            statistics.setAverageExecutionTime(callCount > 0 ? (double) total / callCount : 0.0);
+            statistics.setMinExecutionTime(callCount > 0 ? minTime.get() : 0);
+            statistics.setMaxExecutionTime(max);
+            // 直方图按桶上界估算，不超过实际最大值
+            statistics.setP50ExecutionTime(Math.min(histogram.percentile(0.5), max));
+            statistics.setP95ExecutionTime(Math.min(histogram.percentile(0.95), max));
+            statistics.setP99ExecutionTime(Math.min(histogram.percentile(0.99), max));
+            statistics.setTotalRows(totalRows.sum());
+            statistics.setLastExecuteTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(lastExecuteMillis),
+                ZoneId.systemDefault()));
+            return statistics;
+        }
+    }
+
+    private static final class RankedAggregate {
+        private final FingerprintAggregate aggregate;
+        private final double score;
+
+        RankedAggregate(FingerprintAggregate aggregate, double score) {
+            this.aggregate = aggregate;
+            this.score = score;
+        }
+
+        double getScore() { return score; }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,240 @@
+package com.powertrading.datasource.monitor;
+
+import com.powertrading.datasource.engine.QueryTrace;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 查询执行遥测
+ * 将查询执行轨迹分阶段（获取连接、执行语句、读取结果）记录到Micrometer，
+ * 并汇总到数据源监控服务和性能分析服务；
+ * 指标按数据源、按接口各注册一次并缓存，记录时只做一次Map查找和直方图写入，
+ * 百分位由Micrometer基于HdrHistogram的时间窗口直方图计算，写入无锁且不分配对象
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@Component
+public class QueryTelemetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryTelemetry.class);
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSourceMonitorService dataSourceMonitorService;
+
+    @Autowired
+    private PerformanceAnalysisService performanceAnalysisService;
+
+    @Value("${datasource.monitor.telemetry.enabled:true}")
+    private boolean telemetryEnabled;
+
+    @Value("${datasource.monitor.telemetry.percentiles:0.5,0.95,0.99}")
+    private double[] percentiles;
+
+    /**
+     * 是否导出百分位直方图桶，供Prometheus等后端跨实例聚合
+     */
+    @Value("${datasource.monitor.telemetry.percentile-histogram:false}")
+    private boolean percentileHistogram;
+
+    /**
+     * 按接口注册的指标组上限，超出后只记录数据源维度，防止标签基数失控
+     */
+    @Value("${datasource.monitor.telemetry.max-interface-meters:500}")
+    private int maxInterfaceMeters;
+
+    private final ConcurrentMap<Long, DataSourceMeters> dataSourceMeters = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, InterfaceMeters> interfaceMeters = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean interfaceLimitLogged = new AtomicBoolean();
+
+    /**
+     * 记录一次查询执行
+     * SQL校验未通过的查询没有进入执行阶段，不计入指标
+     *
+     * @param trace 执行轨迹
+     */
+    public void record(QueryTrace trace) {
+        if (!telemetryEnabled || !trace.isStarted()) {
+            return;
+        }
+
+        Long dataSourceId = trace.getDataSourceId();
+        long totalMillis = TimeUnit.NANOSECONDS.toMillis(trace.getTotalNanos());
+        dataSourceMonitorService.recordConnectionAcquisition(dataSourceId,
+            TimeUnit.NANOSECONDS.toMillis(trace.getAcquireNanos()), trace.isConnectionAcquired());
+        dataSourceMonitorService.recordQueryExecution(dataSourceId, totalMillis, trace.isSuccess(), trace.getSql());
+        performanceAnalysisService.recordQueryExecution(dataSourceId, trace.getSql(), totalMillis,
+            trace.isSuccess(), trace.getRowCount());
+
+        if (meterRegistry == null) {
+            return;
+        }
+
+        DataSourceMeters meters = dataSourceMeters.get(dataSourceId);
+        if (meters == null) {
+            meters = dataSourceMeters.computeIfAbsent(dataSourceId, this::createDataSourceMeters);
+        }
+        meters.acquire.record(trace.getAcquireNanos(), TimeUnit.NANOSECONDS);
+        if (trace.isConnectionAcquired()) {
+            meters.execute.record(trace.getExecuteNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (trace.isExecuted()) {
+            meters.fetch.record(trace.getFetchNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (trace.isSuccess()) {
+            meters.success.record(trace.getTotalNanos(), TimeUnit.NANOSECONDS);
+            meters.rows.record(trace.getRowCount());
+            meters.bytes.record(trace.getResultBytes());
+        } else {
+            meters.failure.record(trace.getTotalNanos(), TimeUnit.NANOSECONDS);
+        }
+
+        String interfaceId = trace.getInterfaceId();
+        if (interfaceId != null) {
+            InterfaceMeters interfaceMeter = getInterfaceMeters(dataSourceId, interfaceId);
+            if (interfaceMeter != null) {
+                interfaceMeter.latency.record(trace.getTotalNanos(), TimeUnit.NANOSECONDS);
+                if (trace.isSuccess()) {
+                    interfaceMeter.rows.record(trace.getRowCount());
+                }
+            }
+        }
+    }
+
+    /**
+     * 移除数据源的全部遥测指标，数据源删除时调用
+     *
+     * @param dataSourceId 数据源ID
+     */
+    public void removeDataSource(Long dataSourceId) {
+        DataSourceMeters meters = dataSourceMeters.remove(dataSourceId);
+        if (meters != null) {
+            meters.meters.forEach(meterRegistry::remove);
+        }
+        interfaceMeters.values().removeIf(meter -> {
+            if (meter.dataSourceId.equals(dataSourceId)) {
+                meter.meters.forEach(meterRegistry::remove);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private InterfaceMeters getInterfaceMeters(Long dataSourceId, String interfaceId) {
+        InterfaceMeters meters = interfaceMeters.get(interfaceId);
+        if (meters != null) {
+            return meters;
+        }
+        if (interfaceMeters.size() >= maxInterfaceMeters) {
+            if (interfaceLimitLogged.compareAndSet(false, true)) {
+                logger.warn("接口维度查询指标数已达上限{}，新接口只记录数据源维度指标", maxInterfaceMeters);
+            }
+            return null;
+        }
+        return interfaceMeters.computeIfAbsent(interfaceId, id -> createInterfaceMeters(dataSourceId, id));
+    }
+
+    private DataSourceMeters createDataSourceMeters(Long dataSourceId) {
+        String tag = String.valueOf(dataSourceId);
+        DataSourceMeters meters = new DataSourceMeters();
+        meters.acquire = register(meters.meters, timer("datasource.query.acquire", "获取连接耗时")
+            .tag("dataSourceId", tag));
+        meters.execute = register(meters.meters, timer("datasource.query.execute", "语句执行耗时")
+            .tag("dataSourceId", tag));
+        meters.fetch = register(meters.meters, timer("datasource.query.fetch", "结果读取耗时")
+            .tag("dataSourceId", tag));
+        meters.success = register(meters.meters, timer("datasource.query.latency", "查询总耗时")
+            .tag("dataSourceId", tag).tag("outcome", "success"));
+        meters.failure = register(meters.meters, timer("datasource.query.latency", "查询总耗时")
+            .tag("dataSourceId", tag).tag("outcome", "failure"));
+        meters.rows = register(meters.meters, summary("datasource.query.rows", "返回行数", null)
+            .tag("dataSourceId", tag));
+        meters.bytes = register(meters.meters, summary("datasource.query.bytes", "结果大小估算", "bytes")
+            .tag("dataSourceId", tag));
+        return meters;
+    }
+
+    private InterfaceMeters createInterfaceMeters(Long dataSourceId, String interfaceId) {
+        String tag = String.valueOf(dataSourceId);
+        InterfaceMeters meters = new InterfaceMeters(dataSourceId);
+        meters.latency = register(meters.meters, timer("interface.query.latency", "接口查询总耗时")
+            .tag("dataSourceId", tag).tag("interfaceId", interfaceId));
+        meters.rows = register(meters.meters, summary("interface.query.rows", "接口查询返回行数", null)
+            .tag("dataSourceId", tag).tag("interfaceId", interfaceId));
+        return meters;
+    }
+
+    private Timer.Builder timer(String name, String description) {
+        return Timer.builder(name)
+            .description(description)
+            .publishPercentiles(percentiles)
+            .publishPercentileHistogram(percentileHistogram);
+    }
+
+    private DistributionSummary.Builder summary(String name, String description, String baseUnit) {
+        return DistributionSummary.builder(name)
+            .description(description)
+            .baseUnit(baseUnit)
+            .publishPercentiles(percentiles)
+            .publishPercentileHistogram(percentileHistogram);
+    }
+
+    private Timer register(List<Meter> registered, Timer.Builder builder) {
+        Timer timer = builder.register(meterRegistry);
+        registered.add(timer);
+        return timer;
+    }
+
+    private DistributionSummary register(List<Meter> registered, DistributionSummary.Builder builder) {
+        DistributionSummary summary = builder.register(meterRegistry);
+        registered.add(summary);
+        return summary;
+    }
+
+    /**
+     * 数据源维度指标
+     */
+    private static final class DataSourceMeters {
+        private final List<Meter> meters = new ArrayList<>(7);
+        private Timer acquire;
+        private Timer execute;
+        private Timer fetch;
+        private Timer success;
+        private Timer failure;
+        private DistributionSummary rows;
+        private DistributionSummary bytes;
+    }
+
+    /**
+     * 接口维度指标
+     */
+    private static final class InterfaceMeters {
+        private final Long dataSourceId;
+        private final List<Meter> meters = new ArrayList<>(2);
+        private Timer latency;
+        private DistributionSummary rows;
+
+        InterfaceMeters(Long dataSourceId) {
+            this.dataSourceId = dataSourceId;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.powertrading.datasource.monitor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 定长时间序列环形缓冲区
+ * 写入通过原子序号认领槽位并直接覆盖最旧的元素，读取从最新元素向前遍历到时间窗口起点为止，
+ * 读写均不加锁，内存占用固定为容量大小，按时间窗口读取的开销与窗口内元素数成正比；
+ * 读取期间被覆盖或尚未写完的槽位按序号识别并跳过，结果可能略少于窗口内实际写入的元素，但不会重复或抛出并发修改异常
+ *
+ * @param <T> 元素类型，应为不可变对象
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+public final class TimeSeriesRingBuffer<T> {
+
+    private final int capacity;
+
+    private final AtomicReferenceArray<Entry<T>> entries;
+
+    /**
+     * 下一个待认领的序号，同时也是累计写入的元素数
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    public TimeSeriesRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("环形缓冲区容量必须大于0: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * 追加元素，缓冲区已满时覆盖最旧的元素
+     *
+     * @param timestamp 元素时间戳（毫秒）
+     * @param value 元素
+     */
+    public void add(long timestamp, T value) {
+        long seq = sequence.getAndIncrement();
+        entries.set(index(seq), new Entry<>(seq, timestamp, value));
+    }
+
+    /**
+     * 获取时间戳不早于指定时间的元素，按写入顺序排列
+     *
+     * @param fromTimestamp 起始时间戳（毫秒）
+     * @return 元素列表
+     */
+    public List<T> since(long fromTimestamp) {
+        long last = sequence.get() - 1;
+        long first = Math.max(0, last - capacity + 1);
+        List<T> result = new ArrayList<>();
+        for (long seq = last; seq >= first; seq--) {
+            Entry<T> entry = entries.get(index(seq));
+            if (entry == null || entry.sequence < seq) {
+                // 序号已认领但元素尚未写入
+                continue;
+            }
+            if (entry.sequence > seq || entry.timestamp < fromTimestamp) {
+                // 已被新元素覆盖，或已越过窗口起点，更早的槽位无需再看
+                break;
+            }
+            result.add(entry.value);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * 获取缓冲区中的全部元素，按写入顺序排列
+     */
+    public List<T> toList() {
+        return since(Long.MIN_VALUE);
+    }
+
+    /**
+     * 缓冲区是否保留了自指定时间起的完整数据：尚未发生覆盖，或最旧元素不晚于该时间
+     *
+     * @param fromTimestamp 起始时间戳（毫秒）
+     * @return 是否覆盖
+     */
+    public boolean covers(long fromTimestamp) {
+        long written = sequence.get();
+        if (written <= capacity) {
+            return true;
+        }
+        // 最旧槽位若恰好被覆盖，读到的是更新的元素，结论只会偏保守
+        Entry<T> oldest = entries.get(index(written - capacity));
+        return oldest != null && oldest.timestamp <= fromTimestamp;
+    }
+
+    /**
+     * 当前保留的元素数
+     */
+    public int size() {
+        return (int) Math.min(sequence.get(), capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private int index(long seq) {
+        return (int) (seq % capacity);
+    }
+
+    private static final class Entry<T> {
+        private final long sequence;
+        private final long timestamp;
+        private final T value;
+
+        Entry(long sequence, long timestamp, T value) {
+            this.sequence = sequence;
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.powertrading.datasource.service;
 
+import com.powertrading.datasource.cache.QueryCacheService;
+import com.powertrading.datasource.engine.QueryBulkheads;
 import com.powertrading.datasource.entity.DataSource;
 import com.powertrading.datasource.exception.DataSourceException;
 import com.powertrading.datasource.manager.DataSourceManager;
+import com.powertrading.datasource.metadata.MetadataSnapshotService;
+import com.powertrading.datasource.monitor.DataSourcePoolMetrics;
+import com.powertrading.datasource.monitor.PerformanceAnalysisService;
+import com.powertrading.datasource.monitor.QueryTelemetry;
 import com.powertrading.datasource.repository.DataSourceRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,6 +47,24 @@ public class DataSourceService {
     @Autowired
     private DataSourceManager dataSourceManager;
 
+    @Autowired
+    private QueryCacheService queryCacheService;
+
+    @Autowired
+    private QueryTelemetry queryTelemetry;
+
+    @Autowired
+    private PerformanceAnalysisService performanceAnalysisService;
+
+    @Autowired
+    private DataSourcePoolMetrics dataSourcePoolMetrics;
+
+    @Autowired
+    private QueryBulkheads queryBulkheads;
+
+    @Autowired
+    private MetadataSnapshotService metadataSnapshotService;
+
     /**
      * 创建数据源
      * 
@@ -66,6 +90,7 @@ public class DataSourceService {
             
             // 添加到连接管理器
             dataSourceManager.addDataSource(savedDataSource);
+            dataSourcePoolMetrics.bind(savedDataSource.getId(), savedDataSource.getName());
             
             // 更新最后连接时间
             savedDataSource.setLastConnectedAt(LocalDateTime.now());
@@ -110,6 +135,11 @@ public class DataSourceService {
             
             // 更新连接管理器
             dataSourceManager.updateDataSource(savedDataSource);
+            dataSourcePoolMetrics.bind(savedDataSource.getId(), savedDataSource.getName());
+            
+            // 配置变更后旧的查询缓存和元数据快照失效
+            queryCacheService.invalidateDataSource(id);
+            metadataSnapshotService.evict(id);
             
             logger.info("数据源更新成功: id={}, name={}", savedDataSource.getId(), savedDataSource.getName());
             return savedDataSource;
@@ -134,8 +164,8 @@ public class DataSourceService {
             DataSource dataSource = dataSourceRepository.findById(id)
                 .orElseThrow(() -> new DataSourceException("数据源不存在: " + id));
             
-            // 从连接管理器移除
-            dataSourceManager.removeDataSource(id);
+            // 从连接管理器移除并释放关联资源
+            releaseDataSource(id);
             
             // 从数据库删除
             dataSourceRepository.deleteById(id);
@@ -147,6 +177,23 @@ public class DataSourceService {
         }
     }
 
+    /**
+     * 释放数据源占用的资源
+     * 移除连接池，并清理查询缓存、元数据快照、查询统计、连接池指标和查询隔离舱；
+     * 所有移除数据源的路径（删除、禁用、动态配置删除和重载回滚）都通过该方法，避免遗留资源
+     * 
+     * @param id 数据源ID
+     */
+    public void releaseDataSource(Long id) {
+        dataSourceManager.removeDataSource(id);
+        queryCacheService.invalidateDataSource(id);
+        metadataSnapshotService.evict(id);
+        queryTelemetry.removeDataSource(id);
+        performanceAnalysisService.removeDataSource(id);
+        dataSourcePoolMetrics.unbind(id);
+        queryBulkheads.removeDataSource(id);
+    }
+
     /**
      * 根据ID获取数据源
      * 
@@ -305,11 +352,12 @@ public class DataSourceService {
             dataSourceRepository.save(dataSource);
             
             if (status == 0) {
-                // 禁用时从连接管理器移除
-                dataSourceManager.removeDataSource(id);
+                // 禁用时从连接管理器移除并释放关联资源
+                releaseDataSource(id);
             } else {
                 // 启用时添加到连接管理器
                 dataSourceManager.addDataSource(dataSource);
+                queryCacheService.invalidateDataSource(id);
             }
             
             logger.info("数据源状态更新成功: id={}, status={}", id, status);
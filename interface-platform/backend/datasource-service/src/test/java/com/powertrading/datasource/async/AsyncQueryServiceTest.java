@@ -0,0 +1,148 @@
+package com.powertrading.datasource.async;
+
+import com.powertrading.datasource.engine.BoundSql;
+import com.powertrading.datasource.engine.ColumnarQueryResult;
+import com.powertrading.datasource.engine.QueryExecutionEngine;
+import com.powertrading.datasource.exception.DataSourceException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 异步查询服务单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class AsyncQueryServiceTest {
+
+    private static final BoundSql QUERY = new BoundSql("SELECT id FROM t", Collections.emptyList());
+
+    private AsyncQueryService asyncQueryService;
+
+    private QueryExecutionEngine queryExecutionEngine;
+
+    @BeforeEach
+    void setUp() {
+        queryExecutionEngine = mock(QueryExecutionEngine.class);
+        asyncQueryService = new AsyncQueryService();
+        ReflectionTestUtils.setField(asyncQueryService, "queryExecutionEngine", queryExecutionEngine);
+        ReflectionTestUtils.setField(asyncQueryService, "poolSize", 2);
+        ReflectionTestUtils.setField(asyncQueryService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(asyncQueryService, "maxJobs", 100);
+        ReflectionTestUtils.setField(asyncQueryService, "maxRows", 1000);
+        ReflectionTestUtils.setField(asyncQueryService, "timeout", 60000L);
+        ReflectionTestUtils.setField(asyncQueryService, "resultTtl", 60000L);
+        ReflectionTestUtils.setField(asyncQueryService, "maxPageSize", 100);
+        asyncQueryService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncQueryService.destroy();
+    }
+
+    @Test
+    void testSubmit_ResultIsPaged() throws Exception {
+        ColumnarQueryResult result = readRows(5);
+        when(queryExecutionEngine.executeColumnarQuery(eq(1L), eq(QUERY), anyInt(), any())).thenReturn(result);
+
+        AsyncQueryService.JobInfo submitted = asyncQueryService.submit(1L, QUERY);
+        AsyncQueryService.JobInfo finished = awaitFinished(1L, submitted.getJobId());
+
+        assertEquals("SUCCEEDED", finished.getStatus());
+        assertEquals(5, finished.getRowCount());
+        assertNotNull(finished.getExpireTime());
+
+        AsyncQueryService.ResultPage lastPage = asyncQueryService.getResultPage(1L, submitted.getJobId(), 2, 2);
+        assertEquals(5, lastPage.getTotalRows());
+        assertEquals(3, lastPage.getTotalPages());
+        assertEquals(1, lastPage.getRows().size());
+        assertEquals(5L, ((Number) lastPage.getRows().get(0).values().iterator().next()).longValue());
+
+        // 其他数据源下查不到该任务
+        assertThrows(DataSourceException.class, () -> asyncQueryService.getJob(2L, submitted.getJobId()));
+    }
+
+    @Test
+    void testCancel_RunningStatementIsCancelled() throws Exception {
+        Statement statement = mock(Statement.class);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch cancelled = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            cancelled.countDown();
+            return null;
+        }).when(statement).cancel();
+        when(queryExecutionEngine.executeColumnarQuery(eq(1L), eq(QUERY), anyInt(), any())).thenAnswer(invocation -> {
+            QueryExecutionEngine.StatementListener listener = invocation.getArgument(3);
+            listener.beforeExecute(statement);
+            started.countDown();
+            try {
+                cancelled.await(5, TimeUnit.SECONDS);
+                throw new DataSourceException("查询执行失败: statement cancelled");
+            } finally {
+                listener.afterExecute(statement);
+            }
+        });
+
+        AsyncQueryService.JobInfo submitted = asyncQueryService.submit(1L, QUERY);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals("RUNNING", asyncQueryService.getJob(1L, submitted.getJobId()).getStatus());
+
+        asyncQueryService.cancel(1L, submitted.getJobId());
+
+        verify(statement).setQueryTimeout(60);
+        verify(statement).cancel();
+        AsyncQueryService.JobInfo finished = awaitFinished(1L, submitted.getJobId());
+        assertEquals("CANCELLED", finished.getStatus());
+        assertThrows(DataSourceException.class,
+            () -> asyncQueryService.getResultPage(1L, submitted.getJobId(), 0, 10));
+    }
+
+    @Test
+    void testEvictExpiredJobs_RemovesFinishedJobsAfterTtl() throws Exception {
+        when(queryExecutionEngine.executeColumnarQuery(eq(1L), eq(QUERY), anyInt(), any())).thenReturn(readRows(1));
+        ReflectionTestUtils.setField(asyncQueryService, "resultTtl", -1L);
+
+        AsyncQueryService.JobInfo submitted = asyncQueryService.submit(1L, QUERY);
+        awaitFinished(1L, submitted.getJobId());
+        asyncQueryService.evictExpiredJobs();
+
+        assertEquals(0, asyncQueryService.getJobCount());
+        assertThrows(DataSourceException.class, () -> asyncQueryService.getJob(1L, submitted.getJobId()));
+    }
+
+    private AsyncQueryService.JobInfo awaitFinished(Long dataSourceId, String jobId) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (System.currentTimeMillis() < deadline) {
+            AsyncQueryService.JobInfo info = asyncQueryService.getJob(dataSourceId, jobId);
+            if (AsyncQueryJob.Status.valueOf(info.getStatus()).isFinished()) {
+                return info;
+            }
+            Thread.sleep(10);
+        }
+        fail("异步查询任务未在预期时间内结束: " + jobId);
+        return null;
+    }
+
+    private ColumnarQueryResult readRows(int rows) throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:async_query_test");
+             Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT X AS ID FROM SYSTEM_RANGE(1, " + rows + ")")) {
+            return ColumnarQueryResult.read(rs, 0);
+        }
+    }
+}
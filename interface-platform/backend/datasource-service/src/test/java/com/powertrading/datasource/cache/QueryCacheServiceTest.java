@@ -0,0 +1,259 @@
+package com.powertrading.datasource.cache;
+
+import com.powertrading.datasource.exception.DataSourceException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 查询缓存服务单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class QueryCacheServiceTest {
+
+    private QueryCacheService queryCacheService;
+
+    private QueryCacheProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new QueryCacheProperties();
+        // 默认不缓存，这里配置默认存活时间以便验证缓存行为
+        properties.getQueryResult().setTtl(3600);
+        queryCacheService = new QueryCacheService();
+        ReflectionTestUtils.setField(queryCacheService, "properties", properties);
+        queryCacheService.init();
+    }
+
+    @Test
+    void testNormalizeSql_CollapsesWhitespaceOutsideQuotes() {
+        String sql = "SELECT  *\n  FROM users\tWHERE name = 'a  b' ; ";
+
+        assertEquals("SELECT * FROM users WHERE name = 'a  b'", QueryCacheService.normalizeSql(sql));
+    }
+
+    @Test
+    void testDigest_IndependentOfParameterOrderButTyped() {
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("a", 1);
+        first.put("b", "x");
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("b", "x");
+        second.put("a", 1);
+        Map<String, Object> stringTyped = new LinkedHashMap<>();
+        stringTyped.put("a", "1");
+        stringTyped.put("b", "x");
+
+        assertEquals(QueryCacheService.digest("SELECT 1", first), QueryCacheService.digest("SELECT 1", second));
+        assertNotEquals(QueryCacheService.digest("SELECT 1", first), QueryCacheService.digest("SELECT 1", stringTyped));
+    }
+
+    @Test
+    void testGetOrLoad_HitsLocalCache() throws DataSourceException {
+        AtomicInteger loads = new AtomicInteger();
+
+        String first = queryCacheService.getOrLoad(1L, null, null, "SELECT 1", new HashMap<>(),
+                () -> "result-" + loads.incrementAndGet());
+        String second = queryCacheService.getOrLoad(1L, null, null, "SELECT   1;", new HashMap<>(),
+                () -> "result-" + loads.incrementAndGet());
+
+        assertEquals("result-1", first);
+        assertEquals("result-1", second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGetOrLoad_ZeroTtlBypassesCache() throws DataSourceException {
+        AtomicInteger loads = new AtomicInteger();
+
+        queryCacheService.getOrLoad(1L, null, 0, "SELECT 1", null, loads::incrementAndGet);
+        queryCacheService.getOrLoad(1L, null, 0, "SELECT 1", null, loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetOrLoad_InterfaceTtlDisablesCache() throws DataSourceException {
+        properties.getQueryResult().getInterfaceTtl().put("if-1", 0L);
+        AtomicInteger loads = new AtomicInteger();
+
+        queryCacheService.getOrLoad(1L, "if-1", null, "SELECT 1", null, loads::incrementAndGet);
+        queryCacheService.getOrLoad(1L, "if-1", null, "SELECT 1", null, loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetOrLoad_DisabledByDefault() throws DataSourceException {
+        ReflectionTestUtils.setField(queryCacheService, "properties", new QueryCacheProperties());
+        AtomicInteger loads = new AtomicInteger();
+
+        queryCacheService.getOrLoad(1L, null, null, "SELECT 1", null, loads::incrementAndGet);
+        queryCacheService.getOrLoad(1L, null, null, "SELECT 1", null, loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetOrLoad_InterfaceTtlEnablesCache() throws DataSourceException {
+        properties.getQueryResult().setTtl(0);
+        properties.getQueryResult().getInterfaceTtl().put("if-1", 60L);
+        AtomicInteger loads = new AtomicInteger();
+
+        queryCacheService.getOrLoad(1L, "if-1", null, "SELECT 1", null, loads::incrementAndGet);
+        queryCacheService.getOrLoad(1L, "if-1", null, "SELECT 1", null, loads::incrementAndGet);
+        queryCacheService.getOrLoad(1L, "if-2", null, "SELECT 1", null, loads::incrementAndGet);
+        queryCacheService.getOrLoad(1L, "if-2", null, "SELECT 1", null, loads::incrementAndGet);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testGetOrLoad_RequestTtlEnablesCache() throws DataSourceException {
+        properties.getQueryResult().setTtl(0);
+        AtomicInteger loads = new AtomicInteger();
+
+        queryCacheService.getOrLoad(1L, null, 60, "SELECT 1", null, loads::incrementAndGet);
+        queryCacheService.getOrLoad(1L, null, 60, "SELECT 1", null, loads::incrementAndGet);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testInvalidateDataSource_ReloadsAfterInvalidation() throws DataSourceException {
+        AtomicInteger loads = new AtomicInteger();
+
+        queryCacheService.getOrLoad(1L, null, null, "SELECT 1", null, loads::incrementAndGet);
+        queryCacheService.getOrLoad(2L, null, null, "SELECT 1", null, loads::incrementAndGet);
+        queryCacheService.invalidateDataSource(1L);
+        queryCacheService.getOrLoad(1L, null, null, "SELECT 1", null, loads::incrementAndGet);
+        queryCacheService.getOrLoad(2L, null, null, "SELECT 1", null, loads::incrementAndGet);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testGetOrLoad_ConcurrentCallersShareSingleLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            Future<Integer> leader = executor.submit(() -> queryCacheService.getOrLoad(1L, null, null,
+                    "SELECT 1", null, () -> {
+                        loading.countDown();
+                        awaitQuietly(release);
+                        return loads.incrementAndGet();
+                    }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            Future<Integer> follower = executor.submit(() -> queryCacheService.getOrLoad(1L, null, null,
+                    "SELECT 1", null, loads::incrementAndGet));
+            // 等待跟随者进入等待状态
+            while (queryCacheService.getStatistics().getSharedLoads() == 0) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            assertEquals(1, leader.get(5, TimeUnit.SECONDS));
+            assertEquals(1, follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGetOrLoad_LoaderFailureNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThrows(DataSourceException.class, () -> queryCacheService.getOrLoad(1L, null, null,
+                "SELECT 1", null, () -> {
+                    loads.incrementAndGet();
+                    throw new DataSourceException("查询失败");
+                }));
+        assertDoesNotThrow(() -> queryCacheService.getOrLoad(1L, null, null, "SELECT 1", null,
+                loads::incrementAndGet));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testGetOrLoad_FollowerWaitIsBounded() throws Exception {
+        properties.setLoadWaitTimeout(50);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<Integer> leader = executor.submit(() -> queryCacheService.getOrLoad(1L, null, null,
+                    "SELECT 1", null, () -> {
+                        loading.countDown();
+                        awaitQuietly(release);
+                        return 1;
+                    }));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            DataSourceException e = assertThrows(DataSourceException.class, () -> queryCacheService.getOrLoad(1L,
+                    null, null, "SELECT 1", null, () -> 2));
+            assertEquals("等待查询结果超时", e.getMessage());
+
+            release.countDown();
+            assertEquals(1, leader.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRemoteKey_GenerationCachedLocallyAndRefreshedOnInvalidate() throws DataSourceException {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("datasource:cache:generation:1")).thenReturn(3L);
+        when(valueOperations.increment("datasource:cache:generation:1")).thenReturn(4L);
+        ReflectionTestUtils.setField(queryCacheService, "redisTemplate", redisTemplate);
+
+        queryCacheService.getOrLoad(1L, null, null, "SELECT 1", null, () -> 1);
+        queryCacheService.getOrLoad(1L, null, null, "SELECT 2", null, () -> 2);
+
+        // 代数只读取一次，读写Redis缓存均使用该代数
+        verify(valueOperations, times(1)).get("datasource:cache:generation:1");
+        verify(valueOperations, times(2)).set(startsWith("datasource:cache:query:1:3:"), any(), anyLong(), any());
+
+        // 本实例递增代数后直接使用新代数
+        queryCacheService.invalidateDataSource(1L);
+        queryCacheService.getOrLoad(1L, null, null, "SELECT 1", null, () -> 1);
+
+        verify(valueOperations, times(1)).get("datasource:cache:generation:1");
+        verify(valueOperations).set(startsWith("datasource:cache:query:1:4:"), any(), anyLong(), any());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
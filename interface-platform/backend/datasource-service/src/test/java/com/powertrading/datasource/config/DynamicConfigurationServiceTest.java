@@ -0,0 +1,264 @@
+package com.powertrading.datasource.config;
+
+import com.powertrading.datasource.entity.DataSource;
+import com.powertrading.datasource.exception.DataSourceException;
+import com.powertrading.datasource.manager.DataSourceManager;
+import com.powertrading.datasource.repository.DataSourceRepository;
+import com.powertrading.datasource.service.DataSourceService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 动态配置管理服务单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class DynamicConfigurationServiceTest {
+
+    private DynamicConfigurationService configurationService;
+
+    private DataSourceRepository dataSourceRepository;
+
+    private DataSourceManager dataSourceManager;
+
+    private DataSourceService dataSourceService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        dataSourceRepository = mock(DataSourceRepository.class);
+        dataSourceManager = mock(DataSourceManager.class);
+        dataSourceService = mock(DataSourceService.class);
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        ValueOperations<String, Object> valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), any(), anyLong(), any(TimeUnit.class))).thenReturn(true);
+        when(dataSourceRepository.save(any(DataSource.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        configurationService = new DynamicConfigurationService();
+        ReflectionTestUtils.setField(configurationService, "dataSourceRepository", dataSourceRepository);
+        ReflectionTestUtils.setField(configurationService, "dataSourceManager", dataSourceManager);
+        ReflectionTestUtils.setField(configurationService, "dataSourceService", dataSourceService);
+        ReflectionTestUtils.setField(configurationService, "redisTemplate", redisTemplate);
+        ReflectionTestUtils.setField(configurationService, "eventPublisher", mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(configurationService, "bulkParallelism", 3);
+        configurationService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        configurationService.destroy();
+    }
+
+    @Test
+    void testReloadAll_RebuildsPoolsInParallel() throws Exception {
+        List<DataSource> dataSources = Arrays.asList(dataSource(1L, "a"), dataSource(2L, "b"), dataSource(3L, "c"));
+        when(dataSourceRepository.findEnabledDataSources()).thenReturn(dataSources);
+        // 三个连接池都开始重建后才放行，串行执行时会超时失败
+        CountDownLatch allStarted = new CountDownLatch(3);
+        doAnswer(invocation -> {
+            allStarted.countDown();
+            if (!allStarted.await(5, TimeUnit.SECONDS)) {
+                throw new DataSourceException("连接池未并行重建");
+            }
+            return null;
+        }).when(dataSourceManager).updateDataSource(any(DataSource.class));
+
+        DynamicConfigurationService.ReloadResult result =
+            configurationService.reloadAllDataSources().get(10, TimeUnit.SECONDS);
+
+        assertTrue(result.isSuccess());
+        assertEquals(3, result.getSuccessCount());
+        assertEquals(0, result.getFailureCount());
+    }
+
+    @Test
+    void testReloadAll_PartialFailureRolledBack() throws Exception {
+        DataSource first = dataSource(1L, "a");
+        DataSource second = dataSource(2L, "b");
+        DataSource previousFirst = dataSource(1L, "a-before-reload");
+        when(dataSourceRepository.findEnabledDataSources()).thenReturn(Arrays.asList(first, second));
+        when(dataSourceManager.getDataSourceConfig(1L)).thenReturn(previousFirst);
+        doThrow(new DataSourceException("连接失败")).when(dataSourceManager).updateDataSource(second);
+
+        DynamicConfigurationService.ReloadResult result =
+            configurationService.reloadAllDataSources(true).get(10, TimeUnit.SECONDS);
+
+        assertFalse(result.isSuccess());
+        assertTrue(result.isRolledBack());
+        assertEquals(Collections.singletonList(2L), result.getFailedDataSourceIds());
+        assertEquals(0, result.getSuccessCount());
+        assertTrue(result.getRollbackErrors().isEmpty());
+        verify(dataSourceManager).updateDataSource(first);
+        verify(dataSourceManager).updateDataSource(previousFirst);
+    }
+
+    @Test
+    void testReloadAll_RunsOnDedicatedThreadNotCommonPool() throws Exception {
+        AtomicReference<String> reloadThread = new AtomicReference<>();
+        when(dataSourceRepository.findEnabledDataSources()).thenAnswer(invocation -> {
+            reloadThread.set(Thread.currentThread().getName());
+            return Collections.singletonList(dataSource(1L, "a"));
+        });
+
+        configurationService.reloadAllDataSources().get(10, TimeUnit.SECONDS);
+
+        assertEquals("datasource-bulk-reload", reloadThread.get());
+    }
+
+    @Test
+    void testReloadAll_RollbackReleasesDataSourceNotLoadedBefore() throws Exception {
+        DataSource first = dataSource(1L, "a");
+        DataSource second = dataSource(2L, "b");
+        when(dataSourceRepository.findEnabledDataSources()).thenReturn(Arrays.asList(first, second));
+        doThrow(new DataSourceException("连接失败")).when(dataSourceManager).updateDataSource(second);
+
+        DynamicConfigurationService.ReloadResult result =
+            configurationService.reloadAllDataSources(true).get(10, TimeUnit.SECONDS);
+
+        assertTrue(result.isRolledBack());
+        verify(dataSourceService).releaseDataSource(1L);
+        verify(dataSourceManager, never()).removeDataSource(anyLong());
+    }
+
+    @Test
+    void testDelete_ReleasesDataSourceResources() throws Exception {
+        when(dataSourceRepository.findById(1L)).thenReturn(Optional.of(dataSource(1L, "a")));
+
+        DynamicConfigurationService.ConfigurationResult result = configurationService.deleteDataSourceDynamically(1L);
+
+        assertTrue(result.isSuccess());
+        verify(dataSourceService).releaseDataSource(1L);
+        verify(dataSourceRepository).deleteById(1L);
+        verify(dataSourceManager, never()).removeDataSource(anyLong());
+    }
+
+    @Test
+    void testBatch_SameDataSourceOperationsStopAfterFailure() {
+        DataSource other = dataSource(2L, "b");
+        when(dataSourceRepository.findById(1L)).thenReturn(Optional.empty());
+        when(dataSourceRepository.findById(2L)).thenReturn(Optional.of(other));
+
+        DynamicConfigurationService.BatchConfigurationResult result = configurationService.batchConfigurationOperations(
+            Arrays.asList(update(1L, dataSource(1L, "a")), update(1L, dataSource(1L, "a2")), update(2L, dataSource(2L, "b"))));
+
+        List<DynamicConfigurationService.ConfigurationResult> results = result.getResults();
+        assertEquals(3, results.size());
+        assertFalse(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertEquals("同一数据源的前序操作失败，未执行", results.get(1).getErrorMessage());
+        assertTrue(results.get(2).isSuccess());
+        assertEquals(1, result.getSuccessCount());
+        assertFalse(result.isRolledBack());
+    }
+
+    @Test
+    void testBatch_FailureRollsBackSucceededOperations() throws Exception {
+        DataSource stored = dataSource(1L, "a");
+        stored.setUrl("jdbc:mysql://old-host:3306/db");
+        when(dataSourceRepository.findById(1L)).thenReturn(Optional.of(stored));
+        when(dataSourceRepository.findById(2L)).thenReturn(Optional.empty());
+
+        DataSource rotated = dataSource(1L, "a");
+        rotated.setUrl("jdbc:mysql://new-host:3306/db");
+
+        DynamicConfigurationService.BatchConfigurationResult result = configurationService.batchConfigurationOperations(
+            Arrays.asList(update(1L, rotated), update(2L, dataSource(2L, "b")),
+                operation(DynamicConfigurationService.BatchOperation.OperationType.DELETE, 3L, null)), true);
+
+        assertTrue(result.isRolledBack());
+        assertTrue(result.getRollbackErrors().isEmpty());
+        assertEquals(0, result.getSuccessCount());
+        assertEquals("jdbc:mysql://old-host:3306/db", stored.getUrl());
+        assertEquals("批量操作已回滚，未执行", result.getResults().get(2).getErrorMessage());
+        verify(dataSourceManager, times(2)).updateDataSource(stored);
+        verify(dataSourceRepository, never()).deleteById(3L);
+    }
+
+    @Test
+    void testBatch_RollbackRestoresSavedConfigWhenHotReloadFailed() throws Exception {
+        DataSource stored = dataSource(1L, "a");
+        stored.setUrl("jdbc:mysql://old-host:3306/db");
+        when(dataSourceRepository.findById(1L)).thenReturn(Optional.of(stored));
+
+        DataSource rotated = dataSource(1L, "a");
+        rotated.setUrl("jdbc:mysql://new-host:3306/db");
+        doAnswer(invocation -> {
+            if (((DataSource) invocation.getArgument(0)).getUrl().contains("new-host")) {
+                throw new DataSourceException("新连接池预热失败");
+            }
+            return null;
+        }).when(dataSourceManager).updateDataSource(any(DataSource.class));
+
+        DynamicConfigurationService.BatchConfigurationResult result = configurationService.batchConfigurationOperations(
+            Collections.singletonList(update(1L, rotated)), true);
+
+        assertTrue(result.isRolledBack());
+        assertTrue(result.getRollbackErrors().isEmpty());
+        assertFalse(result.getResults().get(0).isSuccess());
+        // 新配置已保存，回滚后数据库恢复为原配置，连接池未切换无需再次重建
+        assertEquals("jdbc:mysql://old-host:3306/db", stored.getUrl());
+        verify(dataSourceRepository, times(2)).save(stored);
+        verify(dataSourceManager, times(1)).updateDataSource(any(DataSource.class));
+    }
+
+    @Test
+    void testBulkEntryPoints_RunOutsideTransaction() throws Exception {
+        // 工作线程中的操作各自提交，批量入口不持有事务和连接
+        assertNotSupported(DynamicConfigurationService.class.getMethod("batchConfigurationOperations", List.class));
+        assertNotSupported(DynamicConfigurationService.class.getMethod("batchConfigurationOperations",
+            List.class, boolean.class));
+        assertNotSupported(DynamicConfigurationService.class.getMethod("reloadAllDataSources"));
+        assertNotSupported(DynamicConfigurationService.class.getMethod("reloadAllDataSources", boolean.class));
+    }
+
+    private static void assertNotSupported(java.lang.reflect.Method method) {
+        Transactional transactional = method.getAnnotation(Transactional.class);
+        assertNotNull(transactional, method.toString());
+        assertEquals(Propagation.NOT_SUPPORTED, transactional.propagation(), method.toString());
+    }
+
+    private static DynamicConfigurationService.BatchOperation update(Long id, DataSource dataSource) {
+        return operation(DynamicConfigurationService.BatchOperation.OperationType.UPDATE, id, dataSource);
+    }
+
+    private static DynamicConfigurationService.BatchOperation operation(
+            DynamicConfigurationService.BatchOperation.OperationType type, Long id, DataSource dataSource) {
+        DynamicConfigurationService.BatchOperation operation = new DynamicConfigurationService.BatchOperation();
+        operation.setOperationType(type);
+        operation.setDataSourceId(id);
+        operation.setDataSource(dataSource);
+        return operation;
+    }
+
+    private static DataSource dataSource(Long id, String name) {
+        DataSource dataSource = new DataSource();
+        dataSource.setId(id);
+        dataSource.setName(name);
+        dataSource.setType("mysql");
+        dataSource.setUrl("jdbc:mysql://localhost:3306/" + name);
+        dataSource.setUsername("user");
+        dataSource.setPassword("pass");
+        return dataSource;
+    }
+}
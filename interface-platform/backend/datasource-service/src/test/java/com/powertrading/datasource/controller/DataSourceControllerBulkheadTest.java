@@ -0,0 +1,145 @@
+package com.powertrading.datasource.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.powertrading.datasource.cache.QueryCacheService;
+import com.powertrading.datasource.engine.BoundSql;
+import com.powertrading.datasource.engine.QueryBulkheads;
+import com.powertrading.datasource.engine.QueryExecutionEngine;
+import com.powertrading.datasource.exception.DataSourceException;
+import com.powertrading.datasource.manager.DataSourceManager;
+import com.powertrading.datasource.monitor.QueryTelemetry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * 数据源控制器隔离舱拒绝测试
+ * 使用真实的查询执行引擎和已占满的隔离舱，验证拒绝异常穿过引擎和缓存后返回429；
+ * NDJSON查询在发送响应头之前失败时返回错误状态码
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+@ExtendWith(MockitoExtension.class)
+class DataSourceControllerBulkheadTest {
+
+    @Mock
+    private DataSourceManager dataSourceManager;
+
+    @Mock
+    private QueryTelemetry queryTelemetry;
+
+    @Mock
+    private QueryCacheService queryCacheService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private QueryBulkheads queryBulkheads;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        queryBulkheads = new QueryBulkheads();
+        ReflectionTestUtils.setField(queryBulkheads, "enabled", true);
+        ReflectionTestUtils.setField(queryBulkheads, "algorithm", QueryBulkheads.LimitAlgorithm.GRADIENT);
+        ReflectionTestUtils.setField(queryBulkheads, "initialLimit", 1);
+        ReflectionTestUtils.setField(queryBulkheads, "minLimit", 1);
+        ReflectionTestUtils.setField(queryBulkheads, "maxLimit", 1);
+        ReflectionTestUtils.setField(queryBulkheads, "maxQueue", 0);
+        ReflectionTestUtils.setField(queryBulkheads, "maxWait", 2000L);
+        // 占满数据源1的并发
+        queryBulkheads.acquire(1L);
+
+        QueryExecutionEngine queryExecutionEngine = new QueryExecutionEngine();
+        ReflectionTestUtils.setField(queryExecutionEngine, "dataSourceManager", dataSourceManager);
+        ReflectionTestUtils.setField(queryExecutionEngine, "queryTelemetry", queryTelemetry);
+        ReflectionTestUtils.setField(queryExecutionEngine, "queryBulkheads", queryBulkheads);
+        ReflectionTestUtils.setField(queryExecutionEngine, "queryTimeout", 30000);
+        ReflectionTestUtils.setField(queryExecutionEngine, "maxRows", 10000);
+        ReflectionTestUtils.setField(queryExecutionEngine, "fetchSize", 1000);
+        ReflectionTestUtils.setField(queryExecutionEngine, "streamMaxRows", 10000);
+
+        DataSourceController controller = new DataSourceController();
+        ReflectionTestUtils.setField(controller, "queryExecutionEngine", queryExecutionEngine);
+        ReflectionTestUtils.setField(controller, "queryCacheService", queryCacheService);
+        ReflectionTestUtils.setField(controller, "queryBulkheads", queryBulkheads);
+        ReflectionTestUtils.setField(controller, "objectMapper", objectMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void testExecuteQuery_BulkheadFullReturns429() throws Exception {
+        // 缓存未命中，直接执行加载器
+        when(queryCacheService.getOrLoad(eq(1L), any(), any(), any(BoundSql.class), any()))
+            .thenAnswer(invocation -> invocation.getArgument(4, QueryCacheService.QueryLoader.class).load());
+
+        mockMvc.perform(post("/api/datasources/1/query")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody()))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+            .andExpect(jsonPath("$.success").value(false));
+
+        verify(dataSourceManager, never()).getConnection(anyLong());
+    }
+
+    @Test
+    void testExecuteQueryStream_BulkheadFullReturns429() throws Exception {
+        mockMvc.perform(post("/api/datasources/1/query-stream")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody()))
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+
+        verify(dataSourceManager, never()).getConnection(anyLong());
+    }
+
+    @Test
+    void testExecuteQueryNdjson_BulkheadFullReturns429BeforeStreaming() throws Exception {
+        mockMvc.perform(post("/api/datasources/1/query-ndjson")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody()))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isTooManyRequests())
+            .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+            .andExpect(jsonPath("$.success").value(false));
+
+        verify(dataSourceManager, never()).getConnection(anyLong());
+    }
+
+    @Test
+    void testExecuteQueryNdjson_ConnectionFailureReturns400BeforeStreaming() throws Exception {
+        when(dataSourceManager.getConnection(2L)).thenThrow(new DataSourceException("数据源不存在或未初始化: 2"));
+
+        mockMvc.perform(post("/api/datasources/2/query-ndjson")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(requestBody()))
+            .andExpect(request().asyncNotStarted())
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.success").value(false))
+            .andExpect(jsonPath("$.message").value("数据源不存在或未初始化: 2"));
+
+        // 打开失败时隔离舱许可已归还
+        assertEquals(0, queryBulkheads.getAllStatus().get(2L).getInflight());
+    }
+
+    private String requestBody() throws Exception {
+        DataSourceController.QueryRequest request = new DataSourceController.QueryRequest();
+        request.setSql("SELECT id, name FROM users");
+        return objectMapper.writeValueAsString(request);
+    }
+}
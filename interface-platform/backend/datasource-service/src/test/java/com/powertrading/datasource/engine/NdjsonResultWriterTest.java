@@ -0,0 +1,103 @@
+package com.powertrading.datasource.engine;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NDJSON查询结果写出器单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class NdjsonResultWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:ndjson_writer_test;DB_CLOSE_DELAY=-1");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE trade (id INT, name VARCHAR(32), price DOUBLE, active BOOLEAN)");
+            stmt.execute("INSERT INTO trade VALUES (1, 'a\"b', 1.5, TRUE), (2, NULL, NULL, NULL), (3, 'c', 3.0, FALSE)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE trade");
+        }
+        connection.close();
+    }
+
+    @Test
+    void testWriteRows_OneJsonValuePerLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int rowCount;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, name, price, active FROM trade ORDER BY id");
+             JsonGenerator gen = NdjsonResultWriter.createGenerator(objectMapper, out)) {
+            rowCount = NdjsonResultWriter.writeRows(rs, gen, 0, 2);
+            NdjsonResultWriter.writeEnd(gen, rowCount, 5L);
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(3, rowCount);
+        assertEquals(5, lines.length);
+
+        JsonNode meta = objectMapper.readTree(lines[0]);
+        assertEquals("meta", meta.get("type").asText());
+        assertEquals(4, meta.get("columns").size());
+        assertEquals("NAME", meta.get("columns").get(1).get("name").asText().toUpperCase());
+
+        JsonNode first = objectMapper.readTree(lines[1]);
+        assertEquals(1, first.get(0).asLong());
+        assertEquals("a\"b", first.get(1).asText());
+        assertEquals(1.5, first.get(2).asDouble());
+        assertTrue(first.get(3).asBoolean());
+
+        JsonNode second = objectMapper.readTree(lines[2]);
+        assertTrue(second.get(1).isNull());
+        assertTrue(second.get(2).isNull());
+        assertTrue(second.get(3).isNull());
+
+        JsonNode end = objectMapper.readTree(lines[4]);
+        assertEquals("end", end.get("type").asText());
+        assertEquals(3, end.get("rowCount").asInt());
+        assertEquals(5L, end.get("executionTime").asLong());
+    }
+
+    @Test
+    void testWriteRows_MaxRowsAndErrorLine() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int rowCount;
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id FROM trade ORDER BY id");
+             JsonGenerator gen = NdjsonResultWriter.createGenerator(objectMapper, out)) {
+            rowCount = NdjsonResultWriter.writeRows(rs, gen, 2, 500);
+            NdjsonResultWriter.writeError(gen, "查询执行失败");
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(2, rowCount);
+        assertEquals(4, lines.length);
+        JsonNode error = objectMapper.readTree(lines[3]);
+        assertEquals("error", error.get("type").asText());
+        assertEquals("查询执行失败", error.get("message").asText());
+    }
+}
@@ -0,0 +1,180 @@
+package com.powertrading.datasource.engine;
+
+import com.powertrading.datasource.exception.QueryRejectedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数据源查询隔离舱单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class QueryBulkheadsTest {
+
+    private QueryBulkheads queryBulkheads;
+
+    @BeforeEach
+    void setUp() {
+        queryBulkheads = new QueryBulkheads();
+        ReflectionTestUtils.setField(queryBulkheads, "enabled", true);
+        ReflectionTestUtils.setField(queryBulkheads, "algorithm", QueryBulkheads.LimitAlgorithm.GRADIENT);
+        ReflectionTestUtils.setField(queryBulkheads, "initialLimit", 2);
+        ReflectionTestUtils.setField(queryBulkheads, "minLimit", 1);
+        ReflectionTestUtils.setField(queryBulkheads, "maxLimit", 10);
+        ReflectionTestUtils.setField(queryBulkheads, "maxQueue", 0);
+        ReflectionTestUtils.setField(queryBulkheads, "maxWait", 100L);
+        ReflectionTestUtils.setField(queryBulkheads, "backgroundLimit", 1);
+        ReflectionTestUtils.setField(queryBulkheads, "backgroundMaxQueue", 10);
+        ReflectionTestUtils.setField(queryBulkheads, "backgroundMaxWait", 5000L);
+    }
+
+    @Test
+    void testLimitReached_QueueFullRejectedWithRetryAfter() throws Exception {
+        queryBulkheads.acquire(1L);
+        queryBulkheads.acquire(1L);
+
+        QueryRejectedException exception = assertThrows(QueryRejectedException.class, () -> queryBulkheads.acquire(1L));
+        assertEquals(QueryRejectedException.ERROR_CODE, exception.getErrorCode());
+        assertTrue(exception.getRetryAfterMillis() >= 100);
+        assertTrue(exception.getRetryAfterSeconds() >= 1);
+
+        // 其他数据源不受影响
+        assertNotNull(queryBulkheads.acquire(2L));
+
+        QueryBulkheads.BulkheadStatus status = queryBulkheads.getAllStatus().get(1L);
+        assertEquals(2, status.getInflight());
+        assertEquals(1, status.getRejectedCount());
+    }
+
+    @Test
+    void testQueuedQuery_AdmittedOnRelease() throws Exception {
+        ReflectionTestUtils.setField(queryBulkheads, "initialLimit", 1);
+        ReflectionTestUtils.setField(queryBulkheads, "maxQueue", 1);
+        ReflectionTestUtils.setField(queryBulkheads, "maxWait", 5000L);
+        QueryBulkheads.Permit first = queryBulkheads.acquire(1L);
+
+        CompletableFuture<QueryBulkheads.Permit> queued = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queryBulkheads.acquire(1L);
+            } catch (QueryRejectedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long deadline = System.currentTimeMillis() + 5000;
+        while (queryBulkheads.getAllStatus().get(1L).getWaiting() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, queryBulkheads.getAllStatus().get(1L).getWaiting());
+        assertThrows(QueryRejectedException.class, () -> queryBulkheads.acquire(1L));
+
+        first.release(-1, false);
+        // 重复释放不影响计数
+        first.release(-1, false);
+
+        assertNotNull(queued.get(5, TimeUnit.SECONDS));
+        QueryBulkheads.BulkheadStatus status = queryBulkheads.getAllStatus().get(1L);
+        assertEquals(1, status.getInflight());
+        assertEquals(0, status.getWaiting());
+    }
+
+    @Test
+    void testQueuedQuery_RejectedAfterMaxWait() throws Exception {
+        ReflectionTestUtils.setField(queryBulkheads, "initialLimit", 1);
+        ReflectionTestUtils.setField(queryBulkheads, "maxQueue", 1);
+        ReflectionTestUtils.setField(queryBulkheads, "maxWait", 50L);
+        queryBulkheads.acquire(1L);
+
+        QueryRejectedException exception = assertThrows(QueryRejectedException.class, () -> queryBulkheads.acquire(1L));
+        assertTrue(exception.getMessage().contains("排队超时"));
+        assertEquals(0, queryBulkheads.getAllStatus().get(1L).getWaiting());
+    }
+
+    @Test
+    void testAimdLimit_BacksOffOnOverloadAndGrowsUnderLoad() {
+        QueryBulkheads.AimdLimit limit = new QueryBulkheads.AimdLimit(10, 2, 20, TimeUnit.SECONDS.toNanos(1), 0.9);
+
+        limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), 6, false);
+        assertEquals(11, limit.get());
+
+        // 并发未用满一半时不增长
+        limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), 1, false);
+        assertEquals(11, limit.get());
+
+        limit.onSample(-1, 11, true);
+        assertEquals(9, limit.get());
+
+        limit.onSample(TimeUnit.SECONDS.toNanos(2), 9, false);
+        assertEquals(8, limit.get());
+    }
+
+    @Test
+    void testGradientLimit_ShrinksWhenLatencyRises() {
+        QueryBulkheads.GradientLimit limit = new QueryBulkheads.GradientLimit(20, 2, 100);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(10), limit.get(), false);
+        }
+        int grown = limit.get();
+        assertTrue(grown > 20);
+
+        for (int i = 0; i < 30; i++) {
+            limit.onSample(TimeUnit.MILLISECONDS.toNanos(100), limit.get(), false);
+        }
+        assertTrue(limit.get() < grown);
+
+        int beforeDrop = limit.get();
+        limit.onSample(-1, beforeDrop, true);
+        assertTrue(limit.get() <= (beforeDrop + 1) / 2);
+    }
+
+    @Test
+    void testBackground_IndependentOfInteractiveAndWaitsForPermit() throws Exception {
+        // 交互查询并发占满时后台查询仍可准入
+        queryBulkheads.acquire(1L);
+        queryBulkheads.acquire(1L);
+        QueryBulkheads.Permit background = queryBulkheads.acquireBackground(1L);
+        assertEquals(2, queryBulkheads.getAllStatus().get(1L).getInflight());
+
+        // 后台并发用满后排队等待而不是立即拒绝
+        CompletableFuture<QueryBulkheads.Permit> queued = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queryBulkheads.acquireBackground(1L);
+            } catch (QueryRejectedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(200);
+        assertFalse(queued.isDone());
+
+        background.release(-1, false);
+        assertNotNull(queued.get(5, TimeUnit.SECONDS));
+
+        queryBulkheads.removeDataSource(1L);
+        assertNotNull(queryBulkheads.acquireBackground(1L));
+    }
+
+    @Test
+    void testDisabled_ReturnsNoopPermit() throws Exception {
+        QueryBulkheads disabled = new QueryBulkheads();
+
+        QueryBulkheads.Permit permit = disabled.acquire(1L);
+        permit.release(1000, false);
+
+        assertSame(permit, disabled.acquire(1L));
+        assertTrue(disabled.getAllStatus().isEmpty());
+    }
+
+    @Test
+    void testRemoveDataSource_DropsBulkhead() throws Exception {
+        queryBulkheads.acquire(1L);
+        queryBulkheads.removeDataSource(1L);
+
+        assertFalse(queryBulkheads.getAllStatus().containsKey(1L));
+    }
+}
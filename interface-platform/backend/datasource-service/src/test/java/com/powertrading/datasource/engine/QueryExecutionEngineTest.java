@@ -1,15 +1,23 @@
 package com.powertrading.datasource.engine;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.powertrading.datasource.exception.DataSourceException;
+import com.powertrading.datasource.exception.QueryRejectedException;
 import com.powertrading.datasource.manager.DataSourceManager;
+import com.powertrading.datasource.monitor.QueryTelemetry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayOutputStream;
 import java.sql.*;
 import java.util.HashMap;
 import java.util.List;
@@ -31,6 +39,9 @@ class QueryExecutionEngineTest {
     @Mock
     private DataSourceManager dataSourceManager;
 
+    @Mock
+    private QueryTelemetry queryTelemetry;
+
     @Mock
     private Connection connection;
 
@@ -46,6 +57,9 @@ class QueryExecutionEngineTest {
     @Mock
     private DatabaseMetaData databaseMetaData;
 
+    @Spy
+    private QueryBulkheads queryBulkheads = new QueryBulkheads();
+
     @InjectMocks
     private QueryExecutionEngine queryExecutionEngine;
 
@@ -112,6 +126,61 @@ class QueryExecutionEngineTest {
         verify(dataSourceManager).getConnection(dataSourceId);
         verify(connection).prepareStatement(anyString());
         verify(preparedStatement).executeQuery();
+        
+        // 验证执行轨迹已记录
+        ArgumentCaptor<QueryTrace> trace = ArgumentCaptor.forClass(QueryTrace.class);
+        verify(queryTelemetry).record(trace.capture());
+        assertTrue(trace.getValue().isSuccess());
+        assertTrue(trace.getValue().isExecuted());
+        assertEquals(2, trace.getValue().getRowCount());
+        assertTrue(trace.getValue().getResultBytes() > 0);
+        assertTrue(trace.getValue().getTotalNanos() >= trace.getValue().getFetchNanos());
+    }
+
+    @Test
+    void testExecuteColumnarQuery_Success() throws Exception {
+        // Given
+        Long dataSourceId = 1L;
+        String sql = "SELECT id, name FROM users";
+
+        when(dataSourceManager.getConnection(dataSourceId)).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(resultSetMetaData);
+        
+        when(resultSetMetaData.getColumnCount()).thenReturn(2);
+        when(resultSetMetaData.getColumnName(1)).thenReturn("id");
+        when(resultSetMetaData.getColumnName(2)).thenReturn("name");
+        when(resultSetMetaData.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(resultSetMetaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+        
+        // 第二行name为NULL
+        when(resultSet.next()).thenReturn(true, true, false);
+        when(resultSet.getLong(1)).thenReturn(1L, 2L);
+        when(resultSet.getObject(2)).thenReturn("Alice", null);
+
+        // When
+        ColumnarQueryResult result = queryExecutionEngine.executeColumnarQuery(dataSourceId, sql, new HashMap<>());
+
+        // Then
+        assertEquals(2, result.getRowCount());
+        assertEquals(2, result.getColumnCount());
+        
+        ColumnarQueryResult.RowCursor cursor = result.cursor();
+        assertTrue(cursor.next());
+        assertEquals(1L, cursor.getLong(0));
+        assertEquals("Alice", cursor.getObject(1));
+        assertTrue(cursor.next());
+        assertEquals(2L, cursor.getLong(0));
+        assertTrue(cursor.isNull(1));
+        assertFalse(cursor.next());
+        
+        List<Map<String, Object>> rows = result.toRowMaps();
+        assertEquals(1L, rows.get(0).get("id"));
+        assertNull(rows.get(1).get("name"));
+        
+        // 列名只解析一次
+        verify(resultSetMetaData, times(1)).getColumnName(1);
     }
 
     @Test
@@ -201,6 +270,57 @@ class QueryExecutionEngineTest {
         verify(dataSourceManager, never()).getConnection(any());
     }
 
+    @Test
+    void testExecuteUpdate_AdmittedThroughBulkhead() throws Exception {
+        // Given: 数据源只允许一个并发语句且不排队
+        enableBulkhead(1);
+        String sql = "UPDATE users SET name = ? WHERE id = ?";
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("name", "Updated Name");
+        parameters.put("id", 1L);
+
+        when(dataSourceManager.getConnection(1L)).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeUpdate()).thenReturn(1);
+
+        // When: 连续执行时许可已归还
+        assertEquals(1, queryExecutionEngine.executeUpdate(1L, sql, parameters));
+        assertEquals(1, queryExecutionEngine.executeUpdate(1L, sql, parameters));
+        assertEquals(0, queryBulkheads.getAllStatus().get(1L).getInflight());
+
+        // Then: 并发占满时被拒绝，拒绝异常不被包装
+        queryBulkheads.acquire(1L);
+        assertThrows(QueryRejectedException.class, () -> queryExecutionEngine.executeUpdate(1L, sql, parameters));
+        verify(dataSourceManager, times(2)).getConnection(1L);
+    }
+
+    @Test
+    void testExecuteColumnarQuery_CancellableUsesBackgroundBulkhead() throws Exception {
+        // Given: 交互查询的并发已占满
+        enableBulkhead(1);
+        queryBulkheads.acquire(1L);
+        BoundSql boundSql = queryExecutionEngine.bind("SELECT id FROM users", new HashMap<>(), null);
+
+        when(dataSourceManager.getConnection(1L)).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(resultSetMetaData);
+        when(resultSetMetaData.getColumnCount()).thenReturn(1);
+        when(resultSetMetaData.getColumnName(1)).thenReturn("id");
+        when(resultSetMetaData.getColumnType(1)).thenReturn(Types.BIGINT);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getLong(1)).thenReturn(1L);
+
+        // When
+        ColumnarQueryResult result = queryExecutionEngine.executeColumnarQuery(1L, boundSql, 100,
+            mock(QueryExecutionEngine.StatementListener.class));
+
+        // Then: 异步任务经后台隔离舱准入，不受交互查询并发影响
+        assertEquals(1, result.getRowCount());
+        verify(queryBulkheads).acquireBackground(1L);
+        assertEquals(1, queryBulkheads.getAllStatus().get(1L).getInflight());
+    }
+
     @Test
     void testGetTableMetadata_Success() throws Exception {
         // Given
@@ -290,46 +410,230 @@ class QueryExecutionEngineTest {
     }
 
     @Test
-    void testProcessDynamicSql() {
+    void testBind_NamedParametersBecomePlaceholders() throws Exception {
         // Given
-        String sql = "SELECT * FROM users WHERE status = #{status} AND name = #{name}";
+        String sql = "SELECT * FROM users WHERE status = #{status} AND name = #{name} OR owner = #{name}";
         Map<String, Object> parameters = new HashMap<>();
         parameters.put("status", 1);
         parameters.put("name", "Alice");
 
         // When
-        String result = invokeProcessDynamicSql(sql, parameters);
+        BoundSql result = queryExecutionEngine.bind(sql, parameters, null);
 
         // Then
-        assertEquals("SELECT * FROM users WHERE status = 1 AND name = 'Alice'", result);
+        assertEquals("SELECT * FROM users WHERE status = ? AND name = ? OR owner = ?", result.getSql());
+        assertEquals(3, result.getParameters().size());
+        assertEquals(1, result.getParameters().get(0).getValue());
+        assertEquals("Alice", result.getParameters().get(1).getValue());
+        assertEquals("Alice", result.getParameters().get(2).getValue());
     }
 
     @Test
-    void testProcessDynamicSql_WithNullValue() {
+    void testBind_WithNullValue() throws Exception {
         // Given
         String sql = "SELECT * FROM users WHERE status = #{status}";
         Map<String, Object> parameters = new HashMap<>();
         parameters.put("status", null);
 
         // When
-        String result = invokeProcessDynamicSql(sql, parameters);
+        BoundSql result = queryExecutionEngine.bind(sql, parameters, null);
 
         // Then
-        assertEquals("SELECT * FROM users WHERE status = NULL", result);
+        assertEquals("SELECT * FROM users WHERE status = ?", result.getSql());
+        assertNull(result.getParameters().get(0).getValue());
     }
 
     @Test
-    void testProcessDynamicSql_WithStringEscaping() {
+    void testBind_ValuesNeverSplicedIntoSql() throws Exception {
         // Given
-        String sql = "SELECT * FROM users WHERE name = #{name}";
+        String sql = "SELECT * FROM users WHERE name = #{name} AND note <> '#{name}' -- #{name}";
         Map<String, Object> parameters = new HashMap<>();
         parameters.put("name", "O'Connor");
 
         // When
-        String result = invokeProcessDynamicSql(sql, parameters);
+        BoundSql result = queryExecutionEngine.bind(sql, parameters, null);
 
         // Then
-        assertEquals("SELECT * FROM users WHERE name = 'O''Connor'", result);
+        assertEquals("SELECT * FROM users WHERE name = ? AND note <> '#{name}' -- #{name}", result.getSql());
+        assertEquals(1, result.getParameters().size());
+        assertEquals("O'Connor", result.getParameters().get(0).getValue());
+    }
+
+    @Test
+    void testBind_MissingNamedParameter() {
+        // When & Then
+        DataSourceException exception = assertThrows(DataSourceException.class, () ->
+            queryExecutionEngine.bind("SELECT * FROM users WHERE id = #{id}", new HashMap<>(), null));
+
+        assertEquals("缺少SQL参数: id", exception.getMessage());
+    }
+
+    @Test
+    void testBind_TypedPositionalParameters() throws Exception {
+        // Given
+        String sql = "SELECT * FROM trades WHERE trade_date = ? AND volume > ? AND note = '?'";
+        List<BindParameter> bindParameters = List.of(
+            new BindParameter("date", "2024-01-15"),
+            new BindParameter("long", "100"));
+
+        when(dataSourceManager.getConnection(1L)).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(resultSetMetaData);
+        when(resultSetMetaData.getColumnCount()).thenReturn(0);
+        when(resultSet.next()).thenReturn(false);
+
+        // When
+        BoundSql boundSql = queryExecutionEngine.bind(sql, null, bindParameters);
+        queryExecutionEngine.executeQuery(1L, boundSql);
+
+        // Then
+        verify(connection).prepareStatement(sql);
+        verify(preparedStatement).setDate(1, Date.valueOf("2024-01-15"));
+        verify(preparedStatement).setLong(2, 100L);
+    }
+
+    @Test
+    void testBind_DatetimeAcceptsJsonSerializedForms() {
+        Timestamp expected = Timestamp.valueOf("2024-01-15 10:30:00");
+
+        assertEquals(expected, new BindParameter("datetime", "2024-01-15 10:30:00").toJdbcValue());
+        assertEquals(expected, new BindParameter("datetime", "2024-01-15T10:30:00").toJdbcValue());
+        assertEquals(Timestamp.valueOf("2024-01-15 10:30:00.25"),
+            new BindParameter("datetime", "2024-01-15T10:30:00.250").toJdbcValue());
+        // 带时区偏移的值按所表示的时刻绑定
+        assertEquals(Timestamp.from(java.time.Instant.parse("2024-01-15T02:30:00Z")),
+            new BindParameter("datetime", "2024-01-15T10:30:00.000+08:00").toJdbcValue());
+        assertEquals(Timestamp.from(java.time.Instant.parse("2024-01-15T10:30:00Z")),
+            new BindParameter("datetime", "2024-01-15T10:30:00Z").toJdbcValue());
+    }
+
+    @Test
+    void testBind_PositionalParameterCountMismatch() {
+        // When & Then
+        DataSourceException exception = assertThrows(DataSourceException.class, () ->
+            queryExecutionEngine.bind("SELECT * FROM users WHERE id = ? AND status = ?", null,
+                List.of(new BindParameter("long", 1L))));
+
+        assertTrue(exception.getMessage().contains("绑定参数数量不匹配"));
+    }
+
+    @Test
+    void testStreamQuery_MySqlStreamsRowByRowWithoutCursorFetch() throws Exception {
+        // Given
+        stubStreamQuery("MySQL");
+        when(databaseMetaData.getURL()).thenReturn("jdbc:mysql://localhost:3306/test?useSSL=false");
+
+        // When
+        streamQuery("SELECT id FROM trades");
+
+        // Then
+        verify(preparedStatement).setFetchSize(Integer.MIN_VALUE);
+        verify(connection, never()).setAutoCommit(anyBoolean());
+    }
+
+    @Test
+    void testStreamQuery_MySqlUsesCursorFetchWhenEnabled() throws Exception {
+        // Given
+        stubStreamQuery("MySQL");
+        when(databaseMetaData.getURL()).thenReturn("jdbc:mysql://localhost:3306/test?useCursorFetch=true");
+
+        // When
+        streamQuery("SELECT id FROM trades");
+
+        // Then
+        verify(preparedStatement).setFetchSize(1000);
+    }
+
+    @Test
+    void testStreamQuery_PostgreSqlFetchesInTransaction() throws Exception {
+        // Given
+        stubStreamQuery("PostgreSQL");
+        when(connection.getAutoCommit()).thenReturn(true);
+
+        // When
+        streamQuery("SELECT id FROM trades");
+
+        // Then
+        InOrder inOrder = inOrder(connection, preparedStatement);
+        inOrder.verify(preparedStatement).setFetchSize(1000);
+        inOrder.verify(connection).setAutoCommit(false);
+        inOrder.verify(preparedStatement).executeQuery();
+        inOrder.verify(connection).setAutoCommit(true);
+        inOrder.verify(connection).close();
+    }
+
+    @Test
+    void testOpenStream_StatementExecutedBeforeRowsWritten() throws Exception {
+        // Given
+        enableBulkhead(1);
+        stubStreamQuery("H2");
+        ReflectionTestUtils.setField(queryExecutionEngine, "streamMaxRows", 1000000);
+        ReflectionTestUtils.setField(queryExecutionEngine, "streamFlushRows", 500);
+        BoundSql boundSql = queryExecutionEngine.bind("SELECT id FROM trades", null, null);
+
+        // When: 打开时语句已执行，连接和许可保持占用直到关闭
+        QueryExecutionEngine.StreamingQuery query =
+            queryExecutionEngine.openStream(1L, boundSql, queryBulkheads.acquire(1L));
+        verify(preparedStatement).executeQuery();
+        verify(connection, never()).close();
+        assertEquals(1, queryBulkheads.getAllStatus().get(1L).getInflight());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = NdjsonResultWriter.createGenerator(new ObjectMapper(), out)) {
+            assertEquals(0, query.writeTo(gen));
+        }
+        query.close();
+        query.close();
+
+        // Then: 重复关闭只归还一次
+        assertTrue(out.toString().contains("\"type\":\"end\""));
+        verify(connection).close();
+        verify(queryTelemetry).record(any(QueryTrace.class));
+        assertEquals(0, queryBulkheads.getAllStatus().get(1L).getInflight());
+    }
+
+    @Test
+    void testOpenStream_ExecutionFailureReleasesConnectionAndPermit() throws Exception {
+        // Given
+        enableBulkhead(1);
+        when(dataSourceManager.getConnection(1L)).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.getMetaData()).thenReturn(databaseMetaData);
+        when(databaseMetaData.getDatabaseProductName()).thenReturn("H2");
+        when(preparedStatement.executeQuery()).thenThrow(new SQLException("Table \"TRADES\" not found"));
+        BoundSql boundSql = queryExecutionEngine.bind("SELECT id FROM trades", null, null);
+
+        // When: 执行失败在打开时抛出，调用方尚未发送响应头
+        DataSourceException exception = assertThrows(DataSourceException.class,
+            () -> queryExecutionEngine.openStream(1L, boundSql, queryBulkheads.acquire(1L)));
+
+        // Then
+        assertTrue(exception.getMessage().contains("TRADES"));
+        verify(preparedStatement).close();
+        verify(connection).close();
+        verify(queryTelemetry).record(any(QueryTrace.class));
+        assertEquals(0, queryBulkheads.getAllStatus().get(1L).getInflight());
+    }
+
+    private void stubStreamQuery(String productName) throws Exception {
+        when(dataSourceManager.getConnection(1L)).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(preparedStatement);
+        when(connection.getMetaData()).thenReturn(databaseMetaData);
+        when(databaseMetaData.getDatabaseProductName()).thenReturn(productName);
+        when(preparedStatement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.getMetaData()).thenReturn(resultSetMetaData);
+        when(resultSetMetaData.getColumnCount()).thenReturn(0);
+        when(resultSet.next()).thenReturn(false);
+    }
+
+    private void streamQuery(String sql) throws Exception {
+        ReflectionTestUtils.setField(queryExecutionEngine, "streamMaxRows", 1000000);
+        ReflectionTestUtils.setField(queryExecutionEngine, "streamFlushRows", 500);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator gen = NdjsonResultWriter.createGenerator(new ObjectMapper(), out)) {
+            assertEquals(0, queryExecutionEngine.streamQuery(1L, queryExecutionEngine.bind(sql, null, null), gen));
+        }
     }
 
     @Test
@@ -382,14 +686,18 @@ class QueryExecutionEngineTest {
         verify(dataSourceManager).getConnection(dataSourceId);
     }
 
-    // 辅助方法：通过反射调用私有方法
-    private String invokeProcessDynamicSql(String sql, Map<String, Object> parameters) {
-        try {
-            var method = QueryExecutionEngine.class.getDeclaredMethod("processDynamicSql", String.class, Map.class);
-            method.setAccessible(true);
-            return (String) method.invoke(queryExecutionEngine, sql, parameters);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    private void enableBulkhead(int limit) {
+        ReflectionTestUtils.setField(queryBulkheads, "enabled", true);
+        ReflectionTestUtils.setField(queryBulkheads, "algorithm", QueryBulkheads.LimitAlgorithm.AIMD);
+        ReflectionTestUtils.setField(queryBulkheads, "initialLimit", limit);
+        ReflectionTestUtils.setField(queryBulkheads, "minLimit", limit);
+        ReflectionTestUtils.setField(queryBulkheads, "maxLimit", limit);
+        ReflectionTestUtils.setField(queryBulkheads, "maxQueue", 0);
+        ReflectionTestUtils.setField(queryBulkheads, "maxWait", 100L);
+        ReflectionTestUtils.setField(queryBulkheads, "aimdLatencyThreshold", 1000L);
+        ReflectionTestUtils.setField(queryBulkheads, "aimdBackoffRatio", 0.9);
+        ReflectionTestUtils.setField(queryBulkheads, "backgroundLimit", 1);
+        ReflectionTestUtils.setField(queryBulkheads, "backgroundMaxQueue", 0);
+        ReflectionTestUtils.setField(queryBulkheads, "backgroundMaxWait", 100L);
     }
-}
\ No newline at end of file
+}
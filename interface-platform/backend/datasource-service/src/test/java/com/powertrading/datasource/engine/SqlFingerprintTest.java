@@ -0,0 +1,119 @@
+package com.powertrading.datasource.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SQL指纹单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class SqlFingerprintTest {
+
+    @Test
+    void testOf_ReplacesLiteralsAndStripsComments() {
+        SqlFingerprint fingerprint = SqlFingerprint.of(
+            "SELECT *  FROM t_price WHERE id = 42 AND name = 'it''s' -- 注释\n AND ts > ? /* block */;");
+
+        assertEquals("select * from t_price where id = ? and name = ? and ts > ?", fingerprint.getNormalizedSql());
+        assertEquals("SELECT", fingerprint.getStatementType());
+        assertEquals(16, fingerprint.getId().length());
+    }
+
+    @Test
+    void testOf_SameStatementWithDifferentConstantsMatches() {
+        SqlFingerprint a = SqlFingerprint.of("select a.id from t a where a.id in (1, 2, 3) and a.v = -1.5e3");
+        SqlFingerprint b = SqlFingerprint.of("SELECT a.id FROM t a WHERE a.id IN ('x')   AND a.v = -2");
+        SqlFingerprint c = SqlFingerprint.of("SELECT a.id FROM t a WHERE a.id IN (#{ids}) AND a.v = ?");
+
+        assertEquals("select a.id from t a where a.id in (?...) and a.v = ?", a.getNormalizedSql());
+        assertEquals(a, b);
+        assertEquals(a.getHash(), c.getHash());
+    }
+
+    @Test
+    void testOf_KeepsSubqueriesAndQuotedIdentifiers() {
+        SqlFingerprint subquery = SqlFingerprint.of("SELECT 1 FROM t WHERE id IN (SELECT id FROM u WHERE k = 7)");
+        SqlFingerprint quoted = SqlFingerprint.of("SELECT \"Name\" FROM `T` WHERE x = '-- not a comment'");
+
+        assertEquals("select ? from t where id in (select id from u where k = ?)", subquery.getNormalizedSql());
+        assertEquals("select \"Name\" from `T` where x = ?", quoted.getNormalizedSql());
+        assertNotEquals(subquery, SqlFingerprint.of("SELECT 1 FROM t WHERE id IN (1)"));
+        // 二元减号保留
+        assertEquals("select a - ? from t", SqlFingerprint.of("SELECT a - 1 FROM t").getNormalizedSql());
+    }
+
+    @Test
+    void testOf_InListLiteralsCollapsedRegardlessOfTypeAndLength() {
+        String expected = "select * from t where id in (?...)";
+
+        assertEquals(expected, SqlFingerprint.of("SELECT * FROM t WHERE id IN (-1, +2, 3.5e2, .5, 0x1F)").getNormalizedSql());
+        assertEquals(expected, SqlFingerprint.of("SELECT * FROM t WHERE id IN('a,b', 'it''s', 'x\\'y')").getNormalizedSql());
+        assertEquals(expected, SqlFingerprint.of("SELECT * FROM t WHERE id IN (?, #{id}, NULL)").getNormalizedSql());
+        assertEquals("select * from t where id not in (?...)",
+            SqlFingerprint.of("SELECT * FROM t WHERE id NOT IN ('a')").getNormalizedSql());
+
+        // 常量元组列表同样折叠
+        SqlFingerprint tuples = SqlFingerprint.of("SELECT * FROM t WHERE (a, b) IN ((1, 'x'), (2, 'y'), (3, 'z'))");
+        assertEquals("select * from t where (a, b) in (?...)", tuples.getNormalizedSql());
+        assertEquals(tuples, SqlFingerprint.of("SELECT * FROM t WHERE (a, b) IN ((-1, ?))"));
+
+        // 包含列或表达式的列表不折叠
+        assertEquals("select * from t where id in (a, b + ?)",
+            SqlFingerprint.of("SELECT * FROM t WHERE id IN (a, b + 1)").getNormalizedSql());
+    }
+
+    @Test
+    void testOf_CommentsStrippedAnywhere() {
+        SqlFingerprint fingerprint = SqlFingerprint.of(
+            "/* 前导 */ -- 行注释\n SELECT id FROM t # MySQL注释\n"
+                + "WHERE id IN (1, /* 列表内 */ 2 -- 列表内\n, 3) AND a/*紧邻*/= 1");
+
+        assertEquals("select id from t where id in (?...) and a = ?", fingerprint.getNormalizedSql());
+        assertEquals("SELECT", fingerprint.getStatementType());
+        assertEquals("select id from t where id in (?...)",
+            SqlFingerprint.of("SELECT id FROM t WHERE id IN /* c */ (1, 2)").getNormalizedSql());
+        // #{name}是命名参数而不是注释
+        assertEquals("select id from t where id = ?",
+            SqlFingerprint.of("SELECT id FROM t WHERE id = #{id}").getNormalizedSql());
+        assertEquals("select ?", SqlFingerprint.of("SELECT 1 /* 未闭合").getNormalizedSql());
+    }
+
+    @Test
+    void testOf_QuotedIdentifiersKeptVerbatim() {
+        SqlFingerprint fingerprint = SqlFingerprint.of("SELECT \"My \"\"Col\"\"\" FROM `we``ird`.`T` WHERE \"s\".\"id\" = 1");
+
+        assertEquals("select \"My \"\"Col\"\"\" from `we``ird`.`T` where \"s\".\"id\" = ?",
+            fingerprint.getNormalizedSql());
+        // 引用标识符区分大小写
+        assertNotEquals(fingerprint,
+            SqlFingerprint.of("SELECT \"my \"\"col\"\"\" FROM `we``ird`.`T` WHERE \"s\".\"id\" = 1"));
+    }
+
+    @Test
+    void testOf_EscapedQuotesDoNotEndLiteral() {
+        String expected = "select * from t where x = ? and b = ?";
+
+        assertEquals(expected, SqlFingerprint.of("SELECT * FROM t WHERE x = 'it''s' AND b = 2").getNormalizedSql());
+        assertEquals(expected, SqlFingerprint.of("SELECT * FROM t WHERE x = 'it\\'s' AND b = 2").getNormalizedSql());
+        assertEquals(expected, SqlFingerprint.of("SELECT * FROM t WHERE x = '\\'' AND b = 2").getNormalizedSql());
+        // 转义的反斜杠之后的引号结束字符串
+        assertEquals(expected, SqlFingerprint.of("SELECT * FROM t WHERE x = 'c:\\\\' AND b = 2").getNormalizedSql());
+        assertEquals("select * from t where x = \"a\\\"b\" and b = ?",
+            SqlFingerprint.of("SELECT * FROM t WHERE x = \"a\\\"b\" AND b = 2").getNormalizedSql());
+    }
+
+    @Test
+    void testOf_SignAfterKeywordIsPartOfLiteral() {
+        SqlFingerprint negative = SqlFingerprint.of("SELECT -1 FROM t WHERE v BETWEEN -5 AND -1");
+
+        assertEquals("select ? from t where v between ? and ?", negative.getNormalizedSql());
+        assertEquals(negative, SqlFingerprint.of("SELECT 1 FROM t WHERE v BETWEEN 1 AND 10"));
+        assertEquals("select case when a > ? then ? else ? end from t",
+            SqlFingerprint.of("SELECT CASE WHEN a > 0 THEN -1 ELSE +1 END FROM t").getNormalizedSql());
+        // 标识符之后是二元运算符
+        assertEquals("select a - ?, b + ? from t", SqlFingerprint.of("SELECT a - 1, b + 2 FROM t").getNormalizedSql());
+    }
+}
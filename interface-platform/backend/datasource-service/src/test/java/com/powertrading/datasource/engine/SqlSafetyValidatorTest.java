@@ -0,0 +1,121 @@
+package com.powertrading.datasource.engine;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SQL安全校验器单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class SqlSafetyValidatorTest {
+
+    private final SqlSafetyValidator queryValidator = new SqlSafetyValidator(SqlSafetyValidator.Mode.QUERY, 100);
+
+    private final SqlSafetyValidator updateValidator = new SqlSafetyValidator(SqlSafetyValidator.Mode.UPDATE, 100);
+
+    @Test
+    void testQuery_KeywordsInIdentifiersLiteralsAndCommentsAllowed() {
+        assertSafe(queryValidator.validate(
+            "SELECT update_time, created_by, \"delete\" FROM t_order WHERE note = 'drop table x' -- insert\n"));
+        assertSafe(queryValidator.validate("select a.id from a union all select b.id from b /* update */;"));
+        assertSafe(queryValidator.validate("WITH r AS (SELECT 1 AS v) SELECT v FROM r"));
+        assertSafe(queryValidator.validate("(SELECT 1) UNION (SELECT 2)"));
+    }
+
+    @Test
+    void testQuery_Rejections() {
+        SqlSafetyValidator.Verdict keyword = queryValidator.validate("SELECT * FROM users WHERE id = 1 AND DROP TABLE test");
+        assertEquals(SqlSafetyValidator.Category.FORBIDDEN_KEYWORD, keyword.getCategory());
+        assertEquals("SQL语句包含危险关键字: DROP", keyword.getMessage());
+        assertEquals("DROP", keyword.getKeyword());
+
+        SqlSafetyValidator.Verdict stacked = queryValidator.validate("SELECT * FROM users; DROP TABLE users; --");
+        assertEquals(SqlSafetyValidator.Category.STATEMENT_TYPE, stacked.getCategory());
+        assertEquals("只允许执行SELECT查询语句", stacked.getMessage());
+
+        assertEquals(SqlSafetyValidator.Category.MULTIPLE_STATEMENTS,
+            queryValidator.validate("SELECT 1; SELECT 2").getCategory());
+        assertEquals(SqlSafetyValidator.Category.STATEMENT_TYPE,
+            queryValidator.validate("/* SELECT */ DELETE FROM users").getCategory());
+        assertEquals(SqlSafetyValidator.Category.EMPTY, queryValidator.validate("-- SELECT 1").getCategory());
+        assertEquals("INTO", queryValidator.validate("SELECT * INTO backup FROM users").getKeyword());
+    }
+
+    @Test
+    void testQuery_AmbiguousCommentsRejected() {
+        assertEquals(SqlSafetyValidator.Category.AMBIGUOUS_COMMENT,
+            queryValidator.validate("SELECT 1 /*!50000 ; DROP TABLE t */").getCategory());
+        assertEquals(SqlSafetyValidator.Category.AMBIGUOUS_COMMENT,
+            queryValidator.validate("SELECT 1 # \n").getCategory());
+        assertEquals(SqlSafetyValidator.Category.AMBIGUOUS_COMMENT,
+            queryValidator.validate("SELECT 1--1; DROP TABLE t").getCategory());
+    }
+
+    @Test
+    void testQuery_BackslashValidatedUnderBothEscapeRules() {
+        // 反斜杠转义时是一个字符串常量，标准字符串规则下字符串在\'处结束，后面是第二条语句
+        String sql = "SELECT 'x\\' ; DROP TABLE t; SELECT ''' FROM dual";
+        assertTrue(SqlSafetyValidator.classify(sql, SqlSafetyValidator.Mode.QUERY, true).isSafe());
+        assertFalse(SqlSafetyValidator.classify(sql, SqlSafetyValidator.Mode.QUERY, false).isSafe());
+
+        // 先缓存指纹相同的正常语句，带反斜杠的语句不会命中缓存
+        assertSafe(queryValidator.validate("SELECT 'a' FROM dual"));
+        assertFalse(queryValidator.validate(sql).isSafe());
+        assertSafe(queryValidator.validate("SELECT 'C:\\\\data' FROM dual"));
+    }
+
+    @Test
+    void testQuery_DollarQuotedStringHidesNoStatements() {
+        // PostgreSQL中$$'$$是一个字符串常量，后面是第二条语句；MySQL中'开始的字符串包住了后面的内容
+        String sql = "SELECT $$'$$; DROP TABLE t; -- '";
+        assertFalse(SqlSafetyValidator.classify(sql, SqlSafetyValidator.Mode.QUERY, false).isSafe());
+        assertTrue(SqlSafetyValidator.classify(sql, SqlSafetyValidator.Mode.QUERY, true).isSafe());
+        assertEquals(SqlSafetyValidator.Category.AMBIGUOUS_QUOTING, queryValidator.validate(sql).getCategory());
+
+        assertEquals(SqlSafetyValidator.Category.STATEMENT_TYPE,
+            queryValidator.validate("SELECT $tag$ ; $$ $tag$; DROP TABLE t").getCategory());
+        // E'...'中的反斜杠在PostgreSQL中也是转义字符，整段是一个字符串常量
+        assertSafe(queryValidator.validate("SELECT E'\\' ; DROP TABLE t; -- '"));
+        assertSafe(queryValidator.validate("SELECT $$note$$ AS note, price$usd FROM t"));
+    }
+
+    @Test
+    void testQuery_DoubleQuotedStringUsesBackslashEscapesOnMySql() {
+        // MySQL中"\""是一个字符串常量，后面的INTO OUTFILE会被执行
+        String sql = "SELECT \"\\\"\" INTO OUTFILE '/tmp/x' -- \"";
+        assertEquals("INTO", SqlSafetyValidator.classify(sql, SqlSafetyValidator.Mode.QUERY, true).getKeyword());
+        assertTrue(SqlSafetyValidator.classify(sql, SqlSafetyValidator.Mode.QUERY, false).isSafe());
+        assertEquals(SqlSafetyValidator.Category.AMBIGUOUS_QUOTING, queryValidator.validate(sql).getCategory());
+
+        assertSafe(queryValidator.validate("SELECT \"a\\\"b\" AS note FROM t"));
+    }
+
+    @Test
+    void testQuery_VerdictCachedByFingerprint() {
+        assertSafe(queryValidator.validate("SELECT * FROM t WHERE id IN (1, 2) AND name = 'a'"));
+        assertSafe(queryValidator.validate("select *  from t where id in (3) and name = 'b';"));
+
+        assertEquals(1, queryValidator.getCachedCount());
+    }
+
+    @Test
+    void testUpdate_Rules() {
+        assertSafe(updateValidator.validate("UPDATE users SET name = #{name} WHERE id = #{id}"));
+        assertSafe(updateValidator.validate("INSERT INTO users (id, deleted_at) VALUES (?, ?)"));
+
+        assertEquals("只允许执行UPDATE和INSERT语句", updateValidator.validate("DELETE FROM users WHERE id = 1").getMessage());
+        assertEquals("UPDATE语句必须包含WHERE条件", updateValidator.validate("UPDATE users SET note = 'where'").getMessage());
+        // 子查询中的WHERE不限制外层更新范围
+        assertEquals(SqlSafetyValidator.Category.MISSING_WHERE,
+            updateValidator.validate("UPDATE users SET v = (SELECT max(v) FROM t WHERE t.k = 1)").getCategory());
+        assertEquals("SQL语句包含禁止的关键字: TRUNCATE",
+            updateValidator.validate("UPDATE users SET v = 1 WHERE id = 1 AND TRUNCATE").getMessage());
+    }
+
+    private static void assertSafe(SqlSafetyValidator.Verdict verdict) {
+        assertTrue(verdict.isSafe(), verdict.getMessage());
+    }
+}
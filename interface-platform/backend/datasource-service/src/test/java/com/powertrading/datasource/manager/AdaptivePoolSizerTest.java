@@ -0,0 +1,185 @@
+package com.powertrading.datasource.manager;
+
+import com.powertrading.datasource.config.HikariOptimizationConfig;
+import com.powertrading.datasource.entity.DataSource;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 连接池自适应调整器单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class AdaptivePoolSizerTest {
+
+    private static final long START = 1_000_000L;
+
+    private static final long INTERVAL = 5000L;
+
+    private AdaptivePoolSizer poolSizer;
+
+    private HikariOptimizationConfig.Adaptive settings;
+
+    private HikariPoolMXBean pool;
+
+    private HikariConfigMXBean poolConfig;
+
+    private DataSource config;
+
+    // 连接池运行期配置：[maximumPoolSize, minimumIdle]
+    private final int[] sizes = {10, 2};
+
+    @BeforeEach
+    void setUp() {
+        HikariOptimizationConfig.OptimizationSettings optimizationSettings = new HikariOptimizationConfig.OptimizationSettings();
+        settings = optimizationSettings.getAdaptive();
+        settings.setScaleUpSamples(2);
+        settings.setScaleDownSamples(3);
+        settings.setCooldown(30000);
+
+        poolSizer = new AdaptivePoolSizer();
+        ReflectionTestUtils.setField(poolSizer, "optimizationSettings", optimizationSettings);
+
+        pool = mock(HikariPoolMXBean.class);
+        poolConfig = mock(HikariConfigMXBean.class);
+        when(poolConfig.getMaximumPoolSize()).thenAnswer(invocation -> sizes[0]);
+        when(poolConfig.getMinimumIdle()).thenAnswer(invocation -> sizes[1]);
+        doAnswer(invocation -> sizes[0] = invocation.getArgument(0)).when(poolConfig).setMaximumPoolSize(anyInt());
+        doAnswer(invocation -> sizes[1] = invocation.getArgument(0)).when(poolConfig).setMinimumIdle(anyInt());
+
+        config = new DataSource();
+        config.setMaxPoolSize(10);
+        config.setMinPoolSize(2);
+    }
+
+    @Test
+    void testScaleUp_AfterConsecutiveBusySamples() {
+        load(10, 3);
+
+        sample(1L, 0);
+        assertEquals(10, sizes[0]);
+
+        sample(1L, 1);
+        assertEquals(13, sizes[0]);
+        assertEquals(10, sizes[1]);
+    }
+
+    @Test
+    void testHysteresis_InterruptedBusyStreakDoesNotScale() {
+        load(10, 3);
+        sample(1L, 0);
+        load(5, 0);
+        sample(1L, 1);
+        load(10, 3);
+        sample(1L, 2);
+
+        assertEquals(10, sizes[0]);
+        verify(poolConfig, never()).setMaximumPoolSize(anyInt());
+    }
+
+    @Test
+    void testCooldown_AndUpperBound() {
+        load(10, 5);
+        sample(1L, 0);
+        sample(1L, 1);
+        assertEquals(15, sizes[0]);
+
+        // 冷却期内不再调整
+        load(15, 5);
+        sample(1L, 2);
+        sample(1L, 3);
+        assertEquals(15, sizes[0]);
+
+        // 冷却结束后继续扩容，但不超过配置值的maxGrowthFactor倍
+        for (int i = 7; i < 20; i++) {
+            sample(1L, i);
+        }
+        assertEquals(20, sizes[0]);
+    }
+
+    @Test
+    void testScaleDown_IdlePoolReleasesConnections() {
+        load(0, 0);
+        sample(1L, 0);
+        sample(1L, 1);
+        assertEquals(10, sizes[0]);
+
+        sample(1L, 2);
+        assertEquals(8, sizes[0]);
+        assertEquals(0, sizes[1]);
+
+        // 持续空闲时逐步收缩到下限
+        for (int i = 9; i < 60; i++) {
+            sample(1L, i);
+        }
+        assertEquals(settings.getMinPoolSize(), sizes[0]);
+    }
+
+    @Test
+    void testScaleDown_KeepsHeadroomForPeakActive() {
+        load(2, 0);
+        sample(1L, 0);
+        load(3, 0);
+        sample(1L, 1);
+        load(1, 0);
+        sample(1L, 2);
+
+        assertEquals(8, sizes[0]);
+        assertEquals(2, sizes[1]);
+
+        // 活跃连接占比超过空闲阈值后停止收缩
+        for (int i = 9; i < 60; i++) {
+            sample(1L, i);
+        }
+        assertEquals(3, sizes[0]);
+    }
+
+    @Test
+    void testReplacedPool_RestartsSampling() {
+        load(10, 3);
+        sample(1L, 0);
+        sample(2L, 1);
+
+        assertEquals(10, sizes[0]);
+    }
+
+    @Test
+    void testAcquireLatency_TriggersScaleUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(poolSizer, "meterRegistry", meterRegistry);
+        Timer acquire = meterRegistry.timer("datasource.query.acquire", "dataSourceId", "1");
+        acquire.record(1, TimeUnit.SECONDS);
+        load(5, 0);
+
+        // 首次采样只建立基线，历史上的慢获取不计入
+        sample(1L, 0);
+        acquire.record(200, TimeUnit.MILLISECONDS);
+        sample(1L, 1);
+        assertEquals(10, sizes[0]);
+
+        acquire.record(200, TimeUnit.MILLISECONDS);
+        sample(1L, 2);
+        assertEquals(13, sizes[0]);
+    }
+
+    private void load(int active, int awaiting) {
+        when(pool.getActiveConnections()).thenReturn(active);
+        when(pool.getThreadsAwaitingConnection()).thenReturn(awaiting);
+    }
+
+    private void sample(long version, int tick) {
+        poolSizer.adjust(1L, version, config, pool, poolConfig, START + tick * INTERVAL);
+    }
+}
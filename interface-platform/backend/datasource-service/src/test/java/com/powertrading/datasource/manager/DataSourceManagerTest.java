@@ -0,0 +1,273 @@
+package com.powertrading.datasource.manager;
+
+import com.powertrading.datasource.entity.DataSource;
+import com.powertrading.datasource.exception.DataSourceException;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多数据源连接管理器单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class DataSourceManagerTest {
+
+    private DataSourceManager dataSourceManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSourceManager = new DataSourceManager();
+        ReflectionTestUtils.setField(dataSourceManager, "warmupTimeout", 5000L);
+        ReflectionTestUtils.setField(dataSourceManager, "drainTimeout", 10000L);
+        dataSourceManager.addDataSource(h2DataSource());
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSourceManager.destroy();
+    }
+
+    @Test
+    void testUpdateDataSource_ConcurrentGetConnectionDuringSwap() throws Exception {
+        int readers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch started = new CountDownLatch(readers);
+        List<Future<Integer>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < readers; i++) {
+                results.add(executor.submit(() -> {
+                    started.countDown();
+                    int queries = 0;
+                    while (running.get()) {
+                        assertEquals(1, selectOne());
+                        queries++;
+                    }
+                    return queries;
+                }));
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            long firstVersion = dataSourceManager.getPoolHandle(1L).getVersion();
+            for (int i = 0; i < 3; i++) {
+                dataSourceManager.updateDataSource(h2DataSource());
+            }
+            running.set(false);
+
+            // 切换期间读线程的每次获取连接和查询都成功
+            for (Future<Integer> result : results) {
+                assertTrue(result.get(10, TimeUnit.SECONDS) > 0);
+            }
+            assertTrue(dataSourceManager.getPoolHandle(1L).getVersion() > firstVersion);
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUpdateDataSource_OldPoolClosedAfterDrain() throws Exception {
+        HikariDataSource oldPool = dataSourceManager.getPoolHandle(1L).getDataSource();
+        Connection inFlight = dataSourceManager.getConnection(1L);
+
+        dataSourceManager.updateDataSource(h2DataSource());
+
+        // 新请求使用新连接池，进行中的连接仍可使用，旧连接池在连接归还前不关闭
+        assertNotSame(oldPool, dataSourceManager.getPoolHandle(1L).getDataSource());
+        assertEquals(1, selectOne());
+        Thread.sleep(500);
+        assertFalse(oldPool.isClosed());
+        try (Statement statement = inFlight.createStatement()) {
+            assertTrue(statement.execute("SELECT 1"));
+        }
+
+        inFlight.close();
+
+        assertTrue(awaitCondition(oldPool::isClosed), "旧连接池应在排空后关闭");
+        assertFalse(dataSourceManager.getPoolHandle(1L).getDataSource().isClosed());
+    }
+
+    @Test
+    void testUpdateDataSource_OldPoolForceClosedAfterDrainTimeout() throws Exception {
+        ReflectionTestUtils.setField(dataSourceManager, "drainTimeout", 300L);
+        HikariDataSource oldPool = dataSourceManager.getPoolHandle(1L).getDataSource();
+        Connection leaked = dataSourceManager.getConnection(1L);
+        try {
+            dataSourceManager.updateDataSource(h2DataSource());
+
+            assertTrue(awaitCondition(oldPool::isClosed), "排空超时后旧连接池应被强制关闭");
+            assertEquals(1, selectOne());
+        } finally {
+            leaked.close();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRemoveDataSource_ReleasesConfigLock() throws Exception {
+        Map<Long, Object> configLocks = (Map<Long, Object>) ReflectionTestUtils.getField(dataSourceManager, "configLocks");
+        dataSourceManager.updateDataSource(h2DataSource());
+        assertTrue(configLocks.containsKey(1L));
+
+        dataSourceManager.removeDataSource(1L);
+
+        assertFalse(configLocks.containsKey(1L));
+        assertFalse(dataSourceManager.exists(1L));
+
+        // 移除后可重新添加
+        dataSourceManager.addDataSource(h2DataSource());
+        assertEquals(1, selectOne());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testGetConnection_RetriesWithCurrentHandleWhenPoolClosedAfterLookup() throws Exception {
+        Map<Long, DataSourceManager.PoolHandle> registry =
+            (Map<Long, DataSourceManager.PoolHandle>) ReflectionTestUtils.getField(dataSourceManager, "registry");
+        DataSourceManager.PoolHandle replacement = dataSourceManager.getPoolHandle(1L);
+
+        // 连接池在句柄被读取之后、借出连接之前被替换并关闭
+        HikariDataSource closingPool = new HikariDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                registry.put(1L, replacement);
+                close();
+                return super.getConnection();
+            }
+        };
+        closingPool.setJdbcUrl("jdbc:h2:mem:pool_swap_test;DB_CLOSE_DELAY=-1");
+        closingPool.setUsername("sa");
+        closingPool.setPassword("sa");
+        registry.put(1L, new DataSourceManager.PoolHandle(closingPool, h2DataSource(), 0L));
+
+        try (Connection connection = dataSourceManager.getConnection(1L)) {
+            assertTrue(connection.isValid(1));
+        }
+        assertTrue(closingPool.isClosed());
+        assertSame(replacement, dataSourceManager.getPoolHandle(1L));
+    }
+
+    @Test
+    void testGetConnection_RemovedPoolRejected() {
+        dataSourceManager.removeDataSource(1L);
+
+        DataSourceException exception = assertThrows(DataSourceException.class, () -> dataSourceManager.getConnection(1L));
+        assertEquals("数据源不存在或未初始化: 1", exception.getMessage());
+    }
+
+    @Test
+    void testDestroy_ClosesDrainingPools() throws Exception {
+        HikariDataSource oldPool = dataSourceManager.getPoolHandle(1L).getDataSource();
+        Connection inFlight = dataSourceManager.getConnection(1L);
+        dataSourceManager.updateDataSource(h2DataSource());
+        HikariDataSource newPool = dataSourceManager.getPoolHandle(1L).getDataSource();
+        assertFalse(oldPool.isClosed());
+
+        dataSourceManager.destroy();
+
+        // 排空调度器停止后不会再检查，旧连接池随应用关闭
+        assertTrue(oldPool.isClosed());
+        assertTrue(newPool.isClosed());
+        assertFalse(dataSourceManager.exists(1L));
+        inFlight.close();
+    }
+
+    @Test
+    void testWarmUp_BoundedByWarmupTimeout() {
+        ReflectionTestUtils.setField(dataSourceManager, "warmupTimeout", 500L);
+        HikariDataSource standby = new HikariDataSource();
+        standby.setPoolName("HikariPool-slow-warmup");
+        standby.setDataSource(slowDataSource(2000L));
+        standby.setMinimumIdle(3);
+        standby.setMaximumPoolSize(3);
+        standby.setConnectionTimeout(30000L);
+        standby.setInitializationFailTimeout(-1);
+        try {
+            long start = System.currentTimeMillis();
+
+            // 建立连接慢于预热时间时在预热超时附近失败，而不是等满连接池的connectionTimeout
+            assertThrows(Exception.class,
+                () -> ReflectionTestUtils.invokeMethod(dataSourceManager, "warmUp", 1L, standby));
+
+            assertTrue(System.currentTimeMillis() - start < 1500);
+            assertEquals(30000L, standby.getConnectionTimeout());
+        } finally {
+            standby.close();
+        }
+    }
+
+    @Test
+    void testUpdateDataSource_NewPoolWarmedToMinimumIdle() throws Exception {
+        DataSource config = h2DataSource();
+        config.setMinPoolSize(3);
+
+        dataSourceManager.updateDataSource(config);
+
+        assertTrue(dataSourceManager.getPoolInfo(1L).getTotalConnections() >= 3);
+    }
+
+    private int selectOne() throws Exception {
+        try (Connection connection = dataSourceManager.getConnection(1L);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT 1")) {
+            assertTrue(rs.next());
+            return rs.getInt(1);
+        }
+    }
+
+    private static boolean awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        return condition.getAsBoolean();
+    }
+
+    /**
+     * 每次建立连接前等待指定时间的数据源
+     */
+    private static javax.sql.DataSource slowDataSource(long connectDelayMillis) {
+        return (javax.sql.DataSource) Proxy.newProxyInstance(DataSourceManagerTest.class.getClassLoader(),
+            new Class<?>[] {javax.sql.DataSource.class}, (proxy, method, args) -> {
+                if ("getConnection".equals(method.getName())) {
+                    Thread.sleep(connectDelayMillis);
+                    return DriverManager.getConnection("jdbc:h2:mem:pool_swap_test;DB_CLOSE_DELAY=-1", "sa", "sa");
+                }
+                return method.getReturnType() == int.class ? 0 : null;
+            });
+    }
+
+    private static DataSource h2DataSource() {
+        DataSource dataSource = new DataSource();
+        dataSource.setId(1L);
+        dataSource.setName("pool-swap");
+        dataSource.setType("h2");
+        dataSource.setUrl("jdbc:h2:mem:pool_swap_test;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("sa");
+        return dataSource;
+    }
+}
@@ -0,0 +1,140 @@
+package com.powertrading.datasource.metadata;
+
+import com.powertrading.datasource.entity.DataSource;
+import com.powertrading.datasource.exception.DataSourceException;
+import com.powertrading.datasource.manager.DataSourceManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数据库元数据服务单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class DatabaseMetadataServiceTest {
+
+    private DataSourceManager dataSourceManager;
+
+    private MetadataSnapshotService snapshotService;
+
+    private DatabaseMetadataService metadataService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSourceManager = new DataSourceManager();
+        ReflectionTestUtils.setField(dataSourceManager, "warmupTimeout", 5000L);
+        ReflectionTestUtils.setField(dataSourceManager, "drainTimeout", 1000L);
+        dataSourceManager.addDataSource(h2DataSource());
+
+        snapshotService = new MetadataSnapshotService();
+        ReflectionTestUtils.setField(snapshotService, "dataSourceManager", dataSourceManager);
+        ReflectionTestUtils.setField(snapshotService, "refreshInterval", 300000L);
+        ReflectionTestUtils.setField(snapshotService, "fullRefreshEvery", 12);
+
+        metadataService = new DatabaseMetadataService();
+        ReflectionTestUtils.setField(metadataService, "dataSourceManager", dataSourceManager);
+        ReflectionTestUtils.setField(metadataService, "metadataSnapshotService", snapshotService);
+
+        try (Connection connection = dataSourceManager.getConnection(1L);
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE SCHEMA TRADING");
+            statement.execute("CREATE TABLE PUBLIC.ORDERS (ID BIGINT PRIMARY KEY, NAME VARCHAR(50))");
+            statement.execute("CREATE TABLE TRADING.TRADES (ID BIGINT PRIMARY KEY, PRICE DECIMAL(10, 2), "
+                + "TRADE_TIME TIMESTAMP)");
+            statement.execute("CREATE INDEX IDX_TRADES_TIME ON TRADING.TRADES (TRADE_TIME)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Connection connection = dataSourceManager.getConnection(1L);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        snapshotService.destroy();
+        dataSourceManager.destroy();
+    }
+
+    @Test
+    void testGetTables_NamedSchemaOutsideConnectionSchema() throws DataSourceException {
+        List<DatabaseMetadataService.TableInfo> tables = metadataService.getTables(1L, "TRADING", null, null);
+
+        assertEquals(List.of("TRADES"), tableNames(tables));
+        assertEquals("TABLE", tables.get(0).getTableType());
+    }
+
+    @Test
+    void testGetTables_WithoutSchemaListsAllSchemas() throws DataSourceException {
+        List<String> names = tableNames(metadataService.getTables(1L, null, "%S", null));
+
+        assertTrue(names.contains("ORDERS"));
+        assertTrue(names.contains("TRADES"));
+    }
+
+    @Test
+    void testGetColumnDetail_TableInOtherSchema() throws DataSourceException {
+        DatabaseMetadataService.ColumnDetailInfo column =
+            metadataService.getColumnDetail(1L, "trading", "trades", "price");
+
+        assertEquals("PRICE", column.getColumnName());
+        assertEquals("TRADES", column.getTableName());
+        assertEquals(2, column.getDecimalDigits());
+    }
+
+    @Test
+    void testGetColumnDetail_UnknownTableRejected() {
+        DataSourceException e = assertThrows(DataSourceException.class,
+            () -> metadataService.getColumnDetail(1L, null, "missing", "id"));
+
+        assertEquals("表不存在: missing", e.getMessage());
+    }
+
+    @Test
+    void testGetTableDetail_KeysAndIndexesFromSnapshot() throws DataSourceException {
+        DatabaseMetadataService.TableDetailInfo detail = metadataService.getTableDetail(1L, null, "trades");
+
+        assertEquals("TRADING", detail.getSchemaName());
+        assertEquals(3, detail.getColumns().size());
+        assertEquals(List.of("ID"), detail.getPrimaryKeys());
+        assertTrue(detail.getIndexes().stream().anyMatch(index -> "IDX_TRADES_TIME".equals(index.getIndexName())));
+        assertTrue(detail.getForeignKeys().isEmpty());
+    }
+
+    @Test
+    void testSearchTablesAndColumns_SearchesAllSchemas() throws DataSourceException {
+        DatabaseMetadataService.SearchResult result = metadataService.searchTablesAndColumns(1L, "trade",
+            DatabaseMetadataService.SearchScope.ALL);
+
+        assertEquals(List.of("TRADES"), tableNames(result.getMatchedTables()));
+        DatabaseMetadataService.ColumnSearchResult column = result.getMatchedColumns().stream()
+            .filter(c -> "TRADE_TIME".equals(c.getColumnName()))
+            .findFirst()
+            .orElseThrow();
+        assertEquals("TRADING", column.getSchemaName());
+    }
+
+    private static List<String> tableNames(List<DatabaseMetadataService.TableInfo> tables) {
+        return tables.stream().map(DatabaseMetadataService.TableInfo::getTableName).collect(Collectors.toList());
+    }
+
+    private static DataSource h2DataSource() {
+        DataSource dataSource = new DataSource();
+        dataSource.setId(1L);
+        dataSource.setName("database-metadata");
+        dataSource.setType("h2");
+        dataSource.setUrl("jdbc:h2:mem:database_metadata_test;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("sa");
+        return dataSource;
+    }
+}
@@ -0,0 +1,185 @@
+package com.powertrading.datasource.metadata;
+
+import com.powertrading.datasource.config.DynamicConfigurationService;
+import com.powertrading.datasource.entity.DataSource;
+import com.powertrading.datasource.exception.DataSourceException;
+import com.powertrading.datasource.manager.DataSourceManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 元数据快照服务单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class MetadataSnapshotServiceTest {
+
+    private DataSourceManager dataSourceManager;
+
+    private MetadataSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dataSourceManager = new DataSourceManager();
+        ReflectionTestUtils.setField(dataSourceManager, "warmupTimeout", 5000L);
+        ReflectionTestUtils.setField(dataSourceManager, "drainTimeout", 1000L);
+        dataSourceManager.addDataSource(h2DataSource());
+
+        snapshotService = new MetadataSnapshotService();
+        ReflectionTestUtils.setField(snapshotService, "dataSourceManager", dataSourceManager);
+        ReflectionTestUtils.setField(snapshotService, "refreshInterval", 300000L);
+        ReflectionTestUtils.setField(snapshotService, "fullRefreshEvery", 12);
+
+        execute("CREATE SCHEMA TRADING",
+            "CREATE TABLE PUBLIC.ORDERS (ID BIGINT PRIMARY KEY, NAME VARCHAR(50))",
+            "CREATE TABLE TRADING.TRADES (ID BIGINT PRIMARY KEY, PRICE DECIMAL(10, 2), TRADE_TIME TIMESTAMP)",
+            "CREATE INDEX IDX_TRADES_TIME ON TRADING.TRADES (TRADE_TIME)",
+            "CREATE TABLE TRADING.ORDERS (ID BIGINT PRIMARY KEY, VOLUME INT)");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        execute("DROP ALL OBJECTS");
+        snapshotService.destroy();
+        dataSourceManager.destroy();
+    }
+
+    @Test
+    void testGetSnapshot_DefaultSchemaIsConnectionSchema() throws DataSourceException {
+        MetadataSnapshotService.MetadataSnapshot snapshot = snapshotService.getSnapshot(1L);
+
+        assertEquals("PUBLIC", snapshot.getSchemaName());
+        assertNotNull(snapshot.findTable("orders"));
+        assertNull(snapshot.findTable("trades"));
+    }
+
+    @Test
+    void testGetSnapshot_LoadsOtherSchemaOnDemand() throws DataSourceException {
+        MetadataSnapshotService.MetadataSnapshot snapshot = snapshotService.getSnapshot(1L, "trading");
+
+        assertEquals("TRADING", snapshot.getSchemaName());
+        MetadataSnapshotService.TableEntry trades = snapshot.findTable("TRADES");
+        assertNotNull(trades);
+        assertEquals(Arrays.asList("ID", "PRICE", "TRADE_TIME"), columnNames(trades));
+        assertSame(snapshot, snapshotService.getSnapshot(1L, "TRADING"));
+    }
+
+    @Test
+    void testFindTable_WithoutSchemaPrefersDefaultThenSearchesOthers() throws DataSourceException {
+        assertEquals("PUBLIC", snapshotService.findTable(1L, null, "orders").getOwner());
+        assertEquals("TRADING", snapshotService.findTable(1L, null, "trades").getOwner());
+
+        MetadataSnapshotService.TableEntry tradingOrders = snapshotService.findTable(1L, "trading", "orders");
+        assertEquals(Arrays.asList("ID", "VOLUME"), columnNames(tradingOrders));
+        assertNull(snapshotService.findTable(1L, null, "missing"));
+    }
+
+    @Test
+    void testGetKeys_PrimaryKeyAndIndexesHeldInSnapshot() throws DataSourceException {
+        MetadataSnapshotService.TableEntry trades = snapshotService.findTable(1L, "TRADING", "TRADES");
+
+        MetadataSnapshotService.TableKeys keys = snapshotService.getKeys(1L, trades);
+
+        assertEquals(List.of("ID"), keys.getPrimaryKeys());
+        DatabaseMetadataService.IndexDetailInfo index = keys.getIndexes().stream()
+            .filter(i -> "IDX_TRADES_TIME".equals(i.getIndexName()))
+            .findFirst()
+            .orElseThrow();
+        assertFalse(index.isUnique());
+        assertFalse(index.isPrimaryKey());
+        assertEquals(List.of("TRADE_TIME"), index.getColumnNames());
+        assertTrue(keys.getIndexes().stream().anyMatch(DatabaseMetadataService.IndexDetailInfo::isPrimaryKey));
+
+        // 再次访问直接使用快照中的结果
+        assertSame(keys, snapshotService.getKeys(1L, trades));
+    }
+
+    @Test
+    void testGetSnapshots_CoversEverySchema() throws DataSourceException {
+        List<String> schemas = snapshotService.getSnapshots(1L).stream()
+            .map(MetadataSnapshotService.MetadataSnapshot::getSchemaName)
+            .collect(Collectors.toList());
+
+        assertTrue(schemas.contains("PUBLIC"));
+        assertTrue(schemas.contains("TRADING"));
+    }
+
+    @Test
+    void testEvict_RebuildsSnapshotsOfAllSchemas() throws Exception {
+        MetadataSnapshotService.MetadataSnapshot snapshot = snapshotService.getSnapshot(1L, "TRADING");
+        execute("CREATE TABLE TRADING.SETTLEMENTS (ID BIGINT PRIMARY KEY)");
+        assertSame(snapshot, snapshotService.getSnapshot(1L, "TRADING"));
+
+        snapshotService.evict(1L);
+
+        assertNotNull(snapshotService.getSnapshot(1L, "TRADING").findTable("settlements"));
+    }
+
+    @Test
+    void testConfigurationEvent_EvictsSnapshot() throws Exception {
+        MetadataSnapshotService.MetadataSnapshot snapshot = snapshotService.getSnapshot(1L);
+        execute("CREATE TABLE PUBLIC.SETTLEMENTS (ID BIGINT PRIMARY KEY)");
+
+        snapshotService.onConfigurationChanged(new DynamicConfigurationService.DataSourceConfigurationEvent(
+            DynamicConfigurationService.DataSourceConfigurationEvent.EventType.UPDATED, h2DataSource()));
+
+        assertNotSame(snapshot, snapshotService.getSnapshot(1L));
+        assertNotNull(snapshotService.getSnapshot(1L).findTable("settlements"));
+    }
+
+    @Test
+    void testGetSnapshot_ReplacedPoolRebuildsSnapshot() throws Exception {
+        MetadataSnapshotService.MetadataSnapshot snapshot = snapshotService.getSnapshot(1L);
+
+        dataSourceManager.updateDataSource(h2DataSource());
+
+        assertNotSame(snapshot, snapshotService.getSnapshot(1L));
+    }
+
+    @Test
+    void testGetSnapshot_RemovedDataSourceRejected() throws DataSourceException {
+        snapshotService.getSnapshot(1L);
+
+        dataSourceManager.removeDataSource(1L);
+
+        assertThrows(DataSourceException.class, () -> snapshotService.getSnapshot(1L));
+        dataSourceManager.addDataSource(h2DataSource());
+    }
+
+    private void execute(String... statements) throws Exception {
+        try (Connection connection = dataSourceManager.getConnection(1L);
+             Statement statement = connection.createStatement()) {
+            for (String sql : statements) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static List<String> columnNames(MetadataSnapshotService.TableEntry table) {
+        return table.getColumns().stream()
+            .map(DatabaseMetadataService.ColumnDetailInfo::getColumnName)
+            .collect(Collectors.toList());
+    }
+
+    private static DataSource h2DataSource() {
+        DataSource dataSource = new DataSource();
+        dataSource.setId(1L);
+        dataSource.setName("metadata-snapshot");
+        dataSource.setType("h2");
+        dataSource.setUrl("jdbc:h2:mem:metadata_snapshot_test;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("sa");
+        return dataSource;
+    }
+}
@@ -0,0 +1,158 @@
+package com.powertrading.datasource.monitor;
+
+import com.powertrading.datasource.entity.DataSource;
+import com.powertrading.datasource.exception.DataSourceException;
+import com.powertrading.datasource.manager.DataSourceManager;
+import com.powertrading.datasource.repository.DataSourceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 数据源健康检查调度单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class DataSourceHealthCheckTest {
+
+    private static final long INTERVAL = 60000L;
+
+    private DataSourceMonitorService monitorService;
+
+    private DataSourceRepository dataSourceRepository;
+
+    private DataSourceManager dataSourceManager;
+
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        dataSourceRepository = mock(DataSourceRepository.class);
+        dataSourceManager = mock(DataSourceManager.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+
+        monitorService = new DataSourceMonitorService();
+        ReflectionTestUtils.setField(monitorService, "dataSourceRepository", dataSourceRepository);
+        ReflectionTestUtils.setField(monitorService, "dataSourceManager", dataSourceManager);
+        ReflectionTestUtils.setField(monitorService, "dataSourcePoolMetrics", mock(DataSourcePoolMetrics.class));
+        ReflectionTestUtils.setField(monitorService, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(monitorService, "monitorEnabled", true);
+        ReflectionTestUtils.setField(monitorService, "healthCheckInterval", INTERVAL);
+        ReflectionTestUtils.setField(monitorService, "healthCheckTimeout", 1000L);
+        ReflectionTestUtils.setField(monitorService, "healthCheckParallelism", 2);
+        ReflectionTestUtils.setField(monitorService, "healthCheckMaxBackoff", 4 * INTERVAL);
+        ReflectionTestUtils.setField(monitorService, "healthCheckJitter", 0.0);
+        ReflectionTestUtils.setField(monitorService, "healthCheckBatchSize", 2);
+        monitorService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitorService.destroy();
+    }
+
+    @Test
+    void testHealthCheck_ParallelChecksWrittenInBatches() throws Exception {
+        when(dataSourceRepository.findEnabledDataSources())
+            .thenReturn(Arrays.asList(dataSource(1L), dataSource(2L), dataSource(3L)));
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        when(dataSourceManager.getConnection(anyLong())).thenReturn(connection);
+
+        long now = System.currentTimeMillis();
+        monitorService.performHealthCheck(now);
+        // 首次检查分布在一个检查间隔内
+        for (long id = 1; id <= 3; id++) {
+            long next = monitorService.getNextHealthCheckTime(id);
+            assertTrue(next >= now && next < now + INTERVAL);
+        }
+
+        monitorService.performHealthCheck(now + INTERVAL);
+        awaitCompletedChecks(3);
+        monitorService.performHealthCheck(now + INTERVAL + 1);
+
+        for (long id = 1; id <= 3; id++) {
+            verify(dataSourceRepository).updateHealthCheckInfo(eq(id), any(), eq(1), isNull());
+            assertEquals(now + 2 * INTERVAL + 1, monitorService.getNextHealthCheckTime(id));
+        }
+        verify(connection, times(3)).isValid(1);
+        // 3个结果按每批2个分两个事务写回
+        verify(transactionManager, times(2)).commit(any());
+    }
+
+    @Test
+    void testHealthCheck_FailingDataSourceBacksOff() throws Exception {
+        when(dataSourceRepository.findEnabledDataSources()).thenReturn(Collections.singletonList(dataSource(1L)));
+        when(dataSourceManager.getConnection(1L)).thenThrow(new DataSourceException("获取数据源连接失败: refused"));
+
+        long now = System.currentTimeMillis();
+        monitorService.performHealthCheck(now);
+        monitorService.performHealthCheck(now + INTERVAL);
+        awaitCompletedChecks(1);
+        monitorService.performHealthCheck(now + INTERVAL + 1);
+
+        assertEquals(1, monitorService.getConsecutiveHealthCheckFailures(1L));
+        assertEquals(now + 2 * INTERVAL + 1, monitorService.getNextHealthCheckTime(1L));
+
+        monitorService.performHealthCheck(now + 10 * INTERVAL);
+        awaitCompletedChecks(2);
+        monitorService.performHealthCheck(now + 10 * INTERVAL + 1);
+
+        assertEquals(2, monitorService.getConsecutiveHealthCheckFailures(1L));
+        assertEquals(now + 12 * INTERVAL + 1, monitorService.getNextHealthCheckTime(1L));
+        verify(dataSourceRepository, times(2))
+            .updateHealthCheckInfo(eq(1L), any(), eq(2), eq("获取数据源连接失败: refused"));
+    }
+
+    @Test
+    void testHealthCheck_TimedOutCheckMarkedUnhealthy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(dataSourceRepository.findEnabledDataSources()).thenReturn(Collections.singletonList(dataSource(1L)));
+        when(dataSourceManager.getConnection(1L)).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return mock(Connection.class);
+        });
+
+        long now = System.currentTimeMillis();
+        monitorService.performHealthCheck(now);
+        monitorService.performHealthCheck(now + INTERVAL);
+        monitorService.performHealthCheck(now + INTERVAL + 1500);
+        release.countDown();
+
+        verify(dataSourceRepository).updateHealthCheckInfo(eq(1L), any(), eq(2), eq("健康检查超时"));
+        assertEquals(1, monitorService.getConsecutiveHealthCheckFailures(1L));
+    }
+
+    private void awaitCompletedChecks(long count) throws InterruptedException {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(monitorService,
+            "healthCheckExecutor");
+        long deadline = System.currentTimeMillis() + 5000;
+        while (executor.getCompletedTaskCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, executor.getCompletedTaskCount());
+    }
+
+    private static DataSource dataSource(Long id) {
+        DataSource dataSource = new DataSource();
+        dataSource.setId(id);
+        dataSource.setName("ds-" + id);
+        return dataSource;
+    }
+}
@@ -0,0 +1,123 @@
+package com.powertrading.datasource.monitor;
+
+import com.powertrading.datasource.entity.DataSource;
+import com.powertrading.datasource.manager.DataSourceManager;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 数据源连接池指标绑定器单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class DataSourcePoolMetricsTest {
+
+    private DataSourcePoolMetrics poolMetrics;
+
+    private DataSourceManager dataSourceManager;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        dataSourceManager = new DataSourceManager();
+        ReflectionTestUtils.setField(dataSourceManager, "warmupTimeout", 5000L);
+        ReflectionTestUtils.setField(dataSourceManager, "drainTimeout", 1000L);
+        dataSourceManager.addDataSource(h2DataSource(1L, "pool-metrics"));
+
+        poolMetrics = new DataSourcePoolMetrics();
+        ReflectionTestUtils.setField(poolMetrics, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(poolMetrics, "dataSourceManager", dataSourceManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSourceManager.destroy();
+    }
+
+    @Test
+    void testBindAll_RegistersOnceAndReadsLiveValues() throws Exception {
+        poolMetrics.bindAll();
+        int meterCount = meterRegistry.getMeters().size();
+        Gauge active = meterRegistry.get("datasource.pool.active").tag("id", "1").gauge();
+
+        poolMetrics.bindAll();
+        poolMetrics.bindAll();
+
+        assertEquals(meterCount, meterRegistry.getMeters().size());
+        assertSame(active, meterRegistry.get("datasource.pool.active").tag("id", "1").gauge());
+        assertEquals(0.0, active.value());
+
+        try (Connection ignored = dataSourceManager.getConnection(1L)) {
+            assertEquals(1.0, active.value());
+        }
+        assertEquals(0.0, active.value());
+    }
+
+    @Test
+    void testGauges_FollowReplacedPool() throws Exception {
+        poolMetrics.bindAll();
+        Gauge total = meterRegistry.get("datasource.pool.total").tag("id", "1").gauge();
+        long versionBefore = dataSourceManager.getPoolHandle(1L).getVersion();
+
+        dataSourceManager.updateDataSource(h2DataSource(1L, "pool-metrics"));
+        poolMetrics.bindAll();
+
+        assertNotEquals(versionBefore, dataSourceManager.getPoolHandle(1L).getVersion());
+        assertSame(total, meterRegistry.get("datasource.pool.total").tag("id", "1").gauge());
+        assertFalse(Double.isNaN(total.value()));
+    }
+
+    @Test
+    void testRename_ReRegistersWithNewTag() {
+        poolMetrics.bind(1L, "pool-metrics");
+        poolMetrics.bind(1L, "renamed");
+
+        assertNull(meterRegistry.find("datasource.pool.active").tag("datasource", "pool-metrics").gauge());
+        assertNotNull(meterRegistry.find("datasource.pool.active").tag("datasource", "renamed").gauge());
+        assertEquals(1, poolMetrics.getBoundCount());
+    }
+
+    @Test
+    void testUnbind_RemovesGauges() {
+        poolMetrics.bindAll();
+        assertFalse(meterRegistry.getMeters().isEmpty());
+
+        poolMetrics.unbind(1L);
+
+        assertTrue(meterRegistry.getMeters().isEmpty());
+        assertEquals(0, poolMetrics.getBoundCount());
+    }
+
+    @Test
+    void testBindAll_RemovesGaugesOfRemovedDataSource() {
+        poolMetrics.bindAll();
+
+        dataSourceManager.removeDataSource(1L);
+        poolMetrics.bindAll();
+
+        assertNull(meterRegistry.find("datasource.pool.active").tag("id", "1").gauge());
+        assertEquals(0, poolMetrics.getBoundCount());
+    }
+
+    private static DataSource h2DataSource(Long id, String name) {
+        DataSource dataSource = new DataSource();
+        dataSource.setId(id);
+        dataSource.setName(name);
+        dataSource.setType("h2");
+        dataSource.setUrl("jdbc:h2:mem:pool_metrics_test;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("sa");
+        return dataSource;
+    }
+}
@@ -0,0 +1,127 @@
+package com.powertrading.datasource.monitor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 延迟直方图单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class LatencyHistogramTest {
+
+    private static final long T0 = 1_700_000_000_000L;
+
+    private static final long HALF_LIFE = 1000L;
+
+    @Test
+    void testIndex_SmallValuesHaveOwnBucket() {
+        for (int value = 0; value < 8; value++) {
+            assertEquals(value, LatencyHistogram.index(value));
+            assertEquals(value, LatencyHistogram.upperBound(value));
+        }
+        // 16和17落在同一个宽度为2的子桶
+        assertEquals(LatencyHistogram.index(16), LatencyHistogram.index(17));
+        assertEquals(17, LatencyHistogram.upperBound(LatencyHistogram.index(16)));
+        assertNotEquals(LatencyHistogram.index(17), LatencyHistogram.index(18));
+    }
+
+    @Test
+    void testUpperBound_ContainsValueWithinRelativeError() {
+        long[] boundaries = {(1L << 20) - 1, 1L << 20, (1L << 31) - 1};
+        for (long value = 1; value <= 100_000; value++) {
+            assertBucketContains(value);
+        }
+        for (long value : boundaries) {
+            assertBucketContains(value);
+        }
+    }
+
+    @Test
+    void testPercentile_EmptyReturnsZero() {
+        LatencyHistogram histogram = new LatencyHistogram(HALF_LIFE, T0);
+
+        assertEquals(0, histogram.percentile(0.5, T0));
+        assertEquals(0, histogram.percentile(0.99, T0));
+    }
+
+    @Test
+    void testPercentile_ReturnsUpperBoundOfBucket() {
+        LatencyHistogram histogram = new LatencyHistogram(HALF_LIFE, T0);
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(value, T0);
+        }
+
+        // 50落在48-51的子桶，99落在96-103的子桶
+        assertEquals(51, histogram.percentile(0.5, T0));
+        assertEquals(103, histogram.percentile(0.99, T0));
+        assertEquals(1, histogram.percentile(0.0, T0));
+    }
+
+    @Test
+    void testRecord_OutOfRangeValuesClamped() {
+        LatencyHistogram histogram = new LatencyHistogram(HALF_LIFE, T0);
+
+        histogram.record(-5, T0);
+        histogram.record(Long.MAX_VALUE, T0);
+
+        assertEquals(0, histogram.percentile(0.5, T0));
+        assertEquals((1L << 31) - 1, histogram.percentile(1.0, T0));
+    }
+
+    @Test
+    void testDecay_CountsHalvedEachHalfLife() {
+        LatencyHistogram histogram = new LatencyHistogram(HALF_LIFE, T0);
+        for (int i = 0; i < 8; i++) {
+            histogram.record(1000, T0);
+        }
+        assertEquals(1023, histogram.percentile(0.5, T0 + HALF_LIFE - 1));
+
+        // 一个半衰期后旧样本剩4个，与4个新样本各占一半
+        for (int i = 0; i < 4; i++) {
+            histogram.record(10, T0 + HALF_LIFE);
+        }
+
+        assertEquals(10, histogram.percentile(0.5, T0 + HALF_LIFE));
+        assertEquals(1023, histogram.percentile(0.99, T0 + HALF_LIFE));
+    }
+
+    @Test
+    void testDecay_OldSamplesFadeOut() {
+        LatencyHistogram histogram = new LatencyHistogram(HALF_LIFE, T0);
+        for (int i = 0; i < 4; i++) {
+            histogram.record(1000, T0);
+        }
+
+        // 三个半衰期后旧样本已清零，慢查询不再影响P99
+        histogram.record(10, T0 + 3 * HALF_LIFE);
+
+        assertEquals(10, histogram.percentile(0.99, T0 + 3 * HALF_LIFE));
+    }
+
+    @Test
+    void testDecay_IdleHistogramEmptiesOnRead() {
+        LatencyHistogram histogram = new LatencyHistogram(HALF_LIFE, T0);
+        histogram.record(1000, T0);
+
+        assertEquals(0, histogram.percentile(0.99, T0 + 100 * HALF_LIFE));
+    }
+
+    @Test
+    void testDecay_DisabledWhenHalfLifeNotPositive() {
+        LatencyHistogram histogram = new LatencyHistogram(0, T0);
+        histogram.record(1000, T0);
+
+        assertEquals(1023, histogram.percentile(0.99, T0 + 100 * HALF_LIFE));
+    }
+
+    private static void assertBucketContains(long value) {
+        int index = LatencyHistogram.index(value);
+        long upperBound = LatencyHistogram.upperBound(index);
+        assertTrue(upperBound >= value, "桶上界应不小于 " + value);
+        assertTrue(LatencyHistogram.upperBound(index - 1) < value, "前一个桶上界应小于 " + value);
+        assertTrue(upperBound - value <= value / 8, "桶宽相对误差应不超过12.5%: " + value);
+    }
+}
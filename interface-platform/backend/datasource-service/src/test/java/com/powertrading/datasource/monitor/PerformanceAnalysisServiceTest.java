@@ -0,0 +1,182 @@
+package com.powertrading.datasource.monitor;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 性能分析服务单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class PerformanceAnalysisServiceTest {
+
+    private PerformanceAnalysisService performanceAnalysisService;
+
+    @BeforeEach
+    void setUp() {
+        performanceAnalysisService = new PerformanceAnalysisService();
+        ReflectionTestUtils.setField(performanceAnalysisService, "monitorEnabled", true);
+        ReflectionTestUtils.setField(performanceAnalysisService, "slowQueryThreshold", 1000L);
+        ReflectionTestUtils.setField(performanceAnalysisService, "maxFingerprintsPerDataSource", 3);
+        ReflectionTestUtils.setField(performanceAnalysisService, "histogramHalfLife", 300000L);
+    }
+
+    @Test
+    void testConnectionPoolAnalysis_RawSnapshotsWithinRetention() {
+        long now = System.currentTimeMillis();
+        addSnapshot(1L, 2, 0, now - 60000);
+        addSnapshot(1L, 4, 0, now - 30000);
+        addSnapshot(1L, 6, 3, now);
+
+        PerformanceAnalysisService.ConnectionPoolAnalysisReport report =
+            performanceAnalysisService.getConnectionPoolAnalysis(1L, 1);
+
+        assertEquals("RAW", report.getResolution());
+        assertEquals(3, report.getDataPoints());
+        assertEquals(4.0, report.getAverageActiveConnections(), 0.0001);
+        assertEquals(6, report.getMaxActiveConnections());
+        assertEquals(3, report.getMaxWaitingThreads());
+        assertEquals(0.4, report.getUtilizationRate(), 0.0001);
+        assertEquals("无数据", performanceAnalysisService.getConnectionPoolAnalysis(2L, 1).getStatus());
+    }
+
+    @Test
+    void testConnectionPoolAnalysis_FallsBackToRollupsBeyondRawRetention() {
+        // 1200个30秒间隔的快照共10小时，原始快照只保留最近1000个
+        long now = System.currentTimeMillis();
+        for (int i = 1199; i >= 0; i--) {
+            addSnapshot(1L, i == 1199 ? 9 : 1, 0, now - i * 30000L);
+        }
+
+        PerformanceAnalysisService.ConnectionPoolAnalysisReport recent =
+            performanceAnalysisService.getConnectionPoolAnalysis(1L, 1);
+        PerformanceAnalysisService.ConnectionPoolAnalysisReport all =
+            performanceAnalysisService.getConnectionPoolAnalysis(1L, 11);
+
+        assertEquals("RAW", recent.getResolution());
+        assertEquals("MINUTE", all.getResolution());
+        assertEquals(1200, all.getDataPoints());
+        // 最早的快照只保留在汇总数据中
+        assertEquals(9, all.getMaxActiveConnections());
+        assertEquals(1, recent.getMaxActiveConnections());
+    }
+
+    @Test
+    void testConnectionPoolTrend_MinuteBuckets() {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 15, 10, 0, 0);
+        addSnapshot(1L, 2, 0, base);
+        addSnapshot(1L, 4, 1, base.plusSeconds(30));
+        addSnapshot(1L, 8, 0, base.plusSeconds(60));
+
+        List<PerformanceAnalysisService.PoolRollup> minutes = performanceAnalysisService
+            .getConnectionPoolTrend(1L, PerformanceAnalysisService.RollupResolution.MINUTE, 0);
+        List<PerformanceAnalysisService.PoolRollup> hours = performanceAnalysisService
+            .getConnectionPoolTrend(1L, PerformanceAnalysisService.RollupResolution.HOUR, 0);
+
+        assertEquals(2, minutes.size());
+        assertEquals(base, minutes.get(0).getBucketStart());
+        assertEquals(2, minutes.get(0).getSampleCount());
+        assertEquals(3.0, minutes.get(0).getAverageActiveConnections(), 0.0001);
+        assertEquals(1, minutes.get(0).getMaxWaitingThreads());
+        // 当前分钟尚未结束，同样返回
+        assertEquals(8, minutes.get(1).getMaxActiveConnections());
+
+        assertEquals(1, hours.size());
+        assertEquals(3, hours.get(0).getSampleCount());
+        assertEquals(2, hours.get(0).getMinActiveConnections());
+    }
+
+    @Test
+    void testSlowQueries_BoundedAndRemovedWithDataSource() {
+        for (int i = 0; i < 600; i++) {
+            performanceAnalysisService.recordQueryExecution(1L, "SELECT " + i, 2000 + i, true, 1);
+        }
+        performanceAnalysisService.recordQueryExecution(1L, "SELECT 1", 10, true, 1);
+
+        PerformanceAnalysisService.SlowQueryAnalysisReport report =
+            performanceAnalysisService.getSlowQueryAnalysis(1L, 1);
+        assertEquals(500, report.getTotalSlowQueries());
+        assertEquals(2599, report.getMaxExecutionTime());
+        assertEquals(601, performanceAnalysisService.getQueryStatistics(1L).getTotalQueries().get());
+
+        performanceAnalysisService.removeDataSource(1L);
+
+        assertEquals(0, performanceAnalysisService.getSlowQueryAnalysis(1L, 1).getTotalSlowQueries());
+        assertEquals(0, performanceAnalysisService.getQueryStatistics(1L).getTotalQueries().get());
+    }
+
+    @Test
+    void testTopQueries_AggregatedByFingerprint() {
+        for (int i = 1; i <= 100; i++) {
+            performanceAnalysisService.recordQueryExecution(1L, "SELECT * FROM t WHERE id = " + i, i, true, 2);
+        }
+        performanceAnalysisService.recordQueryExecution(1L, "SELECT * FROM u WHERE id IN (1, 2)", 400, false, 0);
+        performanceAnalysisService.recordQueryExecution(2L, "SELECT * FROM u WHERE id IN (3)", 600, true, 1);
+
+        List<PerformanceAnalysisService.QueryFingerprintStatistics> byTotal = performanceAnalysisService
+            .getTopQueries(null, PerformanceAnalysisService.TopQueryOrder.TOTAL_TIME, 2);
+        List<PerformanceAnalysisService.QueryFingerprintStatistics> byMean = performanceAnalysisService
+            .getTopQueries(1L, PerformanceAnalysisService.TopQueryOrder.MEAN_TIME, 10);
+
+        assertEquals(2, byTotal.size());
+        PerformanceAnalysisService.QueryFingerprintStatistics first = byTotal.get(0);
+        assertEquals("select * from t where id = ?", first.getNormalizedSql());
+        assertEquals(100, first.getCalls());
+        assertEquals(5050, first.getTotalExecutionTime());
+        assertEquals(1, first.getMinExecutionTime());
+        assertEquals(100, first.getMaxExecutionTime());
+        assertEquals(200, first.getTotalRows());
+        // 百分位按直方图桶上界估算
+        assertTrue(first.getP99ExecutionTime() >= 99 && first.getP99ExecutionTime() <= 100);
+        assertTrue(first.getP50ExecutionTime() >= 50 && first.getP50ExecutionTime() <= 55);
+        assertEquals(Long.valueOf(2L), byTotal.get(1).getDataSourceId());
+
+        assertEquals(2, byMean.size());
+        assertEquals("select * from u where id in (?...)", byMean.get(0).getNormalizedSql());
+        assertEquals(1, byMean.get(0).getFailedCalls());
+    }
+
+    @Test
+    void testFingerprints_LeastCalledEvictedAtLimit() {
+        for (int i = 0; i < 5; i++) {
+            performanceAnalysisService.recordQueryExecution(1L, "SELECT a FROM t", 1, true, 1);
+        }
+        performanceAnalysisService.recordQueryExecution(1L, "SELECT b FROM t", 1, true, 1);
+        performanceAnalysisService.recordQueryExecution(1L, "SELECT b FROM t", 1, true, 1);
+        performanceAnalysisService.recordQueryExecution(1L, "SELECT c FROM t", 1, true, 1);
+        performanceAnalysisService.recordQueryExecution(1L, "SELECT d FROM t", 1, true, 1);
+
+        List<PerformanceAnalysisService.QueryFingerprintStatistics> all = performanceAnalysisService
+            .getTopQueries(1L, PerformanceAnalysisService.TopQueryOrder.CALLS, 10);
+
+        assertEquals(3, all.size());
+        assertEquals("select a from t", all.get(0).getNormalizedSql());
+        assertEquals("select b from t", all.get(1).getNormalizedSql());
+        assertEquals("select d from t", all.get(2).getNormalizedSql());
+    }
+
+    private void addSnapshot(Long dataSourceId, int active, int waiting, long timestamp) {
+        LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+        performanceAnalysisService.addPoolSnapshot(dataSourceId, snapshot(dataSourceId, active, waiting, time), timestamp);
+    }
+
+    private void addSnapshot(Long dataSourceId, int active, int waiting, LocalDateTime time) {
+        long timestamp = time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        performanceAnalysisService.addPoolSnapshot(dataSourceId, snapshot(dataSourceId, active, waiting, time), timestamp);
+    }
+
+    private PerformanceAnalysisService.ConnectionPoolSnapshot snapshot(Long dataSourceId, int active, int waiting,
+                                                                       LocalDateTime time) {
+        return new PerformanceAnalysisService.ConnectionPoolSnapshot(dataSourceId, "ds-" + dataSourceId,
+            active, 10 - active, 10, waiting, time);
+    }
+}
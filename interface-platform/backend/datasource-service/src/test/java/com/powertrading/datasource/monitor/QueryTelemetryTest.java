@@ -0,0 +1,116 @@
+package com.powertrading.datasource.monitor;
+
+import com.powertrading.datasource.engine.BoundSql;
+import com.powertrading.datasource.engine.QueryTrace;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 查询执行遥测单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class QueryTelemetryTest {
+
+    private QueryTelemetry queryTelemetry;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private DataSourceMonitorService dataSourceMonitorService;
+
+    private PerformanceAnalysisService performanceAnalysisService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dataSourceMonitorService = mock(DataSourceMonitorService.class);
+        performanceAnalysisService = mock(PerformanceAnalysisService.class);
+        queryTelemetry = new QueryTelemetry();
+        ReflectionTestUtils.setField(queryTelemetry, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(queryTelemetry, "dataSourceMonitorService", dataSourceMonitorService);
+        ReflectionTestUtils.setField(queryTelemetry, "performanceAnalysisService", performanceAnalysisService);
+        ReflectionTestUtils.setField(queryTelemetry, "telemetryEnabled", true);
+        ReflectionTestUtils.setField(queryTelemetry, "percentiles", new double[]{0.5, 0.99});
+        ReflectionTestUtils.setField(queryTelemetry, "maxInterfaceMeters", 1);
+    }
+
+    @Test
+    void testRecord_SuccessfulQueryPerPhaseAndInterface() {
+        queryTelemetry.record(successfulTrace(1L, "if-1", 3, 120));
+        queryTelemetry.record(successfulTrace(1L, "if-1", 5, 80));
+
+        Timer acquire = meterRegistry.get("datasource.query.acquire").tag("dataSourceId", "1").timer();
+        Timer fetch = meterRegistry.get("datasource.query.fetch").tag("dataSourceId", "1").timer();
+        Timer latency = meterRegistry.get("datasource.query.latency")
+            .tag("dataSourceId", "1").tag("outcome", "success").timer();
+        DistributionSummary rows = meterRegistry.get("datasource.query.rows").tag("dataSourceId", "1").summary();
+        DistributionSummary bytes = meterRegistry.get("datasource.query.bytes").tag("dataSourceId", "1").summary();
+        Timer interfaceLatency = meterRegistry.get("interface.query.latency").tag("interfaceId", "if-1").timer();
+
+        assertEquals(2, acquire.count());
+        assertEquals(2, fetch.count());
+        assertEquals(2, latency.count());
+        assertEquals(8, rows.totalAmount());
+        assertEquals(200, bytes.totalAmount());
+        assertEquals(2, interfaceLatency.count());
+        assertEquals(2, latency.takeSnapshot().percentileValues().length);
+
+        verify(dataSourceMonitorService, times(2)).recordConnectionAcquisition(eq(1L), anyLong(), eq(true));
+        verify(dataSourceMonitorService, times(2)).recordQueryExecution(eq(1L), anyLong(), eq(true), eq("SELECT 1"));
+        verify(performanceAnalysisService).recordQueryExecution(eq(1L), eq("SELECT 1"), anyLong(), eq(true), eq(3));
+    }
+
+    @Test
+    void testRecord_ConnectionFailureAndUnstartedTrace() {
+        QueryTrace failed = new QueryTrace(2L, new BoundSql("SELECT 1", Collections.emptyList()));
+        ReflectionTestUtils.invokeMethod(failed, "begin");
+        failed.finish();
+        queryTelemetry.record(failed);
+
+        // SQL校验未通过的查询不计入指标
+        queryTelemetry.record(new QueryTrace(2L, new BoundSql("DROP TABLE t", Collections.emptyList())));
+
+        assertEquals(1, meterRegistry.get("datasource.query.latency")
+            .tag("dataSourceId", "2").tag("outcome", "failure").timer().count());
+        assertEquals(0, meterRegistry.get("datasource.query.execute").tag("dataSourceId", "2").timer().count());
+        verify(dataSourceMonitorService).recordConnectionAcquisition(eq(2L), anyLong(), eq(false));
+        verify(dataSourceMonitorService).recordQueryExecution(eq(2L), anyLong(), eq(false), eq("SELECT 1"));
+    }
+
+    @Test
+    void testInterfaceMeterLimitAndRemoveDataSource() {
+        queryTelemetry.record(successfulTrace(1L, "if-1", 1, 10));
+        queryTelemetry.record(successfulTrace(1L, "if-2", 1, 10));
+
+        // 超出接口指标上限的接口只记录数据源维度
+        assertNull(meterRegistry.find("interface.query.latency").tag("interfaceId", "if-2").timer());
+        assertEquals(2, meterRegistry.get("datasource.query.acquire").tag("dataSourceId", "1").timer().count());
+
+        queryTelemetry.removeDataSource(1L);
+
+        assertNull(meterRegistry.find("datasource.query.acquire").tag("dataSourceId", "1").timer());
+        assertNull(meterRegistry.find("interface.query.latency").tag("interfaceId", "if-1").timer());
+    }
+
+    private QueryTrace successfulTrace(Long dataSourceId, String interfaceId, int rows, long bytes) {
+        QueryTrace trace = new QueryTrace(dataSourceId,
+            new BoundSql("SELECT 1", Collections.emptyList()).forInterface(interfaceId));
+        ReflectionTestUtils.invokeMethod(trace, "begin");
+        ReflectionTestUtils.invokeMethod(trace, "connectionAcquired");
+        ReflectionTestUtils.invokeMethod(trace, "statementExecuted");
+        ReflectionTestUtils.invokeMethod(trace, "completed", rows, bytes);
+        trace.finish();
+        return trace;
+    }
+}
@@ -0,0 +1,100 @@
+package com.powertrading.datasource.monitor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 时间序列环形缓冲区单元测试
+ *
+ * @author PowerTrading Team
+ * @version 1.0.0
+ */
+class TimeSeriesRingBufferTest {
+
+    @Test
+    void testAdd_OverwritesOldestWhenFull() {
+        TimeSeriesRingBuffer<Integer> buffer = new TimeSeriesRingBuffer<>(3);
+        for (int i = 1; i <= 5; i++) {
+            buffer.add(i * 1000L, i);
+        }
+
+        assertEquals(3, buffer.size());
+        assertEquals(Arrays.asList(3, 4, 5), buffer.toList());
+    }
+
+    @Test
+    void testSince_ReturnsOnlyWindowInOrder() {
+        TimeSeriesRingBuffer<Integer> buffer = new TimeSeriesRingBuffer<>(10);
+        for (int i = 1; i <= 6; i++) {
+            buffer.add(i * 1000L, i);
+        }
+
+        assertEquals(Arrays.asList(4, 5, 6), buffer.since(4000L));
+        assertTrue(buffer.since(7000L).isEmpty());
+        assertTrue(new TimeSeriesRingBuffer<Integer>(2).toList().isEmpty());
+    }
+
+    @Test
+    void testCovers() {
+        TimeSeriesRingBuffer<Integer> buffer = new TimeSeriesRingBuffer<>(3);
+        buffer.add(1000L, 1);
+        buffer.add(2000L, 2);
+        // 尚未覆盖任何元素，保留了全部历史
+        assertTrue(buffer.covers(0L));
+
+        buffer.add(3000L, 3);
+        buffer.add(4000L, 4);
+        assertTrue(buffer.covers(2000L));
+        assertFalse(buffer.covers(1500L));
+    }
+
+    @Test
+    void testConcurrentWritersAndReaders() throws Exception {
+        TimeSeriesRingBuffer<Long> buffer = new TimeSeriesRingBuffer<>(64);
+        int writers = 4;
+        int perWriter = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            Future<?>[] futures = new Future<?>[writers];
+            for (int w = 0; w < writers; w++) {
+                futures[w] = executor.submit(() -> {
+                    start.await();
+                    for (long i = 0; i < perWriter; i++) {
+                        buffer.add(i, i);
+                    }
+                    return null;
+                });
+            }
+            Future<Integer> reader = executor.submit(() -> {
+                start.await();
+                int reads = 0;
+                while (reads < 2000) {
+                    List<Long> values = buffer.toList();
+                    assertTrue(values.size() <= 64);
+                    reads++;
+                }
+                return reads;
+            });
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(2000, reader.get(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(64, buffer.size());
+        assertEquals(64, buffer.toList().size());
+    }
+}
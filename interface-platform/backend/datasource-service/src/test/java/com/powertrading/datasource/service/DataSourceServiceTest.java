@@ -1,8 +1,14 @@
 package com.powertrading.datasource.service;
 
+import com.powertrading.datasource.cache.QueryCacheService;
+import com.powertrading.datasource.engine.QueryBulkheads;
 import com.powertrading.datasource.entity.DataSource;
 import com.powertrading.datasource.exception.DataSourceException;
 import com.powertrading.datasource.manager.DataSourceManager;
+import com.powertrading.datasource.metadata.MetadataSnapshotService;
+import com.powertrading.datasource.monitor.DataSourcePoolMetrics;
+import com.powertrading.datasource.monitor.PerformanceAnalysisService;
+import com.powertrading.datasource.monitor.QueryTelemetry;
 import com.powertrading.datasource.repository.DataSourceRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -40,6 +46,24 @@ class DataSourceServiceTest {
     @Mock
     private DataSourceManager dataSourceManager;
 
+    @Mock
+    private QueryCacheService queryCacheService;
+
+    @Mock
+    private QueryTelemetry queryTelemetry;
+
+    @Mock
+    private PerformanceAnalysisService performanceAnalysisService;
+
+    @Mock
+    private DataSourcePoolMetrics dataSourcePoolMetrics;
+
+    @Mock
+    private QueryBulkheads queryBulkheads;
+
+    @Mock
+    private MetadataSnapshotService metadataSnapshotService;
+
     @InjectMocks
     private DataSourceService dataSourceService;
 
@@ -120,6 +144,8 @@ class DataSourceServiceTest {
         verify(dataSourceRepository).existsByNameAndIdNot(updatedDataSource.getName(), 1L);
         verify(dataSourceRepository).save(any(DataSource.class));
         verify(dataSourceManager).updateDataSource(any(DataSource.class));
+        verify(queryCacheService).invalidateDataSource(1L);
+        verify(metadataSnapshotService).evict(1L);
     }
 
     @Test
@@ -151,6 +177,11 @@ class DataSourceServiceTest {
         verify(dataSourceRepository).findById(1L);
         verify(dataSourceManager).removeDataSource(1L);
         verify(dataSourceRepository).deleteById(1L);
+        verify(queryCacheService).invalidateDataSource(1L);
+        verify(metadataSnapshotService).evict(1L);
+        verify(performanceAnalysisService).removeDataSource(1L);
+        verify(dataSourcePoolMetrics).unbind(1L);
+        verify(queryBulkheads).removeDataSource(1L);
     }
 
     @Test
@@ -304,6 +335,11 @@ class DataSourceServiceTest {
         verify(dataSourceRepository).findById(1L);
         verify(dataSourceRepository).save(any(DataSource.class));
         verify(dataSourceManager).removeDataSource(1L);
+        verify(queryCacheService).invalidateDataSource(1L);
+        verify(metadataSnapshotService).evict(1L);
+        verify(queryTelemetry).removeDataSource(1L);
+        verify(dataSourcePoolMetrics).unbind(1L);
+        verify(queryBulkheads).removeDataSource(1L);
     }
 
     @Test
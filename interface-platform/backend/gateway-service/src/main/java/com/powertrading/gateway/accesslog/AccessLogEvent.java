@@ -0,0 +1,69 @@
+package com.powertrading.gateway.accesslog;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.http.HttpHeaders;
+
+/**
+ * 访问日志事件
+ * 事件对象随环形缓冲区预先分配并循环使用，请求线程只写入字段引用和数值，格式化在写日志线程中完成
+ */
+@Getter
+@Setter
+public final class AccessLogEvent {
+
+    private long timestamp;
+
+    private String requestId;
+
+    private String routeId;
+
+    private String method;
+
+    private String path;
+
+    private String clientIp;
+
+    private int status;
+
+    private long duration;
+
+    private boolean slow;
+
+    // 请求头和响应头仅在配置记录时设置，写日志时过滤敏感头
+    private HttpHeaders requestHeaders;
+
+    private HttpHeaders responseHeaders;
+
+    private BodyCapture requestBody;
+
+    private BodyCapture responseBody;
+
+    private Throwable error;
+
+    @Getter(AccessLevel.PACKAGE)
+    @Setter(AccessLevel.NONE)
+    private long sequence;
+
+    AccessLogEvent() {
+    }
+
+    void reset(long sequence) {
+        this.sequence = sequence;
+        this.timestamp = 0;
+        this.requestId = null;
+        this.routeId = null;
+        this.method = null;
+        this.path = null;
+        this.clientIp = null;
+        this.status = 0;
+        this.duration = 0;
+        this.slow = false;
+        this.requestHeaders = null;
+        this.responseHeaders = null;
+        this.requestBody = null;
+        this.responseBody = null;
+        this.error = null;
+    }
+}
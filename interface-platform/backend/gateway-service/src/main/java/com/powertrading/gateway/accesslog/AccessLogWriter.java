@@ -0,0 +1,279 @@
+package com.powertrading.gateway.accesslog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志异步写入器
+ * 请求线程从有界环形缓冲区领取预先分配的事件、填写字段后发布，不加锁、不格式化、不做I/O；
+ * 单个写日志线程按顺序取出事件，格式化为一行JSON写入访问日志logger。缓冲区满时直接丢弃事件并计数，
+ * 不阻塞请求线程
+ */
+@Slf4j
+@Component
+public class AccessLogWriter {
+
+    private static final Logger ACCESS_LOG = LoggerFactory.getLogger("com.powertrading.gateway.access");
+
+    private static final long DROP_REPORT_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+    @Value("${gateway.access-log.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${gateway.access-log.idle-wait:1}")
+    private long idleWaitMillis;
+
+    private AccessLogEvent[] events;
+
+    // 槽位序号：等于领取序号时可领取，等于领取序号+1时已发布待写入
+    private AtomicLongArray sequences;
+
+    private int mask;
+
+    private final AtomicLong claimSequence = new AtomicLong();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final StringBuilder line = new StringBuilder(1024);
+
+    private volatile boolean running;
+
+    private Thread writerThread;
+
+    @PostConstruct
+    public void init() {
+        int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        events = new AccessLogEvent[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new AccessLogEvent();
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+        running = true;
+        writerThread = new Thread(this::drainLoop, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("访问日志写入器已启动: capacity={}", capacity);
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * 领取一个事件，填写后必须调用publish；缓冲区已满时返回null，本条日志丢弃
+     */
+    public AccessLogEvent claim() {
+        long sequence = claimSequence.get();
+        while (true) {
+            int index = (int) (sequence & mask);
+            long available = sequences.get(index);
+            if (available == sequence) {
+                if (claimSequence.compareAndSet(sequence, sequence + 1)) {
+                    AccessLogEvent event = events[index];
+                    event.reset(sequence);
+                    return event;
+                }
+                sequence = claimSequence.get();
+            } else if (available < sequence) {
+                dropped.increment();
+                return null;
+            } else {
+                sequence = claimSequence.get();
+            }
+        }
+    }
+
+    /**
+     * 发布已填写的事件
+     */
+    public void publish(AccessLogEvent event) {
+        long sequence = event.getSequence();
+        sequences.set((int) (sequence & mask), sequence + 1);
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void drainLoop() {
+        long next = 0;
+        long reportedDrops = 0;
+        long reportedAt = System.nanoTime();
+        long idleWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, idleWaitMillis));
+        while (true) {
+            int index = (int) (next & mask);
+            if (sequences.get(index) == next + 1) {
+                AccessLogEvent event = events[index];
+                try {
+                    write(event);
+                } catch (Exception e) {
+                    log.warn("写入访问日志失败: {}", e.getMessage());
+                }
+                event.reset(next);
+                sequences.set(index, next + mask + 1);
+                next++;
+                continue;
+            }
+            if (!running && claimSequence.get() == next) {
+                return;
+            }
+            long now = System.nanoTime();
+            if (now - reportedAt >= DROP_REPORT_INTERVAL) {
+                long drops = dropped.sum();
+                if (drops > reportedDrops) {
+                    log.warn("访问日志缓冲区已满，丢弃{}条", drops - reportedDrops);
+                    reportedDrops = drops;
+                }
+                reportedAt = now;
+            }
+            LockSupport.parkNanos(idleWaitNanos);
+        }
+    }
+
+    private void write(AccessLogEvent event) {
+        boolean error = event.getError() != null || event.getStatus() >= 500;
+        StringBuilder sb = line;
+        sb.setLength(0);
+        sb.append('{');
+        appendField(sb, "timestamp", event.getTimestamp());
+        appendField(sb, "requestId", event.getRequestId());
+        appendField(sb, "routeId", event.getRouteId());
+        appendField(sb, "method", event.getMethod());
+        appendField(sb, "path", event.getPath());
+        appendField(sb, "clientIp", event.getClientIp());
+        appendField(sb, "status", event.getStatus());
+        appendField(sb, "duration", event.getDuration());
+        if (event.isSlow()) {
+            sb.append(",\"slow\":true");
+        }
+        if (event.getRequestHeaders() != null) {
+            appendHeaders(sb, "requestHeaders", event.getRequestHeaders());
+        }
+        if (event.getResponseHeaders() != null) {
+            appendHeaders(sb, "responseHeaders", event.getResponseHeaders());
+        }
+        if (event.getRequestBody() != null) {
+            appendBody(sb, "requestBody", event.getRequestBody());
+        }
+        if (event.getResponseBody() != null) {
+            appendBody(sb, "responseBody", event.getResponseBody());
+        }
+        if (event.getError() != null) {
+            appendField(sb, "error", String.valueOf(event.getError()));
+        }
+        sb.append('}');
+
+        if (error) {
+            ACCESS_LOG.error(sb.toString(), event.getError());
+        } else if (event.isSlow()) {
+            ACCESS_LOG.warn(sb.toString());
+        } else {
+            ACCESS_LOG.info(sb.toString());
+        }
+    }
+
+    private static void appendField(StringBuilder sb, String name, long value) {
+        if (sb.length() > 1) {
+            sb.append(',');
+        }
+        sb.append('"').append(name).append("\":").append(value);
+    }
+
+    private static void appendField(StringBuilder sb, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        if (sb.length() > 1) {
+            sb.append(',');
+        }
+        sb.append('"').append(name).append("\":");
+        appendString(sb, value);
+    }
+
+    private static void appendHeaders(StringBuilder sb, String name, HttpHeaders headers) {
+        sb.append(",\"").append(name).append("\":{");
+        boolean first = true;
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (isSensitiveHeader(entry.getKey())) {
+                continue;
+            }
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            appendString(sb, entry.getKey());
+            sb.append(':');
+            appendString(sb, String.join(", ", entry.getValue()));
+        }
+        sb.append('}');
+    }
+
+    private static void appendBody(StringBuilder sb, String name, BodyCapture body) {
+        appendField(sb, name, body.text());
+        appendField(sb, name + "Bytes", body.getTotal());
+        if (body.isTruncated()) {
+            sb.append(",\"").append(name).append("Truncated\":true");
+        }
+    }
+
+    private static void appendString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * 检查是否为敏感请求头
+     */
+    private static boolean isSensitiveHeader(String headerName) {
+        String lowerName = headerName.toLowerCase();
+        return lowerName.contains("authorization") ||
+               lowerName.contains("cookie") ||
+               lowerName.contains("token") ||
+               lowerName.contains("password");
+    }
+}
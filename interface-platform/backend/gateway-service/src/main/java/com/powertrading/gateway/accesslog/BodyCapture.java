@@ -0,0 +1,52 @@
+package com.powertrading.gateway.accesslog;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 请求体/响应体截取
+ * 只复制前maxBytes个字节，原DataBuffer的读位置和引用计数不变，数据仍原样转发；超出部分只计数
+ */
+public final class BodyCapture {
+
+    private final byte[] content;
+
+    private int captured;
+
+    private long total;
+
+    public BodyCapture(int maxBytes) {
+        this.content = new byte[Math.max(0, maxBytes)];
+    }
+
+    /**
+     * 截取一个数据块，同一请求的数据块按顺序到达
+     */
+    public void capture(DataBuffer dataBuffer) {
+        int readable = dataBuffer.readableByteCount();
+        total += readable;
+        int length = Math.min(readable, content.length - captured);
+        if (length > 0) {
+            ByteBuffer view = dataBuffer.asByteBuffer(dataBuffer.readPosition(), length);
+            view.get(content, captured, length);
+            captured += length;
+        }
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public boolean isTruncated() {
+        return total > captured;
+    }
+
+    /**
+     * 按UTF-8解码截取的内容，截断处的不完整字符会被替换
+     */
+    public String text() {
+        return new String(content, 0, captured, StandardCharsets.UTF_8);
+    }
+}
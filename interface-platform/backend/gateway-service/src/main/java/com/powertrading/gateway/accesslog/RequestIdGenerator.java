@@ -0,0 +1,46 @@
+package com.powertrading.gateway.accesslog;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求ID生成器
+ * 请求ID由实例前缀和实例内递增序号组成：前缀在启动时随机生成（64位），序号保证同一实例内不重复，
+ * 不同实例前缀相同的概率可以忽略；生成过程只有一次原子自增和一次定长编码
+ */
+public final class RequestIdGenerator {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final String PREFIX = randomPrefix();
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    private RequestIdGenerator() {
+    }
+
+    /**
+     * 生成请求ID，格式为16位十六进制前缀-12位十六进制序号
+     */
+    public static String next() {
+        long sequence = SEQUENCE.incrementAndGet();
+        char[] id = new char[PREFIX.length() + 13];
+        PREFIX.getChars(0, PREFIX.length(), id, 0);
+        id[PREFIX.length()] = '-';
+        for (int i = id.length - 1; i > PREFIX.length(); i--) {
+            id[i] = HEX[(int) (sequence & 0xF)];
+            sequence >>>= 4;
+        }
+        return new String(id);
+    }
+
+    private static String randomPrefix() {
+        long value = new SecureRandom().nextLong();
+        char[] prefix = new char[16];
+        for (int i = prefix.length - 1; i >= 0; i--) {
+            prefix[i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+        return new String(prefix);
+    }
+}
@@ -2,6 +2,7 @@ package com.powertrading.gateway.filter;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.powertrading.gateway.service.TokenVerificationService;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,7 +15,6 @@ import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -26,14 +26,14 @@ import java.util.Map;
 
 /**
  * 认证鉴权过滤器工厂
- * 负责Token验证和权限校验
+ * 负责Token验证和权限校验，Token由TokenVerificationService在网关本地校验
  */
 @Slf4j
 @Component
 public class AuthGatewayFilterFactory extends AbstractGatewayFilterFactory<AuthGatewayFilterFactory.Config> {
 
     @Autowired
-    private WebClient.Builder webClientBuilder;
+    private TokenVerificationService tokenVerificationService;
     
     private final ObjectMapper objectMapper = new ObjectMapper();
     
@@ -72,22 +72,22 @@ public class AuthGatewayFilterFactory extends AbstractGatewayFilterFactory<AuthG
             }
             
             // 验证Token
-            return validateToken(token)
+            return tokenVerificationService.verify(token)
                     .flatMap(authResult -> {
                         if (authResult.isValid()) {
                             // Token有效，添加用户信息到请求头
                             ServerHttpRequest mutatedRequest = request.mutate()
-                                    .header("X-User-Id", authResult.getUserId())
-                                    .header("X-User-Role", authResult.getRole())
-                                    .header("X-User-Permissions", String.join(",", authResult.getPermissions()))
+                                    .header("X-User-Id", String.valueOf(authResult.getUserId()))
+                                    .header("X-User-Role", joinValues(authResult.getRoles()))
+                                    .header("X-User-Permissions", joinValues(authResult.getPermissions()))
                                     .build();
                             
                             ServerWebExchange mutatedExchange = exchange.mutate()
                                     .request(mutatedRequest)
                                     .build();
                             
-                            log.debug("认证成功: userId={}, role={}, path={}", 
-                                    authResult.getUserId(), authResult.getRole(), path);
+                            log.debug("认证成功: userId={}, roles={}, path={}", 
+                                    authResult.getUserId(), authResult.getRoles(), path);
                             
                             return chain.filter(mutatedExchange);
                         } else {
@@ -120,34 +120,8 @@ public class AuthGatewayFilterFactory extends AbstractGatewayFilterFactory<AuthG
         return null;
     }
 
-    /**
-     * 验证Token
-     */
-    private Mono<AuthResult> validateToken(String token) {
-        return webClientBuilder.build()
-                .post()
-                .uri("lb://auth-service/api/v1/auth/validate")
-                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
-                .retrieve()
-                .bodyToMono(Map.class)
-                .map(response -> {
-                    Integer code = (Integer) response.get("code");
-                    if (code != null && code == 200) {
-                        Map<String, Object> data = (Map<String, Object>) response.get("data");
-                        AuthResult result = new AuthResult();
-                        result.setValid(true);
-                        result.setUserId((String) data.get("userId"));
-                        result.setRole((String) data.get("role"));
-                        result.setPermissions((List<String>) data.get("permissions"));
-                        return result;
-                    } else {
-                        AuthResult result = new AuthResult();
-                        result.setValid(false);
-                        result.setMessage((String) response.get("message"));
-                        return result;
-                    }
-                })
-                .onErrorReturn(new AuthResult(false, "Token验证失败"));
+    private String joinValues(List<String> values) {
+        return values == null ? "" : String.join(",", values);
     }
 
     /**
@@ -179,20 +153,4 @@ public class AuthGatewayFilterFactory extends AbstractGatewayFilterFactory<AuthG
         private boolean enabled = true;
         private String authServiceUrl = "lb://auth-service";
     }
-
-    @Data
-    public static class AuthResult {
-        private boolean valid;
-        private String userId;
-        private String role;
-        private List<String> permissions;
-        private String message;
-        
-        public AuthResult() {}
-        
-        public AuthResult(boolean valid, String message) {
-            this.valid = valid;
-            this.message = message;
-        }
-    }
-}
\ No newline at end of file
+}
@@ -1,12 +1,18 @@
 package com.powertrading.gateway.filter;
 
+import com.powertrading.gateway.accesslog.AccessLogEvent;
+import com.powertrading.gateway.accesslog.AccessLogWriter;
+import com.powertrading.gateway.accesslog.BodyCapture;
+import com.powertrading.gateway.accesslog.RequestIdGenerator;
 import lombok.Data;
-import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.core.io.buffer.DataBufferFactory;
-import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
 import org.springframework.http.server.reactive.ServerHttpResponse;
@@ -16,17 +22,22 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.atomic.AtomicLong;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 请求日志和性能监控过滤器
- * 记录请求响应信息和性能指标
+ * 每个请求在结束时生成一条结构化访问日志，通过AccessLogWriter异步写入，请求线程不拼接字符串、不做I/O；
+ * 请求开始时按路由的采样率决定是否采样，采样请求、4xx/5xx（按错误采样率）、异常和慢请求才写日志，
+ * 请求体只在采样请求上截取，响应体只在采样或错误响应上截取，只复制限定长度的前缀，不消费、不合并原数据
  */
-@Slf4j
 @Component
 public class LoggingGatewayFilterFactory extends AbstractGatewayFilterFactory<LoggingGatewayFilterFactory.Config> {
 
+    @Autowired
+    private AccessLogWriter accessLogWriter;
+
     public LoggingGatewayFilterFactory() {
         super(Config.class);
     }
@@ -34,134 +45,95 @@ public class LoggingGatewayFilterFactory extends AbstractGatewayFilterFactory<Lo
     @Override
     public GatewayFilter apply(Config config) {
         return (exchange, chain) -> {
-            long startTime = System.currentTimeMillis();
-            ServerHttpRequest request = exchange.getRequest();
-            
-            // 生成请求ID
-            String requestId = generateRequestId();
-            
-            // 记录请求信息
-            logRequest(request, requestId, config);
-            
-            // 包装请求和响应以便记录详细信息
-            ServerHttpRequest wrappedRequest = new LoggingServerHttpRequestDecorator(request, config);
-            ServerHttpResponse wrappedResponse = new LoggingServerHttpResponseDecorator(
-                    exchange.getResponse(), requestId, startTime, config);
-            
-            ServerWebExchange wrappedExchange = exchange.mutate()
-                    .request(wrappedRequest)
-                    .response(wrappedResponse)
-                    .build();
-            
+            long startTime = System.nanoTime();
+            String requestId = RequestIdGenerator.next();
+            boolean sampled = (config.isLogRequest() || config.isLogResponse()) && sample(config.getSampleRate());
+
             // 添加请求ID到响应头
-            wrappedResponse.getHeaders().add("X-Request-Id", requestId);
-            
-            return chain.filter(wrappedExchange)
-                    .doOnSuccess(aVoid -> {
-                        long duration = System.currentTimeMillis() - startTime;
-                        logResponse(wrappedResponse, requestId, duration, config);
-                        logPerformanceMetrics(request, wrappedResponse, duration, config);
-                    })
-                    .doOnError(throwable -> {
-                        long duration = System.currentTimeMillis() - startTime;
-                        logError(request, requestId, duration, throwable, config);
-                    });
+            exchange.getResponse().getHeaders().add("X-Request-Id", requestId);
+
+            // 只在需要截取请求体或响应体时包装请求和响应
+            BodyCapture requestBody = sampled && config.isLogRequestBody()
+                    ? new BodyCapture(config.getMaxBodyLogLength()) : null;
+            BodyCapture responseBody = config.isLogResponseBody()
+                    ? new BodyCapture(config.getMaxBodyLogLength()) : null;
+            ServerWebExchange loggedExchange = exchange;
+            if (requestBody != null || responseBody != null) {
+                ServerWebExchange.Builder builder = exchange.mutate();
+                if (requestBody != null) {
+                    builder.request(new LoggingServerHttpRequestDecorator(exchange.getRequest(), requestBody));
+                }
+                if (responseBody != null) {
+                    builder.response(new LoggingServerHttpResponseDecorator(exchange.getResponse(), responseBody, sampled));
+                }
+                loggedExchange = builder.build();
+            }
+
+            ServerWebExchange finalExchange = loggedExchange;
+            return chain.filter(loggedExchange)
+                    .doOnSuccess(aVoid -> record(finalExchange, requestId, startTime, sampled,
+                            requestBody, responseBody, null, config))
+                    .doOnError(throwable -> record(finalExchange, requestId, startTime, sampled,
+                            requestBody, responseBody, throwable, config));
         };
     }
 
-    /**
-     * 生成请求ID
-     */
-    private String generateRequestId() {
-        return String.valueOf(System.currentTimeMillis()) + "-" + 
-               String.valueOf(Thread.currentThread().getId());
+    private static boolean sample(double rate) {
+        return rate >= 1 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate);
     }
 
     /**
-     * 记录请求信息
+     * 记录访问日志：满足采样条件时领取事件并填写字段，缓冲区满时丢弃。
+     * 可能抛出异常的字段在领取前计算，领取后的事件总是发布，否则该槽位永远不会被写日志线程取走，
+     * 缓冲区随之停滞
      */
-    private void logRequest(ServerHttpRequest request, String requestId, Config config) {
-        if (!config.isLogRequest()) {
+    private void record(ServerWebExchange exchange, String requestId, long startTime, boolean sampled,
+                        BodyCapture requestBody, BodyCapture responseBody, Throwable throwable, Config config) {
+        long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        ServerHttpRequest request = exchange.getRequest();
+        ServerHttpResponse response = exchange.getResponse();
+        Integer rawStatus = response.getRawStatusCode();
+        int status = throwable != null && (rawStatus == null || rawStatus < 400) ? 500 : rawStatus != null ? rawStatus : 0;
+        boolean slow = config.isLogPerformance() && duration > config.getSlowRequestThreshold();
+        boolean failed = throwable != null || (status >= 400 && sample(config.getErrorSampleRate()));
+        if (!sampled && !failed && !slow) {
             return;
         }
-        
-        StringBuilder logBuilder = new StringBuilder();
-        logBuilder.append("\n=== 请求开始 ===")
-                  .append("\n请求ID: ").append(requestId)
-                  .append("\n方法: ").append(request.getMethod())
-                  .append("\n路径: ").append(request.getURI())
-                  .append("\n客户端IP: ").append(getClientIp(request));
-        
-        if (config.isLogHeaders()) {
-            logBuilder.append("\n请求头:");
-            request.getHeaders().forEach((name, values) -> {
-                if (!isSensitiveHeader(name)) {
-                    logBuilder.append("\n  ").append(name).append(": ").append(String.join(", ", values));
-                }
-            });
-        }
-        
-        log.info(logBuilder.toString());
-    }
 
-    /**
-     * 记录响应信息
-     */
-    private void logResponse(ServerHttpResponse response, String requestId, long duration, Config config) {
-        if (!config.isLogResponse()) {
-            return;
-        }
-        
-        StringBuilder logBuilder = new StringBuilder();
-        logBuilder.append("\n=== 请求结束 ===")
-                  .append("\n请求ID: ").append(requestId)
-                  .append("\n状态码: ").append(response.getStatusCode())
-                  .append("\n耗时: ").append(duration).append("ms");
-        
-        if (config.isLogHeaders()) {
-            logBuilder.append("\n响应头:");
-            response.getHeaders().forEach((name, values) -> {
-                logBuilder.append("\n  ").append(name).append(": ").append(String.join(", ", values));
-            });
-        }
-        
-        log.info(logBuilder.toString());
-    }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : null;
+        String method = request.getMethodValue();
+        String path = request.getURI().getRawPath();
+        String clientIp = getClientIp(request);
+        HttpHeaders requestHeaders = config.isLogHeaders() ? request.getHeaders() : null;
+        HttpHeaders responseHeaders = config.isLogHeaders() ? response.getHeaders() : null;
 
-    /**
-     * 记录性能指标
-     */
-    private void logPerformanceMetrics(ServerHttpRequest request, ServerHttpResponse response, 
-                                     long duration, Config config) {
-        if (!config.isLogPerformance()) {
+        AccessLogEvent event = accessLogWriter.claim();
+        if (event == null) {
             return;
         }
-        
-        String path = request.getURI().getPath();
-        String method = request.getMethod().toString();
-        int statusCode = response.getStatusCode() != null ? response.getStatusCode().value() : 0;
-        
-        // 记录性能指标
-        log.info("性能指标 - 路径: {}, 方法: {}, 状态码: {}, 耗时: {}ms", 
-                path, method, statusCode, duration);
-        
-        // 慢请求告警
-        if (duration > config.getSlowRequestThreshold()) {
-            log.warn("慢请求告警 - 路径: {}, 方法: {}, 耗时: {}ms, 阈值: {}ms", 
-                    path, method, duration, config.getSlowRequestThreshold());
+        try {
+            event.setTimestamp(System.currentTimeMillis());
+            event.setRequestId(requestId);
+            event.setRouteId(routeId);
+            event.setMethod(method);
+            event.setPath(path);
+            event.setClientIp(clientIp);
+            event.setStatus(status);
+            event.setDuration(duration);
+            event.setSlow(slow);
+            event.setError(throwable);
+            event.setRequestHeaders(requestHeaders);
+            event.setResponseHeaders(responseHeaders);
+            if (sampled || failed) {
+                event.setRequestBody(requestBody);
+                event.setResponseBody(responseBody);
+            }
+        } finally {
+            accessLogWriter.publish(event);
         }
     }
 
-    /**
-     * 记录错误信息
-     */
-    private void logError(ServerHttpRequest request, String requestId, long duration, 
-                         Throwable throwable, Config config) {
-        log.error("请求异常 - 请求ID: {}, 路径: {}, 方法: {}, 耗时: {}ms, 异常: {}", 
-                requestId, request.getURI().getPath(), request.getMethod(), 
-                duration, throwable.getMessage(), throwable);
-    }
-
     /**
      * 获取客户端IP
      */
@@ -176,87 +148,52 @@ public class LoggingGatewayFilterFactory extends AbstractGatewayFilterFactory<Lo
             return xRealIp;
         }
         
-        return request.getRemoteAddress() != null ? 
-                request.getRemoteAddress().getAddress().getHostAddress() : "unknown";
-    }
-
-    /**
-     * 检查是否为敏感请求头
-     */
-    private boolean isSensitiveHeader(String headerName) {
-        String lowerName = headerName.toLowerCase();
-        return lowerName.contains("authorization") || 
-               lowerName.contains("cookie") || 
-               lowerName.contains("token") ||
-               lowerName.contains("password");
+        // 未解析的地址没有InetAddress，使用主机名
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        if (remoteAddress == null) {
+            return "unknown";
+        }
+        return remoteAddress.getAddress() != null
+                ? remoteAddress.getAddress().getHostAddress() : remoteAddress.getHostString();
     }
 
     /**
-     * 请求装饰器
+     * 请求装饰器，在请求体转发时截取前若干字节
      */
     private static class LoggingServerHttpRequestDecorator extends ServerHttpRequestDecorator {
-        private final Config config;
-        
-        public LoggingServerHttpRequestDecorator(ServerHttpRequest delegate, Config config) {
+        private final BodyCapture capture;
+
+        public LoggingServerHttpRequestDecorator(ServerHttpRequest delegate, BodyCapture capture) {
             super(delegate);
-            this.config = config;
+            this.capture = capture;
         }
-        
+
         @Override
         public Flux<DataBuffer> getBody() {
-            if (!config.isLogRequestBody()) {
-                return super.getBody();
-            }
-            
-            return DataBufferUtils.join(super.getBody())
-                    .doOnNext(dataBuffer -> {
-                        byte[] content = new byte[dataBuffer.readableByteCount()];
-                        dataBuffer.read(content);
-                        DataBufferUtils.release(dataBuffer);
-                        
-                        String body = new String(content, StandardCharsets.UTF_8);
-                        if (body.length() > config.getMaxBodyLogLength()) {
-                            body = body.substring(0, config.getMaxBodyLogLength()) + "...";
-                        }
-                        log.info("请求体: {}", body);
-                    })
-                    .flux();
+            return super.getBody().doOnNext(capture::capture);
         }
     }
 
     /**
-     * 响应装饰器
+     * 响应装饰器，采样请求或错误响应在写出时截取响应体前若干字节
      */
     private static class LoggingServerHttpResponseDecorator extends ServerHttpResponseDecorator {
-        private final String requestId;
-        private final long startTime;
-        private final Config config;
-        
-        public LoggingServerHttpResponseDecorator(ServerHttpResponse delegate, String requestId, 
-                                                 long startTime, Config config) {
+        private final BodyCapture capture;
+        private final boolean sampled;
+
+        public LoggingServerHttpResponseDecorator(ServerHttpResponse delegate, BodyCapture capture, boolean sampled) {
             super(delegate);
-            this.requestId = requestId;
-            this.startTime = startTime;
-            this.config = config;
+            this.capture = capture;
+            this.sampled = sampled;
         }
-        
+
         @Override
-        public Mono<Void> writeWith(org.reactivestreams.Publisher<? extends DataBuffer> body) {
-            if (!config.isLogResponseBody()) {
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            Integer status = getRawStatusCode();
+            if (!sampled && (status == null || status < 400)) {
                 return super.writeWith(body);
             }
-            
-            return super.writeWith(Flux.from(body)
-                    .doOnNext(dataBuffer -> {
-                        byte[] content = new byte[dataBuffer.readableByteCount()];
-                        dataBuffer.read(content);
-                        
-                        String responseBody = new String(content, StandardCharsets.UTF_8);
-                        if (responseBody.length() > config.getMaxBodyLogLength()) {
-                            responseBody = responseBody.substring(0, config.getMaxBodyLogLength()) + "...";
-                        }
-                        log.info("响应体 - 请求ID: {}, 内容: {}", requestId, responseBody);
-                    }));
+            return super.writeWith(Flux.from(body).doOnNext(capture::capture));
         }
     }
 
@@ -270,5 +207,7 @@ public class LoggingGatewayFilterFactory extends AbstractGatewayFilterFactory<Lo
         private boolean logPerformance = true;
         private int maxBodyLogLength = 1000;
         private long slowRequestThreshold = 3000; // 慢请求阈值（毫秒）
+        private double sampleRate = 1.0; // 正常请求的采样率
+        private double errorSampleRate = 1.0; // 4xx/5xx响应的采样率，异常和慢请求总是记录
     }
 }
\ No newline at end of file
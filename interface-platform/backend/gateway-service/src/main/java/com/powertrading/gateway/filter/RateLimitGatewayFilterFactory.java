@@ -2,14 +2,19 @@ package com.powertrading.gateway.filter;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.powertrading.gateway.ratelimit.LocalRateLimiter;
+import com.powertrading.gateway.ratelimit.QuotaLeaseManager;
+import com.powertrading.gateway.ratelimit.RateLimitAlgorithm;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.core.io.buffer.DataBuffer;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.connection.ReactiveRedisConnection;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -20,51 +25,122 @@ import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 限流过滤器工厂
- * 基于Redis实现分布式限流
+ * 基于Redis实现分布式限流，算法按路由选择（见RateLimitAlgorithm），通过响应式Redis客户端执行，不阻塞Netty事件循环线程；
+ * 限额足够大时按租约（QuotaLeaseManager）批量领取许可并在本地消耗，否则由本地预检（LocalRateLimiter）
+ * 消化明显未达限额或已超限额的请求，其余请求逐个访问Redis；Redis不可用时按本地降级额度判定，不再整体放行
  */
 @Slf4j
 @Component
 public class RateLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<RateLimitGatewayFilterFactory.Config> {
 
     @Autowired
-    private RedisTemplate<String, String> redisTemplate;
-    
+    private ReactiveStringRedisTemplate reactiveRedisTemplate;
+
+    @Value("${gateway.rate-limit.local.share:0.1}")
+    private double localShare;
+
+    @Value("${gateway.rate-limit.local.max-sync-age:1000}")
+    private long localMaxSyncAge;
+
+    @Value("${gateway.rate-limit.local.max-keys:100000}")
+    private long localMaxKeys;
+
+    @Value("${gateway.rate-limit.lease.enabled:true}")
+    private boolean leaseEnabled;
+
+    @Value("${gateway.rate-limit.lease.fraction:0.02}")
+    private double leaseFraction;
+
+    @Value("${gateway.rate-limit.lease.max-size:1000}")
+    private int leaseMaxSize;
+
+    /**
+     * 启用租约的最小租约大小，租约过小时续租几乎与逐个请求访问Redis一样频繁，改由本地预检处理
+     */
+    @Value("${gateway.rate-limit.lease.min-size:10}")
+    private int leaseMinSize;
+
+    @Value("${gateway.rate-limit.lease.ttl:1000}")
+    private long leaseTtl;
+
+    @Value("${gateway.rate-limit.lease.low-watermark:0.25}")
+    private double leaseLowWatermark;
+
+    @Value("${gateway.rate-limit.redis-timeout:100}")
+    private long redisTimeout;
+
+    @Value("${gateway.rate-limit.degraded.share:0.5}")
+    private double degradedShare;
+
+    @Value("${gateway.rate-limit.degraded.retry-interval:1000}")
+    private long degradedRetryInterval;
+
+    private LocalRateLimiter localRateLimiter;
+
+    private QuotaLeaseManager quotaLeaseManager;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
-    
-    // Lua脚本实现滑动窗口限流
-    private static final String RATE_LIMIT_SCRIPT = 
-            "local key = KEYS[1]\n" +
-            "local window = tonumber(ARGV[1])\n" +
-            "local limit = tonumber(ARGV[2])\n" +
-            "local current_time = tonumber(ARGV[3])\n" +
-            "\n" +
-            "-- 清理过期的记录\n" +
-            "redis.call('ZREMRANGEBYSCORE', key, 0, current_time - window * 1000)\n" +
-            "\n" +
-            "-- 获取当前窗口内的请求数\n" +
-            "local current_requests = redis.call('ZCARD', key)\n" +
-            "\n" +
-            "if current_requests < limit then\n" +
-            "    -- 添加当前请求\n" +
-            "    redis.call('ZADD', key, current_time, current_time)\n" +
-            "    redis.call('EXPIRE', key, window)\n" +
-            "    return {1, limit - current_requests - 1}\n" +
-            "else\n" +
-            "    return {0, 0}\n" +
-            "end";
+
+    // 本实例写入滑动日志的成员前缀，加序号保证同一毫秒内的请求互不覆盖
+    private final String memberPrefix = UUID.randomUUID().toString();
+
+    private final AtomicLong memberSequence = new AtomicLong();
 
     public RateLimitGatewayFilterFactory() {
         super(Config.class);
     }
 
+    @PostConstruct
+    public void init() {
+        localRateLimiter = new LocalRateLimiter(localShare, Duration.ofMillis(localMaxSyncAge), localMaxKeys);
+        quotaLeaseManager = new QuotaLeaseManager(this::executeLease, leaseFraction, leaseMaxSize,
+                Duration.ofMillis(leaseTtl), leaseLowWatermark, Duration.ofMillis(redisTimeout), degradedShare,
+                Duration.ofMillis(degradedRetryInterval), localMaxKeys);
+        preloadScripts();
+    }
+
+    /**
+     * 下线前退还未用完的租约许可
+     */
+    @PreDestroy
+    public void destroy() {
+        try {
+            quotaLeaseManager.returnAll().block(Duration.ofSeconds(1));
+        } catch (Exception e) {
+            log.warn("退还限流租约失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 启动时预加载各算法的限流脚本，之后的调用均为EVALSHA；Redis重启丢失脚本时由执行器自动回退为EVAL重新加载
+     */
+    private void preloadScripts() {
+        ReactiveRedisConnectionFactory connectionFactory = reactiveRedisTemplate.getConnectionFactory();
+        Mono.usingWhen(Mono.fromSupplier(connectionFactory::getReactiveConnection),
+                        connection -> Flux.fromArray(RateLimitAlgorithm.values())
+                                .concatMap(algorithm -> connection.scriptingCommands().scriptLoad(
+                                        ByteBuffer.wrap(algorithm.getScriptText().getBytes(StandardCharsets.UTF_8))))
+                                .collectList(),
+                        ReactiveRedisConnection::closeLater)
+                .subscribe(shas -> log.info("限流脚本已加载: sha1={}", shas),
+                        throwable -> log.warn("限流脚本预加载失败，首次调用时加载: {}", throwable.getMessage()));
+    }
+
     @Override
     public GatewayFilter apply(Config config) {
         return (exchange, chain) -> {
@@ -73,7 +149,7 @@ public class RateLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<
             // 生成限流key
             String rateLimitKey = generateRateLimitKey(request, config);
             
-            // 执行限流检查
+            // 执行限流检查，Redis异常时按本地降级额度判定
             return checkRateLimit(rateLimitKey, config)
                     .flatMap(result -> {
                         if (result.isAllowed()) {
@@ -90,11 +166,6 @@ public class RateLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<
                                     rateLimitKey, config.getLimit(), config.getWindow());
                             return handleRateLimited(exchange, config);
                         }
-                    })
-                    .onErrorResume(throwable -> {
-                        log.error("限流检查异常: key={}, error={}", rateLimitKey, throwable.getMessage(), throwable);
-                        // 限流异常时允许请求通过，避免影响业务
-                        return chain.filter(exchange);
                     });
         };
     }
@@ -144,31 +215,89 @@ public class RateLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<
 
     /**
      * 执行限流检查
+     * 先做本地预检，本地额度内放行或本地令牌桶已空时不访问Redis；其余请求通过非阻塞的Redis连接执行限流脚本
      */
     private Mono<RateLimitResult> checkRateLimit(String key, Config config) {
-        return Mono.fromCallable(() -> {
-            DefaultRedisScript<List> script = new DefaultRedisScript<>();
-            script.setScriptText(RATE_LIMIT_SCRIPT);
-            script.setResultType(List.class);
-            
-            List<String> keys = Arrays.asList(key);
-            List<String> args = Arrays.asList(
-                    String.valueOf(config.getWindow()),
-                    String.valueOf(config.getLimit()),
-                    String.valueOf(System.currentTimeMillis())
-            );
-            
-            List<Long> result = redisTemplate.execute(script, keys, args.toArray());
-            
-            if (result != null && result.size() >= 2) {
-                boolean allowed = result.get(0) == 1;
-                long remaining = result.get(1);
-                return new RateLimitResult(allowed, remaining);
-            } else {
-                // Redis异常时允许请求通过
-                return new RateLimitResult(true, config.getLimit());
-            }
-        });
+        RateLimitAlgorithm algorithm = config.getAlgorithm();
+        int limit = config.getLimit();
+        int window = config.getWindow();
+        if (leaseEnabled && quotaLeaseManager.leaseSize(limit) >= Math.max(2, leaseMinSize)) {
+            return quotaLeaseManager.acquire(key, algorithm, limit, window)
+                    .map(result -> new RateLimitResult(result.isAllowed(), result.getRemaining()));
+        }
+        if (quotaLeaseManager.isDegraded(key, algorithm, limit, window)) {
+            return Mono.just(degradedResult(key, config));
+        }
+
+        LocalRateLimiter.PreCheck preCheck = localRateLimiter.preCheck(key, config.getLimit(), config.getWindow());
+        if (preCheck.getDecision() == LocalRateLimiter.Decision.ALLOW) {
+            return Mono.just(new RateLimitResult(true, preCheck.getRemaining()));
+        }
+        if (preCheck.getDecision() == LocalRateLimiter.Decision.REJECT) {
+            return Mono.just(new RateLimitResult(false, 0));
+        }
+
+        long now = System.currentTimeMillis();
+        return executeScript(algorithm, key, window, limit, now, preCheck.getCarried(), 1, 0, 0)
+                .timeout(Duration.ofMillis(redisTimeout))
+                .map(result -> {
+                    boolean allowed = result[0] == 1;
+                    localRateLimiter.onRedisResult(key, allowed, result[1]);
+                    return new RateLimitResult(allowed, result[1]);
+                })
+                .onErrorResume(throwable -> {
+                    log.error("限流检查异常，进入降级: key={}, error={}", key, throwable.getMessage(), throwable);
+                    localRateLimiter.onRedisFailure(key, preCheck.getCarried());
+                    quotaLeaseManager.markDegraded(key, algorithm, limit, window);
+                    return Mono.just(degradedResult(key, config));
+                });
+    }
+
+    /**
+     * Redis不可用时按本地降级额度判定
+     */
+    private RateLimitResult degradedResult(String key, Config config) {
+        QuotaLeaseManager.Result result = quotaLeaseManager.decideDegraded(key, config.getAlgorithm(),
+                config.getLimit(), config.getWindow());
+        return new RateLimitResult(result.isAllowed(), result.getRemaining());
+    }
+
+    /**
+     * 租约来源：申请requested个许可并退还到期未用完的许可
+     */
+    private Mono<long[]> executeLease(QuotaLeaseManager.Quota quota, long now, long requested, long returned,
+                                      long returnedIssuedAt) {
+        return executeScript(quota.getAlgorithm(), quota.getKey(), quota.getWindow(), quota.getLimit(), now, 0,
+                requested, returned, returnedIssuedAt);
+    }
+
+    /**
+     * 执行限流脚本
+     *
+     * @return {授予的许可数, 剩余次数}
+     */
+    private Mono<long[]> executeScript(RateLimitAlgorithm algorithm, String key, int window, int limit, long now,
+                                       long carried, long requested, long returned, long returnedIssuedAt) {
+        List<String> keys = Collections.singletonList(algorithm.redisKey(key));
+        List<String> args = Arrays.asList(
+                String.valueOf(window),
+                String.valueOf(limit),
+                String.valueOf(now),
+                memberPrefix + ":" + memberSequence.incrementAndGet(),
+                String.valueOf(carried),
+                String.valueOf(requested),
+                String.valueOf(returned),
+                String.valueOf(returnedIssuedAt)
+        );
+
+        return reactiveRedisTemplate.execute(algorithm.getScript(), keys, args)
+                .reduce(new ArrayList<Long>(), (values, part) -> {
+                    values.addAll(part);
+                    return values;
+                })
+                .flatMap(result -> result.size() >= 2
+                        ? Mono.just(new long[]{result.get(0), result.get(1)})
+                        : Mono.error(new IllegalStateException("限流脚本返回值异常: " + result)));
     }
 
     /**
@@ -207,6 +336,7 @@ public class RateLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<
         private int window = 60; // 时间窗口（秒）
         private String keyType = "ip"; // 限流key类型：ip, user, api, user_api, global
         private String keyPrefix = "default"; // key前缀
+        private RateLimitAlgorithm algorithm = RateLimitAlgorithm.SLIDING_LOG; // 限流算法：SLIDING_LOG, SLIDING_WINDOW, GCRA, TOKEN_BUCKET
     }
 
     @Data
@@ -0,0 +1,168 @@
+package com.powertrading.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+/**
+ * 网关本地限流预检
+ * 每个限流key维护一个本地令牌桶和一份由Redis授予的本地额度：
+ * 本地令牌桶容量为limit、按limit/window补充，桶空时本实例放行的请求在最近一个窗口内已达到limit，
+ * 全局计数只会更多，直接拒绝而不访问Redis；每次Redis判定通过后按剩余次数的一定比例授予本地额度，
+ * 额度内的请求直接放行，放行次数计入下一次Redis调用，全局计数延后但不丢失。
+ * 剩余次数越少授予的额度越小，接近限额时每个请求都由Redis判定
+ */
+public class LocalRateLimiter {
+
+    /**
+     * 预检结论
+     */
+    public enum Decision {
+        /** 本地额度内放行 */
+        ALLOW,
+        /** 本地令牌桶已空，拒绝 */
+        REJECT,
+        /** 需要由Redis判定 */
+        CHECK_REDIS
+    }
+
+    private final double localShare;
+
+    private final long maxSyncAgeNanos;
+
+    private final Cache<String, KeyState> states;
+
+    /**
+     * @param localShare 每次Redis判定后授予本地额度占剩余次数的比例，多实例部署时应不超过1/实例数
+     * @param maxSyncAge 本地额度的有效时间
+     * @param maxKeys 本地保留状态的限流key数量上限
+     */
+    public LocalRateLimiter(double localShare, Duration maxSyncAge, long maxKeys) {
+        this.localShare = Math.max(0, Math.min(1, localShare));
+        this.maxSyncAgeNanos = maxSyncAge.toNanos();
+        this.states = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    /**
+     * 预检一个请求
+     *
+     * @param key 限流key
+     * @param limit 窗口内允许的请求数
+     * @param window 窗口长度（秒）
+     * @return 预检结果
+     */
+    public PreCheck preCheck(String key, int limit, int window) {
+        KeyState state = states.get(key, k -> new KeyState(limit, window, System.nanoTime()));
+        return state.preCheck(System.nanoTime(), maxSyncAgeNanos);
+    }
+
+    /**
+     * 记录Redis判定结果
+     *
+     * @param key 限流key
+     * @param allowed 是否放行
+     * @param remaining 窗口内剩余次数
+     */
+    public void onRedisResult(String key, boolean allowed, long remaining) {
+        KeyState state = states.getIfPresent(key);
+        if (state != null) {
+            state.onRedisResult(allowed, remaining, localShare, System.nanoTime());
+        }
+    }
+
+    /**
+     * Redis调用失败，随调用带出的本地放行次数留待下一次调用计入
+     *
+     * @param key 限流key
+     * @param carried 随调用带出的本地放行次数
+     */
+    public void onRedisFailure(String key, long carried) {
+        KeyState state = states.getIfPresent(key);
+        if (state != null) {
+            state.onRedisFailure(carried);
+        }
+    }
+
+    /**
+     * 预检结果
+     */
+    public static final class PreCheck {
+
+        private final Decision decision;
+
+        private final long remaining;
+
+        private final long carried;
+
+        PreCheck(Decision decision, long remaining, long carried) {
+            this.decision = decision;
+            this.remaining = remaining;
+            this.carried = carried;
+        }
+
+        public Decision getDecision() { return decision; }
+
+        /**
+         * 本地估计的窗口内剩余次数，仅ALLOW时有意义
+         */
+        public long getRemaining() { return remaining; }
+
+        /**
+         * 需随本次Redis调用计入的本地放行次数，仅CHECK_REDIS时有意义
+         */
+        public long getCarried() { return carried; }
+    }
+
+    /**
+     * 单个限流key的本地状态
+     */
+    static final class KeyState {
+
+        private final LocalTokenBucket bucket;
+
+        private long allowance;
+
+        private long pending;
+
+        private long remaining;
+
+        private long syncedAt;
+
+        KeyState(int limit, int window, long now) {
+            this.bucket = new LocalTokenBucket(limit, window, now);
+        }
+
+        synchronized PreCheck preCheck(long now, long maxSyncAgeNanos) {
+            if (!bucket.tryAcquire(now)) {
+                return new PreCheck(Decision.REJECT, 0, 0);
+            }
+            if (allowance > 0 && now - syncedAt <= maxSyncAgeNanos) {
+                allowance--;
+                pending++;
+                remaining = Math.max(0, remaining - 1);
+                return new PreCheck(Decision.ALLOW, remaining, 0);
+            }
+            long carried = pending;
+            pending = 0;
+            return new PreCheck(Decision.CHECK_REDIS, 0, carried);
+        }
+
+        synchronized void onRedisResult(boolean allowed, long remaining, double localShare, long now) {
+            this.remaining = remaining;
+            this.allowance = allowed ? (long) (remaining * localShare) : 0;
+            this.syncedAt = now;
+            if (!allowed) {
+                // 被拒绝的请求不占用本地令牌
+                bucket.release();
+            }
+        }
+
+        synchronized void onRedisFailure(long carried) {
+            pending += carried;
+        }
+    }
+}
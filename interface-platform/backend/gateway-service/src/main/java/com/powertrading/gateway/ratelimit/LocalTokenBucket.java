@@ -0,0 +1,42 @@
+package com.powertrading.gateway.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 本地令牌桶，容量为capacity，每个窗口补满一次，非线程安全，由调用方加锁
+ */
+final class LocalTokenBucket {
+
+    private final double capacity;
+
+    private final double tokensPerNano;
+
+    private double tokens;
+
+    private long refilledAt;
+
+    LocalTokenBucket(double capacity, int window, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = capacity / TimeUnit.SECONDS.toNanos(Math.max(1, window));
+        this.tokens = capacity;
+        this.refilledAt = now;
+    }
+
+    boolean tryAcquire(long now) {
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    void release() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    long available() {
+        return (long) tokens;
+    }
+}
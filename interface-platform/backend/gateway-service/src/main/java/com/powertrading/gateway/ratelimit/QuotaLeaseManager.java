@@ -0,0 +1,334 @@
+package com.powertrading.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 限流配额租约
+ * 网关实例按批从Redis领取许可（租约），请求在本地用原子计数消耗许可，不访问Redis；
+ * 许可低于低水位时异步续租，续租在途时请求继续消耗剩余许可；租约到期未用完的许可在下一次续租时退还。
+ * 全局计数在许可授予时即已计入，本地消耗只会比Redis记录的更少，实例间共享同一份全局额度；
+ * 续租失败或超时进入降级，降级期间按限额的fallbackShare在本地令牌桶中判定，到期后重新尝试Redis
+ */
+@Slf4j
+public class QuotaLeaseManager {
+
+    /**
+     * 租约来源，执行限流脚本申请和退还许可
+     */
+    @FunctionalInterface
+    public interface LeaseSource {
+
+        /**
+         * @param quota 配额
+         * @param now 当前时间（毫秒），授予的许可以该时间记录
+         * @param requested 申请的许可数
+         * @param returned 退还的许可数
+         * @param returnedIssuedAt 退还许可的授予时间（毫秒）
+         * @return {授予的许可数, 全局剩余次数}
+         */
+        Mono<long[]> grant(Quota quota, long now, long requested, long returned, long returnedIssuedAt);
+    }
+
+    private static final long MIN_EXHAUSTED_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final LeaseSource source;
+
+    private final double fraction;
+
+    private final int maxSize;
+
+    private final long ttlNanos;
+
+    private final double lowWatermark;
+
+    private final Duration timeout;
+
+    private final double fallbackShare;
+
+    private final long degradedRetryNanos;
+
+    private final Cache<String, Quota> quotas;
+
+    /**
+     * @param source 租约来源
+     * @param fraction 单个租约的许可数占限额的比例
+     * @param maxSize 单个租约的许可数上限
+     * @param ttl 租约有效时间
+     * @param lowWatermark 剩余许可低于租约大小的该比例时异步续租
+     * @param timeout 单次Redis调用的超时时间
+     * @param fallbackShare 降级期间本实例可放行的请求数占限额的比例
+     * @param degradedRetry 降级后重新尝试Redis的间隔
+     * @param maxKeys 本地保留配额的限流key数量上限
+     */
+    public QuotaLeaseManager(LeaseSource source, double fraction, int maxSize, Duration ttl, double lowWatermark,
+                             Duration timeout, double fallbackShare, Duration degradedRetry, long maxKeys) {
+        this.source = source;
+        this.fraction = Math.max(0, Math.min(1, fraction));
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = ttl.toNanos();
+        this.lowWatermark = Math.max(0, Math.min(1, lowWatermark));
+        this.timeout = timeout;
+        this.fallbackShare = Math.max(0, Math.min(1, fallbackShare));
+        this.degradedRetryNanos = degradedRetry.toNanos();
+        this.quotas = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    /**
+     * 限额对应的租约大小，小于2时租约没有收益，应逐个请求访问Redis
+     */
+    public int leaseSize(int limit) {
+        return (int) Math.min(maxSize, Math.ceil(limit * fraction));
+    }
+
+    /**
+     * 判定一个请求：优先消耗本地许可，许可用完时续租，降级期间按本地令牌桶判定
+     *
+     * @param key 限流key
+     * @param algorithm 限流算法
+     * @param limit 窗口内允许的请求数
+     * @param window 窗口长度（秒）
+     * @return 判定结果
+     */
+    public Mono<Result> acquire(String key, RateLimitAlgorithm algorithm, int limit, int window) {
+        Quota quota = quota(key, algorithm, limit, window);
+        long now = System.nanoTime();
+        if (quota.tryTake(now)) {
+            if (quota.permits.get() < quota.size * lowWatermark && quota.renewal.get() == null
+                    && now - quota.exhaustedUntil >= 0 && now - quota.degradedUntil >= 0) {
+                renew(quota).subscribe();
+            }
+            return Mono.just(new Result(true, quota.remaining()));
+        }
+        if (now - quota.degradedUntil < 0) {
+            return Mono.just(quota.decideDegraded(now));
+        }
+        if (now - quota.exhaustedUntil < 0) {
+            return Mono.just(new Result(false, 0));
+        }
+        return renew(quota).then(Mono.fromSupplier(() -> {
+            long renewedAt = System.nanoTime();
+            if (quota.tryTake(renewedAt)) {
+                return new Result(true, quota.remaining());
+            }
+            if (renewedAt - quota.degradedUntil < 0) {
+                return quota.decideDegraded(renewedAt);
+            }
+            return new Result(false, 0);
+        }));
+    }
+
+    /**
+     * 逐个请求访问Redis的限流key是否处于降级期间
+     */
+    public boolean isDegraded(String key, RateLimitAlgorithm algorithm, int limit, int window) {
+        // 先取配额再取时间，新建配额的截止时间不晚于当前时间
+        Quota quota = quota(key, algorithm, limit, window);
+        return System.nanoTime() - quota.degradedUntil < 0;
+    }
+
+    /**
+     * 记录逐个请求访问Redis失败，进入降级
+     */
+    public void markDegraded(String key, RateLimitAlgorithm algorithm, int limit, int window) {
+        quota(key, algorithm, limit, window).degradedUntil = System.nanoTime() + degradedRetryNanos;
+    }
+
+    /**
+     * 降级期间按本地令牌桶判定
+     */
+    public Result decideDegraded(String key, RateLimitAlgorithm algorithm, int limit, int window) {
+        return quota(key, algorithm, limit, window).decideDegraded(System.nanoTime());
+    }
+
+    /**
+     * 退还所有未用完的许可，实例下线时调用，使其他实例可以继续使用这部分额度
+     */
+    public Mono<Void> returnAll() {
+        return Flux.fromIterable(quotas.asMap().values())
+                .flatMap(quota -> {
+                    long leftover = quota.permits.getAndSet(0);
+                    if (leftover <= 0) {
+                        return Mono.empty();
+                    }
+                    return source.grant(quota, System.currentTimeMillis(), 0, leftover, quota.issuedAtMillis)
+                            .timeout(timeout)
+                            .onErrorResume(throwable -> Mono.empty());
+                })
+                .then();
+    }
+
+    private Quota quota(String key, RateLimitAlgorithm algorithm, int limit, int window) {
+        // 同一key在不同路由上的算法或限额不同时各自维护配额
+        String quotaKey = algorithm.redisKey(key) + "|" + limit + "|" + window;
+        return quotas.get(quotaKey, k -> new Quota(key, algorithm, limit, window, leaseSize(limit), System.nanoTime()));
+    }
+
+    /**
+     * 续租，同一配额同时只有一次续租在途，并发的请求等待同一次续租的结果
+     */
+    private Mono<Void> renew(Quota quota) {
+        while (true) {
+            Mono<Void> inFlight = quota.renewal.get();
+            if (inFlight != null) {
+                return inFlight;
+            }
+            AtomicReference<Mono<Void>> self = new AtomicReference<>();
+            Mono<Void> created = Mono.defer(() -> doRenew(quota))
+                    .doFinally(signal -> quota.renewal.compareAndSet(self.get(), null))
+                    .cache();
+            self.set(created);
+            if (quota.renewal.compareAndSet(null, created)) {
+                return created;
+            }
+        }
+    }
+
+    private Mono<Void> doRenew(Quota quota) {
+        long returned = 0;
+        long returnedIssuedAt = 0;
+        if (System.nanoTime() - quota.expiresAt >= 0) {
+            returned = Math.max(0, quota.permits.getAndSet(0));
+            returnedIssuedAt = quota.issuedAtMillis;
+        }
+        long issuedAtMillis = System.currentTimeMillis();
+        long returnedPermits = returned;
+        return source.grant(quota, issuedAtMillis, quota.size, returned, returnedIssuedAt)
+                .timeout(timeout)
+                .doOnNext(result -> {
+                    long now = System.nanoTime();
+                    long granted = result[0];
+                    quota.globalRemaining = result[1];
+                    quota.degradedUntil = now;
+                    if (granted > 0) {
+                        quota.permits.addAndGet(granted);
+                        quota.issuedAtMillis = issuedAtMillis;
+                        quota.expiresAt = now + ttlNanos;
+                        quota.exhaustedUntil = now;
+                    } else {
+                        // 全局额度已用完，约一个许可的补充时间内不再访问Redis
+                        long perPermit = TimeUnit.SECONDS.toNanos(quota.window) / Math.max(1, quota.limit);
+                        quota.exhaustedUntil = now + Math.max(MIN_EXHAUSTED_NANOS, Math.min(ttlNanos, perPermit));
+                    }
+                })
+                .onErrorResume(throwable -> {
+                    // 退还失败的许可不再使用，全局计数偏多，不会超限
+                    log.warn("限流租约续租失败，进入降级: key={}, returned={}, error={}",
+                            quota.key, returnedPermits, throwable.toString());
+                    quota.degradedUntil = System.nanoTime() + degradedRetryNanos;
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    /**
+     * 单个限流key的配额
+     */
+    public final class Quota {
+
+        private final String key;
+
+        private final RateLimitAlgorithm algorithm;
+
+        private final int limit;
+
+        private final int window;
+
+        private final int size;
+
+        private final AtomicLong permits = new AtomicLong();
+
+        private final AtomicReference<Mono<Void>> renewal = new AtomicReference<>();
+
+        private volatile long expiresAt;
+
+        private volatile long issuedAtMillis;
+
+        private volatile long globalRemaining;
+
+        private volatile long exhaustedUntil;
+
+        private volatile long degradedUntil;
+
+        private LocalTokenBucket fallback;
+
+        Quota(String key, RateLimitAlgorithm algorithm, int limit, int window, int size, long now) {
+            this.key = key;
+            this.algorithm = algorithm;
+            this.limit = limit;
+            this.window = window;
+            this.size = size;
+            // nanoTime可能为负，各截止时间初始化为已过期，比较时取差值
+            this.expiresAt = now;
+            this.exhaustedUntil = now;
+            this.degradedUntil = now;
+        }
+
+        public String getKey() { return key; }
+
+        public RateLimitAlgorithm getAlgorithm() { return algorithm; }
+
+        public int getLimit() { return limit; }
+
+        public int getWindow() { return window; }
+
+        boolean tryTake(long now) {
+            if (now - expiresAt >= 0) {
+                return false;
+            }
+            long current;
+            do {
+                current = permits.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!permits.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        long remaining() {
+            return globalRemaining + Math.max(0, permits.get());
+        }
+
+        synchronized Result decideDegraded(long now) {
+            if (fallback == null) {
+                fallback = new LocalTokenBucket(Math.max(1, limit * fallbackShare), window, now);
+            }
+            boolean allowed = fallback.tryAcquire(now);
+            return new Result(allowed, fallback.available());
+        }
+    }
+
+    /**
+     * 判定结果
+     */
+    public static final class Result {
+
+        private final boolean allowed;
+
+        private final long remaining;
+
+        Result(boolean allowed, long remaining) {
+            this.allowed = allowed;
+            this.remaining = remaining;
+        }
+
+        public boolean isAllowed() { return allowed; }
+
+        /**
+         * 估计的窗口内剩余次数
+         */
+        public long getRemaining() { return remaining; }
+    }
+}
@@ -0,0 +1,66 @@
+package com.powertrading.gateway.ratelimit;
+
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+
+/**
+ * 限流算法
+ * 各算法的Lua脚本参数一致：KEYS[1]为限流key，ARGV依次为窗口长度（秒）、窗口内允许的请求数、
+ * 当前时间（毫秒）、本次请求的唯一成员名、随本次调用计入的本地放行次数、申请的许可数、
+ * 退还的租约许可数、退还许可的授予时间（毫秒，即授予这批许可时传入的当前时间）；返回{授予的许可数, 剩余次数}，单个请求时授予数即是否放行。
+ * 除滑动日志外，每个key在Redis中只占用固定大小的状态，每次调用的Redis操作数与限额和请求速率无关
+ */
+public enum RateLimitAlgorithm {
+
+    /**
+     * 滑动日志：每次调用一个带权重的ZSET成员，计数精确，内存和清理开销随窗口内的调用次数线性增长
+     */
+    SLIDING_LOG("", RateLimitScripts.SLIDING_LOG),
+
+    /**
+     * 滑动窗口计数：当前与上一个固定窗口各一个计数，上一窗口按重叠比例加权，
+     * 假设上一窗口内请求均匀分布，误差通常在限额的百分之几以内
+     */
+    SLIDING_WINDOW(":sw", RateLimitScripts.SLIDING_WINDOW),
+
+    /**
+     * 通用信元速率算法：只保存理论到达时间，请求均匀占用window/limit的时间间隔，允许limit个请求的突发
+     */
+    GCRA(":gcra", RateLimitScripts.GCRA),
+
+    /**
+     * 令牌桶：保存令牌数和上次补充时间，容量为limit，按limit/window连续补充
+     */
+    TOKEN_BUCKET(":tb", RateLimitScripts.TOKEN_BUCKET);
+
+    private final String keySuffix;
+
+    private final RedisScript<List<Long>> script;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    RateLimitAlgorithm(String keySuffix, String scriptText) {
+        this.keySuffix = keySuffix;
+        DefaultRedisScript redisScript = new DefaultRedisScript<>(scriptText, List.class);
+        this.script = (RedisScript<List<Long>>) redisScript;
+    }
+
+    /**
+     * 算法在Redis中使用的key，不同算法的数据结构不同，切换算法时不会读到其他算法的状态
+     */
+    public String redisKey(String key) {
+        return key + keySuffix;
+    }
+
+    /**
+     * 限流脚本，SHA1只计算一次
+     */
+    public RedisScript<List<Long>> getScript() {
+        return script;
+    }
+
+    public String getScriptText() {
+        return script.getScriptAsString();
+    }
+}
@@ -0,0 +1,206 @@
+package com.powertrading.gateway.ratelimit;
+
+/**
+ * 限流Lua脚本
+ * 时间戳和小数写回Redis前用string.format格式化，避免Lua默认的14位有效数字截断精度
+ */
+final class RateLimitScripts {
+
+    private RateLimitScripts() {
+    }
+
+    /**
+     * 滑动日志：每次调用最多写入两个成员（本地放行次数、授予的许可），成员名以"*n"结尾时权重为n，否则为1；
+     * 窗口内的总权重保存在分值为负的计数成员中（分值为-(总数+1)），不会被按时间清理，读取为O(1)。
+     * 过期成员在清理时逐个扣除权重，每个成员只扣除一次；没有计数成员的旧数据按成员数初始化
+     */
+    static final String SLIDING_LOG =
+            "local key = KEYS[1]\n" +
+            "local window = tonumber(ARGV[1])\n" +
+            "local limit = tonumber(ARGV[2])\n" +
+            "local current_time = tonumber(ARGV[3])\n" +
+            "local member = ARGV[4]\n" +
+            "local carried = tonumber(ARGV[5])\n" +
+            "local requested = tonumber(ARGV[6] or '1')\n" +
+            "local returned = tonumber(ARGV[7] or '0')\n" +
+            "local returned_at = tonumber(ARGV[8] or '0')\n" +
+            "local total_member = '__total'\n" +
+            "\n" +
+            "local function weight_of(name)\n" +
+            "    local weight = string.match(name, '%*(%d+)$')\n" +
+            "    return weight and tonumber(weight) or 1\n" +
+            "end\n" +
+            "local function weighted(name, weight)\n" +
+            "    if weight == 1 then\n" +
+            "        return name\n" +
+            "    end\n" +
+            "    return name .. '*' .. weight\n" +
+            "end\n" +
+            "\n" +
+            "local total_score = redis.call('ZSCORE', key, total_member)\n" +
+            "local total\n" +
+            "if total_score then\n" +
+            "    total = -tonumber(total_score) - 1\n" +
+            "else\n" +
+            "    total = redis.call('ZCARD', key)\n" +
+            "end\n" +
+            "local changed = false\n" +
+            "\n" +
+            "-- 清理过期的记录并扣除其权重\n" +
+            "local cutoff = current_time - window * 1000\n" +
+            "local expired = redis.call('ZRANGEBYSCORE', key, 0, cutoff)\n" +
+            "if #expired > 0 then\n" +
+            "    for _, name in ipairs(expired) do\n" +
+            "        total = total - weight_of(name)\n" +
+            "    end\n" +
+            "    redis.call('ZREMRANGEBYSCORE', key, 0, cutoff)\n" +
+            "    changed = true\n" +
+            "end\n" +
+            "\n" +
+            "-- 退还的许可从授予时写入的成员中扣除；同一时间写入的成员同时滑出窗口，从其中哪个扣除是等价的\n" +
+            "if returned > 0 then\n" +
+            "    local members = redis.call('ZRANGEBYSCORE', key, returned_at, returned_at)\n" +
+            "    for _, name in ipairs(members) do\n" +
+            "        if returned <= 0 then\n" +
+            "            break\n" +
+            "        end\n" +
+            "        local weight = weight_of(name)\n" +
+            "        local deducted = math.min(weight, returned)\n" +
+            "        redis.call('ZREM', key, name)\n" +
+            "        if weight > deducted then\n" +
+            "            local base = string.gsub(name, '%*%d+$', '')\n" +
+            "            redis.call('ZADD', key, returned_at, weighted(base, weight - deducted))\n" +
+            "        end\n" +
+            "        total = total - deducted\n" +
+            "        returned = returned - deducted\n" +
+            "        changed = true\n" +
+            "    end\n" +
+            "end\n" +
+            "\n" +
+            "-- 计入网关本地额度内已放行的请求\n" +
+            "if carried > 0 then\n" +
+            "    redis.call('ZADD', key, current_time, weighted(member .. ':c', carried))\n" +
+            "    total = total + carried\n" +
+            "    changed = true\n" +
+            "end\n" +
+            "\n" +
+            "-- 授予不超过剩余次数的许可，一次授予的许可合并为一个成员，分值为授予时间\n" +
+            "local granted = math.min(requested, math.max(0, limit - total))\n" +
+            "if granted > 0 then\n" +
+            "    redis.call('ZADD', key, current_time, weighted(member, granted))\n" +
+            "    total = total + granted\n" +
+            "    changed = true\n" +
+            "end\n" +
+            "\n" +
+            "if changed then\n" +
+            "    if total > 0 then\n" +
+            "        redis.call('ZADD', key, -total - 1, total_member)\n" +
+            "        redis.call('EXPIRE', key, window)\n" +
+            "    else\n" +
+            "        redis.call('DEL', key)\n" +
+            "    end\n" +
+            "end\n" +
+            "return {granted, math.max(0, limit - total)}";
+
+    static final String SLIDING_WINDOW =
+            "local key = KEYS[1]\n" +
+            "local window_ms = tonumber(ARGV[1]) * 1000\n" +
+            "local limit = tonumber(ARGV[2])\n" +
+            "local now = tonumber(ARGV[3])\n" +
+            "local carried = tonumber(ARGV[5])\n" +
+            "local requested = tonumber(ARGV[6] or '1')\n" +
+            "local returned = tonumber(ARGV[7] or '0')\n" +
+            "local returned_at = tonumber(ARGV[8] or '0')\n" +
+            "\n" +
+            "local current_window = math.floor(now / window_ms)\n" +
+            "local state = redis.call('HMGET', key, 'window', 'current', 'previous')\n" +
+            "local stored_window = tonumber(state[1])\n" +
+            "local current = tonumber(state[2]) or 0\n" +
+            "local previous = tonumber(state[3]) or 0\n" +
+            "\n" +
+            "-- 进入新的固定窗口时，当前计数转为上一窗口计数\n" +
+            "if stored_window ~= current_window then\n" +
+            "    if stored_window == current_window - 1 then\n" +
+            "        previous = current\n" +
+            "    else\n" +
+            "        previous = 0\n" +
+            "    end\n" +
+            "    current = 0\n" +
+            "end\n" +
+            "current = current + carried\n" +
+            "\n" +
+            "-- 退还的许可从其授予时所在的窗口扣除\n" +
+            "if returned > 0 then\n" +
+            "    local returned_window = math.floor(returned_at / window_ms)\n" +
+            "    if returned_window == current_window then\n" +
+            "        current = math.max(0, current - returned)\n" +
+            "    elseif returned_window == current_window - 1 then\n" +
+            "        previous = math.max(0, previous - returned)\n" +
+            "    end\n" +
+            "end\n" +
+            "\n" +
+            "-- 上一窗口的计数按其与滑动窗口重叠的比例计入\n" +
+            "local weight = 1 - (now - current_window * window_ms) / window_ms\n" +
+            "local estimated = previous * weight + current\n" +
+            "local granted = math.min(requested, math.max(0, math.floor(limit - estimated)))\n" +
+            "current = current + granted\n" +
+            "estimated = estimated + granted\n" +
+            "\n" +
+            "redis.call('HSET', key, 'window', string.format('%.0f', current_window),\n" +
+            "    'current', string.format('%.0f', current), 'previous', string.format('%.0f', previous))\n" +
+            "redis.call('PEXPIRE', key, window_ms * 2)\n" +
+            "return {granted, math.max(0, math.floor(limit - estimated))}";
+
+    static final String GCRA =
+            "local key = KEYS[1]\n" +
+            "local window_us = tonumber(ARGV[1]) * 1000000\n" +
+            "local limit = tonumber(ARGV[2])\n" +
+            "local now = tonumber(ARGV[3]) * 1000\n" +
+            "local carried = tonumber(ARGV[5])\n" +
+            "local requested = tonumber(ARGV[6] or '1')\n" +
+            "local returned = tonumber(ARGV[7] or '0')\n" +
+            "\n" +
+            "-- 每个请求占用的时间间隔（微秒）；理论到达时间领先当前时间不超过一个窗口，即允许limit个请求的突发\n" +
+            "local interval = math.max(1, math.floor(window_us / limit))\n" +
+            "local tat = tonumber(redis.call('GET', key)) or now\n" +
+            "tat = math.max(tat, now) + carried * interval\n" +
+            "if returned > 0 then\n" +
+            "    tat = math.max(now, tat - returned * interval)\n" +
+            "end\n" +
+            "\n" +
+            "local granted = math.min(requested, math.max(0, math.floor((window_us - (tat - now)) / interval)))\n" +
+            "tat = tat + granted * interval\n" +
+            "\n" +
+            "if granted > 0 or carried > 0 or returned > 0 then\n" +
+            "    redis.call('SET', key, string.format('%.0f', tat), 'PX', math.max(1, math.ceil((tat - now) / 1000)))\n" +
+            "end\n" +
+            "return {granted, math.max(0, math.floor((window_us - (tat - now)) / interval))}";
+
+    static final String TOKEN_BUCKET =
+            "local key = KEYS[1]\n" +
+            "local window_ms = tonumber(ARGV[1]) * 1000\n" +
+            "local limit = tonumber(ARGV[2])\n" +
+            "local now = tonumber(ARGV[3])\n" +
+            "local carried = tonumber(ARGV[5])\n" +
+            "local requested = tonumber(ARGV[6] or '1')\n" +
+            "local returned = tonumber(ARGV[7] or '0')\n" +
+            "\n" +
+            "-- 桶容量为limit，每毫秒补充limit/window_ms个令牌；key不存在即桶是满的\n" +
+            "local state = redis.call('HMGET', key, 'tokens', 'timestamp')\n" +
+            "local tokens = tonumber(state[1]) or limit\n" +
+            "local timestamp = tonumber(state[2]) or now\n" +
+            "tokens = math.min(limit, tokens + math.max(0, now - timestamp) * limit / window_ms)\n" +
+            "\n" +
+            "-- 本地已放行的请求先扣除，令牌可以暂时为负\n" +
+            "tokens = tokens - carried\n" +
+            "if returned > 0 then\n" +
+            "    tokens = math.min(limit, tokens + returned)\n" +
+            "end\n" +
+            "local granted = math.min(requested, math.max(0, math.floor(tokens)))\n" +
+            "tokens = tokens - granted\n" +
+            "\n" +
+            "redis.call('HSET', key, 'tokens', string.format('%.6f', tokens), 'timestamp', string.format('%.0f', now))\n" +
+            "-- 桶补满后状态与key不存在等价\n" +
+            "redis.call('PEXPIRE', key, math.max(1, math.ceil((limit - tokens) * window_ms / limit)))\n" +
+            "return {granted, math.max(0, math.floor(tokens))}";
+}
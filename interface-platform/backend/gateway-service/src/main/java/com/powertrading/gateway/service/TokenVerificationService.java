@@ -0,0 +1,291 @@
+package com.powertrading.gateway.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.JwtParserBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Token验证服务
+ * 在网关本地校验JWT签名、有效期和类型，签名密钥只构建一次；撤销状态取自定时从Redis同步的本地黑名单副本，
+ * 正常情况下请求不再访问认证服务。黑名单副本超过最大陈旧时间未同步成功、或Token不是本地可校验的JWT
+ * （如API Key）时才调用认证服务，结论按Token ID短期缓存
+ */
+@Slf4j
+@Service
+public class TokenVerificationService {
+
+    /**
+     * 认证服务维护的黑名单集合，成员为JTI，分值为Token过期时间戳
+     */
+    private static final String BLACKLIST_SET_KEY = "auth:blacklist:set";
+
+    private static final String ACCESS_TOKEN_TYPE = "access";
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private WebClient.Builder webClientBuilder;
+
+    @Value("${jwt.secret:}")
+    private String jwtSecret;
+
+    @Value("${jwt.issuer:}")
+    private String jwtIssuer;
+
+    @Value("${gateway.auth.local-verification.enabled:true}")
+    private boolean localVerificationEnabled;
+
+    @Value("${gateway.auth.allowed-clock-skew:30}")
+    private long allowedClockSkewSeconds;
+
+    @Value("${gateway.auth.blacklist.max-staleness:30000}")
+    private long blacklistMaxStaleness;
+
+    @Value("${gateway.auth.verdict-cache.ttl:10000}")
+    private long verdictCacheTtl;
+
+    @Value("${gateway.auth.verdict-cache.max-size:10000}")
+    private long verdictCacheMaxSize;
+
+    /**
+     * 认证服务地址，包含认证服务的context-path
+     */
+    @Value("${gateway.auth.service-url:lb://auth-service/auth-service}")
+    private String authServiceUrl;
+
+    private JwtParser jwtParser;
+
+    private WebClient authServiceClient;
+
+    private Cache<String, AuthResult> verdicts;
+
+    private volatile Set<String> revokedTokenIds = Collections.emptySet();
+
+    private volatile long blacklistSyncedAt;
+
+    @PostConstruct
+    public void init() {
+        if (localVerificationEnabled && StringUtils.hasText(jwtSecret)) {
+            JwtParserBuilder builder = Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
+                    .setAllowedClockSkewSeconds(allowedClockSkewSeconds);
+            if (StringUtils.hasText(jwtIssuer)) {
+                builder.requireIssuer(jwtIssuer);
+            }
+            jwtParser = builder.build();
+        } else {
+            log.warn("未启用网关本地Token校验（{}），所有Token由认证服务验证",
+                    localVerificationEnabled ? "未配置jwt.secret，请通过环境变量JWT_SECRET提供与认证服务相同的签名密钥" : "已关闭");
+        }
+        authServiceClient = webClientBuilder.build();
+        verdicts = Caffeine.newBuilder()
+                .maximumSize(verdictCacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(verdictCacheTtl))
+                .build();
+        syncBlacklist();
+    }
+
+    /**
+     * 验证Token
+     *
+     * @param token Bearer Token
+     * @return 验证结果，认证服务不可用时为验证失败
+     */
+    public Mono<AuthResult> verify(String token) {
+        if (jwtParser == null || !isCompactJws(token)) {
+            return verifyRemotely(token, token);
+        }
+
+        Claims claims;
+        try {
+            claims = jwtParser.parseClaimsJws(token).getBody();
+        } catch (ExpiredJwtException e) {
+            return Mono.just(new AuthResult(false, "Token已过期"));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("Token本地校验失败: {}", e.getMessage());
+            return Mono.just(new AuthResult(false, "Token无效"));
+        }
+
+        if (!ACCESS_TOKEN_TYPE.equals(claims.get("type", String.class))) {
+            return Mono.just(new AuthResult(false, "不支持的Token类型"));
+        }
+        String jti = claims.getId();
+        if (jti == null) {
+            return verifyRemotely(token, token);
+        }
+        if (isBlacklistFresh()) {
+            return Mono.just(revokedTokenIds.contains(jti)
+                    ? new AuthResult(false, "Token已被撤销")
+                    : AuthResult.of(claims));
+        }
+        // 黑名单副本过旧，撤销状态以认证服务为准
+        return verifyRemotely(jti, token);
+    }
+
+    /**
+     * 从Redis同步黑名单副本，只取尚未过期的JTI
+     */
+    @Scheduled(fixedDelayString = "${gateway.auth.blacklist.sync-interval:5000}")
+    public void syncBlacklist() {
+        if (jwtParser == null) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            Set<String> members = stringRedisTemplate.opsForZSet()
+                    .rangeByScore(BLACKLIST_SET_KEY, now, Double.POSITIVE_INFINITY);
+            Set<String> revoked = new HashSet<>();
+            if (members != null) {
+                for (String member : members) {
+                    revoked.add(unquote(member));
+                }
+            }
+            revokedTokenIds = revoked;
+            blacklistSyncedAt = now;
+            log.debug("Token黑名单同步完成: size={}", revoked.size());
+        } catch (Exception e) {
+            log.warn("Token黑名单同步失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 黑名单副本是否在最大陈旧时间内
+     */
+    public boolean isBlacklistFresh() {
+        return System.currentTimeMillis() - blacklistSyncedAt <= blacklistMaxStaleness;
+    }
+
+    /**
+     * 获取本地校验状态
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("localVerification", jwtParser != null);
+        status.put("blacklistSize", revokedTokenIds.size());
+        status.put("blacklistSyncedAt", blacklistSyncedAt);
+        status.put("blacklistFresh", isBlacklistFresh());
+        status.put("cachedVerdicts", verdicts.estimatedSize());
+        return status;
+    }
+
+    /**
+     * 调用认证服务验证Token，明确的结论按cacheKey缓存，调用失败不缓存
+     */
+    private Mono<AuthResult> verifyRemotely(String cacheKey, String token) {
+        AuthResult cached = verdicts.getIfPresent(cacheKey);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        Map<String, Object> body = new HashMap<>();
+        body.put("token", token);
+        body.put("checkPermissions", false);
+        return authServiceClient.post()
+                .uri(authServiceUrl + "/api/v1/auth/token/validate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(body)
+                .exchangeToMono(response -> {
+                    if (response.statusCode().is5xxServerError()) {
+                        return response.createException().flatMap(Mono::error);
+                    }
+                    return response.bodyToMono(Map.class)
+                            .defaultIfEmpty(Collections.emptyMap())
+                            .map(TokenVerificationService::toAuthResult);
+                })
+                .doOnNext(result -> verdicts.put(cacheKey, result))
+                .onErrorResume(throwable -> {
+                    log.warn("认证服务验证Token失败: {}", throwable.getMessage());
+                    return Mono.just(new AuthResult(false, "Token验证失败"));
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AuthResult toAuthResult(Map<?, ?> response) {
+        Object code = response.get("code");
+        Object data = response.get("data");
+        if (!(code instanceof Number) || ((Number) code).intValue() != 200 || !(data instanceof Map)) {
+            Object message = response.get("message");
+            return new AuthResult(false, message != null ? message.toString() : "Token验证失败");
+        }
+        Map<String, Object> values = (Map<String, Object>) data;
+        AuthResult result = new AuthResult(true, null);
+        result.setUserId(values.get("userId") != null ? values.get("userId").toString() : null);
+        result.setRoles((List<String>) values.get("roles"));
+        result.setPermissions((List<String>) values.get("permissions"));
+        return result;
+    }
+
+    /**
+     * 是否为header.payload.signature形式的JWS，不是时按API Key等其他凭证交给认证服务
+     */
+    private static boolean isCompactJws(String token) {
+        int first = token.indexOf('.');
+        int second = first < 0 ? -1 : token.indexOf('.', first + 1);
+        return second > 0 && token.indexOf('.', second + 1) < 0;
+    }
+
+    /**
+     * 认证服务以JSON序列化写入集合成员，字符串带有引号
+     */
+    private static String unquote(String member) {
+        if (member.length() >= 2 && member.charAt(0) == '"' && member.charAt(member.length() - 1) == '"') {
+            return member.substring(1, member.length() - 1);
+        }
+        return member;
+    }
+
+    @Data
+    public static class AuthResult {
+        private boolean valid;
+        private String userId;
+        private List<String> roles;
+        private List<String> permissions;
+        private String message;
+
+        public AuthResult() {}
+
+        public AuthResult(boolean valid, String message) {
+            this.valid = valid;
+            this.message = message;
+        }
+
+        @SuppressWarnings("unchecked")
+        static AuthResult of(Claims claims) {
+            AuthResult result = new AuthResult(true, null);
+            result.setUserId(claims.getSubject());
+            result.setRoles((List<String>) claims.get("roles"));
+            result.setPermissions((List<String>) claims.get("permissions"));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.powertrading.gateway.accesslog;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 访问日志异步写入器单元测试
+ */
+class AccessLogWriterTest {
+
+    private final Logger accessLogger = (Logger) LoggerFactory.getLogger("com.powertrading.gateway.access");
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private AccessLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        appender.start();
+        accessLogger.addAppender(appender);
+
+        writer = new AccessLogWriter();
+        // 容量为4
+        ReflectionTestUtils.setField(writer, "bufferSize", 4);
+        ReflectionTestUtils.setField(writer, "idleWaitMillis", 1L);
+        writer.init();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        writer.destroy();
+        accessLogger.detachAppender(appender);
+    }
+
+    @Test
+    void testPublish_WrapsAroundRingInOrder() throws Exception {
+        for (int batch = 0; batch < 5; batch++) {
+            for (int i = 0; i < 4; i++) {
+                publish("req-" + (batch * 4 + i));
+            }
+            awaitLogged((batch + 1) * 4);
+        }
+
+        List<String> lines = lines();
+        assertEquals(20, lines.size());
+        for (int i = 0; i < 20; i++) {
+            assertTrue(lines.get(i).contains("\"requestId\":\"req-" + i + "\""), lines.get(i));
+        }
+        assertEquals(0, writer.getDropped());
+    }
+
+    @Test
+    void testClaim_DropsWhenRingFull() throws Exception {
+        // 领取但未发布的事件占住槽位，写日志线程不会越过它们
+        List<AccessLogEvent> claimed = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            AccessLogEvent event = writer.claim();
+            assertNotNull(event);
+            event.setRequestId("req-" + i);
+            claimed.add(event);
+        }
+        assertNull(writer.claim());
+        assertNull(writer.claim());
+        assertEquals(2, writer.getDropped());
+
+        claimed.forEach(writer::publish);
+        awaitLogged(4);
+
+        // 槽位回收后可以继续领取
+        publish("req-4");
+        awaitLogged(5);
+        assertEquals(2, writer.getDropped());
+    }
+
+    @Test
+    void testPublish_AfterFillFailsKeepsRingMoving() throws Exception {
+        // 填写字段时抛出异常，finally中仍发布事件
+        for (int i = 0; i < 4; i++) {
+            AccessLogEvent event = writer.claim();
+            try {
+                event.setRequestId("failed-" + i);
+                throw new IllegalStateException("fill failed");
+            } catch (IllegalStateException expected) {
+                // 忽略
+            } finally {
+                writer.publish(event);
+            }
+        }
+        awaitLogged(4);
+
+        // 写日志时抛出异常的事件被跳过，后续事件正常写入
+        AccessLogEvent broken = writer.claim();
+        HttpHeaders headers = mock(HttpHeaders.class);
+        when(headers.entrySet()).thenThrow(new IllegalStateException("broken headers"));
+        broken.setRequestHeaders(headers);
+        writer.publish(broken);
+        publish("after-broken");
+        awaitLogged(5);
+
+        List<String> lines = lines();
+        assertTrue(lines.get(4).contains("\"requestId\":\"after-broken\""));
+        assertEquals(0, writer.getDropped());
+    }
+
+    private void publish(String requestId) {
+        AccessLogEvent event = writer.claim();
+        assertNotNull(event);
+        event.setRequestId(requestId);
+        event.setStatus(200);
+        writer.publish(event);
+    }
+
+    private void awaitLogged(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (loggedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, loggedCount());
+    }
+
+    // 写日志线程在appender的锁内追加事件
+    private int loggedCount() {
+        synchronized (appender) {
+            return appender.list.size();
+        }
+    }
+
+    private List<String> lines() {
+        List<String> lines = new ArrayList<>();
+        synchronized (appender) {
+            for (ILoggingEvent event : appender.list) {
+                lines.add(event.getFormattedMessage());
+            }
+        }
+        return lines;
+    }
+}
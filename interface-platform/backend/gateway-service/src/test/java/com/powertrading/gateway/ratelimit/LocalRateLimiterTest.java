@@ -0,0 +1,130 @@
+package com.powertrading.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 网关本地限流预检单元测试
+ */
+class LocalRateLimiterTest {
+
+    private static final long START = 1_000_000_000L;
+
+    private static final long MAX_SYNC_AGE = TimeUnit.SECONDS.toNanos(1);
+
+    private static final double SHARE = 0.1;
+
+    @Test
+    void testPreCheck_FirstRequestCheckedByRedis() {
+        LocalRateLimiter.KeyState state = new LocalRateLimiter.KeyState(100, 60, START);
+
+        LocalRateLimiter.PreCheck preCheck = state.preCheck(START, MAX_SYNC_AGE);
+
+        assertEquals(LocalRateLimiter.Decision.CHECK_REDIS, preCheck.getDecision());
+        assertEquals(0, preCheck.getCarried());
+    }
+
+    @Test
+    void testAllowance_GrantedFromRemainingAndCarriedToNextRedisCall() {
+        LocalRateLimiter.KeyState state = new LocalRateLimiter.KeyState(100, 60, START);
+        state.preCheck(START, MAX_SYNC_AGE);
+
+        // 剩余50次，授予5次本地额度
+        state.onRedisResult(true, 50, SHARE, START);
+        for (int i = 1; i <= 5; i++) {
+            LocalRateLimiter.PreCheck preCheck = state.preCheck(START + i, MAX_SYNC_AGE);
+            assertEquals(LocalRateLimiter.Decision.ALLOW, preCheck.getDecision());
+            assertEquals(50 - i, preCheck.getRemaining());
+        }
+
+        // 额度用完后由Redis判定，本地放行次数随本次调用计入
+        LocalRateLimiter.PreCheck preCheck = state.preCheck(START + 6, MAX_SYNC_AGE);
+        assertEquals(LocalRateLimiter.Decision.CHECK_REDIS, preCheck.getDecision());
+        assertEquals(5, preCheck.getCarried());
+        assertEquals(0, state.preCheck(START + 7, MAX_SYNC_AGE).getCarried());
+    }
+
+    @Test
+    void testAllowance_ShrinksNearLimit() {
+        LocalRateLimiter.KeyState state = new LocalRateLimiter.KeyState(100, 60, START);
+        state.preCheck(START, MAX_SYNC_AGE);
+
+        // 剩余次数乘以比例不足1次时不授予额度，每个请求都由Redis判定
+        state.onRedisResult(true, 9, SHARE, START);
+
+        assertEquals(LocalRateLimiter.Decision.CHECK_REDIS, state.preCheck(START + 1, MAX_SYNC_AGE).getDecision());
+    }
+
+    @Test
+    void testAllowance_ExpiresAfterMaxSyncAge() {
+        LocalRateLimiter.KeyState state = new LocalRateLimiter.KeyState(100, 60, START);
+        state.preCheck(START, MAX_SYNC_AGE);
+        state.onRedisResult(true, 50, SHARE, START);
+
+        LocalRateLimiter.PreCheck preCheck = state.preCheck(START + MAX_SYNC_AGE + 1, MAX_SYNC_AGE);
+
+        assertEquals(LocalRateLimiter.Decision.CHECK_REDIS, preCheck.getDecision());
+    }
+
+    @Test
+    void testPreCheck_RejectedLocallyWhenBucketEmptyAndAdmittedAfterRefill() {
+        // 每秒3次
+        LocalRateLimiter.KeyState state = new LocalRateLimiter.KeyState(3, 1, START);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(LocalRateLimiter.Decision.CHECK_REDIS, state.preCheck(START, MAX_SYNC_AGE).getDecision());
+            state.onRedisResult(true, 2 - i, SHARE, START);
+        }
+
+        // 本实例最近一个窗口内已放行limit次，不访问Redis直接拒绝
+        assertEquals(LocalRateLimiter.Decision.REJECT, state.preCheck(START, MAX_SYNC_AGE).getDecision());
+        assertEquals(LocalRateLimiter.Decision.REJECT,
+                state.preCheck(START + TimeUnit.MILLISECONDS.toNanos(200), MAX_SYNC_AGE).getDecision());
+
+        // 补充1个令牌后重新由Redis判定
+        assertEquals(LocalRateLimiter.Decision.CHECK_REDIS,
+                state.preCheck(START + TimeUnit.MILLISECONDS.toNanos(400), MAX_SYNC_AGE).getDecision());
+    }
+
+    @Test
+    void testRedisRejection_ReleasesLocalTokenAndClearsAllowance() {
+        LocalRateLimiter.KeyState state = new LocalRateLimiter.KeyState(1, 60, START);
+        state.preCheck(START, MAX_SYNC_AGE);
+
+        state.onRedisResult(false, 0, SHARE, START);
+
+        // 被Redis拒绝的请求不占用本地令牌，下一个请求仍由Redis判定而不是本地拒绝
+        assertEquals(LocalRateLimiter.Decision.CHECK_REDIS, state.preCheck(START + 1, MAX_SYNC_AGE).getDecision());
+    }
+
+    @Test
+    void testRedisFailure_CarriedPermitsCountedOnNextCall() {
+        LocalRateLimiter.KeyState state = new LocalRateLimiter.KeyState(100, 60, START);
+        state.preCheck(START, MAX_SYNC_AGE);
+        state.onRedisResult(true, 20, SHARE, START);
+        assertEquals(LocalRateLimiter.Decision.ALLOW, state.preCheck(START + 1, MAX_SYNC_AGE).getDecision());
+        assertEquals(LocalRateLimiter.Decision.ALLOW, state.preCheck(START + 2, MAX_SYNC_AGE).getDecision());
+
+        LocalRateLimiter.PreCheck failed = state.preCheck(START + 3, MAX_SYNC_AGE);
+        assertEquals(2, failed.getCarried());
+        state.onRedisFailure(failed.getCarried());
+
+        assertEquals(2, state.preCheck(START + 4, MAX_SYNC_AGE).getCarried());
+    }
+
+    @Test
+    void testLocalRateLimiter_StatePerKey() {
+        LocalRateLimiter limiter = new LocalRateLimiter(SHARE, Duration.ofSeconds(10), 100);
+
+        assertEquals(LocalRateLimiter.Decision.CHECK_REDIS, limiter.preCheck("a", 100, 60).getDecision());
+        limiter.onRedisResult("a", true, 50);
+        // 未预检过的key没有本地状态，Redis结果被忽略
+        limiter.onRedisResult("b", true, 50);
+
+        assertEquals(LocalRateLimiter.Decision.ALLOW, limiter.preCheck("a", 100, 60).getDecision());
+        assertEquals(LocalRateLimiter.Decision.CHECK_REDIS, limiter.preCheck("b", 100, 60).getDecision());
+    }
+}
@@ -0,0 +1,87 @@
+package com.powertrading.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地令牌桶单元测试
+ */
+class LocalTokenBucketTest {
+
+    private static final long START = 1_000_000_000L;
+
+    @Test
+    void testTryAcquire_BurstUpToCapacityThenReject() {
+        LocalTokenBucket bucket = new LocalTokenBucket(5, 1, START);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(bucket.tryAcquire(START));
+        }
+        assertFalse(bucket.tryAcquire(START));
+        assertEquals(0, bucket.available());
+    }
+
+    @Test
+    void testTryAcquire_RefillsInProportionToElapsedTime() {
+        // 10秒补满10个令牌，即每秒1个
+        LocalTokenBucket bucket = new LocalTokenBucket(10, 10, START);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(bucket.tryAcquire(START));
+        }
+
+        // 0.5个令牌不足以放行
+        assertFalse(bucket.tryAcquire(START + TimeUnit.MILLISECONDS.toNanos(500)));
+        // 累计1.5个令牌，放行1个
+        assertTrue(bucket.tryAcquire(START + TimeUnit.MILLISECONDS.toNanos(1500)));
+        assertFalse(bucket.tryAcquire(START + TimeUnit.MILLISECONDS.toNanos(1500)));
+
+        // 再过3秒累计3.5个令牌
+        long later = START + TimeUnit.MILLISECONDS.toNanos(4500);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire(later));
+        }
+        assertFalse(bucket.tryAcquire(later));
+    }
+
+    @Test
+    void testTryAcquire_RefillCappedAtCapacity() {
+        LocalTokenBucket bucket = new LocalTokenBucket(3, 1, START);
+        assertTrue(bucket.tryAcquire(START));
+
+        // 空闲远超一个窗口后最多只有capacity个令牌
+        long later = START + TimeUnit.MINUTES.toNanos(5);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucket.tryAcquire(later));
+        }
+        assertFalse(bucket.tryAcquire(later));
+    }
+
+    @Test
+    void testRelease_ReturnsTokenWithinCapacity() {
+        LocalTokenBucket bucket = new LocalTokenBucket(2, 1, START);
+        assertTrue(bucket.tryAcquire(START));
+        assertTrue(bucket.tryAcquire(START));
+
+        bucket.release();
+        assertEquals(1, bucket.available());
+        assertTrue(bucket.tryAcquire(START));
+
+        bucket.release();
+        bucket.release();
+        bucket.release();
+        assertEquals(2, bucket.available());
+    }
+
+    @Test
+    void testFractionalCapacity_AtLeastOneWholeTokenRequired() {
+        LocalTokenBucket bucket = new LocalTokenBucket(1.5, 1, START);
+
+        assertTrue(bucket.tryAcquire(START));
+        assertFalse(bucket.tryAcquire(START));
+        // 半个令牌补充到1个后放行
+        assertTrue(bucket.tryAcquire(START + TimeUnit.MILLISECONDS.toNanos(334)));
+    }
+}
@@ -0,0 +1,318 @@
+package com.powertrading.gateway.ratelimit;
+
+import org.luaj.vm2.Globals;
+import org.luaj.vm2.LuaError;
+import org.luaj.vm2.LuaTable;
+import org.luaj.vm2.LuaValue;
+import org.luaj.vm2.Varargs;
+import org.luaj.vm2.lib.VarArgFunction;
+import org.luaj.vm2.lib.jse.JsePlatform;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 内存中的Redis替身
+ * 用LuaJ执行限流脚本，redis.call只实现限流脚本用到的命令，返回值按Redis的Lua类型转换规则给出；
+ * 时间由测试推进，key的过期按该虚拟时间判断
+ */
+final class LuaRedisStandIn {
+
+    private final Globals globals = JsePlatform.standardGlobals();
+
+    private final Map<String, Object> data = new HashMap<>();
+
+    private final Map<String, Long> expireAt = new HashMap<>();
+
+    private long nowMillis;
+
+    LuaRedisStandIn() {
+        LuaTable redis = new LuaTable();
+        redis.set("call", new VarArgFunction() {
+            @Override
+            public Varargs invoke(Varargs args) {
+                return call(args);
+            }
+        });
+        globals.set("redis", redis);
+    }
+
+    /**
+     * 编译脚本，相当于SCRIPT LOAD
+     */
+    LuaValue load(String script) {
+        return globals.load(script, "script");
+    }
+
+    /**
+     * 执行脚本，相当于EVALSHA
+     *
+     * @return 脚本返回的整数数组
+     */
+    long[] eval(LuaValue script, String key, String... args) {
+        globals.set("KEYS", LuaValue.listOf(new LuaValue[]{LuaValue.valueOf(key)}));
+        LuaValue[] argv = new LuaValue[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argv[i] = LuaValue.valueOf(args[i]);
+        }
+        globals.set("ARGV", LuaValue.listOf(argv));
+
+        LuaValue result = script.call();
+        long[] values = new long[result.length()];
+        for (int i = 0; i < values.length; i++) {
+            // Redis把Lua数字转换为整数时直接截断小数
+            values[i] = (long) result.get(i + 1).todouble();
+        }
+        return values;
+    }
+
+    void setTime(long nowMillis) {
+        this.nowMillis = nowMillis;
+    }
+
+    /**
+     * key中保存的元素数：ZSET成员数、哈希字段数，字符串为1
+     */
+    int elements(String key) {
+        Object value = get(key);
+        if (value instanceof SortedSet) {
+            return ((SortedSet) value).scores.size();
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        }
+        return value == null ? 0 : 1;
+    }
+
+    private Varargs call(Varargs args) {
+        String command = args.arg1().tojstring().toUpperCase(Locale.ROOT);
+        String key = args.arg(2).tojstring();
+        switch (command) {
+            case "GET": {
+                Object value = get(key);
+                return value == null ? LuaValue.FALSE : LuaValue.valueOf(value.toString());
+            }
+            case "SET": {
+                data.put(key, args.arg(3).tojstring());
+                expireAt.remove(key);
+                if (args.narg() >= 5 && "PX".equalsIgnoreCase(args.arg(4).tojstring())) {
+                    expireAt.put(key, nowMillis + args.arg(5).tolong());
+                }
+                return statusOk();
+            }
+            case "HMGET": {
+                Map<String, String> hash = hash(key, false);
+                LuaValue[] values = new LuaValue[args.narg() - 2];
+                for (int i = 0; i < values.length; i++) {
+                    String value = hash == null ? null : hash.get(args.arg(i + 3).tojstring());
+                    values[i] = value == null ? LuaValue.FALSE : LuaValue.valueOf(value);
+                }
+                return LuaValue.listOf(values);
+            }
+            case "HSET": {
+                Map<String, String> hash = hash(key, true);
+                int added = 0;
+                for (int i = 3; i + 1 <= args.narg(); i += 2) {
+                    if (hash.put(args.arg(i).tojstring(), args.arg(i + 1).tojstring()) == null) {
+                        added++;
+                    }
+                }
+                return LuaValue.valueOf(added);
+            }
+            case "ZADD": {
+                SortedSet set = sortedSet(key, true);
+                return LuaValue.valueOf(set.add(args.arg(4).tojstring(), args.arg(3).todouble()) ? 1 : 0);
+            }
+            case "ZSCORE": {
+                SortedSet set = sortedSet(key, false);
+                Double score = set == null ? null : set.scores.get(args.arg(3).tojstring());
+                return score == null ? LuaValue.FALSE : LuaValue.valueOf(formatScore(score));
+            }
+            case "ZCARD": {
+                SortedSet set = sortedSet(key, false);
+                return LuaValue.valueOf(set == null ? 0 : set.scores.size());
+            }
+            case "ZREMRANGEBYSCORE": {
+                SortedSet set = sortedSet(key, false);
+                return LuaValue.valueOf(set == null ? 0 : set.removeRange(args.arg(3).todouble(), args.arg(4).todouble()));
+            }
+            case "ZRANGEBYSCORE": {
+                SortedSet set = sortedSet(key, false);
+                int offset = 0;
+                int count = -1;
+                if (args.narg() >= 7 && "LIMIT".equalsIgnoreCase(args.arg(5).tojstring())) {
+                    offset = args.arg(6).toint();
+                    count = args.arg(7).toint();
+                }
+                List<String> members = set == null ? new ArrayList<>()
+                        : set.range(args.arg(3).todouble(), args.arg(4).todouble(), offset, count);
+                LuaValue[] values = new LuaValue[members.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = LuaValue.valueOf(members.get(i));
+                }
+                return LuaValue.listOf(values);
+            }
+            case "ZREM": {
+                SortedSet set = sortedSet(key, false);
+                int removed = 0;
+                for (int i = 3; set != null && i <= args.narg(); i++) {
+                    if (set.remove(args.arg(i).tojstring())) {
+                        removed++;
+                    }
+                }
+                return LuaValue.valueOf(removed);
+            }
+            case "DEL": {
+                int removed = 0;
+                for (int i = 2; i <= args.narg(); i++) {
+                    String name = args.arg(i).tojstring();
+                    if (get(name) != null) {
+                        data.remove(name);
+                        expireAt.remove(name);
+                        removed++;
+                    }
+                }
+                return LuaValue.valueOf(removed);
+            }
+            case "EXPIRE":
+                return expire(key, args.arg(3).tolong() * 1000);
+            case "PEXPIRE":
+                return expire(key, args.arg(3).tolong());
+            default:
+                throw new LuaError("替身不支持的命令: " + command);
+        }
+    }
+
+    private Object get(String key) {
+        Long expiry = expireAt.get(key);
+        if (expiry != null && expiry <= nowMillis) {
+            expireAt.remove(key);
+            data.remove(key);
+        }
+        return data.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> hash(String key, boolean create) {
+        Object value = get(key);
+        if (value == null && create) {
+            value = new HashMap<String, String>();
+            data.put(key, value);
+        }
+        if (value != null && !(value instanceof Map)) {
+            throw new LuaError("WRONGTYPE " + key);
+        }
+        return (Map<String, String>) value;
+    }
+
+    private SortedSet sortedSet(String key, boolean create) {
+        Object value = get(key);
+        if (value == null && create) {
+            value = new SortedSet();
+            data.put(key, value);
+        }
+        if (value != null && !(value instanceof SortedSet)) {
+            throw new LuaError("WRONGTYPE " + key);
+        }
+        return (SortedSet) value;
+    }
+
+    private LuaValue expire(String key, long millis) {
+        if (get(key) == null) {
+            return LuaValue.valueOf(0);
+        }
+        expireAt.put(key, nowMillis + millis);
+        return LuaValue.valueOf(1);
+    }
+
+    private static LuaValue statusOk() {
+        LuaTable status = new LuaTable();
+        status.set("ok", "OK");
+        return status;
+    }
+
+    /**
+     * 分值按Redis的格式返回，整数不带小数部分
+     */
+    private static String formatScore(double score) {
+        if (score == Math.rint(score) && !Double.isInfinite(score)) {
+            return Long.toString((long) score);
+        }
+        return Double.toString(score);
+    }
+
+    /**
+     * 有序集合：成员到分值，以及按分值排序的索引
+     */
+    private static final class SortedSet {
+
+        private final Map<String, Double> scores = new HashMap<>();
+
+        private final TreeMap<Double, Set<String>> byScore = new TreeMap<>();
+
+        boolean add(String member, double score) {
+            Double previous = scores.put(member, score);
+            if (previous != null) {
+                Set<String> members = byScore.get(previous);
+                members.remove(member);
+                if (members.isEmpty()) {
+                    byScore.remove(previous);
+                }
+            }
+            byScore.computeIfAbsent(score, s -> new HashSet<>()).add(member);
+            return previous == null;
+        }
+
+        boolean remove(String member) {
+            Double score = scores.remove(member);
+            if (score == null) {
+                return false;
+            }
+            Set<String> members = byScore.get(score);
+            members.remove(member);
+            if (members.isEmpty()) {
+                byScore.remove(score);
+            }
+            return true;
+        }
+
+        List<String> range(double min, double max, int offset, int count) {
+            List<String> members = new ArrayList<>();
+            int skipped = 0;
+            for (Set<String> sameScore : byScore.subMap(min, true, max, true).values()) {
+                // 同分值成员按字典序排列
+                for (String member : new TreeSet<>(sameScore)) {
+                    if (skipped++ < offset) {
+                        continue;
+                    }
+                    if (count >= 0 && members.size() >= count) {
+                        return members;
+                    }
+                    members.add(member);
+                }
+            }
+            return members;
+        }
+
+        int removeRange(double min, double max) {
+            int removed = 0;
+            Iterator<Set<String>> iterator = byScore.subMap(min, true, max, true).values().iterator();
+            while (iterator.hasNext()) {
+                for (String member : iterator.next()) {
+                    scores.remove(member);
+                    removed++;
+                }
+                iterator.remove();
+            }
+            return removed;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.powertrading.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 限流配额租约单元测试
+ */
+class QuotaLeaseManagerTest {
+
+    private static final String KEY = "rate_limit:ip:127.0.0.1";
+
+    private static final RateLimitAlgorithm ALGORITHM = RateLimitAlgorithm.SLIDING_LOG;
+
+    private static final int LIMIT = 100;
+
+    private static final int WINDOW = 60;
+
+    // 每次调用记录{当前时间, 申请数, 退还数, 退还许可的授予时间}
+    private final List<long[]> calls = new ArrayList<>();
+
+    private boolean failing;
+
+    private long globalGranted = Long.MAX_VALUE;
+
+    @Test
+    void testAcquire_ConsumesLeaseLocallyAndRenewsAtLowWatermark() {
+        QuotaLeaseManager manager = manager(Duration.ofSeconds(10));
+        assertEquals(10, manager.leaseSize(LIMIT));
+        assertEquals(1000, new QuotaLeaseManager(this::grant, 0.02, 1000, Duration.ofSeconds(1), 0.25,
+                Duration.ofMillis(100), 0.5, Duration.ofSeconds(1), 100).leaseSize(1_000_000));
+
+        QuotaLeaseManager.Result first = acquire(manager);
+        assertTrue(first.isAllowed());
+        assertEquals(1, calls.size());
+        assertEquals(10, calls.get(0)[1]);
+        assertEquals(50 + 9, first.getRemaining());
+
+        // 剩余许可不低于低水位时本地消耗，不访问Redis
+        for (int i = 0; i < 6; i++) {
+            assertTrue(acquire(manager).isAllowed());
+        }
+        assertEquals(1, calls.size());
+
+        // 剩余2个许可，低于10×0.25，预取下一批
+        assertTrue(acquire(manager).isAllowed());
+        assertEquals(2, calls.size());
+        assertEquals(10, calls.get(1)[1]);
+        assertEquals(0, calls.get(1)[2]);
+        assertEquals(50 + 11, acquire(manager).getRemaining());
+    }
+
+    @Test
+    void testExpiredLease_ReturnsLeftoverOnRenewal() throws Exception {
+        QuotaLeaseManager manager = manager(Duration.ofMillis(50));
+        assertTrue(acquire(manager).isAllowed());
+        long issuedAt = calls.get(0)[0];
+
+        Thread.sleep(80);
+
+        assertTrue(acquire(manager).isAllowed());
+        assertEquals(2, calls.size());
+        assertEquals(10, calls.get(1)[1]);
+        assertEquals(9, calls.get(1)[2]);
+        assertEquals(issuedAt, calls.get(1)[3]);
+    }
+
+    @Test
+    void testReturnAll_ReturnsUnusedPermits() {
+        QuotaLeaseManager manager = manager(Duration.ofSeconds(10));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(acquire(manager).isAllowed());
+        }
+        long issuedAt = calls.get(0)[0];
+
+        manager.returnAll().block(Duration.ofSeconds(1));
+        assertEquals(2, calls.size());
+        assertEquals(0, calls.get(1)[1]);
+        assertEquals(7, calls.get(1)[2]);
+        assertEquals(issuedAt, calls.get(1)[3]);
+
+        // 许可已退还，再次调用不访问Redis
+        manager.returnAll().block(Duration.ofSeconds(1));
+        assertEquals(2, calls.size());
+    }
+
+    @Test
+    void testGlobalQuotaExhausted_RejectsWithoutRedis() {
+        QuotaLeaseManager manager = manager(Duration.ofSeconds(10));
+        globalGranted = 0;
+
+        assertFalse(acquire(manager).isAllowed());
+        assertFalse(acquire(manager).isAllowed());
+        // 约一个许可的补充时间内不再访问Redis
+        assertEquals(1, calls.size());
+    }
+
+    @Test
+    void testRedisFailure_DegradesToLocalShareAndRecovers() throws Exception {
+        QuotaLeaseManager manager = manager(Duration.ofSeconds(10));
+        failing = true;
+
+        int allowed = 0;
+        for (int i = 0; i < 80; i++) {
+            if (acquire(manager).isAllowed()) {
+                allowed++;
+            }
+        }
+        // 降级期间按限额×0.5在本地判定，不再访问Redis
+        assertEquals(50, allowed);
+        assertEquals(1, calls.size());
+        assertTrue(manager.isDegraded(KEY, ALGORITHM, LIMIT, WINDOW));
+
+        Thread.sleep(250);
+        failing = false;
+
+        assertTrue(acquire(manager).isAllowed());
+        assertEquals(2, calls.size());
+        assertFalse(manager.isDegraded(KEY, ALGORITHM, LIMIT, WINDOW));
+    }
+
+    @Test
+    void testMarkDegraded_PerRequestPathUsesLocalShare() {
+        QuotaLeaseManager manager = manager(Duration.ofSeconds(10));
+        assertFalse(manager.isDegraded(KEY, ALGORITHM, 1, WINDOW));
+
+        manager.markDegraded(KEY, ALGORITHM, 1, WINDOW);
+        assertTrue(manager.isDegraded(KEY, ALGORITHM, 1, WINDOW));
+        // 限额×0.5不足1时至少放行1个
+        assertTrue(manager.decideDegraded(KEY, ALGORITHM, 1, WINDOW).isAllowed());
+        assertFalse(manager.decideDegraded(KEY, ALGORITHM, 1, WINDOW).isAllowed());
+        // 其他限额的配额不受影响
+        assertFalse(manager.isDegraded(KEY, ALGORITHM, LIMIT, WINDOW));
+    }
+
+    private QuotaLeaseManager manager(Duration ttl) {
+        return new QuotaLeaseManager(this::grant, 0.1, 1000, ttl, 0.25, Duration.ofSeconds(1), 0.5,
+                Duration.ofMillis(200), 100);
+    }
+
+    private QuotaLeaseManager.Result acquire(QuotaLeaseManager manager) {
+        return manager.acquire(KEY, ALGORITHM, LIMIT, WINDOW).block(Duration.ofSeconds(1));
+    }
+
+    private Mono<long[]> grant(QuotaLeaseManager.Quota quota, long now, long requested, long returned,
+                               long returnedIssuedAt) {
+        calls.add(new long[]{now, requested, returned, returnedIssuedAt});
+        if (failing) {
+            return Mono.error(new IllegalStateException("redis unavailable"));
+        }
+        return Mono.just(new long[]{Math.min(requested, globalGranted), 50});
+    }
+}
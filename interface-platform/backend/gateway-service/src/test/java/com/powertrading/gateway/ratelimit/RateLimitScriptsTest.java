@@ -0,0 +1,228 @@
+package com.powertrading.gateway.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.luaj.vm2.LuaValue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 限流Lua脚本单元测试
+ * 在内存中的Redis替身上按虚拟时间执行脚本，验证各算法的放行、拒绝、补充和窗口边界
+ */
+class RateLimitScriptsTest {
+
+    // 与10秒窗口对齐，滑动窗口计数的固定窗口从此刻开始
+    private static final long T0 = 1_700_000_000_000L;
+
+    private static final String KEY = "rate_limit:test";
+
+    private LuaRedisStandIn redis;
+
+    private long sequence;
+
+    @BeforeEach
+    void setUp() {
+        redis = new LuaRedisStandIn();
+        sequence = 0;
+    }
+
+    @Test
+    void testSlidingLog_AllowUpToLimitThenDeny() {
+        assertResult(1, 2, acquire(RateLimitAlgorithm.SLIDING_LOG, T0, 3, 10));
+        assertResult(1, 1, acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 1, 3, 10));
+        assertResult(1, 0, acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 2, 3, 10));
+
+        assertResult(0, 0, acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 3, 3, 10));
+    }
+
+    @Test
+    void testSlidingLog_RecordsExpireAtWindowBoundary() {
+        acquire(RateLimitAlgorithm.SLIDING_LOG, T0, 3, 10);
+        acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 1000, 3, 10);
+        acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 2000, 3, 10);
+
+        assertResult(0, 0, acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 9999, 3, 10));
+        // 第一条记录恰好滑出窗口，只腾出一次
+        assertResult(1, 0, acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 10000, 3, 10));
+        assertResult(0, 0, acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 10000, 3, 10));
+    }
+
+    @Test
+    void testSlidingLog_LeaseStoredAsSingleWeightedMember() {
+        String redisKey = RateLimitAlgorithm.SLIDING_LOG.redisKey(KEY);
+
+        assertResult(50, 50, execute(RateLimitAlgorithm.SLIDING_LOG, T0, 100, 10, 0, 50, 0, 0));
+        // 授予的成员加计数成员
+        assertEquals(2, redis.elements(redisKey));
+
+        assertResult(50, 0, execute(RateLimitAlgorithm.SLIDING_LOG, T0 + 1, 100, 10, 0, 60, 0, 0));
+        assertEquals(3, redis.elements(redisKey));
+        assertResult(0, 0, acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 2, 100, 10));
+    }
+
+    @Test
+    void testSlidingLog_ReturnedPermitsDeductedFromLeaseMember() {
+        assertResult(8, 2, execute(RateLimitAlgorithm.SLIDING_LOG, T0, 10, 10, 0, 8, 0, 0));
+
+        // 退还5个后租约成员剩余权重3
+        assertResult(1, 6, execute(RateLimitAlgorithm.SLIDING_LOG, T0 + 500, 10, 10, 0, 1, 5, T0));
+
+        // 租约成员滑出窗口时只扣除剩余的权重
+        assertResult(1, 8, acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 10000, 10, 10));
+    }
+
+    @Test
+    void testSlidingLog_CarriedPermitsCounted() {
+        assertResult(1, 1, execute(RateLimitAlgorithm.SLIDING_LOG, T0, 5, 10, 3, 1, 0, 0));
+        assertEquals(3, redis.elements(RateLimitAlgorithm.SLIDING_LOG.redisKey(KEY)));
+
+        // 本地放行的1次占用最后的剩余次数
+        assertResult(0, 0, execute(RateLimitAlgorithm.SLIDING_LOG, T0 + 1, 5, 10, 1, 1, 0, 0));
+    }
+
+    @Test
+    void testSlidingLog_LegacyMembersCountedWithoutTotal() {
+        // 没有计数成员的旧数据：每个请求一个成员
+        LuaValue legacy = redis.load("redis.call('ZADD', KEYS[1], ARGV[1], ARGV[2]) return {}");
+        redis.eval(legacy, KEY, String.valueOf(T0), "a");
+        redis.eval(legacy, KEY, String.valueOf(T0), "b#2");
+
+        assertResult(1, 0, acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 1, 3, 10));
+        assertResult(0, 0, acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 2, 3, 10));
+
+        assertResult(1, 1, acquire(RateLimitAlgorithm.SLIDING_LOG, T0 + 10000, 3, 10));
+    }
+
+    @Test
+    void testSlidingWindow_AllowUpToLimitThenDeny() {
+        for (int i = 0; i < 10; i++) {
+            assertResult(1, 9 - i, acquire(RateLimitAlgorithm.SLIDING_WINDOW, T0, 10, 10));
+        }
+
+        assertResult(0, 0, acquire(RateLimitAlgorithm.SLIDING_WINDOW, T0 + 9999, 10, 10));
+    }
+
+    @Test
+    void testSlidingWindow_PreviousWindowWeightedByOverlap() {
+        for (int i = 0; i < 10; i++) {
+            acquire(RateLimitAlgorithm.SLIDING_WINDOW, T0, 10, 10);
+        }
+
+        // 新窗口开始时上一窗口完全计入
+        assertResult(0, 0, acquire(RateLimitAlgorithm.SLIDING_WINDOW, T0 + 10000, 10, 10));
+
+        // 窗口过半时上一窗口按一半计入，可再放行5次
+        for (int i = 0; i < 5; i++) {
+            assertResult(1, 4 - i, acquire(RateLimitAlgorithm.SLIDING_WINDOW, T0 + 15000, 10, 10));
+        }
+        assertResult(0, 0, acquire(RateLimitAlgorithm.SLIDING_WINDOW, T0 + 15000, 10, 10));
+    }
+
+    @Test
+    void testSlidingWindow_StateResetAfterIdleWindow() {
+        for (int i = 0; i < 10; i++) {
+            acquire(RateLimitAlgorithm.SLIDING_WINDOW, T0, 10, 10);
+        }
+
+        // 间隔一个完整窗口后上一窗口没有请求
+        assertResult(10, 0, execute(RateLimitAlgorithm.SLIDING_WINDOW, T0 + 20000, 10, 10, 0, 10, 0, 0));
+    }
+
+    @Test
+    void testSlidingWindow_ReturnedPermitsDeductedFromGrantedWindow() {
+        assertResult(10, 0, execute(RateLimitAlgorithm.SLIDING_WINDOW, T0, 10, 10, 0, 10, 0, 0));
+
+        assertResult(1, 3, execute(RateLimitAlgorithm.SLIDING_WINDOW, T0 + 1000, 10, 10, 0, 1, 4, T0));
+    }
+
+    @Test
+    void testGcra_BurstUpToLimitThenDeny() {
+        for (int i = 0; i < 10; i++) {
+            assertResult(1, 9 - i, acquire(RateLimitAlgorithm.GCRA, T0, 10, 10));
+        }
+
+        assertResult(0, 0, acquire(RateLimitAlgorithm.GCRA, T0, 10, 10));
+    }
+
+    @Test
+    void testGcra_RefillsOneRequestPerInterval() {
+        for (int i = 0; i < 10; i++) {
+            acquire(RateLimitAlgorithm.GCRA, T0, 10, 10);
+        }
+
+        // 每个请求占用1秒的间隔
+        assertResult(0, 0, acquire(RateLimitAlgorithm.GCRA, T0 + 999, 10, 10));
+        assertResult(1, 0, acquire(RateLimitAlgorithm.GCRA, T0 + 1000, 10, 10));
+        assertResult(0, 0, acquire(RateLimitAlgorithm.GCRA, T0 + 1000, 10, 10));
+
+        // 空闲远超一个窗口后最多允许limit个请求的突发
+        assertResult(10, 0, execute(RateLimitAlgorithm.GCRA, T0 + 60000, 10, 10, 0, 20, 0, 0));
+    }
+
+    @Test
+    void testGcra_ReturnedPermitsReleaseIntervals() {
+        assertResult(10, 0, execute(RateLimitAlgorithm.GCRA, T0, 10, 10, 0, 10, 0, 0));
+
+        assertResult(1, 3, execute(RateLimitAlgorithm.GCRA, T0, 10, 10, 0, 1, 4, T0));
+    }
+
+    @Test
+    void testTokenBucket_BurstUpToCapacityThenDeny() {
+        for (int i = 0; i < 10; i++) {
+            assertResult(1, 9 - i, acquire(RateLimitAlgorithm.TOKEN_BUCKET, T0, 10, 10));
+        }
+
+        assertResult(0, 0, acquire(RateLimitAlgorithm.TOKEN_BUCKET, T0, 10, 10));
+    }
+
+    @Test
+    void testTokenBucket_RefillsInProportionToElapsedTime() {
+        for (int i = 0; i < 10; i++) {
+            acquire(RateLimitAlgorithm.TOKEN_BUCKET, T0, 10, 10);
+        }
+
+        // 每秒补充1个令牌，累计1.5个放行1个
+        assertResult(1, 0, acquire(RateLimitAlgorithm.TOKEN_BUCKET, T0 + 1500, 10, 10));
+        assertResult(0, 0, acquire(RateLimitAlgorithm.TOKEN_BUCKET, T0 + 1500, 10, 10));
+
+        // 再过3秒累计3.5个
+        assertResult(3, 0, execute(RateLimitAlgorithm.TOKEN_BUCKET, T0 + 4500, 10, 10, 0, 5, 0, 0));
+
+        // 补满后不超过容量
+        assertResult(10, 0, execute(RateLimitAlgorithm.TOKEN_BUCKET, T0 + 60000, 10, 10, 0, 20, 0, 0));
+    }
+
+    @Test
+    void testTokenBucket_CarriedPermitsMakeTokensNegative() {
+        assertResult(0, 0, execute(RateLimitAlgorithm.TOKEN_BUCKET, T0, 10, 10, 12, 1, 0, 0));
+
+        // 欠下的2个令牌补回后才有令牌可用
+        assertResult(0, 0, acquire(RateLimitAlgorithm.TOKEN_BUCKET, T0 + 2500, 10, 10));
+        assertResult(1, 0, acquire(RateLimitAlgorithm.TOKEN_BUCKET, T0 + 3000, 10, 10));
+    }
+
+    private long[] acquire(RateLimitAlgorithm algorithm, long now, int limit, int window) {
+        return execute(algorithm, now, limit, window, 0, 1, 0, 0);
+    }
+
+    private long[] execute(RateLimitAlgorithm algorithm, long now, int limit, int window, long carried,
+                           long requested, long returned, long returnedAt) {
+        redis.setTime(now);
+        LuaValue script = redis.load(algorithm.getScriptText());
+        return redis.eval(script, algorithm.redisKey(KEY),
+                String.valueOf(window),
+                String.valueOf(limit),
+                String.valueOf(now),
+                "member:" + (++sequence),
+                String.valueOf(carried),
+                String.valueOf(requested),
+                String.valueOf(returned),
+                String.valueOf(returnedAt));
+    }
+
+    private static void assertResult(long granted, long remaining, long[] result) {
+        assertEquals(granted, result[0], "授予的许可数");
+        assertEquals(remaining, result[1], "剩余次数");
+    }
+}
@@ -0,0 +1,230 @@
+package com.powertrading.gateway.service;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Token验证服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class TokenVerificationServiceTest {
+
+    private static final String SECRET = "powerTradingGatewayUnitTestJwtSecret2024";
+
+    private static final String ISSUER = "PowerTrading-Interface-Platform";
+
+    private static final String VALIDATE_URL = "http://auth-service/auth-service/api/v1/auth/token/validate";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    private final List<ClientRequest> remoteCalls = new ArrayList<>();
+
+    private String remoteResponse;
+
+    private TokenVerificationService service;
+
+    @BeforeEach
+    void setUp() {
+        remoteResponse = "{\"code\":200,\"data\":{\"userId\":\"remote-user\",\"roles\":[\"USER\"],\"permissions\":[]}}";
+        WebClient.Builder webClientBuilder = WebClient.builder().exchangeFunction(request -> {
+            remoteCalls.add(request);
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .body(remoteResponse)
+                    .build());
+        });
+
+        service = new TokenVerificationService();
+        ReflectionTestUtils.setField(service, "stringRedisTemplate", stringRedisTemplate);
+        ReflectionTestUtils.setField(service, "webClientBuilder", webClientBuilder);
+        ReflectionTestUtils.setField(service, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(service, "jwtIssuer", ISSUER);
+        ReflectionTestUtils.setField(service, "localVerificationEnabled", true);
+        ReflectionTestUtils.setField(service, "allowedClockSkewSeconds", 30L);
+        ReflectionTestUtils.setField(service, "blacklistMaxStaleness", 30000L);
+        ReflectionTestUtils.setField(service, "verdictCacheTtl", 10000L);
+        ReflectionTestUtils.setField(service, "verdictCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(service, "authServiceUrl", "http://auth-service/auth-service");
+    }
+
+    @Test
+    void testVerify_ValidAccessTokenAcceptedLocally() {
+        start(Collections.emptySet());
+
+        TokenVerificationService.AuthResult result = verify(token(SECRET, "jti-1", "access", 3600));
+
+        assertTrue(result.isValid());
+        assertEquals("user-1", result.getUserId());
+        assertEquals(Collections.singletonList("USER"), result.getRoles());
+        assertTrue(remoteCalls.isEmpty());
+    }
+
+    @Test
+    void testVerify_BadSignatureRejected() {
+        start(Collections.emptySet());
+
+        TokenVerificationService.AuthResult result =
+                verify(token("anotherGatewayUnitTestJwtSecretKey2024", "jti-1", "access", 3600));
+
+        assertFalse(result.isValid());
+        assertEquals("Token无效", result.getMessage());
+        assertTrue(remoteCalls.isEmpty());
+    }
+
+    @Test
+    void testVerify_ExpiredTokenRejected() {
+        start(Collections.emptySet());
+
+        // 超出允许的时钟偏差
+        TokenVerificationService.AuthResult result = verify(token(SECRET, "jti-1", "access", -120));
+
+        assertFalse(result.isValid());
+        assertEquals("Token已过期", result.getMessage());
+        assertTrue(remoteCalls.isEmpty());
+    }
+
+    @Test
+    void testVerify_RefreshTokenRejected() {
+        start(Collections.emptySet());
+
+        TokenVerificationService.AuthResult result = verify(token(SECRET, "jti-1", "refresh", 3600));
+
+        assertFalse(result.isValid());
+        assertEquals("不支持的Token类型", result.getMessage());
+    }
+
+    @Test
+    void testVerify_RevokedTokenRejectedFromLocalBlacklist() {
+        // 认证服务以JSON序列化写入成员
+        start(new HashSet<>(Arrays.asList("\"jti-revoked\"", "\"jti-other\"")));
+
+        TokenVerificationService.AuthResult result = verify(token(SECRET, "jti-revoked", "access", 3600));
+
+        assertFalse(result.isValid());
+        assertEquals("Token已被撤销", result.getMessage());
+        assertTrue(verify(token(SECRET, "jti-1", "access", 3600)).isValid());
+        assertTrue(remoteCalls.isEmpty());
+    }
+
+    @Test
+    void testVerify_StaleBlacklistFallsBackToAuthServiceAndCachesVerdict() {
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore(anyString(), anyDouble(), anyDouble()))
+                .thenThrow(new IllegalStateException("redis unavailable"));
+        service.init();
+        assertFalse(service.isBlacklistFresh());
+
+        String token = token(SECRET, "jti-1", "access", 3600);
+        TokenVerificationService.AuthResult result = verify(token);
+
+        assertTrue(result.isValid());
+        assertEquals("remote-user", result.getUserId());
+        assertEquals(1, remoteCalls.size());
+        assertEquals("Bearer " + token, remoteCalls.get(0).headers().getFirst(HttpHeaders.AUTHORIZATION));
+
+        // 同一JTI的结论短期缓存
+        assertTrue(verify(token).isValid());
+        assertEquals(1, remoteCalls.size());
+    }
+
+    @Test
+    void testVerify_ApiKeyVerifiedByAuthService() {
+        start(Collections.emptySet());
+        remoteResponse = "{\"code\":401,\"message\":\"API Key无效\"}";
+
+        TokenVerificationService.AuthResult result = verify("ak_0123456789");
+
+        assertFalse(result.isValid());
+        assertEquals("API Key无效", result.getMessage());
+        assertEquals(1, remoteCalls.size());
+        assertEquals(VALIDATE_URL, remoteCalls.get(0).url().toString());
+    }
+
+    @Test
+    void testVerify_WithoutSecretFallsBackToAuthService() {
+        ReflectionTestUtils.setField(service, "jwtSecret", "");
+        start(Collections.emptySet());
+
+        TokenVerificationService.AuthResult result = verify(token(SECRET, "jti-1", "access", 3600));
+
+        assertTrue(result.isValid());
+        assertEquals("remote-user", result.getUserId());
+        assertEquals(1, remoteCalls.size());
+        // 认证服务的验证接口位于其context-path下
+        assertEquals(VALIDATE_URL, remoteCalls.get(0).url().toString());
+    }
+
+    @Test
+    void testVerify_AuthServiceErrorRejectedWithoutCaching() {
+        ReflectionTestUtils.setField(service, "webClientBuilder", WebClient.builder().exchangeFunction(request -> {
+            remoteCalls.add(request);
+            return Mono.just(ClientResponse.create(HttpStatus.SERVICE_UNAVAILABLE).build());
+        }));
+        start(Collections.emptySet());
+
+        assertFalse(verify("ak_0123456789").isValid());
+        assertFalse(verify("ak_0123456789").isValid());
+
+        // 调用失败的结论不缓存
+        assertEquals(2, remoteCalls.size());
+    }
+
+    private void start(Set<String> revoked) {
+        when(stringRedisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore(eq("auth:blacklist:set"), anyDouble(), eq(Double.POSITIVE_INFINITY)))
+                .thenReturn(revoked);
+        service.init();
+    }
+
+    private TokenVerificationService.AuthResult verify(String token) {
+        return service.verify(token).block(Duration.ofSeconds(5));
+    }
+
+    private static String token(String secret, String jti, String type, long expiresInSeconds) {
+        long now = System.currentTimeMillis();
+        return Jwts.builder()
+                .setSubject("user-1")
+                .setId(jti)
+                .setIssuer(ISSUER)
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expiresInSeconds * 1000))
+                .claim("type", type)
+                .claim("roles", Collections.singletonList("USER"))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)), SignatureAlgorithm.HS256)
+                .compact();
+    }
+}
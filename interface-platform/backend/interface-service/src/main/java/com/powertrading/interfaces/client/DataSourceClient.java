@@ -8,11 +8,12 @@ import java.util.Map;
 
 /**
  * 数据源服务客户端
+ * 路径包含数据源服务的context-path（/datasource-service），服务发现只解析到主机和端口
  *
  * @author PowerTrading Team
  * @since 2024-01-15
  */
-@FeignClient(name = "datasource-service", path = "/api/v1/datasources")
+@FeignClient(name = "datasource-service", path = "/datasource-service/api/datasources")
 public interface DataSourceClient {
 
     /**
@@ -52,6 +53,17 @@ public interface DataSourceClient {
     ApiResponse<TableStructure> getTableStructure(@PathVariable("dataSourceId") String dataSourceId,
                                                  @PathVariable("tableName") String tableName);
 
+    /**
+     * 获取表的列、主键和索引信息
+     *
+     * @param dataSourceId 数据源ID
+     * @param tableName 表名
+     * @return 表元数据
+     */
+    @GetMapping("/{dataSourceId}/tables/{tableName}/metadata")
+    ApiResponse<TableMetadata> getTableMetadata(@PathVariable("dataSourceId") String dataSourceId,
+                                                @PathVariable("tableName") String tableName);
+
     /**
      * 测试数据源连接
      *
@@ -217,6 +229,60 @@ public interface DataSourceClient {
         public void setIsAutoIncrement(Boolean isAutoIncrement) { this.isAutoIncrement = isAutoIncrement; }
     }
 
+    /**
+     * 表元数据
+     */
+    class TableMetadata {
+        private String tableName;
+        private List<ColumnMetadata> columns;
+        private List<String> primaryKeys;
+        private List<IndexMetadata> indexes;
+
+        // getters and setters
+        public String getTableName() { return tableName; }
+        public void setTableName(String tableName) { this.tableName = tableName; }
+        public List<ColumnMetadata> getColumns() { return columns; }
+        public void setColumns(List<ColumnMetadata> columns) { this.columns = columns; }
+        public List<String> getPrimaryKeys() { return primaryKeys; }
+        public void setPrimaryKeys(List<String> primaryKeys) { this.primaryKeys = primaryKeys; }
+        public List<IndexMetadata> getIndexes() { return indexes; }
+        public void setIndexes(List<IndexMetadata> indexes) { this.indexes = indexes; }
+    }
+
+    /**
+     * 列元数据
+     */
+    class ColumnMetadata {
+        private String columnName;
+        private String dataType;
+        private boolean nullable;
+
+        // getters and setters
+        public String getColumnName() { return columnName; }
+        public void setColumnName(String columnName) { this.columnName = columnName; }
+        public String getDataType() { return dataType; }
+        public void setDataType(String dataType) { this.dataType = dataType; }
+        public boolean isNullable() { return nullable; }
+        public void setNullable(boolean nullable) { this.nullable = nullable; }
+    }
+
+    /**
+     * 索引元数据，每个索引列一条，同一索引的列按索引中的顺序排列
+     */
+    class IndexMetadata {
+        private String indexName;
+        private String columnName;
+        private boolean unique;
+
+        // getters and setters
+        public String getIndexName() { return indexName; }
+        public void setIndexName(String indexName) { this.indexName = indexName; }
+        public String getColumnName() { return columnName; }
+        public void setColumnName(String columnName) { this.columnName = columnName; }
+        public boolean isUnique() { return unique; }
+        public void setUnique(boolean unique) { this.unique = unique; }
+    }
+
     /**
      * 查询请求
      */
@@ -224,7 +290,10 @@ public interface DataSourceClient {
         private String dataSourceId;
         private String sql;
         private Map<String, Object> parameters;
+        private List<BindParameter> bindParameters;
         private Integer limit;
+        private String interfaceId;
+        private Integer cacheTtl;
         
         // getters and setters
         public String getDataSourceId() { return dataSourceId; }
@@ -233,8 +302,36 @@ public interface DataSourceClient {
         public void setSql(String sql) { this.sql = sql; }
         public Map<String, Object> getParameters() { return parameters; }
         public void setParameters(Map<String, Object> parameters) { this.parameters = parameters; }
+        public List<BindParameter> getBindParameters() { return bindParameters; }
+        public void setBindParameters(List<BindParameter> bindParameters) { this.bindParameters = bindParameters; }
         public Integer getLimit() { return limit; }
         public void setLimit(Integer limit) { this.limit = limit; }
+        public String getInterfaceId() { return interfaceId; }
+        public void setInterfaceId(String interfaceId) { this.interfaceId = interfaceId; }
+        public Integer getCacheTtl() { return cacheTtl; }
+        public void setCacheTtl(Integer cacheTtl) { this.cacheTtl = cacheTtl; }
+    }
+
+    /**
+     * 类型化绑定参数，按SQL中?占位符的顺序排列
+     */
+    class BindParameter {
+        private String type;
+        private Object value;
+        
+        public BindParameter() {
+        }
+        
+        public BindParameter(String type, Object value) {
+            this.type = type;
+            this.value = value;
+        }
+        
+        // getters and setters
+        public String getType() { return type; }
+        public void setType(String type) { this.type = type; }
+        public Object getValue() { return value; }
+        public void setValue(Object value) { this.value = value; }
     }
 
     /**
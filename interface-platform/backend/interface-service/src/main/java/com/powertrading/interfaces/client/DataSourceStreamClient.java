@@ -0,0 +1,31 @@
+package com.powertrading.interfaces.client;
+
+import feign.Response;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+
+/**
+ * 数据源服务流式查询客户端
+ * 与{@link DataSourceClient}指向同一服务，单独的contextId使其使用独立的超时配置（feign.client.config.datasource-stream）：
+ * 响应首行要等查询语句执行完成才到达，读取超时需大于数据源服务的查询超时
+ *
+ * @author PowerTrading Team
+ * @since 2024-01-15
+ */
+@FeignClient(name = "datasource-service", contextId = "datasource-stream", path = "/datasource-service/api/datasources")
+public interface DataSourceStreamClient {
+
+    /**
+     * 以NDJSON流式执行SQL查询
+     * 返回原始响应，响应体按行逐步到达，调用方读取完毕后必须关闭
+     *
+     * @param dataSourceId 数据源ID
+     * @param request 查询请求
+     * @return 原始响应
+     */
+    @PostMapping("/{dataSourceId}/query-ndjson")
+    Response executeQueryStream(@PathVariable("dataSourceId") String dataSourceId,
+                                @RequestBody DataSourceClient.QueryRequest request);
+}
@@ -7,8 +7,11 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.validation.constraints.NotBlank;
@@ -68,6 +71,81 @@ public class InterfaceExecutionController {
         }
     }
 
+    /**
+     * 按键集分页执行接口
+     * 后续页传入上一页返回的nextPageToken，页码深浅不影响查询耗时；总数只在首页按需计算
+     *
+     * @param interfaceId 接口ID
+     * @param pageToken 分页令牌，首页不传
+     * @param pageSize 每页行数
+     * @param totalMode 总数计算方式：NONE、EXACT、ESTIMATED
+     * @param requestBody 请求体参数
+     * @param httpRequest HTTP请求
+     * @return 分页结果
+     */
+    @PostMapping("/execute/{interfaceId}/page")
+    @Operation(summary = "分页执行接口", description = "按键集分页执行接口，通过分页令牌获取下一页")
+    public ApiResponse<InterfaceExecutionService.InterfacePageResult> executeInterfacePage(
+            @Parameter(description = "接口ID", required = true)
+            @PathVariable @NotBlank(message = "接口ID不能为空") String interfaceId,
+            @Parameter(description = "分页令牌") @RequestParam(required = false) String pageToken,
+            @Parameter(description = "每页行数") @RequestParam(defaultValue = "100") int pageSize,
+            @Parameter(description = "总数计算方式") @RequestParam(defaultValue = "NONE") InterfaceExecutionService.TotalMode totalMode,
+            @RequestBody(required = false) Map<String, Object> requestBody,
+            HttpServletRequest httpRequest) {
+        try {
+            // 合并请求参数，分页控制参数不作为接口参数
+            Map<String, Object> allParams = mergeRequestParameters(httpRequest, requestBody);
+            allParams.remove("pageToken");
+            allParams.remove("pageSize");
+            allParams.remove("totalMode");
+            
+            InterfaceExecutionService.InterfacePageResult result = 
+                interfaceExecutionService.executeInterfacePage(interfaceId, allParams, pageToken, pageSize, totalMode);
+            
+            return ApiResponse.success(result);
+            
+        } catch (Exception e) {
+            log.error("分页执行接口失败，接口ID: {}", interfaceId, e);
+            return ApiResponse.error("执行接口失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 以NDJSON流式执行接口
+     * 数据源服务逐行返回的结果在到达时即转发给调用方，不在本服务汇总；
+     * 首行为列元数据，随后每行一个数据数组，末行为汇总或错误信息
+     *
+     * @param interfaceId 接口ID
+     * @param requestBody 请求体参数
+     * @param httpRequest HTTP请求
+     * @return NDJSON结果流，参数校验或数据源调用失败时返回错误响应
+     */
+    @PostMapping("/execute/{interfaceId}/stream")
+    @Operation(summary = "流式执行接口", description = "以NDJSON逐行返回接口执行结果，适合大结果集")
+    public ResponseEntity<?> executeInterfaceStream(
+            @Parameter(description = "接口ID", required = true)
+            @PathVariable @NotBlank(message = "接口ID不能为空") String interfaceId,
+            @RequestBody(required = false) Map<String, Object> requestBody,
+            HttpServletRequest httpRequest) {
+        try {
+            // 合并请求参数
+            Map<String, Object> allParams = mergeRequestParameters(httpRequest, requestBody);
+            
+            // 打开数据源结果流，校验失败在此抛出
+            InterfaceExecutionService.InterfaceResultStream stream = 
+                interfaceExecutionService.openInterfaceStream(interfaceId, allParams);
+            
+            StreamingResponseBody body = outputStream -> interfaceExecutionService.transferStream(stream, outputStream);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+            
+        } catch (Exception e) {
+            log.error("流式执行接口失败，接口ID: {}", interfaceId, e);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(ApiResponse.error("执行接口失败: " + e.getMessage()));
+        }
+    }
+
     /**
      * 执行接口（GET方式）
      * 主要用于网关动态路由转发
@@ -3,6 +3,7 @@ package com.powertrading.interfaces.controller;
 import com.powertrading.interfaces.common.ApiResponse;
 import com.powertrading.interfaces.entity.Interface;
 import com.powertrading.interfaces.mapper.InterfaceMapper;
+import com.powertrading.interfaces.service.InterfaceExecutionPlanCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,6 +19,9 @@ public class TestController {
     @Autowired
     private InterfaceMapper interfaceMapper;
 
+    @Autowired
+    private InterfaceExecutionPlanCache planCache;
+
     /**
      * 测试下架功能
      */
@@ -34,6 +38,7 @@ public class TestController {
             updateInterface.setUpdateBy("test-admin");
             
             int result = interfaceMapper.updateById(updateInterface);
+            planCache.invalidate(interfaceId);
             
             if (result > 0) {
                 return ApiResponse.success("下架成功");
@@ -63,6 +68,7 @@ public class TestController {
             updateInterface.setOfflineReason(null);
             
             int result = interfaceMapper.updateById(updateInterface);
+            planCache.invalidate(interfaceId);
             
             if (result > 0) {
                 return ApiResponse.success("上架成功");
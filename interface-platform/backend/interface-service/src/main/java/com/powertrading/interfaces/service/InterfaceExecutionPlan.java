@@ -0,0 +1,588 @@
+package com.powertrading.interfaces.service;
+
+import com.powertrading.interfaces.client.DataSourceClient;
+import com.powertrading.interfaces.entity.Interface;
+import com.powertrading.interfaces.entity.InterfaceParameter;
+import com.powertrading.interfaces.utils.KeysetPageToken;
+import com.powertrading.interfaces.utils.SqlTemplateGenerator;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 接口执行计划
+ * 已上架接口编译后的不可变执行计划：以?占位符表示的SQL、按位置排列的参数绑定表、
+ * 预编译的参数校验器以及目标数据源ID，请求路径上不再访问数据库或编译正则表达式。
+ * 参数值只通过类型化绑定参数传递，同一接口的所有请求共享同一SQL文本；
+ * 由标准模板生成的接口同时编译键集分页计划
+ *
+ * @author PowerTrading Team
+ * @since 2024-01-15
+ */
+public final class InterfaceExecutionPlan {
+
+    private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final String interfaceId;
+    private final String interfaceName;
+    private final String dataSourceId;
+
+    /**
+     * 占位符改写为?后的SQL
+     */
+    private final String preparedSql;
+
+    /**
+     * 按模板中出现顺序排列的参数绑定
+     */
+    private final ParameterBinding[] bindings;
+
+    /**
+     * 按参数配置顺序排列的参数规格
+     */
+    private final ParameterSpec[] parameters;
+
+    /**
+     * 键集分页计划，接口不支持键集分页时为null
+     */
+    private final KeysetPlan keyset;
+
+    private final long compiledAt;
+
+    private InterfaceExecutionPlan(String interfaceId, String interfaceName, String dataSourceId,
+                                   String preparedSql, ParameterBinding[] bindings, ParameterSpec[] parameters,
+                                   KeysetPlan keyset) {
+        this.interfaceId = interfaceId;
+        this.interfaceName = interfaceName;
+        this.dataSourceId = dataSourceId;
+        this.preparedSql = preparedSql;
+        this.bindings = bindings;
+        this.parameters = parameters;
+        this.keyset = keyset;
+        this.compiledAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 编译接口执行计划
+     *
+     * @param interfaceInfo 接口信息
+     * @param parameterList 接口参数配置
+     * @return 执行计划
+     */
+    public static InterfaceExecutionPlan compile(Interface interfaceInfo, List<InterfaceParameter> parameterList) {
+        return compile(interfaceInfo, parameterList, null);
+    }
+
+    /**
+     * 编译接口执行计划，同时编译键集分页计划
+     *
+     * @param interfaceInfo 接口信息
+     * @param parameterList 接口参数配置
+     * @param keysetTemplate 键集分页SQL模板，为null时不支持键集分页
+     * @return 执行计划
+     */
+    public static InterfaceExecutionPlan compile(Interface interfaceInfo, List<InterfaceParameter> parameterList,
+                                                 SqlTemplateGenerator.KeysetPageTemplate keysetTemplate) {
+        List<InterfaceParameter> configured = CollectionUtils.isEmpty(parameterList)
+            ? Collections.emptyList() : parameterList;
+
+        ParameterSpec[] specs = new ParameterSpec[configured.size()];
+        Map<String, ParameterSpec> specsByName = new HashMap<>();
+        for (int i = 0; i < specs.length; i++) {
+            specs[i] = ParameterSpec.compile(configured.get(i));
+            // 同名参数以第一个配置为准，与原线性查找行为一致
+            specsByName.putIfAbsent(specs[i].name, specs[i]);
+        }
+
+        List<ParameterBinding> bindingList = new ArrayList<>();
+        String preparedSql = prepareTemplate(interfaceInfo.getSqlTemplate(), specsByName, bindingList);
+
+        KeysetPlan keyset = keysetTemplate != null
+            ? KeysetPlan.compile(interfaceInfo.getId(), keysetTemplate, specsByName) : null;
+
+        return new InterfaceExecutionPlan(interfaceInfo.getId(), interfaceInfo.getInterfaceName(),
+            interfaceInfo.getDataSourceId(), preparedSql,
+            bindingList.toArray(new ParameterBinding[0]), specs, keyset);
+    }
+
+    /**
+     * 将模板中的#{name}和{name}占位符改写为?并记录参数绑定，引号内的内容保持原样
+     */
+    private static String prepareTemplate(String sqlTemplate, Map<String, ParameterSpec> specsByName,
+                                          List<ParameterBinding> bindingList) {
+        if (sqlTemplate == null) {
+            return "";
+        }
+        StringBuilder sql = new StringBuilder(sqlTemplate.length());
+        int length = sqlTemplate.length();
+        int i = 0;
+        while (i < length) {
+            char c = sqlTemplate.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                int end = sqlTemplate.indexOf(c, i + 1);
+                end = end < 0 ? length : end + 1;
+                sql.append(sqlTemplate, i, end);
+                i = end;
+                continue;
+            }
+            int open = c == '#' && i + 1 < length && sqlTemplate.charAt(i + 1) == '{' ? i + 1 : (c == '{' ? i : -1);
+            int close = open >= 0 ? sqlTemplate.indexOf('}', open + 1) : -1;
+            if (close > open + 1) {
+                String paramName = sqlTemplate.substring(open + 1, close).trim();
+                ParameterSpec spec = specsByName.get(paramName);
+                bindingList.add(new ParameterBinding(paramName, spec != null ? spec.type : null));
+                sql.append('?');
+                i = close + 1;
+            } else {
+                sql.append(c);
+                i++;
+            }
+        }
+        return sql.toString();
+    }
+
+    /**
+     * 校验请求参数
+     *
+     * @param requestParams 请求参数
+     */
+    public void validate(Map<String, Object> requestParams) {
+        for (ParameterSpec spec : parameters) {
+            spec.validate(requestParams.get(spec.name));
+        }
+    }
+
+    /**
+     * 按?占位符顺序生成类型化绑定参数，缺失的参数绑定为NULL
+     *
+     * @param requestParams 请求参数
+     * @return 绑定参数
+     */
+    public List<DataSourceClient.BindParameter> bind(Map<String, Object> requestParams) {
+        return bind(bindings, requestParams);
+    }
+
+    private static List<DataSourceClient.BindParameter> bind(ParameterBinding[] bindings, Map<String, Object> values) {
+        return bind(bindings, values, Collections.emptyMap());
+    }
+
+    /**
+     * 按?占位符顺序生成绑定参数，types中指定的参数以该类型绑定
+     */
+    private static List<DataSourceClient.BindParameter> bind(ParameterBinding[] bindings, Map<String, Object> values,
+                                                            Map<String, String> types) {
+        List<DataSourceClient.BindParameter> bindParameters = new ArrayList<>(bindings.length);
+        for (ParameterBinding binding : bindings) {
+            String type = types.getOrDefault(binding.paramName, binding.type);
+            bindParameters.add(new DataSourceClient.BindParameter(type, values.get(binding.paramName)));
+        }
+        return bindParameters;
+    }
+
+    /**
+     * 是否支持键集分页
+     */
+    public boolean supportsKeysetPagination() {
+        return keyset != null;
+    }
+
+    /**
+     * 键集分页的排序字段
+     */
+    public List<String> getSortColumns() {
+        return requireKeyset().sortColumns;
+    }
+
+    /**
+     * 键集分页查询标识，由接口ID和分页SQL的摘要组成，用于校验分页令牌属于当前接口和当前SQL
+     */
+    public String getKeysetQueryId() {
+        return requireKeyset().queryId;
+    }
+
+    /**
+     * 获取分页SQL
+     *
+     * @param seek 是否从上一页末行之后开始
+     * @return 以?占位的SQL
+     */
+    public String getPageSql(boolean seek) {
+        KeysetPlan plan = requireKeyset();
+        return seek ? plan.seekPage.sql : plan.firstPage.sql;
+    }
+
+    /**
+     * 生成分页查询的绑定参数
+     *
+     * @param requestParams 请求参数
+     * @param cursor 上一页末行的排序字段值，按令牌中记录的类型绑定，首页为null
+     * @param limit 本次读取的行数
+     * @return 绑定参数
+     */
+    public List<DataSourceClient.BindParameter> bindPage(Map<String, Object> requestParams,
+                                                        List<KeysetPageToken.Key> cursor, int limit) {
+        KeysetPlan plan = requireKeyset();
+        Map<String, Object> values = new HashMap<>(requestParams);
+        values.put(SqlTemplateGenerator.KeysetPageTemplate.LIMIT_PARAM, limit);
+        if (cursor == null) {
+            return bind(plan.firstPage.bindings, values);
+        }
+        Map<String, String> types = new HashMap<>();
+        for (int i = 0; i < cursor.size(); i++) {
+            String name = SqlTemplateGenerator.KeysetPageTemplate.CURSOR_PARAM_PREFIX + i;
+            values.put(name, cursor.get(i).getValue());
+            types.put(name, cursor.get(i).getType());
+        }
+        return bind(plan.seekPage.bindings, values, types);
+    }
+
+    /**
+     * 精确总数SQL
+     */
+    public String getCountSql() {
+        return requireKeyset().count.sql;
+    }
+
+    /**
+     * 生成精确总数查询的绑定参数
+     */
+    public List<DataSourceClient.BindParameter> bindCount(Map<String, Object> requestParams) {
+        return bind(requireKeyset().count.bindings, requestParams);
+    }
+
+    /**
+     * 数据源类型是否支持估算总数
+     */
+    public boolean supportsEstimatedCount() {
+        return requireKeyset().estimatedCount != null;
+    }
+
+    /**
+     * 估算总数SQL，数据源类型不支持时为null
+     */
+    public String getEstimatedCountSql() {
+        PreparedTemplate estimatedCount = requireKeyset().estimatedCount;
+        return estimatedCount != null ? estimatedCount.sql : null;
+    }
+
+    /**
+     * 生成估算总数查询的绑定参数，表名以字符串绑定
+     */
+    public List<DataSourceClient.BindParameter> bindEstimatedCount() {
+        KeysetPlan plan = requireKeyset();
+        if (plan.estimatedCount == null) {
+            throw new RuntimeException("数据源类型不支持估算总数");
+        }
+        return bind(plan.estimatedCount.bindings,
+            Collections.singletonMap(SqlTemplateGenerator.KeysetPageTemplate.TABLE_NAME_PARAM, plan.tableName));
+    }
+
+    private KeysetPlan requireKeyset() {
+        if (keyset == null) {
+            throw new RuntimeException("接口不支持键集分页");
+        }
+        return keyset;
+    }
+
+    /**
+     * 计划是否已超过最长存活时间
+     *
+     * @param maxAgeMillis 最长存活时间（毫秒），不大于0表示永不过期
+     */
+    boolean isExpired(long maxAgeMillis) {
+        return maxAgeMillis > 0 && System.currentTimeMillis() - compiledAt > maxAgeMillis;
+    }
+
+    // getters
+    public String getInterfaceId() { return interfaceId; }
+    public String getInterfaceName() { return interfaceName; }
+    public String getDataSourceId() { return dataSourceId; }
+    public String getPreparedSql() { return preparedSql; }
+    public int getBindingCount() { return bindings.length; }
+    public long getCompiledAt() { return compiledAt; }
+
+    /**
+     * 改写为?占位符的SQL及其参数绑定
+     */
+    private static final class PreparedTemplate {
+        private final String sql;
+        private final ParameterBinding[] bindings;
+
+        PreparedTemplate(String sql, ParameterBinding[] bindings) {
+            this.sql = sql;
+            this.bindings = bindings;
+        }
+
+        static PreparedTemplate compile(String sqlTemplate, Map<String, ParameterSpec> specsByName) {
+            List<ParameterBinding> bindingList = new ArrayList<>();
+            String sql = prepareTemplate(sqlTemplate, specsByName, bindingList);
+            return new PreparedTemplate(sql, bindingList.toArray(new ParameterBinding[0]));
+        }
+    }
+
+    /**
+     * 键集分页计划
+     */
+    private static final class KeysetPlan {
+        private final PreparedTemplate firstPage;
+        private final PreparedTemplate seekPage;
+        private final PreparedTemplate count;
+        private final PreparedTemplate estimatedCount;
+        private final String tableName;
+        private final List<String> sortColumns;
+        private final String queryId;
+
+        private KeysetPlan(PreparedTemplate firstPage, PreparedTemplate seekPage, PreparedTemplate count,
+                           PreparedTemplate estimatedCount, String tableName, List<String> sortColumns, String queryId) {
+            this.firstPage = firstPage;
+            this.seekPage = seekPage;
+            this.count = count;
+            this.estimatedCount = estimatedCount;
+            this.tableName = tableName;
+            this.sortColumns = sortColumns;
+            this.queryId = queryId;
+        }
+
+        static KeysetPlan compile(String interfaceId, SqlTemplateGenerator.KeysetPageTemplate template,
+                                  Map<String, ParameterSpec> specsByName) {
+            // 每页行数以整数绑定，定位参数按分页令牌中记录的类型绑定
+            Map<String, ParameterSpec> pageSpecs = new HashMap<>(specsByName);
+            pageSpecs.put(SqlTemplateGenerator.KeysetPageTemplate.LIMIT_PARAM,
+                new ParameterSpec(SqlTemplateGenerator.KeysetPageTemplate.LIMIT_PARAM, true, "integer", new RuleValidator[0]));
+            PreparedTemplate seekPage = PreparedTemplate.compile(template.getSeekPageSql(), pageSpecs);
+            PreparedTemplate estimatedCount = null;
+            if (template.getEstimatedCountSql() != null) {
+                estimatedCount = PreparedTemplate.compile(template.getEstimatedCountSql(),
+                    Collections.singletonMap(SqlTemplateGenerator.KeysetPageTemplate.TABLE_NAME_PARAM,
+                        new ParameterSpec(SqlTemplateGenerator.KeysetPageTemplate.TABLE_NAME_PARAM, true, "string",
+                            new RuleValidator[0])));
+            }
+            return new KeysetPlan(PreparedTemplate.compile(template.getFirstPageSql(), pageSpecs), seekPage,
+                PreparedTemplate.compile(template.getCountSql(), specsByName), estimatedCount,
+                template.getTableName(), template.getSortColumns(), interfaceId + ":" + digest(seekPage.sql));
+        }
+
+        private static String digest(String sql) {
+            try {
+                byte[] hash = MessageDigest.getInstance("SHA-256").digest(sql.getBytes(StandardCharsets.UTF_8));
+                StringBuilder hex = new StringBuilder(16);
+                for (int i = 0; i < 8; i++) {
+                    hex.append(String.format("%02x", hash[i]));
+                }
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * 模板中的单个参数绑定
+     */
+    private static final class ParameterBinding {
+        private final String paramName;
+
+        /**
+         * 规范化后的参数类型，未配置的参数为null
+         */
+        private final String type;
+
+        ParameterBinding(String paramName, String type) {
+            this.paramName = paramName;
+            this.type = type;
+        }
+    }
+
+    /**
+     * 参数校验规则
+     */
+    @FunctionalInterface
+    private interface RuleValidator {
+        void validate(String paramName, Object paramValue);
+    }
+
+    /**
+     * 参数规格：必填标记、规范化类型和预编译的校验规则
+     */
+    private static final class ParameterSpec {
+        private final String name;
+        private final boolean required;
+        private final String type;
+        private final String declaredType;
+        private final RuleValidator[] validators;
+
+        private ParameterSpec(String name, boolean required, String declaredType, RuleValidator[] validators) {
+            this.name = name;
+            this.required = required;
+            this.declaredType = declaredType;
+            this.type = declaredType != null ? declaredType.toLowerCase() : null;
+            this.validators = validators;
+        }
+
+        static ParameterSpec compile(InterfaceParameter parameter) {
+            List<RuleValidator> validators = new ArrayList<>();
+            String validationRule = parameter.getValidationRule();
+            if (StringUtils.hasText(validationRule)) {
+                for (String rule : validationRule.split(",")) {
+                    RuleValidator validator = compileRule(rule.trim());
+                    if (validator != null) {
+                        validators.add(validator);
+                    }
+                }
+            }
+            return new ParameterSpec(parameter.getParamName(), Boolean.TRUE.equals(parameter.getRequired()),
+                parameter.getParamType(), validators.toArray(new RuleValidator[0]));
+        }
+
+        void validate(Object paramValue) {
+            // 检查必填参数
+            if (required && (paramValue == null ||
+                (paramValue instanceof String && !StringUtils.hasText((String) paramValue)))) {
+                throw new RuntimeException("必填参数缺失: " + name);
+            }
+
+            // 参数类型及规则验证
+            if (paramValue != null) {
+                validateType(paramValue);
+                for (RuleValidator validator : validators) {
+                    validator.validate(name, paramValue);
+                }
+            }
+        }
+
+        private void validateType(Object paramValue) {
+            if (type == null) {
+                return;
+            }
+            try {
+                switch (type) {
+                    case "integer":
+                    case "int":
+                        if (paramValue instanceof String) {
+                            Integer.parseInt((String) paramValue);
+                        } else if (!(paramValue instanceof Integer)) {
+                            throw new RuntimeException("参数类型错误");
+                        }
+                        break;
+                    case "long":
+                        if (paramValue instanceof String) {
+                            Long.parseLong((String) paramValue);
+                        } else if (!(paramValue instanceof Long)) {
+                            throw new RuntimeException("参数类型错误");
+                        }
+                        break;
+                    case "double":
+                    case "decimal":
+                        if (paramValue instanceof String) {
+                            Double.parseDouble((String) paramValue);
+                        } else if (!(paramValue instanceof Double)) {
+                            throw new RuntimeException("参数类型错误");
+                        }
+                        break;
+                    case "boolean":
+                        if (paramValue instanceof String) {
+                            String strValue = ((String) paramValue).toLowerCase();
+                            if (!"true".equals(strValue) && !"false".equals(strValue)) {
+                                throw new RuntimeException("参数类型错误");
+                            }
+                        } else if (!(paramValue instanceof Boolean)) {
+                            throw new RuntimeException("参数类型错误");
+                        }
+                        break;
+                    case "date":
+                        if (paramValue instanceof String) {
+                            LocalDateTime.parse((String) paramValue + " 00:00:00", DATETIME_FORMATTER);
+                        }
+                        break;
+                    case "datetime":
+                        if (paramValue instanceof String) {
+                            LocalDateTime.parse((String) paramValue, DATETIME_FORMATTER);
+                        }
+                        break;
+                    default:
+                        // 字符串及未知类型不需要特殊验证
+                        break;
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("参数 " + name + " 类型错误，期望类型: " + declaredType);
+            }
+        }
+
+        /**
+         * 编译单条校验规则，不识别的规则返回null
+         */
+        private static RuleValidator compileRule(String rule) {
+            if (rule.startsWith("length:")) {
+                return compileLengthRule(rule.substring(7));
+            } else if (rule.startsWith("range:")) {
+                return compileRangeRule(rule.substring(6));
+            } else if (rule.startsWith("date:")) {
+                return compileDateRule(rule.substring(5));
+            } else if (rule.startsWith("regex:")) {
+                Pattern pattern = Pattern.compile(rule.substring(6));
+                return (name, value) -> {
+                    if (!pattern.matcher(value.toString()).matches()) {
+                        throw new RuntimeException("参数 " + name + " 格式不正确");
+                    }
+                };
+            }
+            return null;
+        }
+
+        private static RuleValidator compileLengthRule(String lengthRule) {
+            if (lengthRule.contains("-")) {
+                String[] parts = lengthRule.split("-");
+                int minLength = Integer.parseInt(parts[0]);
+                int maxLength = Integer.parseInt(parts[1]);
+                return (name, value) -> {
+                    int length = value.toString().length();
+                    if (length < minLength || length > maxLength) {
+                        throw new RuntimeException("参数 " + name + " 长度必须在 " + minLength + "-" + maxLength + " 之间");
+                    }
+                };
+            }
+            int expectedLength = Integer.parseInt(lengthRule);
+            return (name, value) -> {
+                if (value.toString().length() != expectedLength) {
+                    throw new RuntimeException("参数 " + name + " 长度必须为 " + expectedLength);
+                }
+            };
+        }
+
+        private static RuleValidator compileRangeRule(String rangeRule) {
+            String[] parts = rangeRule.split("-");
+            double minValue = Double.parseDouble(parts[0]);
+            double maxValue = Double.parseDouble(parts[1]);
+            return (name, value) -> {
+                double numValue = Double.parseDouble(value.toString());
+                if (numValue < minValue || numValue > maxValue) {
+                    throw new RuntimeException("参数 " + name + " 值必须在 " + minValue + "-" + maxValue + " 之间");
+                }
+            };
+        }
+
+        private static RuleValidator compileDateRule(String dateRule) {
+            if (!dateRule.contains("max:yesterday")) {
+                return null;
+            }
+            return (name, value) -> {
+                LocalDateTime inputDate = LocalDateTime.parse(value + " 00:00:00", DATETIME_FORMATTER);
+                LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+                if (inputDate.isAfter(yesterday)) {
+                    throw new RuntimeException("参数 " + name + " 日期不能晚于昨天");
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.powertrading.interfaces.service;
+
+import com.powertrading.interfaces.client.DataSourceClient;
+import com.powertrading.interfaces.dto.InterfaceGenerationRequest;
+import com.powertrading.interfaces.entity.Interface;
+import com.powertrading.interfaces.entity.InterfaceParameter;
+import com.powertrading.interfaces.mapper.InterfaceMapper;
+import com.powertrading.interfaces.mapper.InterfaceParameterMapper;
+import com.powertrading.interfaces.utils.SqlTemplateGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 接口执行计划缓存
+ * 已上架接口首次执行时编译执行计划，接口上架、下架、更新或删除时失效；
+ * 编译需要查询数据库和数据源服务，在缓存Map之外执行，编译期间失效的接口不会缓存旧计划；
+ * SQL模板与按表名和参数重新生成的标准模板一致、且表有主键或非空唯一索引时，同时编译键集分页计划
+ *
+ * @author PowerTrading Team
+ * @since 2024-01-15
+ */
+@Slf4j
+@Component
+public class InterfaceExecutionPlanCache {
+
+    private static final Logger log = LoggerFactory.getLogger(InterfaceExecutionPlanCache.class);
+
+    @Autowired
+    private InterfaceMapper interfaceMapper;
+
+    @Autowired
+    private InterfaceParameterMapper parameterMapper;
+
+    @Autowired
+    private SqlTemplateGenerator sqlTemplateGenerator;
+
+    @Autowired
+    private DataSourceClient dataSourceClient;
+
+    /**
+     * 执行计划最长存活时间（秒），用于兜底其他实例上的变更，0表示仅依赖主动失效
+     */
+    @Value("${interface.config.plan-cache-expire:300}")
+    private long planCacheExpire;
+
+    /**
+     * 执行计划按接口缓存为Future：编译在Map之外进行，不持有Map的桶锁；
+     * 同一接口的并发未命中共享同一个Future，只编译一次
+     */
+    private final ConcurrentMap<String, CompletableFuture<InterfaceExecutionPlan>> plans = new ConcurrentHashMap<>();
+
+    /**
+     * 获取接口执行计划，缓存未命中时从数据库加载并编译
+     *
+     * @param interfaceId 接口ID
+     * @return 执行计划
+     */
+    public InterfaceExecutionPlan getPlan(String interfaceId) {
+        while (true) {
+            CompletableFuture<InterfaceExecutionPlan> future = plans.get(interfaceId);
+            if (future == null) {
+                CompletableFuture<InterfaceExecutionPlan> compiling = new CompletableFuture<>();
+                future = plans.putIfAbsent(interfaceId, compiling);
+                if (future == null) {
+                    return compile(interfaceId, compiling);
+                }
+            }
+            InterfaceExecutionPlan plan = await(future);
+            if (!plan.isExpired(planCacheExpire * 1000)) {
+                return plan;
+            }
+            plans.remove(interfaceId, future);
+        }
+    }
+
+    /**
+     * 使接口执行计划失效
+     * 处于事务中时在提交后失效，避免并发请求在提交前重新加载到旧配置
+     *
+     * @param interfaceId 接口ID
+     */
+    public void invalidate(String interfaceId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(interfaceId);
+                }
+            });
+        } else {
+            evict(interfaceId);
+        }
+    }
+
+    /**
+     * 清空全部执行计划
+     */
+    public void invalidateAll() {
+        plans.clear();
+        log.info("接口执行计划缓存已清空");
+    }
+
+    /**
+     * 已缓存的执行计划数量
+     */
+    public int size() {
+        return plans.size();
+    }
+
+    private void evict(String interfaceId) {
+        if (plans.remove(interfaceId) != null) {
+            log.debug("接口执行计划已失效，接口ID: {}", interfaceId);
+        }
+    }
+
+    /**
+     * 编译执行计划并完成Future
+     * 编译期间接口失效时Future已从缓存中移除，编译结果只交给已在等待的请求，不会留在缓存中；
+     * 编译失败不写入缓存
+     */
+    private InterfaceExecutionPlan compile(String interfaceId, CompletableFuture<InterfaceExecutionPlan> compiling) {
+        try {
+            InterfaceExecutionPlan plan = compilePlan(interfaceId);
+            compiling.complete(plan);
+            return plan;
+        } catch (RuntimeException | Error e) {
+            plans.remove(interfaceId, compiling);
+            compiling.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 等待其他请求编译的执行计划，编译异常原样抛出
+     */
+    private static InterfaceExecutionPlan await(CompletableFuture<InterfaceExecutionPlan> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private InterfaceExecutionPlan compilePlan(String interfaceId) {
+        // 获取接口信息
+        Interface interfaceInfo = interfaceMapper.selectById(interfaceId);
+        if (interfaceInfo == null) {
+            throw new RuntimeException("接口不存在");
+        }
+
+        // 检查接口状态，未上架的接口不生成执行计划
+        if (!Interface.STATUS_PUBLISHED.equals(interfaceInfo.getStatus())) {
+            throw new RuntimeException("接口未上架，无法执行");
+        }
+
+        // 获取接口参数配置
+        List<InterfaceParameter> parameters = parameterMapper.selectByInterfaceId(interfaceId);
+
+        InterfaceExecutionPlan plan = InterfaceExecutionPlan.compile(interfaceInfo, parameters,
+            resolveKeysetTemplate(interfaceInfo, parameters));
+        log.info("接口执行计划编译完成，接口ID: {}, 参数绑定数: {}, 键集分页: {}", interfaceId, plan.getBindingCount(),
+            plan.supportsKeysetPagination());
+        return plan;
+    }
+
+    /**
+     * 生成键集分页模板
+     * 只有SQL模板仍为标准生成结果时，键集分页的查询条件才与接口一致；手工修改过的模板返回null，
+     * 排序字段依据表结构中的主键或唯一索引确定，表缺少唯一键时同样返回null
+     */
+    private SqlTemplateGenerator.KeysetPageTemplate resolveKeysetTemplate(Interface interfaceInfo,
+                                                                        List<InterfaceParameter> parameters) {
+        if (!StringUtils.hasText(interfaceInfo.getTableName()) || !StringUtils.hasText(interfaceInfo.getSqlTemplate())) {
+            return null;
+        }
+        List<InterfaceGenerationRequest.ParameterConfiguration> configurations = new ArrayList<>();
+        if (parameters != null) {
+            for (InterfaceParameter parameter : parameters) {
+                InterfaceGenerationRequest.ParameterConfiguration configuration =
+                    new InterfaceGenerationRequest.ParameterConfiguration();
+                configuration.setParamName(parameter.getParamName());
+                configuration.setParamType(parameter.getParamType());
+                configuration.setRequired(parameter.getRequired());
+                configurations.add(configuration);
+            }
+        }
+        try {
+            String standardTemplate = sqlTemplateGenerator.generateSqlTemplate(interfaceInfo.getTableName(), configurations);
+            if (!standardTemplate.equals(interfaceInfo.getSqlTemplate())) {
+                return null;
+            }
+            SqlTemplateGenerator.TableKeys tableKeys = resolveTableKeys(interfaceInfo);
+            if (tableKeys == null) {
+                return null;
+            }
+            return sqlTemplateGenerator.generateKeysetPageTemplate(interfaceInfo.getTableName(), configurations,
+                resolveDialect(interfaceInfo), tableKeys);
+        } catch (Exception e) {
+            log.warn("键集分页模板生成失败，接口ID: {}, 错误: {}", interfaceInfo.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 从数据源服务获取表的主键、唯一索引和非空列，获取失败时返回null，不使用键集分页
+     */
+    private SqlTemplateGenerator.TableKeys resolveTableKeys(Interface interfaceInfo) {
+        DataSourceClient.ApiResponse<DataSourceClient.TableMetadata> response =
+            dataSourceClient.getTableMetadata(interfaceInfo.getDataSourceId(), interfaceInfo.getTableName());
+        if (response == null || !response.isSuccess() || response.getData() == null) {
+            log.warn("获取表结构失败，不使用键集分页，接口ID: {}, 表名: {}", interfaceInfo.getId(),
+                interfaceInfo.getTableName());
+            return null;
+        }
+        DataSourceClient.TableMetadata metadata = response.getData();
+        List<String> nonNullColumns = new ArrayList<>();
+        if (metadata.getColumns() != null) {
+            for (DataSourceClient.ColumnMetadata column : metadata.getColumns()) {
+                if (!column.isNullable()) {
+                    nonNullColumns.add(column.getColumnName());
+                }
+            }
+        }
+        Map<String, List<String>> uniqueIndexes = new LinkedHashMap<>();
+        if (metadata.getIndexes() != null) {
+            for (DataSourceClient.IndexMetadata index : metadata.getIndexes()) {
+                if (index.isUnique() && index.getIndexName() != null && index.getColumnName() != null) {
+                    uniqueIndexes.computeIfAbsent(index.getIndexName(), k -> new ArrayList<>()).add(index.getColumnName());
+                }
+            }
+        }
+        return new SqlTemplateGenerator.TableKeys(metadata.getPrimaryKeys(), uniqueIndexes, nonNullColumns);
+    }
+
+    /**
+     * 查询接口所属数据源的类型，查询失败时返回null，估算总数不可用
+     */
+    private String resolveDialect(Interface interfaceInfo) {
+        try {
+            DataSourceClient.ApiResponse<DataSourceClient.DataSourceInfo> response =
+                dataSourceClient.getDataSource(interfaceInfo.getDataSourceId());
+            if (response != null && response.isSuccess() && response.getData() != null) {
+                return response.getData().getSourceType();
+            }
+            log.warn("获取数据源类型失败，估算总数不可用，接口ID: {}", interfaceInfo.getId());
+        } catch (Exception e) {
+            log.warn("获取数据源类型失败，估算总数不可用，接口ID: {}, 错误: {}", interfaceInfo.getId(), e.getMessage());
+        }
+        return null;
+    }
+}
@@ -1,24 +1,30 @@
 package com.powertrading.interfaces.service;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.powertrading.interfaces.client.DataSourceClient;
-import com.powertrading.interfaces.entity.Interface;
-import com.powertrading.interfaces.entity.InterfaceParameter;
-import com.powertrading.interfaces.mapper.InterfaceMapper;
-import com.powertrading.interfaces.mapper.InterfaceParameterMapper;
+import com.powertrading.interfaces.client.DataSourceStreamClient;
+import com.powertrading.interfaces.utils.KeysetPageToken;
+import feign.Response;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * 接口执行服务
@@ -34,18 +40,45 @@ public class InterfaceExecutionService {
     private static final Logger log = LoggerFactory.getLogger(InterfaceExecutionService.class);
 
     @Autowired
-    private InterfaceMapper interfaceMapper;
+    private InterfaceExecutionPlanCache planCache;
 
     @Autowired
-    private InterfaceParameterMapper parameterMapper;
+    private DataSourceClient dataSourceClient;
 
     @Autowired
-    private DataSourceClient dataSourceClient;
+    private DataSourceStreamClient dataSourceStreamClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 键集分页单页最大行数
+     */
+    @Value("${interface.config.max-page-size:1000}")
+    private int maxPageSize;
+
+    /**
+     * 分页令牌签名密钥，多实例部署时必须配置相同的值
+     */
+    @Value("${interface.config.page-token-secret:}")
+    private String pageTokenSecret;
+
+    private byte[] pageTokenKey;
 
-    private static final Pattern PARAM_PATTERN = Pattern.compile("\\{([^}]+)\\}");
-    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    @PostConstruct
+    public void init() {
+        if (StringUtils.hasText(pageTokenSecret)) {
+            pageTokenKey = pageTokenSecret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            // 未配置时使用随机密钥，分页令牌只在签发它的实例上有效，重启后失效
+            pageTokenKey = new byte[32];
+            new SecureRandom().nextBytes(pageTokenKey);
+            log.warn("未配置interface.config.page-token-secret，分页令牌使用本实例的随机密钥签名");
+        }
+    }
+
     /**
      * 执行接口
      *
@@ -54,35 +87,26 @@ public class InterfaceExecutionService {
      * @return 执行结果
      */
     public InterfaceExecutionResult executeInterface(String interfaceId, Map<String, Object> requestParams) {
+        InterfaceExecutionPlan plan = null;
         try {
-            // 获取接口信息
-            Interface interfaceInfo = interfaceMapper.selectById(interfaceId);
-            if (interfaceInfo == null) {
-                throw new RuntimeException("接口不存在");
-            }
-            
-            // 检查接口状态
-            if (!Interface.STATUS_PUBLISHED.equals(interfaceInfo.getStatus())) {
-                throw new RuntimeException("接口未上架，无法执行");
-            }
-            
-            // 获取接口参数配置
-            List<InterfaceParameter> parameters = parameterMapper.selectByInterfaceId(interfaceId);
+            // 获取已编译的执行计划（包含接口状态检查）
+            plan = planCache.getPlan(interfaceId);
             
             // 验证请求参数
-            validateRequestParameters(requestParams, parameters);
+            plan.validate(requestParams);
             
-            // 构建SQL查询
-            String executeSql = buildExecuteSql(interfaceInfo.getSqlTemplate(), requestParams, parameters);
+            // 构建SQL查询，参数值以类型化绑定参数传递
+            String executeSql = plan.getPreparedSql();
+            List<DataSourceClient.BindParameter> bindParameters = plan.bind(requestParams);
             
             // 执行数据查询
             DataSourceClient.QueryResult queryResult = executeQuery(
-                interfaceInfo.getDataSourceId(), executeSql, requestParams);
+                interfaceId, plan.getDataSourceId(), executeSql, bindParameters);
             
             // 构建响应结果
             InterfaceExecutionResult result = new InterfaceExecutionResult();
             result.setInterfaceId(interfaceId);
-            result.setInterfaceName(interfaceInfo.getInterfaceName());
+            result.setInterfaceName(plan.getInterfaceName());
             result.setExecuteTime(LocalDateTime.now().format(DATETIME_FORMATTER));
             result.setSuccess(true);
             result.setData(queryResult.getData());
@@ -90,7 +114,7 @@ public class InterfaceExecutionService {
             result.setExecuteSql(executeSql);
             
             // 记录执行日志
-            logInterfaceExecution(interfaceInfo, requestParams, result, null);
+            logInterfaceExecution(interfaceId, plan.getInterfaceName(), result, null);
             
             return result;
             
@@ -105,263 +129,247 @@ public class InterfaceExecutionService {
             result.setErrorMessage(e.getMessage());
             
             // 记录错误日志
-            try {
-                Interface interfaceInfo = interfaceMapper.selectById(interfaceId);
-                logInterfaceExecution(interfaceInfo, requestParams, result, e);
-            } catch (Exception logException) {
-                log.warn("记录接口执行日志失败", logException);
-            }
+            logInterfaceExecution(interfaceId, plan != null ? plan.getInterfaceName() : null, result, e);
             
             throw new RuntimeException("接口执行失败: " + e.getMessage());
         }
     }
 
     /**
-     * 验证请求参数
+     * 按键集分页执行接口
+     * 首页按排序字段直接读取，后续页从分页令牌记录的上一页末行之后读取，每页多读一行判断是否还有下一页；
+     * 总数按需计算且只在首页计算：EXACT执行COUNT(*)，ESTIMATED读取表统计信息中的行数
+     * （仅MySQL和PostgreSQL数据源，其他数据源总数为空），NONE不计算
+     *
+     * @param interfaceId 接口ID
+     * @param requestParams 请求参数
+     * @param pageToken 上一页返回的分页令牌，首页为null
+     * @param pageSize 每页行数
+     * @param totalMode 总数计算方式
+     * @return 分页结果
      */
-    private void validateRequestParameters(Map<String, Object> requestParams, List<InterfaceParameter> parameters) {
-        if (CollectionUtils.isEmpty(parameters)) {
-            return;
-        }
-        
-        for (InterfaceParameter parameter : parameters) {
-            String paramName = parameter.getParamName();
-            Object paramValue = requestParams.get(paramName);
-            
-            // 检查必填参数
-            if (parameter.getRequired() && (paramValue == null || 
-                (paramValue instanceof String && !StringUtils.hasText((String) paramValue)))) {
-                throw new RuntimeException("必填参数缺失: " + paramName);
+    public InterfacePageResult executeInterfacePage(String interfaceId, Map<String, Object> requestParams,
+                                                    String pageToken, int pageSize, TotalMode totalMode) {
+        InterfaceExecutionPlan plan = null;
+        try {
+            plan = planCache.getPlan(interfaceId);
+            if (!plan.supportsKeysetPagination()) {
+                throw new RuntimeException("接口不支持键集分页");
             }
+            plan.validate(requestParams);
+            
+            int size = Math.max(1, Math.min(pageSize, maxPageSize));
+            boolean firstPage = pageToken == null || pageToken.isEmpty();
+            List<KeysetPageToken.Key> cursor = firstPage ? null
+                : KeysetPageToken.decode(pageTokenKey, pageToken, plan.getKeysetQueryId(), plan.getSortColumns().size());
+            
+            String pageSql = plan.getPageSql(!firstPage);
+            DataSourceClient.QueryResult queryResult = executeQuery(
+                interfaceId, plan.getDataSourceId(), pageSql, plan.bindPage(requestParams, cursor, size + 1));
+            List<Map<String, Object>> rows = queryResult.getData() != null ? queryResult.getData() : new ArrayList<>();
             
-            // 参数类型验证
-            if (paramValue != null) {
-                validateParameterType(paramName, paramValue, parameter.getParamType());
-                validateParameterRule(paramName, paramValue, parameter.getValidationRule());
+            InterfacePageResult result = new InterfacePageResult();
+            result.setInterfaceId(interfaceId);
+            result.setInterfaceName(plan.getInterfaceName());
+            result.setExecuteTime(LocalDateTime.now().format(DATETIME_FORMATTER));
+            result.setPageSize(size);
+            result.setHasMore(rows.size() > size);
+            if (result.isHasMore()) {
+                rows = new ArrayList<>(rows.subList(0, size));
+                result.setNextPageToken(KeysetPageToken.encode(pageTokenKey, plan.getKeysetQueryId(),
+                    sortKeyValues(rows.get(size - 1), plan.getSortColumns())));
             }
-        }
-    }
-
-    /**
-     * 验证参数类型
-     */
-    private void validateParameterType(String paramName, Object paramValue, String paramType) {
-        try {
-            switch (paramType.toLowerCase()) {
-                case "string":
-                    // 字符串类型不需要特殊验证
-                    break;
-                case "integer":
-                case "int":
-                    if (paramValue instanceof String) {
-                        Integer.parseInt((String) paramValue);
-                    } else if (!(paramValue instanceof Integer)) {
-                        throw new RuntimeException("参数类型错误");
-                    }
-                    break;
-                case "long":
-                    if (paramValue instanceof String) {
-                        Long.parseLong((String) paramValue);
-                    } else if (!(paramValue instanceof Long)) {
-                        throw new RuntimeException("参数类型错误");
-                    }
-                    break;
-                case "double":
-                case "decimal":
-                    if (paramValue instanceof String) {
-                        Double.parseDouble((String) paramValue);
-                    } else if (!(paramValue instanceof Double)) {
-                        throw new RuntimeException("参数类型错误");
-                    }
-                    break;
-                case "boolean":
-                    if (paramValue instanceof String) {
-                        String strValue = ((String) paramValue).toLowerCase();
-                        if (!"true".equals(strValue) && !"false".equals(strValue)) {
-                            throw new RuntimeException("参数类型错误");
-                        }
-                    } else if (!(paramValue instanceof Boolean)) {
-                        throw new RuntimeException("参数类型错误");
-                    }
-                    break;
-                case "date":
-                    if (paramValue instanceof String) {
-                        LocalDateTime.parse((String) paramValue + " 00:00:00", DATETIME_FORMATTER);
-                    }
-                    break;
-                case "datetime":
-                    if (paramValue instanceof String) {
-                        LocalDateTime.parse((String) paramValue, DATETIME_FORMATTER);
-                    }
-                    break;
-                default:
-                    // 未知类型，跳过验证
-                    break;
+            result.setData(rows);
+            
+            if (firstPage && totalMode == TotalMode.EXACT) {
+                result.setTotal(queryTotal(interfaceId, plan.getDataSourceId(), plan.getCountSql(),
+                    plan.bindCount(requestParams)));
+            } else if (firstPage && totalMode == TotalMode.ESTIMATED && plan.supportsEstimatedCount()) {
+                result.setTotal(queryTotal(interfaceId, plan.getDataSourceId(), plan.getEstimatedCountSql(),
+                    plan.bindEstimatedCount()));
+                result.setTotalEstimated(true);
             }
+            
+            InterfaceExecutionResult logResult = new InterfaceExecutionResult();
+            logResult.setExecuteTime(result.getExecuteTime());
+            logResult.setTotalCount(rows.size());
+            logInterfaceExecution(interfaceId, plan.getInterfaceName(), logResult, null);
+            
+            return result;
+            
         } catch (Exception e) {
-            throw new RuntimeException("参数 " + paramName + " 类型错误，期望类型: " + paramType);
-        }
-    }
-
-    /**
-     * 验证参数规则
-     */
-    private void validateParameterRule(String paramName, Object paramValue, String validationRule) {
-        if (!StringUtils.hasText(validationRule)) {
-            return;
-        }
-        
-        String strValue = paramValue.toString();
-        String[] rules = validationRule.split(",");
-        
-        for (String rule : rules) {
-            rule = rule.trim();
+            log.error("分页接口执行失败，接口ID: {}", interfaceId, e);
             
-            if (rule.startsWith("length:")) {
-                validateLengthRule(paramName, strValue, rule);
-            } else if (rule.startsWith("range:")) {
-                validateRangeRule(paramName, paramValue, rule);
-            } else if (rule.startsWith("date:")) {
-                validateDateRule(paramName, strValue, rule);
-            } else if (rule.startsWith("regex:")) {
-                validateRegexRule(paramName, strValue, rule);
-            }
+            InterfaceExecutionResult result = new InterfaceExecutionResult();
+            result.setInterfaceId(interfaceId);
+            result.setExecuteTime(LocalDateTime.now().format(DATETIME_FORMATTER));
+            result.setSuccess(false);
+            result.setErrorMessage(e.getMessage());
+            logInterfaceExecution(interfaceId, plan != null ? plan.getInterfaceName() : null, result, e);
+            
+            throw new RuntimeException("接口执行失败: " + e.getMessage());
         }
     }
 
     /**
-     * 验证长度规则
+     * 取出行中的排序字段值，列名大小写可能与排序字段不同；
+     * 定位条件无法跨过NULL，排序字段值为NULL时拒绝生成分页令牌
      */
-    private void validateLengthRule(String paramName, String value, String rule) {
-        String lengthRule = rule.substring(7); // 去掉 "length:"
-        
-        if (lengthRule.contains("-")) {
-            String[] parts = lengthRule.split("-");
-            int minLength = Integer.parseInt(parts[0]);
-            int maxLength = Integer.parseInt(parts[1]);
-            
-            if (value.length() < minLength || value.length() > maxLength) {
-                throw new RuntimeException("参数 " + paramName + " 长度必须在 " + minLength + "-" + maxLength + " 之间");
+    private List<Object> sortKeyValues(Map<String, Object> row, List<String> sortColumns) {
+        List<Object> values = new ArrayList<>(sortColumns.size());
+        for (String column : sortColumns) {
+            String key = row.containsKey(column) ? column : null;
+            if (key == null) {
+                for (String name : row.keySet()) {
+                    if (column.equalsIgnoreCase(name)) {
+                        key = name;
+                        break;
+                    }
+                }
             }
-        } else {
-            int expectedLength = Integer.parseInt(lengthRule);
-            if (value.length() != expectedLength) {
-                throw new RuntimeException("参数 " + paramName + " 长度必须为 " + expectedLength);
+            if (key == null) {
+                throw new RuntimeException("查询结果缺少排序字段: " + column);
             }
+            Object value = row.get(key);
+            if (value == null) {
+                throw new RuntimeException("排序字段 " + column + " 的值为NULL，键集分页要求排序字段非空");
+            }
+            values.add(value);
         }
+        return values;
     }
 
     /**
-     * 验证范围规则
+     * 执行总数查询，结果为首行首列
      */
-    private void validateRangeRule(String paramName, Object value, String rule) {
-        String rangeRule = rule.substring(6); // 去掉 "range:"
-        String[] parts = rangeRule.split("-");
-        
-        double minValue = Double.parseDouble(parts[0]);
-        double maxValue = Double.parseDouble(parts[1]);
-        double numValue = Double.parseDouble(value.toString());
-        
-        if (numValue < minValue || numValue > maxValue) {
-            throw new RuntimeException("参数 " + paramName + " 值必须在 " + minValue + "-" + maxValue + " 之间");
+    private Long queryTotal(String interfaceId, String dataSourceId, String sql,
+                            List<DataSourceClient.BindParameter> bindParameters) {
+        DataSourceClient.QueryResult queryResult = executeQuery(interfaceId, dataSourceId, sql, bindParameters);
+        if (queryResult.getData() == null || queryResult.getData().isEmpty()) {
+            return null;
         }
+        Iterator<Object> values = queryResult.getData().get(0).values().iterator();
+        Object total = values.hasNext() ? values.next() : null;
+        return total instanceof Number ? ((Number) total).longValue()
+            : total != null ? Long.valueOf(total.toString()) : null;
     }
 
     /**
-     * 验证日期规则
+     * 以NDJSON流式执行接口
+     * 参数校验与数据源响应状态检查在返回前完成，失败时抛出异常；
+     * 返回的结果流由调用方通过{@link #transferStream}写出
+     *
+     * @param interfaceId 接口ID
+     * @param requestParams 请求参数
+     * @return 数据源结果流
      */
-    private void validateDateRule(String paramName, String value, String rule) {
-        String dateRule = rule.substring(5); // 去掉 "date:"
-        
-        if (dateRule.contains("max:yesterday")) {
-            LocalDateTime inputDate = LocalDateTime.parse(value + " 00:00:00", DATETIME_FORMATTER);
-            LocalDateTime yesterday = LocalDateTime.now().minusDays(1);
+    public InterfaceResultStream openInterfaceStream(String interfaceId, Map<String, Object> requestParams) {
+        InterfaceExecutionPlan plan = null;
+        try {
+            plan = planCache.getPlan(interfaceId);
+            plan.validate(requestParams);
+            
+            DataSourceClient.QueryRequest request = new DataSourceClient.QueryRequest();
+            request.setSql(plan.getPreparedSql());
+            request.setBindParameters(plan.bind(requestParams));
+            request.setInterfaceId(interfaceId);
             
-            if (inputDate.isAfter(yesterday)) {
-                throw new RuntimeException("参数 " + paramName + " 日期不能晚于昨天");
+            Response response = dataSourceStreamClient.executeQueryStream(plan.getDataSourceId(), request);
+            if (response.status() != 200 || response.body() == null) {
+                String message = readErrorMessage(response);
+                response.close();
+                throw new RuntimeException("数据查询失败: " + message);
             }
+            return new InterfaceResultStream(interfaceId, plan.getInterfaceName(), response);
+            
+        } catch (Exception e) {
+            log.error("流式接口执行失败，接口ID: {}", interfaceId, e);
+            
+            InterfaceExecutionResult result = new InterfaceExecutionResult();
+            result.setInterfaceId(interfaceId);
+            result.setExecuteTime(LocalDateTime.now().format(DATETIME_FORMATTER));
+            result.setSuccess(false);
+            result.setErrorMessage(e.getMessage());
+            logInterfaceExecution(interfaceId, plan != null ? plan.getInterfaceName() : null, result, e);
+            
+            throw new RuntimeException("接口执行失败: " + e.getMessage());
         }
     }
 
     /**
-     * 验证正则表达式规则
-     */
-    private void validateRegexRule(String paramName, String value, String rule) {
-        String regex = rule.substring(6); // 去掉 "regex:"
-        
-        if (!value.matches(regex)) {
-            throw new RuntimeException("参数 " + paramName + " 格式不正确");
-        }
-    }
-
-    /**
-     * 构建执行SQL
+     * 将数据源结果流原样转发到输出流
+     * 每次读到数据即写出并刷新，不等待完整结果；完成后关闭结果流并按末行记录执行日志
+     *
+     * @param stream 数据源结果流
+     * @param outputStream 输出流
+     * @throws IOException 读取或写出异常
      */
-    private String buildExecuteSql(String sqlTemplate, Map<String, Object> requestParams, 
-                                 List<InterfaceParameter> parameters) {
-        String executeSql = sqlTemplate;
+    public void transferStream(InterfaceResultStream stream, OutputStream outputStream) throws IOException {
+        InterfaceExecutionResult result = new InterfaceExecutionResult();
+        result.setInterfaceId(stream.getInterfaceId());
+        result.setInterfaceName(stream.getInterfaceName());
         
-        // 替换参数占位符
-        Matcher matcher = PARAM_PATTERN.matcher(sqlTemplate);
-        while (matcher.find()) {
-            String paramName = matcher.group(1);
-            Object paramValue = requestParams.get(paramName);
-            
-            if (paramValue != null) {
-                // 根据参数类型进行格式化
-                String formattedValue = formatParameterValue(paramValue, paramName, parameters);
-                executeSql = executeSql.replace("{" + paramName + "}", formattedValue);
-            } else {
-                // 参数为空时的处理
-                executeSql = executeSql.replace("{" + paramName + "}", "NULL");
+        ControlLineTracker tracker = new ControlLineTracker();
+        try (InputStream in = stream.getBody()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+                outputStream.flush();
+                tracker.accept(buffer, read);
             }
+        } catch (IOException e) {
+            result.setExecuteTime(LocalDateTime.now().format(DATETIME_FORMATTER));
+            result.setSuccess(false);
+            result.setErrorMessage(e.getMessage());
+            logInterfaceExecution(stream.getInterfaceId(), stream.getInterfaceName(), result, e);
+            throw e;
+        } finally {
+            stream.close();
         }
         
-        return executeSql;
+        // 末行为汇总行或错误行
+        result.setExecuteTime(LocalDateTime.now().format(DATETIME_FORMATTER));
+        JsonNode last = tracker.lastControlLine(objectMapper);
+        if (last != null && "end".equals(last.path("type").asText())) {
+            result.setSuccess(true);
+            result.setTotalCount(last.path("rowCount").asLong());
+            logInterfaceExecution(stream.getInterfaceId(), stream.getInterfaceName(), result, null);
+        } else {
+            String message = last != null && last.hasNonNull("message") ? last.get("message").asText() : "结果流意外结束";
+            result.setSuccess(false);
+            result.setErrorMessage(message);
+            logInterfaceExecution(stream.getInterfaceId(), stream.getInterfaceName(), result,
+                new RuntimeException(message));
+        }
     }
 
     /**
-     * 格式化参数值
+     * 读取数据源错误响应中的消息
      */
-    private String formatParameterValue(Object paramValue, String paramName, List<InterfaceParameter> parameters) {
-        // 查找参数配置
-        InterfaceParameter paramConfig = parameters.stream()
-            .filter(p -> p.getParamName().equals(paramName))
-            .findFirst()
-            .orElse(null);
-        
-        if (paramConfig == null) {
-            return "'" + paramValue.toString() + "'";
+    private String readErrorMessage(Response response) {
+        if (response.body() == null) {
+            return "HTTP " + response.status();
         }
-        
-        String paramType = paramConfig.getParamType().toLowerCase();
-        
-        switch (paramType) {
-            case "string":
-            case "date":
-            case "datetime":
-                return "'" + paramValue.toString() + "'";
-            case "integer":
-            case "int":
-            case "long":
-            case "double":
-            case "decimal":
-                return paramValue.toString();
-            case "boolean":
-                return paramValue.toString().toLowerCase();
-            default:
-                return "'" + paramValue.toString() + "'";
+        try (InputStream in = response.body().asInputStream()) {
+            DataSourceClient.ApiResponse<?> apiResponse = objectMapper.readValue(in, DataSourceClient.ApiResponse.class);
+            return apiResponse.getMessage() != null ? apiResponse.getMessage() : "HTTP " + response.status();
+        } catch (Exception e) {
+            return "HTTP " + response.status();
         }
     }
 
     /**
      * 执行数据查询
      */
-    private DataSourceClient.QueryResult executeQuery(String dataSourceId, String sql, Map<String, Object> params) {
+    private DataSourceClient.QueryResult executeQuery(String interfaceId, String dataSourceId, String sql,
+                                                      List<DataSourceClient.BindParameter> bindParameters) {
         try {
             DataSourceClient.QueryRequest request = new DataSourceClient.QueryRequest();
         request.setSql(sql);
-        request.setParameters(params);
+        request.setBindParameters(bindParameters);
+        // 数据源服务按接口ID确定查询缓存存活时间
+        request.setInterfaceId(interfaceId);
         
         DataSourceClient.ApiResponse<DataSourceClient.QueryResult> response = 
             dataSourceClient.executeQuery(dataSourceId, request);
@@ -381,25 +389,140 @@ public class InterfaceExecutionService {
     /**
      * 记录接口执行日志
      */
-    private void logInterfaceExecution(Interface interfaceInfo, Map<String, Object> requestParams, 
+    private void logInterfaceExecution(String interfaceId, String interfaceName,
                                      InterfaceExecutionResult result, Exception exception) {
         try {
             // 这里应该记录到数据库或日志系统
             // 暂时只记录到应用日志
             if (exception == null) {
                 log.info("接口执行成功 - 接口ID: {}, 接口名称: {}, 执行时间: {}, 返回记录数: {}", 
-                    interfaceInfo.getId(), interfaceInfo.getInterfaceName(), 
-                    result.getExecuteTime(), result.getTotalCount());
+                    interfaceId, interfaceName, result.getExecuteTime(), result.getTotalCount());
             } else {
                 log.error("接口执行失败 - 接口ID: {}, 接口名称: {}, 执行时间: {}, 错误信息: {}", 
-                    interfaceInfo.getId(), interfaceInfo.getInterfaceName(), 
-                    result.getExecuteTime(), exception.getMessage());
+                    interfaceId, interfaceName, result.getExecuteTime(), exception.getMessage());
             }
         } catch (Exception e) {
             log.warn("记录接口执行日志失败", e);
         }
     }
 
+    /**
+     * 接口结果流
+     * 持有数据源的原始响应，关闭时释放底层连接
+     */
+    public static class InterfaceResultStream implements Closeable {
+        private final String interfaceId;
+        private final String interfaceName;
+        private final Response response;
+
+        InterfaceResultStream(String interfaceId, String interfaceName, Response response) {
+            this.interfaceId = interfaceId;
+            this.interfaceName = interfaceName;
+            this.response = response;
+        }
+
+        public String getInterfaceId() { return interfaceId; }
+        public String getInterfaceName() { return interfaceName; }
+
+        InputStream getBody() throws IOException {
+            return response.body().asInputStream();
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+
+    /**
+     * 转发过程中记录最后一个控制行
+     * 数据行以'['开头，元数据、汇总和错误行以'{'开头，只缓存后者
+     */
+    private static final class ControlLineTracker {
+        private final ByteArrayOutputStream current = new ByteArrayOutputStream();
+        private byte[] last;
+        private boolean lineStart = true;
+        private boolean capturing;
+
+        void accept(byte[] buffer, int length) {
+            for (int i = 0; i < length; i++) {
+                byte b = buffer[i];
+                if (lineStart) {
+                    capturing = b == '{';
+                    lineStart = false;
+                }
+                if (b == '\n') {
+                    if (capturing) {
+                        last = current.toByteArray();
+                        current.reset();
+                    }
+                    lineStart = true;
+                    capturing = false;
+                } else if (capturing) {
+                    current.write(b);
+                }
+            }
+        }
+
+        JsonNode lastControlLine(ObjectMapper objectMapper) {
+            if (last == null) {
+                return null;
+            }
+            try {
+                return objectMapper.readTree(last);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 分页总数计算方式
+     */
+    public enum TotalMode {
+        /** 不计算总数 */
+        NONE,
+        /** 精确总数 */
+        EXACT,
+        /** 表统计信息中的估算行数 */
+        ESTIMATED
+    }
+
+    /**
+     * 分页执行结果
+     */
+    public static class InterfacePageResult {
+        private String interfaceId;
+        private String interfaceName;
+        private String executeTime;
+        private List<Map<String, Object>> data;
+        private int pageSize;
+        private boolean hasMore;
+        private String nextPageToken;
+        private Long total;
+        private boolean totalEstimated;
+        
+        // getters and setters
+        public String getInterfaceId() { return interfaceId; }
+        public void setInterfaceId(String interfaceId) { this.interfaceId = interfaceId; }
+        public String getInterfaceName() { return interfaceName; }
+        public void setInterfaceName(String interfaceName) { this.interfaceName = interfaceName; }
+        public String getExecuteTime() { return executeTime; }
+        public void setExecuteTime(String executeTime) { this.executeTime = executeTime; }
+        public List<Map<String, Object>> getData() { return data; }
+        public void setData(List<Map<String, Object>> data) { this.data = data; }
+        public int getPageSize() { return pageSize; }
+        public void setPageSize(int pageSize) { this.pageSize = pageSize; }
+        public boolean isHasMore() { return hasMore; }
+        public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+        public String getNextPageToken() { return nextPageToken; }
+        public void setNextPageToken(String nextPageToken) { this.nextPageToken = nextPageToken; }
+        public Long getTotal() { return total; }
+        public void setTotal(Long total) { this.total = total; }
+        public boolean isTotalEstimated() { return totalEstimated; }
+        public void setTotalEstimated(boolean totalEstimated) { this.totalEstimated = totalEstimated; }
+    }
+
     /**
      * 接口执行结果
      */
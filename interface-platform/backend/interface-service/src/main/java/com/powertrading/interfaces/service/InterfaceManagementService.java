@@ -56,6 +56,9 @@ public class InterfaceManagementService {
     @Autowired
     private GatewayClient gatewayClient;
 
+    @Autowired
+    private InterfaceExecutionPlanCache planCache;
+
     /**
      * 分页查询接口列表
      *
@@ -171,6 +174,7 @@ public class InterfaceManagementService {
             }
             
             interfaceMapper.updateById(updateInterface);
+            planCache.invalidate(interfaceId);
             
             log.info("接口配置更新成功，接口ID: {}, 更新人: {}", interfaceId, updateBy);
             
@@ -235,6 +239,7 @@ public class InterfaceManagementService {
             updateInterface.setId(interfaceId);
             updateInterface.setUpdateBy(updateBy);
             interfaceMapper.updateById(updateInterface);
+            planCache.invalidate(interfaceId);
             
             log.info("接口参数更新成功，接口ID: {}, 参数数量: {}, 更新人: {}", 
                 interfaceId, parameters.size(), updateBy);
@@ -271,6 +276,7 @@ public class InterfaceManagementService {
             
             // 删除接口
             interfaceMapper.deleteById(interfaceId);
+            planCache.invalidate(interfaceId);
             
             log.info("接口删除成功，接口ID: {}, 删除人: {}", interfaceId, deleteBy);
             
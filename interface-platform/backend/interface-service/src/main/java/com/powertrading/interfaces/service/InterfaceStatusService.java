@@ -47,6 +47,9 @@ public class InterfaceStatusService {
     
     @Autowired
     private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private InterfaceExecutionPlanCache planCache;
 
     /**
      * 上架接口
@@ -73,6 +76,9 @@ public class InterfaceStatusService {
                 throw new RuntimeException("更新接口状态失败，接口不存在");
             }
             
+            // 重新编译执行计划
+            planCache.invalidate(interfaceId);
+            
             log.info("接口上架成功，接口ID: {}, 操作人: {}", interfaceId, publishBy);
             
         } catch (Exception e) {
@@ -121,6 +127,9 @@ public class InterfaceStatusService {
                 throw new RuntimeException("更新接口状态失败");
             }
             
+            // 下架后的接口不再使用已缓存的执行计划
+            planCache.invalidate(interfaceId);
+            
             log.info("接口下架成功，接口ID: {}, 接口名称: {}, 下架原因: {}, 操作人: {}", 
                 interfaceId, existingInterface.getInterfaceName(), offlineReason, offlineBy);
             
@@ -161,6 +170,9 @@ public class InterfaceStatusService {
                 throw new RuntimeException("更新接口状态失败，接口不存在或状态不正确");
             }
             
+            // 重新编译执行计划
+            planCache.invalidate(interfaceId);
+            
             log.info("接口重新上架成功，接口ID: {}, 操作人: {}", interfaceId, republishBy);
             
         } catch (Exception e) {
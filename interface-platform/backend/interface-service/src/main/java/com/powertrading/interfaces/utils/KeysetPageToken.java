@@ -0,0 +1,183 @@
+package com.powertrading.interfaces.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * 键集分页令牌
+ * 保存上一页末行的排序字段值及其类型和所属分页查询的标识，编码为URL安全的Base64文本并附带
+ * HMAC-SHA256签名，调用方只需原样回传；签名校验失败（令牌被篡改）或查询标识不匹配
+ * （接口SQL已变更或令牌来自其他接口）时拒绝使用。排序字段值按类型编码，
+ * 日期时间值经JSON往返后仍按datetime绑定，不会退化为字符串比较
+ *
+ * @author PowerTrading Team
+ * @since 2024-01-15
+ */
+public final class KeysetPageToken {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final Pattern DATE_PATTERN = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+
+    private static final Pattern DATETIME_PATTERN = Pattern.compile(
+        "\\d{4}-\\d{2}-\\d{2}[ T]\\d{2}:\\d{2}(:\\d{2}(\\.\\d{1,9})?)?(Z|[+-]\\d{2}:?\\d{2})?");
+
+    private KeysetPageToken() {
+    }
+
+    /**
+     * 编码分页令牌
+     *
+     * @param secret 签名密钥
+     * @param queryId 分页查询标识
+     * @param values 上一页末行的排序字段值
+     * @return 分页令牌
+     * @throws IllegalArgumentException 排序字段值的类型不支持
+     */
+    public static String encode(byte[] secret, String queryId, List<Object> values) {
+        ObjectNode node = OBJECT_MAPPER.createObjectNode();
+        node.put("s", queryId);
+        ArrayNode keys = node.putArray("k");
+        for (Object value : values) {
+            Key key = Key.of(value);
+            keys.addObject().put("t", key.type).put("v", key.value.toString());
+        }
+        String payload = Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(node.toString().getBytes(StandardCharsets.UTF_8));
+        return payload + "." + sign(secret, payload);
+    }
+
+    /**
+     * 解码分页令牌
+     *
+     * @param secret 签名密钥
+     * @param token 分页令牌
+     * @param queryId 当前分页查询标识
+     * @param keyCount 排序字段数量
+     * @return 排序字段值及其类型
+     */
+    public static List<Key> decode(byte[] secret, String token, String queryId, int keyCount) {
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            throw new IllegalArgumentException("分页令牌无效");
+        }
+        String payload = token.substring(0, dot);
+        byte[] expected = sign(secret, payload).getBytes(StandardCharsets.US_ASCII);
+        if (!MessageDigest.isEqual(expected, token.substring(dot + 1).getBytes(StandardCharsets.US_ASCII))) {
+            throw new IllegalArgumentException("分页令牌无效");
+        }
+        JsonNode node;
+        try {
+            node = OBJECT_MAPPER.readTree(Base64.getUrlDecoder().decode(payload));
+        } catch (Exception e) {
+            throw new IllegalArgumentException("分页令牌无效");
+        }
+        if (node == null || !queryId.equals(node.path("s").asText())) {
+            throw new IllegalArgumentException("分页令牌与当前查询不匹配");
+        }
+        JsonNode keys = node.path("k");
+        if (!keys.isArray() || keys.size() != keyCount) {
+            throw new IllegalArgumentException("分页令牌无效");
+        }
+        List<Key> values = new ArrayList<>(keyCount);
+        for (JsonNode key : keys) {
+            values.add(Key.parse(key.path("t").asText(), key.path("v")));
+        }
+        return values;
+    }
+
+    private static String sign(byte[] secret, String payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(mac.doFinal(payload.getBytes(StandardCharsets.US_ASCII)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("分页令牌签名失败", e);
+        }
+    }
+
+    /**
+     * 排序字段值及其绑定类型，类型名称与接口参数类型一致
+     */
+    public static final class Key {
+        private final String type;
+        private final Object value;
+
+        private Key(String type, Object value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        /**
+         * 按查询结果中的值推断类型，日期和日期时间以JSON序列化后的ISO-8601文本识别
+         */
+        static Key of(Object value) {
+            if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                return new Key("long", ((Number) value).longValue());
+            } else if (value instanceof BigDecimal) {
+                return new Key("decimal", ((BigDecimal) value).toPlainString());
+            } else if (value instanceof Double || value instanceof Float) {
+                return new Key("double", ((Number) value).doubleValue());
+            } else if (value instanceof Boolean) {
+                return new Key("boolean", value);
+            } else if (value instanceof String) {
+                String text = (String) value;
+                if (DATE_PATTERN.matcher(text).matches()) {
+                    return new Key("date", text);
+                }
+                if (DATETIME_PATTERN.matcher(text).matches()) {
+                    return new Key("datetime", text);
+                }
+                return new Key("string", text);
+            }
+            throw new IllegalArgumentException("排序字段值类型不支持键集分页: "
+                + (value != null ? value.getClass().getSimpleName() : "null"));
+        }
+
+        static Key parse(String type, JsonNode node) {
+            if (!node.isTextual()) {
+                throw new IllegalArgumentException("分页令牌无效");
+            }
+            String text = node.asText();
+            try {
+                switch (type) {
+                    case "long":
+                        return new Key(type, Long.valueOf(text));
+                    case "decimal":
+                        return new Key(type, new BigDecimal(text).toPlainString());
+                    case "double":
+                        return new Key(type, Double.valueOf(text));
+                    case "boolean":
+                        return new Key(type, Boolean.valueOf(text));
+                    case "date":
+                    case "datetime":
+                    case "string":
+                        return new Key(type, text);
+                    default:
+                        throw new IllegalArgumentException("分页令牌无效");
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("分页令牌无效");
+            }
+        }
+
+        public String getType() { return type; }
+        public Object getValue() { return value; }
+    }
+}
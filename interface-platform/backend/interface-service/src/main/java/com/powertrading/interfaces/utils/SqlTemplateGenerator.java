@@ -200,21 +200,33 @@ public class SqlTemplateGenerator {
      * @return ORDER BY子句
      */
     private String buildOrderByClause(String tableName) {
-        // 根据表名推断排序字段
+        return "ORDER BY " + resolveSortColumns(tableName).stream()
+            .map(column -> column + " DESC")
+            .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * 根据表名推断排序字段，均按降序排列
+     *
+     * @param tableName 表名
+     * @return 排序字段列表
+     */
+    private List<String> resolveSortColumns(String tableName) {
         if (tableName.contains("time") || tableName.contains("date")) {
-            return "ORDER BY data_time DESC";
+            return Collections.singletonList("data_time");
         } else if (tableName.contains("log") || tableName.contains("record")) {
-            return "ORDER BY create_time DESC";
+            return Collections.singletonList("create_time");
         } else if (tableName.contains("plan") || tableName.contains("schedule")) {
-            return "ORDER BY plan_date DESC, create_time DESC";
+            return Arrays.asList("plan_date", "create_time");
         } else {
             // 默认按ID排序
-            return "ORDER BY id DESC";
+            return Collections.singletonList("id");
         }
     }
 
     /**
      * 生成分页SQL模板
+     * 按OFFSET分页，页码越深数据库需要跳过的行越多；生成的接口分页使用{@link #generateKeysetPageTemplate}
      *
      * @param tableName 表名
      * @param parameters 参数列表
@@ -270,6 +282,134 @@ public class SqlTemplateGenerator {
         return sql.toString();
     }
 
+    /**
+     * 生成键集分页SQL模板
+     * 排序字段取自表结构：按表名推断的排序字段只保留表中存在的非空列，末尾追加主键或非空唯一索引的列作为决胜字段；
+     * 下一页以上一页末行的排序字段值为起点，按(k1 < ?) OR (k1 = ? AND k2 < ?)的形式定位，
+     * 配合排序字段上的索引每页只读取本页的行，页码深浅不影响查询耗时；
+     * 表没有主键或非空唯一索引时无法保证翻页不重不漏，不生成键集分页模板
+     *
+     * @param tableName 表名
+     * @param parameters 参数列表
+     * @param dialect 数据源类型（mysql、postgresql、oracle、sqlserver等），决定每页行数的写法和估算总数的查询方式，可为空
+     * @param tableKeys 表的主键、唯一索引和非空列
+     * @return 键集分页SQL模板，表缺少唯一键时返回null
+     */
+    public KeysetPageTemplate generateKeysetPageTemplate(String tableName,
+                                                         List<InterfaceGenerationRequest.ParameterConfiguration> parameters,
+                                                         String dialect, TableKeys tableKeys) {
+        List<String> sortColumns = resolveKeysetSortColumns(tableName, tableKeys);
+        if (sortColumns.isEmpty()) {
+            return null;
+        }
+        List<String> whereConditions = buildWhereConditions(parameters);
+        String orderByClause = " ORDER BY " + sortColumns.stream()
+            .map(column -> column + " DESC")
+            .collect(Collectors.joining(", "));
+        String limitClause = buildPageLimitClause(dialect);
+
+        StringBuilder firstPage = new StringBuilder("SELECT * FROM ").append(tableName);
+        if (!whereConditions.isEmpty()) {
+            firstPage.append(" WHERE ").append(String.join(" AND ", whereConditions));
+        }
+        firstPage.append(orderByClause).append(limitClause);
+
+        List<String> seekConditions = new ArrayList<>(whereConditions);
+        seekConditions.add(buildSeekCondition(sortColumns));
+        String seekPage = "SELECT * FROM " + tableName + " WHERE " + String.join(" AND ", seekConditions)
+            + orderByClause + limitClause;
+
+        return new KeysetPageTemplate(firstPage.toString(), seekPage, sortColumns,
+            generateCountSqlTemplate(tableName, parameters), generateEstimatedCountSqlTemplate(dialect), tableName);
+    }
+
+    /**
+     * 确定键集分页的排序字段
+     * 按表名推断的字段在表中存在且非空时作为前导排序字段，唯一键的列作为决胜字段
+     *
+     * @return 排序字段，表缺少唯一键时为空列表
+     */
+    private List<String> resolveKeysetSortColumns(String tableName, TableKeys tableKeys) {
+        List<String> uniqueKey = tableKeys != null ? tableKeys.resolveUniqueKey() : Collections.emptyList();
+        if (uniqueKey.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> sortColumns = new ArrayList<>();
+        for (String candidate : resolveSortColumns(tableName)) {
+            String column = tableKeys.findNonNullColumn(candidate);
+            if (column != null && !containsIgnoreCase(uniqueKey, column) && !containsIgnoreCase(sortColumns, column)) {
+                sortColumns.add(column);
+            }
+        }
+        sortColumns.addAll(uniqueKey);
+        return sortColumns;
+    }
+
+    private static boolean containsIgnoreCase(List<String> columns, String column) {
+        return columns.stream().anyMatch(column::equalsIgnoreCase);
+    }
+
+    /**
+     * 按数据源类型生成限制每页行数的子句，Oracle和SQL Server不支持LIMIT
+     */
+    private static String buildPageLimitClause(String dialect) {
+        String limitParam = "#{" + KeysetPageTemplate.LIMIT_PARAM + "}";
+        switch (dialect != null ? dialect.trim().toLowerCase() : "") {
+            case "oracle":
+                return " FETCH FIRST " + limitParam + " ROWS ONLY";
+            case "sqlserver":
+                return " OFFSET 0 ROWS FETCH NEXT " + limitParam + " ROWS ONLY";
+            default:
+                return " LIMIT " + limitParam;
+        }
+    }
+
+    /**
+     * 生成估算总数SQL模板，从当前库的表统计信息中读取行数，表名以参数绑定
+     *
+     * @param dialect 数据源类型
+     * @return 估算总数SQL模板，数据源类型不支持时返回null
+     */
+    private String generateEstimatedCountSqlTemplate(String dialect) {
+        String tableParam = "#{" + KeysetPageTemplate.TABLE_NAME_PARAM + "}";
+        String type = dialect != null ? dialect.trim().toLowerCase() : "";
+        switch (type) {
+            case "mysql":
+            case "mariadb":
+                return "SELECT TABLE_ROWS AS total FROM information_schema.TABLES"
+                    + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = " + tableParam;
+            case "postgresql":
+                // 从未ANALYZE过的表reltuples为-1
+                return "SELECT GREATEST(CAST(c.reltuples AS BIGINT), 0) AS total FROM pg_class c"
+                    + " JOIN pg_namespace n ON n.oid = c.relnamespace"
+                    + " WHERE n.nspname = current_schema() AND c.relname = " + tableParam;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * 构建降序键集的定位条件
+     * 首个排序字段额外加上范围条件，使优化器可以直接按索引范围扫描
+     */
+    private String buildSeekCondition(List<String> sortColumns) {
+        List<String> alternatives = new ArrayList<>(sortColumns.size());
+        for (int i = 0; i < sortColumns.size(); i++) {
+            StringBuilder alternative = new StringBuilder();
+            for (int j = 0; j < i; j++) {
+                alternative.append(sortColumns.get(j)).append(" = ").append(cursorParam(j)).append(" AND ");
+            }
+            alternative.append(sortColumns.get(i)).append(" < ").append(cursorParam(i));
+            alternatives.add(i == 0 ? alternative.toString() : "(" + alternative + ")");
+        }
+        return "(" + sortColumns.get(0) + " <= " + cursorParam(0)
+            + " AND (" + String.join(" OR ", alternatives) + "))";
+    }
+
+    private static String cursorParam(int index) {
+        return "#{" + KeysetPageTemplate.CURSOR_PARAM_PREFIX + index + "}";
+    }
+
     /**
      * 验证SQL模板语法
      *
@@ -554,6 +694,125 @@ public class SqlTemplateGenerator {
         public void setFormatSql(boolean formatSql) { this.formatSql = formatSql; }
     }
 
+    /**
+     * 键集分页SQL模板
+     */
+    public static class KeysetPageTemplate {
+
+        /**
+         * 每页行数参数名
+         */
+        public static final String LIMIT_PARAM = "__pageLimit";
+
+        /**
+         * 定位参数名前缀，后接排序字段序号
+         */
+        public static final String CURSOR_PARAM_PREFIX = "__cursor";
+
+        /**
+         * 估算总数SQL中的表名参数名
+         */
+        public static final String TABLE_NAME_PARAM = "__tableName";
+
+        private final String firstPageSql;
+        private final String seekPageSql;
+        private final List<String> sortColumns;
+        private final String countSql;
+        private final String estimatedCountSql;
+        private final String tableName;
+
+        public KeysetPageTemplate(String firstPageSql, String seekPageSql, List<String> sortColumns,
+                                  String countSql, String estimatedCountSql, String tableName) {
+            this.firstPageSql = firstPageSql;
+            this.seekPageSql = seekPageSql;
+            this.sortColumns = Collections.unmodifiableList(new ArrayList<>(sortColumns));
+            this.countSql = countSql;
+            this.estimatedCountSql = estimatedCountSql;
+            this.tableName = tableName;
+        }
+
+        /**
+         * 首页SQL模板
+         */
+        public String getFirstPageSql() { return firstPageSql; }
+
+        /**
+         * 后续页SQL模板，从上一页末行之后开始
+         */
+        public String getSeekPageSql() { return seekPageSql; }
+
+        /**
+         * 排序字段，均为降序，末尾为主键或唯一索引的列
+         */
+        public List<String> getSortColumns() { return sortColumns; }
+
+        /**
+         * 精确总数SQL模板
+         */
+        public String getCountSql() { return countSql; }
+
+        /**
+         * 估算总数SQL模板，取表统计信息中的行数，不受查询条件影响；数据源类型不支持时为null
+         */
+        public String getEstimatedCountSql() { return estimatedCountSql; }
+
+        /**
+         * 表名，绑定到估算总数SQL
+         */
+        public String getTableName() { return tableName; }
+    }
+
+    /**
+     * 表的唯一键信息，来自数据源的表结构，用于确定键集分页的排序字段
+     */
+    public static class TableKeys {
+
+        private final List<String> primaryKeys;
+
+        /**
+         * 唯一索引名到索引列的映射，索引列按在索引中的顺序排列
+         */
+        private final Map<String, List<String>> uniqueIndexes;
+
+        /**
+         * 非空列，小写列名到原列名的映射
+         */
+        private final Map<String, String> nonNullColumns = new HashMap<>();
+
+        public TableKeys(List<String> primaryKeys, Map<String, List<String>> uniqueIndexes,
+                         Collection<String> nonNullColumns) {
+            this.primaryKeys = primaryKeys != null ? new ArrayList<>(primaryKeys) : Collections.emptyList();
+            this.uniqueIndexes = uniqueIndexes != null ? new LinkedHashMap<>(uniqueIndexes) : Collections.emptyMap();
+            if (nonNullColumns != null) {
+                nonNullColumns.forEach(column -> this.nonNullColumns.put(column.toLowerCase(), column));
+            }
+        }
+
+        /**
+         * 唯一键：优先取主键，没有主键时取第一个列均非空的唯一索引，都没有时返回空列表
+         */
+        public List<String> resolveUniqueKey() {
+            if (!primaryKeys.isEmpty()) {
+                return primaryKeys;
+            }
+            for (List<String> columns : uniqueIndexes.values()) {
+                if (!columns.isEmpty() && columns.stream().allMatch(column -> findNonNullColumn(column) != null)) {
+                    return columns;
+                }
+            }
+            return Collections.emptyList();
+        }
+
+        /**
+         * 按列名（不区分大小写）查找非空列
+         *
+         * @return 表中的列名，列不存在或可为空时返回null
+         */
+        public String findNonNullColumn(String columnName) {
+            return nonNullColumns.get(columnName.toLowerCase());
+        }
+    }
+
     /**
      * SQL验证结果
      */
@@ -0,0 +1,163 @@
+package com.powertrading.interfaces.service;
+
+import com.powertrading.interfaces.client.DataSourceClient;
+import com.powertrading.interfaces.entity.Interface;
+import com.powertrading.interfaces.mapper.InterfaceMapper;
+import com.powertrading.interfaces.mapper.InterfaceParameterMapper;
+import com.powertrading.interfaces.utils.SqlTemplateGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 接口执行计划缓存单元测试
+ *
+ * @author PowerTrading Team
+ * @since 2024-01-15
+ */
+class InterfaceExecutionPlanCacheTest {
+
+    private InterfaceExecutionPlanCache planCache;
+
+    private InterfaceMapper interfaceMapper;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        interfaceMapper = mock(InterfaceMapper.class);
+        InterfaceParameterMapper parameterMapper = mock(InterfaceParameterMapper.class);
+        when(parameterMapper.selectByInterfaceId(anyString())).thenReturn(Collections.emptyList());
+
+        planCache = new InterfaceExecutionPlanCache();
+        ReflectionTestUtils.setField(planCache, "interfaceMapper", interfaceMapper);
+        ReflectionTestUtils.setField(planCache, "parameterMapper", parameterMapper);
+        ReflectionTestUtils.setField(planCache, "sqlTemplateGenerator", mock(SqlTemplateGenerator.class));
+        ReflectionTestUtils.setField(planCache, "dataSourceClient", mock(DataSourceClient.class));
+        ReflectionTestUtils.setField(planCache, "planCacheExpire", 300L);
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testGetPlan_ConcurrentMissesCompileOnce() throws Exception {
+        CountDownLatch compiling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        when(interfaceMapper.selectById("if-1")).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            compiling.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return createInterface("if-1", "SELECT 1");
+        });
+
+        Future<InterfaceExecutionPlan> leader = executor.submit(() -> planCache.getPlan("if-1"));
+        assertTrue(compiling.await(5, TimeUnit.SECONDS));
+        Future<InterfaceExecutionPlan> follower = executor.submit(() -> planCache.getPlan("if-1"));
+        release.countDown();
+
+        assertSame(leader.get(5, TimeUnit.SECONDS), follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testGetPlan_CompileDoesNotBlockOtherInterfaces() throws Exception {
+        CountDownLatch compiling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(interfaceMapper.selectById("if-1")).thenAnswer(invocation -> {
+            compiling.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return createInterface("if-1", "SELECT 1");
+        });
+        when(interfaceMapper.selectById("if-2")).thenReturn(createInterface("if-2", "SELECT 2"));
+
+        Future<InterfaceExecutionPlan> slow = executor.submit(() -> planCache.getPlan("if-1"));
+        assertTrue(compiling.await(5, TimeUnit.SECONDS));
+
+        // if-1仍在编译，if-2不受影响
+        Future<InterfaceExecutionPlan> other = executor.submit(() -> planCache.getPlan("if-2"));
+        assertEquals("SELECT 2", other.get(2, TimeUnit.SECONDS).getPreparedSql());
+
+        release.countDown();
+        assertEquals("SELECT 1", slow.get(5, TimeUnit.SECONDS).getPreparedSql());
+    }
+
+    @Test
+    void testInvalidate_DuringCompileDoesNotCacheStalePlan() throws Exception {
+        CountDownLatch compiling = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(interfaceMapper.selectById("if-1"))
+            .thenAnswer(invocation -> {
+                compiling.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return createInterface("if-1", "SELECT 'old'");
+            })
+            .thenReturn(createInterface("if-1", "SELECT 'new'"));
+
+        Future<InterfaceExecutionPlan> stale = executor.submit(() -> planCache.getPlan("if-1"));
+        assertTrue(compiling.await(5, TimeUnit.SECONDS));
+        planCache.invalidate("if-1");
+        release.countDown();
+
+        assertEquals("SELECT 'old'", stale.get(5, TimeUnit.SECONDS).getPreparedSql());
+        assertEquals("SELECT 'new'", planCache.getPlan("if-1").getPreparedSql());
+        verify(interfaceMapper, times(2)).selectById("if-1");
+    }
+
+    @Test
+    void testGetPlan_FailureNotCached() {
+        Interface offline = createInterface("if-1", "SELECT 1");
+        offline.setStatus(Interface.STATUS_OFFLINE);
+        when(interfaceMapper.selectById("if-1"))
+            .thenReturn(offline)
+            .thenReturn(createInterface("if-1", "SELECT 1"));
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> planCache.getPlan("if-1"));
+        assertEquals("接口未上架，无法执行", e.getMessage());
+        assertEquals(0, planCache.size());
+
+        assertNotNull(planCache.getPlan("if-1"));
+        assertEquals(1, planCache.size());
+    }
+
+    @Test
+    void testGetPlan_ExpiredPlanRecompiled() throws Exception {
+        ReflectionTestUtils.setField(planCache, "planCacheExpire", 0L);
+        when(interfaceMapper.selectById("if-1")).thenReturn(createInterface("if-1", "SELECT 1"));
+        InterfaceExecutionPlan first = planCache.getPlan("if-1");
+        assertSame(first, planCache.getPlan("if-1"));
+
+        ReflectionTestUtils.setField(planCache, "planCacheExpire", 1L);
+        Thread.sleep(1100);
+
+        assertNotSame(first, planCache.getPlan("if-1"));
+        verify(interfaceMapper, times(2)).selectById("if-1");
+    }
+
+    private static Interface createInterface(String id, String sqlTemplate) {
+        Interface interfaceInfo = new Interface();
+        interfaceInfo.setId(id);
+        interfaceInfo.setInterfaceName("测试接口");
+        interfaceInfo.setDataSourceId("1");
+        interfaceInfo.setStatus(Interface.STATUS_PUBLISHED);
+        interfaceInfo.setSqlTemplate(sqlTemplate);
+        return interfaceInfo;
+    }
+}
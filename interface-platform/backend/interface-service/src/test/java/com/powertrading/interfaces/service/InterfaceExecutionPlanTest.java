@@ -0,0 +1,170 @@
+package com.powertrading.interfaces.service;
+
+import com.powertrading.interfaces.client.DataSourceClient;
+import com.powertrading.interfaces.entity.Interface;
+import com.powertrading.interfaces.entity.InterfaceParameter;
+import com.powertrading.interfaces.utils.KeysetPageToken;
+import com.powertrading.interfaces.utils.SqlTemplateGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 接口执行计划单元测试
+ *
+ * @author PowerTrading Team
+ * @since 2024-01-15
+ */
+class InterfaceExecutionPlanTest {
+
+    @Test
+    void testBind_PlaceholdersBecomeTypedBindParameters() {
+        InterfaceExecutionPlan plan = InterfaceExecutionPlan.compile(
+            createInterface("SELECT * FROM t WHERE name = #{name} AND age > {age} AND active = {active} AND note = {note}"),
+            Arrays.asList(createParameter("name", "string", null),
+                createParameter("age", "Integer", null),
+                createParameter("active", "boolean", null)));
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", "O'Connor");
+        params.put("age", 18);
+        params.put("active", "TRUE");
+
+        assertEquals("SELECT * FROM t WHERE name = ? AND age > ? AND active = ? AND note = ?", plan.getPreparedSql());
+        List<DataSourceClient.BindParameter> bindParameters = plan.bind(params);
+        assertEquals(4, bindParameters.size());
+        assertEquals("string", bindParameters.get(0).getType());
+        assertEquals("O'Connor", bindParameters.get(0).getValue());
+        assertEquals("integer", bindParameters.get(1).getType());
+        assertEquals(18, bindParameters.get(1).getValue());
+        assertEquals("boolean", bindParameters.get(2).getType());
+        assertNull(bindParameters.get(3).getType());
+        assertNull(bindParameters.get(3).getValue());
+    }
+
+    @Test
+    void testPreparedSql_RepeatedPlaceholderAndLiterals() {
+        InterfaceExecutionPlan plan = InterfaceExecutionPlan.compile(
+            createInterface("SELECT '{}', '{id}' FROM t WHERE a = {id} OR b = #{id} {"),
+            Collections.singletonList(createParameter("id", "long", null)));
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("id", 7L);
+
+        assertEquals("SELECT '{}', '{id}' FROM t WHERE a = ? OR b = ? {", plan.getPreparedSql());
+        assertEquals(2, plan.bind(params).size());
+        assertEquals(7L, plan.bind(params).get(1).getValue());
+    }
+
+    @Test
+    void testValidate_RequiredAndType() {
+        InterfaceExecutionPlan plan = InterfaceExecutionPlan.compile(createInterface("SELECT 1"),
+            Collections.singletonList(createParameter("age", "integer", null)));
+
+        RuntimeException missing = assertThrows(RuntimeException.class, () -> plan.validate(new HashMap<>()));
+        assertEquals("必填参数缺失: age", missing.getMessage());
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("age", "abc");
+        RuntimeException wrongType = assertThrows(RuntimeException.class, () -> plan.validate(params));
+        assertEquals("参数 age 类型错误，期望类型: integer", wrongType.getMessage());
+    }
+
+    @Test
+    void testValidate_PrecompiledRules() {
+        InterfaceExecutionPlan plan = InterfaceExecutionPlan.compile(createInterface("SELECT 1"),
+            Collections.singletonList(createParameter("code", "string", "length:2-4,regex:[A-Z]+")));
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("code", "AB");
+        assertDoesNotThrow(() -> plan.validate(params));
+
+        params.put("code", "ABCDE");
+        assertEquals("参数 code 长度必须在 2-4 之间",
+            assertThrows(RuntimeException.class, () -> plan.validate(params)).getMessage());
+
+        params.put("code", "ab");
+        assertEquals("参数 code 格式不正确",
+            assertThrows(RuntimeException.class, () -> plan.validate(params)).getMessage());
+    }
+
+    @Test
+    void testKeysetPage_BindsCursorAndLimit() {
+        SqlTemplateGenerator.KeysetPageTemplate template = new SqlTemplateGenerator.KeysetPageTemplate(
+            "SELECT * FROM t WHERE name = #{name} ORDER BY data_time DESC, id DESC LIMIT #{__pageLimit}",
+            "SELECT * FROM t WHERE name = #{name} AND (data_time <= #{__cursor0} AND (data_time < #{__cursor0}"
+                + " OR (data_time = #{__cursor0} AND id < #{__cursor1}))) ORDER BY data_time DESC, id DESC LIMIT #{__pageLimit}",
+            Arrays.asList("data_time", "id"), "SELECT COUNT(*) as total FROM t WHERE name = #{name}",
+            "SELECT TABLE_ROWS AS total FROM information_schema.TABLES WHERE TABLE_NAME = #{__tableName}", "t");
+        InterfaceExecutionPlan plan = InterfaceExecutionPlan.compile(createInterface("SELECT * FROM t"),
+            Collections.singletonList(createParameter("name", "string", null)), template);
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", "a");
+
+        assertTrue(plan.supportsKeysetPagination());
+        assertEquals("SELECT * FROM t WHERE name = ? ORDER BY data_time DESC, id DESC LIMIT ?", plan.getPageSql(false));
+        List<DataSourceClient.BindParameter> firstPage = plan.bindPage(params, null, 11);
+        assertEquals(2, firstPage.size());
+        assertEquals("integer", firstPage.get(1).getType());
+        assertEquals(11, firstPage.get(1).getValue());
+
+        // 定位值经分页令牌往返后按记录的类型绑定
+        byte[] secret = "secret".getBytes(StandardCharsets.UTF_8);
+        String token = KeysetPageToken.encode(secret, plan.getKeysetQueryId(),
+            Arrays.asList("2024-01-02T10:00:00.000+00:00", 42));
+        List<DataSourceClient.BindParameter> nextPage = plan.bindPage(params,
+            KeysetPageToken.decode(secret, token, plan.getKeysetQueryId(), 2), 11);
+        assertEquals(6, nextPage.size());
+        assertEquals("a", nextPage.get(0).getValue());
+        assertEquals("datetime", nextPage.get(1).getType());
+        assertEquals("2024-01-02T10:00:00.000+00:00", nextPage.get(3).getValue());
+        assertEquals("long", nextPage.get(4).getType());
+        assertEquals(42L, nextPage.get(4).getValue());
+        assertEquals(11, nextPage.get(5).getValue());
+        assertEquals(1, plan.bindCount(params).size());
+
+        assertTrue(plan.supportsEstimatedCount());
+        assertEquals("SELECT TABLE_ROWS AS total FROM information_schema.TABLES WHERE TABLE_NAME = ?",
+            plan.getEstimatedCountSql());
+        List<DataSourceClient.BindParameter> estimated = plan.bindEstimatedCount();
+        assertEquals("string", estimated.get(0).getType());
+        assertEquals("t", estimated.get(0).getValue());
+        assertTrue(plan.getKeysetQueryId().startsWith("if-1:"));
+    }
+
+    @Test
+    void testKeysetPage_UnsupportedWithoutTemplate() {
+        InterfaceExecutionPlan plan = InterfaceExecutionPlan.compile(createInterface("SELECT 1"), Collections.emptyList());
+
+        assertFalse(plan.supportsKeysetPagination());
+        assertEquals("接口不支持键集分页",
+            assertThrows(RuntimeException.class, () -> plan.getPageSql(false)).getMessage());
+    }
+
+    private Interface createInterface(String sqlTemplate) {
+        Interface interfaceInfo = new Interface();
+        interfaceInfo.setId("if-1");
+        interfaceInfo.setInterfaceName("测试接口");
+        interfaceInfo.setDataSourceId("1");
+        interfaceInfo.setStatus(Interface.STATUS_PUBLISHED);
+        interfaceInfo.setSqlTemplate(sqlTemplate);
+        return interfaceInfo;
+    }
+
+    private InterfaceParameter createParameter(String name, String type, String validationRule) {
+        InterfaceParameter parameter = new InterfaceParameter();
+        parameter.setParamName(name);
+        parameter.setParamType(type);
+        parameter.setRequired(true);
+        parameter.setValidationRule(validationRule);
+        return parameter;
+    }
+}
@@ -0,0 +1,201 @@
+package com.powertrading.interfaces.utils;
+
+import com.powertrading.interfaces.dto.InterfaceGenerationRequest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SQL模板生成器单元测试
+ *
+ * @author PowerTrading Team
+ * @since 2024-01-15
+ */
+class SqlTemplateGeneratorTest {
+
+    private final SqlTemplateGenerator generator = new SqlTemplateGenerator();
+
+    private static final byte[] SECRET = "page-token-secret".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void testGenerateSqlTemplate_OrderByUnchanged() {
+        assertEquals("SELECT * FROM unit_plan WHERE unit_name LIKE CONCAT('%', #{unitName}, '%')"
+                + " ORDER BY plan_date DESC, create_time DESC LIMIT 1000",
+            generator.generateSqlTemplate("unit_plan", parameters()));
+        assertEquals("SELECT * FROM spot_clearing ORDER BY id DESC LIMIT 1000",
+            generator.generateSqlTemplate("spot_clearing", Collections.emptyList()));
+    }
+
+    @Test
+    void testGenerateKeysetPageTemplate_SeekOnSortColumnsWithPrimaryKeyTieBreaker() {
+        SqlTemplateGenerator.KeysetPageTemplate template =
+            generator.generateKeysetPageTemplate("unit_plan", parameters(), "mysql", unitPlanKeys());
+
+        assertEquals(Arrays.asList("plan_date", "create_time", "id"), template.getSortColumns());
+        assertEquals("SELECT * FROM unit_plan WHERE unit_name LIKE CONCAT('%', #{unitName}, '%')"
+                + " ORDER BY plan_date DESC, create_time DESC, id DESC LIMIT #{__pageLimit}",
+            template.getFirstPageSql());
+        assertEquals("SELECT * FROM unit_plan WHERE unit_name LIKE CONCAT('%', #{unitName}, '%')"
+                + " AND (plan_date <= #{__cursor0} AND (plan_date < #{__cursor0}"
+                + " OR (plan_date = #{__cursor0} AND create_time < #{__cursor1})"
+                + " OR (plan_date = #{__cursor0} AND create_time = #{__cursor1} AND id < #{__cursor2})))"
+                + " ORDER BY plan_date DESC, create_time DESC, id DESC LIMIT #{__pageLimit}",
+            template.getSeekPageSql());
+        assertEquals("SELECT COUNT(*) as total FROM unit_plan WHERE unit_name LIKE CONCAT('%', #{unitName}, '%')",
+            template.getCountSql());
+        assertEquals("SELECT TABLE_ROWS AS total FROM information_schema.TABLES"
+            + " WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = #{__tableName}", template.getEstimatedCountSql());
+        assertEquals("unit_plan", template.getTableName());
+    }
+
+    @Test
+    void testGenerateKeysetPageTemplate_EstimatedCountByDialect() {
+        assertTrue(generator.generateKeysetPageTemplate("unit_plan", parameters(), "PostgreSQL", unitPlanKeys())
+            .getEstimatedCountSql().endsWith("c.relname = #{__tableName}"));
+        assertNull(generator.generateKeysetPageTemplate("unit_plan", parameters(), "oracle", unitPlanKeys())
+            .getEstimatedCountSql());
+        assertNull(generator.generateKeysetPageTemplate("unit_plan", parameters(), null, unitPlanKeys())
+            .getEstimatedCountSql());
+    }
+
+    @Test
+    void testGenerateKeysetPageTemplate_IdOrderedTableWithoutConditions() {
+        SqlTemplateGenerator.KeysetPageTemplate template =
+            generator.generateKeysetPageTemplate("spot_clearing", Collections.emptyList(), "mysql",
+                new SqlTemplateGenerator.TableKeys(Collections.singletonList("id"), null,
+                    Collections.singletonList("id")));
+
+        assertEquals(Collections.singletonList("id"), template.getSortColumns());
+        assertEquals("SELECT * FROM spot_clearing WHERE (id <= #{__cursor0} AND (id < #{__cursor0}))"
+            + " ORDER BY id DESC LIMIT #{__pageLimit}", template.getSeekPageSql());
+    }
+
+    @Test
+    void testGenerateKeysetPageTemplate_TableWithoutIdUsesPrimaryKey() {
+        // 表没有id列，主键为trade_no，data_time可为空不作为排序字段
+        SqlTemplateGenerator.KeysetPageTemplate template = generator.generateKeysetPageTemplate("trade_time_series",
+            Collections.emptyList(), "mysql", new SqlTemplateGenerator.TableKeys(
+                Collections.singletonList("TRADE_NO"), null, Collections.singletonList("TRADE_NO")));
+
+        assertEquals(Collections.singletonList("TRADE_NO"), template.getSortColumns());
+        assertFalse(template.getFirstPageSql().contains("id"));
+        assertFalse(template.getFirstPageSql().contains("data_time"));
+        assertEquals("SELECT * FROM trade_time_series ORDER BY TRADE_NO DESC LIMIT #{__pageLimit}",
+            template.getFirstPageSql());
+    }
+
+    @Test
+    void testGenerateKeysetPageTemplate_NonNullUniqueIndexWhenNoPrimaryKey() {
+        Map<String, List<String>> uniqueIndexes = new LinkedHashMap<>();
+        uniqueIndexes.put("uk_nullable", Collections.singletonList("external_ref"));
+        uniqueIndexes.put("uk_unit_time", Arrays.asList("unit_code", "data_time"));
+
+        SqlTemplateGenerator.KeysetPageTemplate template = generator.generateKeysetPageTemplate("unit_time_data",
+            Collections.emptyList(), "mysql", new SqlTemplateGenerator.TableKeys(Collections.emptyList(),
+                uniqueIndexes, Arrays.asList("unit_code", "DATA_TIME")));
+
+        // 推断的data_time已在唯一键中，不重复排序
+        assertEquals(Arrays.asList("unit_code", "data_time"), template.getSortColumns());
+    }
+
+    @Test
+    void testGenerateKeysetPageTemplate_NoUniqueKeySkipsKeysetPaging() {
+        assertNull(generator.generateKeysetPageTemplate("unit_plan", parameters(), "mysql",
+            new SqlTemplateGenerator.TableKeys(Collections.emptyList(),
+                Collections.singletonMap("uk_nullable", Collections.singletonList("external_ref")),
+                Arrays.asList("plan_date", "create_time"))));
+        assertNull(generator.generateKeysetPageTemplate("unit_plan", parameters(), "mysql", null));
+    }
+
+    @Test
+    void testGenerateKeysetPageTemplate_LimitClauseByDialect() {
+        assertTrue(generator.generateKeysetPageTemplate("unit_plan", parameters(), "Oracle", unitPlanKeys())
+            .getSeekPageSql().endsWith("ORDER BY plan_date DESC, create_time DESC, id DESC"
+                + " FETCH FIRST #{__pageLimit} ROWS ONLY"));
+        assertTrue(generator.generateKeysetPageTemplate("unit_plan", parameters(), "sqlserver", unitPlanKeys())
+            .getFirstPageSql().endsWith("ORDER BY plan_date DESC, create_time DESC, id DESC"
+                + " OFFSET 0 ROWS FETCH NEXT #{__pageLimit} ROWS ONLY"));
+        assertTrue(generator.generateKeysetPageTemplate("unit_plan", parameters(), "postgresql", unitPlanKeys())
+            .getFirstPageSql().endsWith(" LIMIT #{__pageLimit}"));
+    }
+
+    @Test
+    void testKeysetPageToken_RoundTripAndSignatureCheck() {
+        String token = KeysetPageToken.encode(SECRET, "abc", Arrays.asList("2024-01-02 10:00:00", 42));
+
+        List<KeysetPageToken.Key> keys = KeysetPageToken.decode(SECRET, token, "abc", 2);
+        assertEquals("datetime", keys.get(0).getType());
+        assertEquals("2024-01-02 10:00:00", keys.get(0).getValue());
+        assertEquals("long", keys.get(1).getType());
+        assertEquals(42L, keys.get(1).getValue());
+        assertFalse(token.contains("2024"));
+
+        assertEquals("分页令牌与当前查询不匹配",
+            assertThrows(IllegalArgumentException.class, () -> KeysetPageToken.decode(SECRET, token, "other", 2)).getMessage());
+        assertEquals("分页令牌无效",
+            assertThrows(IllegalArgumentException.class, () -> KeysetPageToken.decode(SECRET, token, "abc", 3)).getMessage());
+        assertEquals("分页令牌无效",
+            assertThrows(IllegalArgumentException.class, () -> KeysetPageToken.decode(SECRET, "%%%", "abc", 2)).getMessage());
+    }
+
+    @Test
+    void testKeysetPageToken_TamperedOrForeignTokenRejected() {
+        String token = KeysetPageToken.encode(SECRET, "abc", Collections.singletonList(42));
+        String payload = token.substring(0, token.indexOf('.'));
+        String forged = KeysetPageToken.encode(SECRET, "abc", Collections.singletonList(41));
+
+        // 替换载荷后签名不再匹配
+        assertThrows(IllegalArgumentException.class, () -> KeysetPageToken.decode(SECRET,
+            forged.substring(0, forged.indexOf('.')) + token.substring(token.indexOf('.')), "abc", 1));
+        assertThrows(IllegalArgumentException.class, () -> KeysetPageToken.decode(SECRET, payload, "abc", 1));
+        // 其他密钥签发的令牌
+        assertThrows(IllegalArgumentException.class, () -> KeysetPageToken.decode(
+            "other-secret".getBytes(StandardCharsets.UTF_8), token, "abc", 1));
+    }
+
+    @Test
+    void testKeysetPageToken_ValuesKeepColumnType() {
+        List<Object> values = Arrays.asList("2024-01-02T10:00:00.000+00:00", "2024-01-02", "P-001",
+            new java.math.BigDecimal("12.50"), 1.5d, true);
+        List<KeysetPageToken.Key> keys = KeysetPageToken.decode(SECRET,
+            KeysetPageToken.encode(SECRET, "abc", values), "abc", values.size());
+
+        assertEquals("datetime", keys.get(0).getType());
+        assertEquals("2024-01-02T10:00:00.000+00:00", keys.get(0).getValue());
+        assertEquals("date", keys.get(1).getType());
+        assertEquals("string", keys.get(2).getType());
+        assertEquals("decimal", keys.get(3).getType());
+        assertEquals("12.50", keys.get(3).getValue());
+        assertEquals("double", keys.get(4).getType());
+        assertEquals(1.5d, keys.get(4).getValue());
+        assertEquals("boolean", keys.get(5).getType());
+        assertEquals(true, keys.get(5).getValue());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> KeysetPageToken.encode(SECRET, "abc", Collections.singletonList(new Object())));
+    }
+
+    private static SqlTemplateGenerator.TableKeys unitPlanKeys() {
+        return new SqlTemplateGenerator.TableKeys(Collections.singletonList("id"), null,
+            Arrays.asList("id", "plan_date", "create_time"));
+    }
+
+    private static List<InterfaceGenerationRequest.ParameterConfiguration> parameters() {
+        InterfaceGenerationRequest.ParameterConfiguration unitName = new InterfaceGenerationRequest.ParameterConfiguration();
+        unitName.setParamName("unitName");
+        unitName.setParamType("string");
+        unitName.setRequired(true);
+        InterfaceGenerationRequest.ParameterConfiguration optional = new InterfaceGenerationRequest.ParameterConfiguration();
+        optional.setParamName("marketType");
+        optional.setParamType("string");
+        optional.setRequired(false);
+        return Arrays.asList(unitName, optional);
+    }
+}